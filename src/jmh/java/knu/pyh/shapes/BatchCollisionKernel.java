@@ -0,0 +1,37 @@
+package knu.pyh.shapes;
+
+// 도형 하나와 후보 도형 여러 개를 한 번에 검사하는 좁은 단계 커널
+// 결과는 항상 NarrowPhase.overlaps를 후보마다 부른 것과 같다 (구현은 배열 배치와 명령 수준 병렬성만 다르다)
+// 구현은 작업용 배열을 재사용하므로 스레드마다 따로 만들어 쓴다
+public interface BatchCollisionKernel {
+
+    String getName();
+
+    // results[c] = NarrowPhase.overlaps(scene, i, scene, candidates[c])  (0 <= c < count)
+    void overlaps(Scene scene, int i, int[] candidates, int count, boolean[] results);
+
+    static BatchCollisionKernel scalar() {
+        return new ScalarBatchKernel();
+    }
+
+    // jdk.incubator.vector 커널 - 모듈이 없거나(--add-modules 없이 실행) -Dshapes.vector=false이면 null
+    static BatchCollisionKernel vector() {
+        if (!Boolean.parseBoolean(System.getProperty("shapes.vector", "true"))) {
+            return null;
+        }
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return new VectorBatchKernel();
+        } catch (LinkageError e) {
+            return null;
+        }
+    }
+
+    // 쓸 수 있으면 Vector API, 아니면 스칼라
+    static BatchCollisionKernel best() {
+        BatchCollisionKernel vector = vector();
+        return vector != null ? vector : scalar();
+    }
+}
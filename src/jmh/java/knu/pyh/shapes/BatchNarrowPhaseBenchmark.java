@@ -0,0 +1,83 @@
+package knu.pyh.shapes;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 도형 하나 대 후보 묶음 좁은 단계 - 스칼라(NarrowPhase.overlaps 반복) / Vector API 레인 병렬
+// 후보는 기준 도형 둘레에 무작위 거리로 놓아 겹치는 쌍과 떨어진 쌍이 섞이게 한다
+// vector는 --add-modules jdk.incubator.vector로 실행해야 하며 (build.gradle의 jmh jvmArgsAppend), 없으면 스칼라로 측정된다
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(BatchNarrowPhaseBenchmark.SHAPES * BatchNarrowPhaseBenchmark.CANDIDATES)
+public class BatchNarrowPhaseBenchmark {
+    static final int SHAPES = 256;
+    static final int CANDIDATES = 32;
+    private static final long SEED = 20240601L;
+
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    @Param({"regularPolygon", "irregularPolygon"})
+    public String type;
+
+    @Param({"4", "8", "16", "32"})
+    public int vertices;
+
+    private Scene scene;
+    private int[][] candidates;
+    private boolean[] results;
+    private BatchCollisionKernel batchKernel;
+
+    @Setup
+    public void setUp() {
+        batchKernel = kernel.equals("vector") ? BatchCollisionKernel.best() : BatchCollisionKernel.scalar();
+        Random random = new Random(SEED);
+        scene = new Scene(SHAPES * (CANDIDATES + 1), SHAPES * (CANDIDATES + 1) * vertices);
+        candidates = new int[SHAPES][CANDIDATES];
+        results = new boolean[CANDIDATES];
+
+        for (int s = 0; s < SHAPES; s++) {
+            double cx = 1000 + (s % 16) * 400;
+            double cy = 1000 + (s / 16) * 400;
+            // 기준 도형은 s * (CANDIDATES + 1)번, 뒤이은 CANDIDATES개가 그 후보
+            add(random, cx, cy, 20 + random.nextDouble() * 20);
+            for (int c = 0; c < CANDIDATES; c++) {
+                double angle = random.nextDouble() * 2 * Math.PI;
+                double distance = (0.5 + random.nextDouble() * 1.5) * 40;
+                candidates[s][c] = add(random, cx + distance * Math.cos(angle), cy + distance * Math.sin(angle),
+                        20 + random.nextDouble() * 20);
+            }
+        }
+
+        // 측정 전에 커널 결과가 후보마다 NarrowPhase.overlaps를 부른 것과 같은지 확인한다 (다르면 측정하지 않는다)
+        for (int s = 0; s < SHAPES; s++) {
+            int i = s * (CANDIDATES + 1);
+            batchKernel.overlaps(scene, i, candidates[s], CANDIDATES, results);
+            for (int c = 0; c < CANDIDATES; c++) {
+                if (results[c] != NarrowPhase.overlaps(scene, i, scene, candidates[s][c])) {
+                    throw new IllegalStateException(batchKernel.getName() + ": shape_" + i
+                            + " / shape_" + candidates[s][c] + " 결과가 NarrowPhase와 다릅니다.");
+                }
+            }
+        }
+    }
+
+    private int add(Random random, double cx, double cy, double r) {
+        if (type.equals("regularPolygon")) {
+            return scene.addRegularPolygon(cx, cy, r, vertices, random.nextDouble() * 2 * Math.PI, 0);
+        }
+        return IrregularPolygon.addRandom(scene, random, cx, cy, r, vertices, 0);
+    }
+
+    @Benchmark
+    public void overlaps(Blackhole blackhole) {
+        for (int s = 0; s < SHAPES; s++) {
+            batchKernel.overlaps(scene, s * (CANDIDATES + 1), candidates[s], CANDIDATES, results);
+            blackhole.consume(results);
+        }
+    }
+}
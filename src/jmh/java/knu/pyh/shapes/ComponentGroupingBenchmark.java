@@ -0,0 +1,54 @@
+package knu.pyh.shapes;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 넓은 단계 + 좁은 단계 + Union-Find 전체 (findConnectedComponents)
+// density: 장면 넓이 대비 도형 넓이 합 - sparse는 대부분 홀로, dense는 긴 연쇄 그룹이 생긴다
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ComponentGroupingBenchmark {
+    private static final long SEED = 20240601L;
+    private static final int RADIUS_MAX = 40;
+    private static final int MAX_EDGES = 12;
+
+    @Param({"1000", "10000", "50000"})
+    public int howMany;
+
+    @Param({"0.1", "0.5", "1.5"})
+    public double density;
+
+    @Param({"grid", "sweep"})
+    public String broadPhase;
+
+    // off: 장면 전체 한 번에, auto: 공간 타일 단위 (-p parallelism=N 으로 코어 수를 바꿔 타일 병렬 효과를 본다)
+    @Param({"off", "auto"})
+    public String tiles;
+
+    @Param({"1"})
+    public int parallelism;
+
+    private ShapeGenerator generator;
+    private Scene scene;
+
+    @Setup
+    public void setUp() {
+        // 평균 반경(약 25)의 원 넓이로 정사각형 장면 한 변을 정한다
+        double shapeArea = Math.PI * 25 * 25;
+        int side = (int) Math.max(4 * RADIUS_MAX, Math.sqrt(howMany * shapeArea / density));
+
+        generator = new ShapeGenerator(SEED);
+        generator.setBroadPhase(BroadPhase.forName(broadPhase));
+        generator.setParallelism(parallelism);
+        generator.setTileSize(tiles.equals("auto") ? ShapeGenerator.AUTO_TILE_SIZE : 0);
+        scene = generator.createScene(side, side, RADIUS_MAX, howMany, MAX_EDGES);
+    }
+
+    @Benchmark
+    public List<int[]> findConnectedComponents() {
+        return generator.findConnectedComponents(scene, RADIUS_MAX);
+    }
+}
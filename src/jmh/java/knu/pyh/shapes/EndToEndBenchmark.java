@@ -0,0 +1,52 @@
+package knu.pyh.shapes;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+// ShapesOverlaps 한 번의 비용 - 장면 생성 + 그룹화 + 응답 직렬화 (JSON / 이진)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class EndToEndBenchmark {
+    private static final long SEED = 20240601L;
+
+    @Param({"1000", "10000"})
+    public int howMany;
+
+    private static final OutputStream DISCARD = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    private OverlapResult generate() {
+        int side = (int) Math.sqrt(howMany * 4000.0);
+        return new ShapeGenerator(SEED).generate(side, side, 40, howMany, 12);
+    }
+
+    @Benchmark
+    public byte[] generateJson() throws IOException {
+        return generate().toJSONBytes();
+    }
+
+    @Benchmark
+    public OverlapResult generateBinary() throws IOException {
+        OverlapResult result = generate();
+        OverlapBinaryWriter.write(result, DISCARD, false);
+        return result;
+    }
+
+    // org.json 트리를 만드는 기존 경로 (generateShapes)와의 비교용
+    @Benchmark
+    public String generateJsonTree() {
+        int side = (int) Math.sqrt(howMany * 4000.0);
+        return new ShapeGenerator(SEED).generateShapes(side, side, 40, howMany, 12).toString();
+    }
+}
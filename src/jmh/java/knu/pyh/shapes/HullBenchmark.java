@@ -0,0 +1,31 @@
+package knu.pyh.shapes;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 일반다각형 생성 비용 (무작위 꼭짓점 + 볼록 껍질 + 장면 배열에 채우기)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HullBenchmark {
+    private static final long SEED = 20240601L;
+
+    @Param({"3", "8", "16", "32", "64"})
+    public int vertices;
+
+    private Random random;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        random = new Random(SEED);
+    }
+
+    @Benchmark
+    public Scene addRandomIrregularPolygon() {
+        Scene scene = new Scene(1, vertices);
+        IrregularPolygon.addRandom(scene, random, 100, 100, 50, vertices, 0);
+        return scene;
+    }
+}
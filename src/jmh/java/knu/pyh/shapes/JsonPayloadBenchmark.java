@@ -0,0 +1,66 @@
+package knu.pyh.shapes;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// ShapesOverlaps JSON 결과 직렬화 - 기존 형식(full) / compact / 그룹과 요약만, gzip 유무
+// 연산 하나의 응답 바이트 수는 setUp에서 한 번 재서 출력한다 (시간은 JMH 결과, 크기는 로그)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JsonPayloadBenchmark {
+    private static final long SEED = 20240601L;
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Param({"1000", "10000"})
+    public int howMany;
+
+    // full: 기존 형식, compact: Output=compact, groups: Output=compact&Fields=groups,summary
+    @Param({"full", "compact", "groups"})
+    public String output;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private OverlapResult result;
+
+    private static final class CountingDiscard extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        int side = (int) Math.sqrt(howMany * 4000.0);
+        result = new ShapeGenerator(SEED).generate(side, side, 40, howMany, 12);
+        result.setJsonOptions(output.equals("full") ? JsonOptions.FULL
+                : JsonOptions.parse("compact", null, null, output.equals("groups") ? "groups,summary" : null));
+        System.out.printf("%n[payload] howMany=%d output=%s gzip=%s bytes=%d%n", howMany, output, gzip, serialize());
+    }
+
+    @Benchmark
+    public long serialize() throws IOException {
+        CountingDiscard sink = new CountingDiscard();
+        OutputStream out = gzip ? new GZIPOutputStream(sink, 64 * 1024) : sink;
+        JsonGenerator gen = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        result.writeJSON(gen);
+        gen.close();
+        return sink.count;
+    }
+}
@@ -0,0 +1,69 @@
+package knu.pyh.shapes;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// 도형 타입 쌍 / 꼭짓점 수별 좁은 단계(NarrowPhase.overlaps) 비용
+// 쌍마다 거리를 무작위로 두어 겹치는 쌍과 겹치지 않는 쌍이 섞이게 한다 (분기 예측에 유리하지 않도록)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@OperationsPerInvocation(NarrowPhaseBenchmark.PAIRS)
+public class NarrowPhaseBenchmark {
+    static final int PAIRS = 1024;
+    private static final long SEED = 20240601L;
+
+    @Param({"circle/circle", "circle/regularPolygon", "circle/irregularPolygon",
+            "regularPolygon/regularPolygon", "regularPolygon/irregularPolygon",
+            "irregularPolygon/irregularPolygon"})
+    public String typePair;
+
+    // 원은 꼭짓점 수와 무관하다 / 일반다각형은 볼록 껍질을 만들면서 꼭짓점이 줄어들 수 있다
+    @Param({"3", "8", "16", "32", "64"})
+    public int vertices;
+
+    private Scene scene;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(SEED);
+        String[] types = typePair.split("/");
+        scene = new Scene(PAIRS * 2, PAIRS * 2 * vertices);
+
+        for (int p = 0; p < PAIRS; p++) {
+            double r1 = 20 + random.nextDouble() * 20;
+            double r2 = 20 + random.nextDouble() * 20;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double distance = (0.5 + random.nextDouble() * 1.5) * (r1 + r2) / 2;
+
+            double cx = 1000 + (p % 32) * 200;
+            double cy = 1000 + (p / 32) * 200;
+            add(scene, random, types[0], cx, cy, r1);
+            add(scene, random, types[1], cx + distance * Math.cos(angle), cy + distance * Math.sin(angle), r2);
+        }
+    }
+
+    private void add(Scene scene, Random random, String type, double cx, double cy, double r) {
+        switch (type) {
+            case "circle":
+                scene.addCircle(cx, cy, r, 0);
+                break;
+            case "regularPolygon":
+                scene.addRegularPolygon(cx, cy, r, vertices, random.nextDouble() * 2 * Math.PI, 0);
+                break;
+            default:
+                IrregularPolygon.addRandom(scene, random, cx, cy, r, vertices, 0);
+                break;
+        }
+    }
+
+    @Benchmark
+    public void overlaps(Blackhole blackhole) {
+        for (int p = 0; p < PAIRS; p++) {
+            blackhole.consume(NarrowPhase.overlaps(scene, 2 * p, scene, 2 * p + 1));
+        }
+    }
+}
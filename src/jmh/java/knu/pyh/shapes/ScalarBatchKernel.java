@@ -0,0 +1,17 @@
+package knu.pyh.shapes;
+
+// Vector API를 쓸 수 없을 때의 묶음 커널 - 후보마다 NarrowPhase.overlaps
+class ScalarBatchKernel implements BatchCollisionKernel {
+
+    @Override
+    public String getName() {
+        return "scalar";
+    }
+
+    @Override
+    public void overlaps(Scene scene, int i, int[] candidates, int count, boolean[] results) {
+        for (int c = 0; c < count; c++) {
+            results[c] = NarrowPhase.overlaps(scene, i, scene, candidates[c]);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package knu.pyh.shapes;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// LiveScene 공간 질의 (R-tree 후보 + 좁은 단계 확인) - 밀도를 고정하고 장면 크기만 키운다
+// 질의 하나가 닿는 도형 수는 장면 크기와 무관하므로 지연 시간은 트리 높이(log n)만큼만 늘어야 한다
+// scanPoint는 같은 점 질의를 모든 도형에 좁은 단계로 돌린 비교 기준 (n에 비례)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpatialQueryBenchmark {
+    private static final long SEED = 20240601L;
+    private static final int RADIUS_MAX = 40;
+    private static final int MAX_EDGES = 12;
+    private static final double DENSITY = 0.5;
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int howMany;
+
+    private LiveScene liveScene;
+    private Scene pointProbe;
+    private double[] queryX;
+    private double[] queryY;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        double shapeArea = Math.PI * 25 * 25;
+        int side = (int) Math.max(4 * RADIUS_MAX, Math.sqrt(howMany * shapeArea / DENSITY));
+        Scene scene = new ShapeGenerator(SEED).createScene(side, side, RADIUS_MAX, howMany, MAX_EDGES);
+        liveScene = new LiveScene(scene, 2.0 * RADIUS_MAX);
+
+        SplittableRandom random = new SplittableRandom(SEED);
+        queryX = new double[QUERIES];
+        queryY = new double[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            queryX[q] = random.nextDouble(side);
+            queryY[q] = random.nextDouble(side);
+        }
+        pointProbe = new Scene(1, 1);
+
+        // 트리는 첫 질의에서 쌓이므로 측정 전에 한 번 질의해 둔다
+        liveScene.queryPoint(queryX[0], queryY[0]);
+    }
+
+    private int nextQuery() {
+        next = (next + 1) & (QUERIES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public int[] queryPoint() {
+        int q = nextQuery();
+        return liveScene.queryPoint(queryX[q], queryY[q]).getHits();
+    }
+
+    // 평균 도형 몇 개 크기의 창
+    @Benchmark
+    public int[] queryRect() {
+        int q = nextQuery();
+        return liveScene.queryRect(queryX[q], queryY[q], queryX[q] + 2 * RADIUS_MAX, queryY[q] + RADIUS_MAX).getHits();
+    }
+
+    @Benchmark
+    public int[] queryRegularPolygon() {
+        int q = nextQuery();
+        return liveScene.queryRegularPolygon(queryX[q], queryY[q], RADIUS_MAX, 6, 0.0).getHits();
+    }
+
+    @Benchmark
+    public int scanPoint() {
+        int q = nextQuery();
+        Scene scene = liveScene.getScene();
+        pointProbe.clear();
+        pointProbe.addCircle(queryX[q], queryY[q], 0, 0);
+        int hits = 0;
+        for (int i = 0; i < scene.size(); i++) {
+            if (NarrowPhase.overlaps(pointProbe, 0, scene, i)) {
+                hits++;
+            }
+        }
+        return hits;
+    }
+}
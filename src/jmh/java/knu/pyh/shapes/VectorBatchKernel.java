@@ -0,0 +1,153 @@
+package knu.pyh.shapes;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+
+// jdk.incubator.vector 묶음 SAT 커널 - 레인 하나가 후보 도형 하나를 맡는다
+// (--add-modules jdk.incubator.vector로 실행했을 때만 BatchCollisionKernel.vector()가 만든다)
+//
+// 다각형 후보를 레인 수(AVX2에서 double 4개)만큼 모아 꼭짓점/법선/자기 투영 구간을 레인 교차 배열로 채운다
+//   packedX[m * lanes + l] = 후보 l의 m번째 꼭짓점 x (꼭짓점이 적은 후보는 마지막 꼭짓점/변을 반복 - 최솟값/최댓값과 판정이 그대로)
+// 그러면 축 하나에 대한 투영은 꼭짓점 m마다 벡터 곱셈-덧셈 한 번이고, 최솟값/최댓값은 레인별로 누적되어 레인 간 축약이 없다
+//   1. 도형 i의 변 법선(모든 레인에 같은 값) 위로 후보 꼭짓점을 투영
+//   2. 후보의 변 법선(레인마다 다른 값) 위로 도형 i의 꼭짓점을 투영
+// 투영은 스칼라와 같은 순서(x * ax + y * ay, FMA 없음)로 계산하므로 레인마다 판정이 스칼라와 비트 단위로 같다
+// 경계 원으로 걸러지는 쌍과 원이 낀 쌍은 스칼라 커널로 바로 처리한다
+class VectorBatchKernel implements BatchCollisionKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // 대기 중인 다각형 후보 (후보 목록에서의 위치)
+    private final int[] pending = new int[LANES];
+    private final int[] pendingShape = new int[LANES];
+    private double[] packedX = new double[0];
+    private double[] packedY = new double[0];
+    private double[] packedNormalX = new double[0];
+    private double[] packedNormalY = new double[0];
+    private double[] packedSelfMin = new double[0];
+    private double[] packedSelfMax = new double[0];
+
+    @Override
+    public String getName() {
+        return "vector" + LANES * Double.SIZE;
+    }
+
+    @Override
+    public void overlaps(Scene scene, int i, int[] candidates, int count, boolean[] results) {
+        boolean polygon = scene.vertexStart[i] != scene.vertexStart[i + 1];
+        int waiting = 0;
+        for (int c = 0; c < count; c++) {
+            int j = candidates[c];
+            double dx = scene.boundX[i] - scene.boundX[j];
+            double dy = scene.boundY[i] - scene.boundY[j];
+            double reach = scene.boundRadius[i] + scene.boundRadius[j];
+            if (dx * dx + dy * dy > reach * reach) {
+                results[c] = false;
+                continue;
+            }
+            if (!polygon || scene.vertexStart[j] == scene.vertexStart[j + 1]) {
+                results[c] = NarrowPhase.overlaps(scene, i, scene, j);
+                continue;
+            }
+
+            pending[waiting] = c;
+            pendingShape[waiting] = j;
+            if (++waiting == LANES) {
+                testBlock(scene, i, waiting, results);
+                waiting = 0;
+            }
+        }
+        if (waiting > 0) {
+            testBlock(scene, i, waiting, results);
+        }
+    }
+
+    // pendingShape[0 .. used)를 한 벡터로 검사 (남는 레인은 마지막 후보를 반복)
+    private void testBlock(Scene scene, int i, int used, boolean[] results) {
+        // 1. 레인 교차 배열로 채우기
+        int maxVertices = 0;
+        for (int l = 0; l < used; l++) {
+            int j = pendingShape[l];
+            maxVertices = Math.max(maxVertices, scene.vertexStart[j + 1] - scene.vertexStart[j]);
+        }
+        ensureCapacity(maxVertices * LANES);
+        for (int l = 0; l < LANES; l++) {
+            int j = pendingShape[Math.min(l, used - 1)];
+            int start = scene.vertexStart[j];
+            int end = scene.vertexStart[j + 1];
+            for (int m = 0; m < maxVertices; m++) {
+                int k = Math.min(start + m, end - 1);
+                int slot = m * LANES + l;
+                packedX[slot] = scene.xs[k];
+                packedY[slot] = scene.ys[k];
+                packedNormalX[slot] = scene.normalX[k];
+                packedNormalY[slot] = scene.normalY[k];
+                packedSelfMin[slot] = scene.selfMin[k];
+                packedSelfMax[slot] = scene.selfMax[k];
+            }
+        }
+
+        // 2. 도형 i의 법선 - 후보 꼭짓점의 투영 구간이 i의 자기 구간과 떨어진 레인은 분리
+        VectorMask<Double> separated = SPECIES.maskAll(false);
+        VectorMask<Double> done = SPECIES.indexInRange(0, used).not();
+        for (int k = scene.vertexStart[i]; k < scene.vertexStart[i + 1]; k++) {
+            double axisX = scene.normalX[k];
+            double axisY = scene.normalY[k];
+            DoubleVector lo = DoubleVector.broadcast(SPECIES, Double.MAX_VALUE);
+            DoubleVector hi = DoubleVector.broadcast(SPECIES, -Double.MAX_VALUE);
+            for (int m = 0; m < maxVertices; m++) {
+                DoubleVector proj = DoubleVector.fromArray(SPECIES, packedX, m * LANES).mul(axisX)
+                        .add(DoubleVector.fromArray(SPECIES, packedY, m * LANES).mul(axisY));
+                lo = lo.min(proj);
+                hi = hi.max(proj);
+            }
+            separated = separated.or(hi.compare(VectorOperators.LT, scene.selfMin[k]))
+                    .or(lo.compare(VectorOperators.GT, scene.selfMax[k]));
+            if (separated.or(done).allTrue()) {
+                break;
+            }
+        }
+
+        // 3. 후보의 법선 - 도형 i 꼭짓점의 투영 구간이 후보의 자기 구간과 떨어진 레인은 분리
+        if (!separated.or(done).allTrue()) {
+            int start = scene.vertexStart[i];
+            int end = scene.vertexStart[i + 1];
+            for (int m = 0; m < maxVertices; m++) {
+                DoubleVector axisX = DoubleVector.fromArray(SPECIES, packedNormalX, m * LANES);
+                DoubleVector axisY = DoubleVector.fromArray(SPECIES, packedNormalY, m * LANES);
+                DoubleVector lo = DoubleVector.broadcast(SPECIES, Double.MAX_VALUE);
+                DoubleVector hi = DoubleVector.broadcast(SPECIES, -Double.MAX_VALUE);
+                for (int v = start; v < end; v++) {
+                    DoubleVector proj = axisX.mul(scene.xs[v]).add(axisY.mul(scene.ys[v]));
+                    lo = lo.min(proj);
+                    hi = hi.max(proj);
+                }
+                separated = separated
+                        .or(DoubleVector.fromArray(SPECIES, packedSelfMax, m * LANES).compare(VectorOperators.LT, lo))
+                        .or(hi.compare(VectorOperators.LT, DoubleVector.fromArray(SPECIES, packedSelfMin, m * LANES)));
+                if (separated.or(done).allTrue()) {
+                    break;
+                }
+            }
+        }
+
+        for (int l = 0; l < used; l++) {
+            results[pending[l]] = !separated.laneIsSet(l);
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (packedX.length < size) {
+            packedX = Arrays.copyOf(packedX, size);
+            packedY = Arrays.copyOf(packedY, size);
+            packedNormalX = Arrays.copyOf(packedNormalX, size);
+            packedNormalY = Arrays.copyOf(packedNormalY, size);
+            packedSelfMin = Arrays.copyOf(packedSelfMin, size);
+            packedSelfMax = Arrays.copyOf(packedSelfMax, size);
+        }
+    }
+}
@@ -1,23 +1,46 @@
 package knu.pyh;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import knu.pyh.shapes.OverlapBinaryWriter;
+import knu.pyh.shapes.OverlapResult;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 public class API {
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+            .build();
+
     @RequestMapping(value="/api", method = {RequestMethod.GET, RequestMethod.POST})
     @CrossOrigin(origins = "*", allowedHeaders = "*")
-    public String requestParams(HttpServletRequest request, HttpServletResponse response) {
+    public String requestParams(HttpServletRequest request, HttpServletResponse response) throws IOException {
         response.setContentType("application/json;charset=UTF-8");
 
         JSONObject params_JSON = new JSONObject();
@@ -31,6 +54,12 @@ public class API {
             }
         }
 
+        // Accept 헤더로 이진 인코딩을 요청하면 Format=bin과 같게 처리한다
+        String accept = request.getHeader("Accept");
+        if (!params_JSON.has("Format") && accept != null && accept.contains(OverlapBinaryWriter.CONTENT_TYPE)) {
+            params_JSON.put("Format", "bin");
+        }
+
         JSONObject JSON_RES = new JSONObject()
                 .put("STATUS", 200)
                 .put("STATUS_MSG", "OK");
@@ -47,11 +76,39 @@ public class API {
         JSONObject JSON_RESPONSE = new JSONObject();
         JSON_RESPONSE.put("REQ", params_JSON);
         JSON_RESPONSE.put("RES", JSON_RES);
+        // 입장 제어의 클라이언트별 예산 구분 (응답에는 포함하지 않음)
+        JSON_RESPONSE.put("CLIENT", clientId(request));
 
         try {
+            // JSON 본문이 있는 POST 요청은 본문을 BODY로 넘긴다 (응답에는 포함하지 않음)
+            // NDJSON / CSV 본문은 통째로 읽지 않고 스트림 그대로 BODY_STREAM으로 넘긴다
+            String contentType = request.getContentType();
+            if ("POST".equals(request.getMethod()) && contentType != null) {
+                if (contentType.contains("ndjson")) {
+                    JSON_RESPONSE.put("BODY_STREAM", request.getInputStream());
+                    JSON_RESPONSE.put("BODY_FORMAT", "ndjson");
+                } else if (contentType.contains("csv")) {
+                    JSON_RESPONSE.put("BODY_STREAM", request.getInputStream());
+                    JSON_RESPONSE.put("BODY_FORMAT", "csv");
+                } else if (contentType.contains("json")) {
+                    JSON_RESPONSE.put("BODY", new JSONTokener(request.getReader()).nextValue());
+                }
+            }
+
             if (params_JSON.has("Action")) {
                 BACKEND_MANAGER.EXEC_TASK(JSON_RESPONSE);
             }
+        } catch (AdmissionException e) {
+            // 예산 초과 / 처리 시간 한도 - 429 또는 503, 다시 보낼 만하면 Retry-After
+            JSON_RES.put("STATUS", e.getStatus());
+            JSON_RES.put("STATUS_MSG", e.getStatus() == AdmissionException.TOO_MANY_REQUESTS
+                    ? "Too Many Requests" : "Service Unavailable");
+            JSON_RES.put("MESSAGE", e.getMessage());
+            if (e.getRetryAfterSeconds() > 0) {
+                JSON_RES.put("RETRY_AFTER", e.getRetryAfterSeconds());
+                response.setHeader("Retry-After", String.valueOf(e.getRetryAfterSeconds()));
+            }
+            response.setStatus(e.getStatus());
         } catch (Exception e) {
             JSON_RES.put("STATUS", 500);
             JSON_RES.put("STATUS_MSG", "Internal Server Error");
@@ -70,6 +127,300 @@ public class API {
             response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
         }
 
+        JSON_RESPONSE.remove("BODY");
+        JSON_RESPONSE.remove("BODY_STREAM");
+        JSON_RESPONSE.remove("BODY_FORMAT");
+        JSON_RESPONSE.remove("CLIENT");
+
+        // JobEvents: 작업이 끝날 때까지 진행 상황을 server-sent events로 흘려보낸다 (요청 스레드는 바로 돌려준다)
+        if (JSON_RES.opt("RESULT") instanceof ShapeJob) {
+            startJobEvents(request, response, (ShapeJob) JSON_RES.remove("RESULT"));
+            return null;
+        }
+
+        // 배치 결과는 항목이 끝나는 순서가 아니라 요청 순서대로 하나씩 스트리밍한다
+        if (JSON_RES.opt("RESULT") instanceof ShapesBatch) {
+            ShapesBatch batch = (ShapesBatch) JSON_RES.remove("RESULT");
+            OutputStream out = response.getOutputStream();
+            writeEnvelope(out, params_JSON, JSON_RES, gen -> batch.writeJSON(gen, out));
+            return null;
+        }
+
+        // 도형 결과는 문자열로 만들지 않고 같은 REQ/RES/RESULT 구조로 응답 스트림에 바로 쓴다
+        // (캐시에서 꺼낸 결과는 이미 직렬화된 바이트이므로 그대로 이어 붙인다)
+        Object result = JSON_RES.opt("RESULT");
+        if (result instanceof OverlapResult || result instanceof byte[]) {
+            JSON_RES.remove("RESULT");
+            String format = params_JSON.optString("Format", "json");
+
+            // JSON 결과는 Accept-Encoding에 gzip이 있으면 압축해서 보낸다 (이진 형식은 그대로)
+            boolean gzip = format.equals("json") && acceptsGzip(request.getHeader("Accept-Encoding"));
+            if (format.equals("json")) {
+                response.setHeader("Vary", "Accept-Encoding");
+            }
+
+            long start = System.nanoTime();
+            CountingOutputStream wire = new CountingOutputStream(response.getOutputStream());
+            CountingOutputStream out = wire;
+            GZIPOutputStream compressor = null;
+            if (gzip) {
+                response.setHeader("Content-Encoding", "gzip");
+                compressor = new GZIPOutputStream(wire, GZIP_BUFFER_BYTES);
+                out = new CountingOutputStream(compressor);
+            }
+            writeResult(response, out, params_JSON, JSON_RES, result, format);
+            if (compressor != null) {
+                compressor.finish();
+            }
+
+            // 지표의 format 태그: json-full / json-compact (+gzip), bin / bin32
+            String label = format.equals("json") ? "json-" + params_JSON.optString("Output", "full") : format;
+            ShapeMetrics.recordSerialization(params_JSON.getString("Action"), ShapeMetrics.sizeBucket(params_JSON),
+                    gzip ? label + "+gzip" : label, System.nanoTime() - start, wire.getCount(), out.getCount());
+            return null;
+        }
+
         return JSON_RESPONSE.toString();
     }
+
+    private static final int GZIP_BUFFER_BYTES = 64 * 1024;
+
+    // 프록시 뒤에서 실행할 때만 켠다 - 아니면 클라이언트가 X-Forwarded-For로 다른 클라이언트인 척할 수 있다
+    private static final boolean TRUST_FORWARDED_FOR = Boolean.getBoolean("shapes.admission.trustForwardedFor");
+
+    // 입장 제어의 클라이언트 구분 - 원격 주소 (TRUST_FORWARDED_FOR면 X-Forwarded-For의 첫 주소)
+    private static String clientId(HttpServletRequest request) {
+        String forwarded = TRUST_FORWARDED_FOR ? request.getHeader("X-Forwarded-For") : null;
+        if (forwarded != null && !forwarded.isBlank()) {
+            return forwarded.split(",")[0].trim();
+        }
+        return request.getRemoteAddr();
+    }
+
+    // Accept-Encoding에 q=0이 아닌 gzip(또는 *)이 있는가
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase();
+            if (!name.equals("gzip") && !name.equals("*")) {
+                continue;
+            }
+            boolean refused = false;
+            for (int p = 1; p < parts.length; p++) {
+                String param = parts[p].trim().replace(" ", "");
+                if (param.startsWith("q=")) {
+                    try {
+                        refused = Double.parseDouble(param.substring(2)) <= 0;
+                    } catch (NumberFormatException e) {
+                        refused = true;
+                    }
+                }
+            }
+            if (!refused) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final long EVENT_INTERVAL_MILLIS = 250;
+
+    // 모든 JobEvents 연결의 진행 상황을 쓰는 스레드 하나 - 이벤트는 수백 바이트라 소켓 버퍼에 바로 들어간다
+    private static final ScheduledExecutorService EVENT_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "job-events");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // 요청을 비동기로 돌리고 EVENT_SCHEDULER가 EVENT_INTERVAL_MILLIS마다 이벤트를 쓴다
+    // 작업이 끝나거나 클라이언트가 끊거나 연결 시간 한도(작업 처리 시간 한도의 두 배)를 넘으면 멈춘다
+    private static void startJobEvents(HttpServletRequest request, HttpServletResponse response, ShapeJob job) {
+        response.setContentType("text/event-stream;charset=UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+        AsyncContext async = request.startAsync();
+        async.setTimeout(2 * AdmissionControl.getJobDeadlineMillis());
+        JobEventStream stream = new JobEventStream(async, job);
+        async.addListener(stream);
+        stream.start();
+    }
+
+    private static void writeResult(HttpServletResponse response, OutputStream out, JSONObject params_JSON,
+                                    JSONObject JSON_RES, Object result, String format) throws IOException {
+        // Format=bin/bin32 이면 봉투 없이 결과만 보낸다
+        if (!format.equals("json")) {
+            response.setContentType(OverlapBinaryWriter.CONTENT_TYPE);
+            if (result instanceof byte[]) {
+                response.setContentLength(((byte[]) result).length);
+                out.write((byte[]) result);
+            } else {
+                OverlapBinaryWriter.write((OverlapResult) result, out, format.equals("bin32"));
+            }
+            return;
+        }
+
+        if (result instanceof byte[]) {
+            writeEnvelope(out, params_JSON, JSON_RES, gen -> {
+                // ':' 구분자까지만 생성기로 쓰고 값 바이트는 출력 스트림에 직접 쓴다
+                gen.writeRawValue("");
+                gen.flush();
+                out.write((byte[]) result);
+            });
+        } else {
+            writeEnvelope(out, params_JSON, JSON_RES, ((OverlapResult) result)::writeJSON);
+        }
+    }
+
+    private interface ResultWriter {
+        void write(JsonGenerator gen) throws IOException;
+    }
+
+    // REQ/RES 봉투를 쓰고 RES.RESULT 자리에 resultWriter가 값을 쓴다
+    private static void writeEnvelope(OutputStream out, JSONObject params_JSON,
+                                      JSONObject JSON_RES, ResultWriter resultWriter) throws IOException {
+        JsonGenerator gen = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+
+        gen.writeStartObject();
+        gen.writeFieldName("REQ");
+        writeJSONValue(gen, params_JSON);
+
+        gen.writeFieldName("RES");
+        gen.writeStartObject();
+        for (String key : JSON_RES.keySet()) {
+            gen.writeFieldName(key);
+            writeJSONValue(gen, JSON_RES.get(key));
+        }
+        gen.writeFieldName("RESULT");
+        resultWriter.write(gen);
+        gen.writeEndObject();
+
+        gen.writeEndObject();
+        gen.close();
+    }
+
+    // org.json 값을 JsonGenerator로 옮겨 쓴다 (REQ/RES 머리 부분용)
+    private static void writeJSONValue(JsonGenerator gen, Object value) throws IOException {
+        if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            gen.writeStartObject();
+            for (String key : object.keySet()) {
+                gen.writeFieldName(key);
+                writeJSONValue(gen, object.get(key));
+            }
+            gen.writeEndObject();
+        } else if (value instanceof JSONArray) {
+            gen.writeStartArray();
+            for (Object item : (JSONArray) value) {
+                writeJSONValue(gen, item);
+            }
+            gen.writeEndArray();
+        } else if (value instanceof Integer || value instanceof Long) {
+            gen.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            gen.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            gen.writeBoolean((Boolean) value);
+        } else if (value == null || value == JSONObject.NULL) {
+            gen.writeNull();
+        } else {
+            gen.writeString(value.toString());
+        }
+    }
+
+    // 작업 하나의 진행 상황 이벤트 스트림 - 마지막 이벤트는 event: done
+    private static class JobEventStream implements Runnable, AsyncListener {
+        private final AsyncContext async;
+        private final ShapeJob job;
+        private ScheduledFuture<?> task;
+        private boolean closed;
+
+        JobEventStream(AsyncContext async, ShapeJob job) {
+            this.async = async;
+            this.job = job;
+        }
+
+        synchronized void start() {
+            task = EVENT_SCHEDULER.scheduleWithFixedDelay(this, 0, EVENT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public synchronized void run() {
+            if (closed) {
+                return;
+            }
+            boolean finished = job.isFinished();
+            String event = "event: " + (finished ? "done" : "progress") + "\n"
+                    + "data: " + job.toJSON() + "\n\n";
+            try {
+                OutputStream out = async.getResponse().getOutputStream();
+                out.write(event.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            } catch (IOException | IllegalStateException e) {
+                // 클라이언트가 끊었거나 컨테이너가 이미 요청을 끝냈다
+                finished = true;
+            }
+            if (finished) {
+                close();
+                try {
+                    async.complete();
+                } catch (IllegalStateException e) {
+                    // 이미 끝난 요청
+                }
+            }
+        }
+
+        private synchronized void close() {
+            closed = true;
+            if (task != null) {
+                task.cancel(false);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            close();
+            async.complete();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            close();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+
+    // 응답으로 쓴 바이트 수를 센다 (직렬화 지표용)
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
 }
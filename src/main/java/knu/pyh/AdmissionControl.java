@@ -0,0 +1,390 @@
+package knu.pyh;
+
+import knu.pyh.shapes.DeadlineExceededException;
+import knu.pyh.shapes.GenerationProgress;
+import knu.pyh.shapes.Scene;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// /api 계산 Action 입장 제어
+// 파라미터와 넓은 단계 전략으로 예상 CPU 시간(비용)을 어림하고, 실행 중인 요청의 예상 비용 합을 클라이언트별/전체 예산 안으로 유지한다
+// 1. 요청 하나의 비용이 MAX_REQUEST_MILLIS를 넘으면 바로 거절 (429, 다시 보내도 같으므로 Retry-After 없음)
+// 2. 같은 클라이언트의 실행 중 비용 + 이번 비용이 CLIENT_BUDGET_MILLIS를 넘으면 바로 거절 (429 + Retry-After)
+// 3. 전체 실행 중 비용 + 이번 비용이 GLOBAL_BUDGET_MILLIS를 넘으면 대기열에서 QUEUE_MILLIS까지 도착 순서대로 기다리고,
+//    그래도 자리가 나지 않거나 대기열이 가득 차 있으면 거절 (503 + Retry-After)
+// 입장한 요청은 처리 시간 한도(DEADLINE_MILLIS, TimeoutMillis 파라미터로 줄일 수 있음) 안에 끝나야 한다
+// 한도는 -Dshapes.admission.* 시스템 속성으로 바꾼다
+public class AdmissionControl {
+    private static final long MAX_REQUEST_MILLIS = Long.getLong("shapes.admission.maxRequestMillis", 60_000);
+    private static final long MAX_JOB_MILLIS = Long.getLong("shapes.admission.maxJobMillis", 30 * 60_000);
+    private static final long CLIENT_BUDGET_MILLIS = Long.getLong("shapes.admission.clientBudgetMillis", 120_000);
+    private static final long GLOBAL_BUDGET_MILLIS = Long.getLong("shapes.admission.globalBudgetMillis",
+            Runtime.getRuntime().availableProcessors() * 60_000L);
+    private static final long QUEUE_MILLIS = Long.getLong("shapes.admission.queueMillis", 5_000);
+    private static final int MAX_QUEUED = Integer.getInteger("shapes.admission.maxQueued", 64);
+    private static final long DEADLINE_MILLIS = Long.getLong("shapes.admission.deadlineMillis", 120_000);
+    private static final long JOB_DEADLINE_MILLIS = Long.getLong("shapes.admission.jobDeadlineMillis", 60 * 60_000);
+
+    // 비용 모델 배율 - 서버가 기준 장비보다 두 배 느리면 2 (shapes.admission.costRatio 지표가 1 근처가 되도록 맞춘다)
+    private static final double COST_SCALE = Double.parseDouble(System.getProperty("shapes.admission.costScale", "1"));
+
+    // 비용 모델 계수 (나노초) - 기준 장비에서 넓은 단계 전략별로 ShapeGenerator.generate를 재어 맞춘 값
+    // 도형 하나 생성 / 그 도형의 꼭짓점 하나당 추가
+    private static final double NANOS_PER_SHAPE = 600;
+    private static final double NANOS_PER_SHAPE_VERTEX = 375;
+    // 넓은 단계가 훑는 쌍 하나 (경계 상자 비교)
+    private static final double NANOS_PER_VISIT = 8;
+    // 경계 상자가 겹쳐 좁은 단계로 가는 쌍 하나 / 꼭짓점 하나당 추가
+    private static final double NANOS_PER_PAIR = 150;
+    private static final double NANOS_PER_PAIR_VERTEX = 62.5;
+
+    private static final Object LOCK = new Object();
+    private static final List<Ticket> RUNNING = new ArrayList<>();
+    private static final ArrayDeque<Ticket> WAITING = new ArrayDeque<>();
+    private static final Map<String, Double> CLIENT_MILLIS = new HashMap<>();
+    private static double inFlightMillis;
+
+    private static final AtomicLong ADMITTED = new AtomicLong();
+    private static final AtomicLong QUEUED = new AtomicLong();
+    private static final AtomicLong REJECTED_COST = new AtomicLong();
+    private static final AtomicLong REJECTED_CLIENT = new AtomicLong();
+    private static final AtomicLong REJECTED_GLOBAL = new AtomicLong();
+    private static final AtomicLong DEADLINE = new AtomicLong();
+
+    // 무작위 장면 생성 + 그룹화 예상 시간 (밀리초)
+    // 생성기의 반경은 [10, RadiusMax) 균등이고, 도형의 80%인 다각형의 꼭짓점 수는 [3, MaxEdges) 균등
+    public static double estimateMillis(int width, int height, int radiusMax, int howMany, int maxEdges,
+                                        String broadPhase) {
+        // 정수 파라미터가 커도 넘치지 않도록 모두 실수로 계산한다
+        double vertices = 0.8 * ((double) maxEdges + 2) / 2;
+        double generation = (double) howMany * (NANOS_PER_SHAPE + NANOS_PER_SHAPE_VERTEX * vertices);
+        return (generation + groupingNanos(howMany, vertices, 10.0 + radiusMax, width, height, broadPhase))
+                * COST_SCALE / 1e6;
+    }
+
+    // 이미 있는 장면의 그룹화 예상 시간 (밀리초) - 장면이 차지하는 영역과 경계 원 반경 평균으로 어림한다
+    public static double estimateGroupingMillis(Scene scene, String broadPhase) {
+        int n = scene.size();
+        if (n == 0) {
+            return 0;
+        }
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        double radiusSum = 0;
+        for (int i = 0; i < n; i++) {
+            minX = Math.min(minX, scene.getMinX(i));
+            minY = Math.min(minY, scene.getMinY(i));
+            maxX = Math.max(maxX, scene.getMaxX(i));
+            maxY = Math.max(maxY, scene.getMaxY(i));
+            radiusSum += scene.getBoundRadius(i);
+        }
+        double vertices = (double) scene.getVertexCount() / n;
+        return groupingNanos(n, vertices, 2 * radiusSum / n, maxX - minX, maxY - minY, broadPhase)
+                * COST_SCALE / 1e6;
+    }
+
+    // 살아 있는 장면에 도형 하나를 넣거나 옮기는 예상 시간 (밀리초)
+    // candidates: LiveScene.estimateCandidates 어림, vertices: 넣는 도형의 꼭짓점 수 (원은 0)
+    public static double estimateUpdateMillis(int candidates, double vertices) {
+        return (NANOS_PER_SHAPE + NANOS_PER_SHAPE_VERTEX * vertices
+                + (NANOS_PER_PAIR + NANOS_PER_PAIR_VERTEX * vertices) * candidates) * COST_SCALE / 1e6;
+    }
+
+    // 이진 도형 파일(MappedShapeGrouper) 그룹화 예상 시간 (밀리초)
+    // 범위를 읽기 전에는 밀도를 모르므로 도형 하나를 읽어 올리는 비용 + 도형당 좁은 단계 쌍 두 개로 어림한다
+    // (밀집한 파일은 이보다 오래 걸릴 수 있고, 그때는 처리 시간 한도에서 멈춘다)
+    public static double estimateFileMillis(long shapes, long vertices) {
+        if (shapes == 0) {
+            return 0;
+        }
+        double perShape = (double) vertices / shapes;
+        return shapes * (NANOS_PER_SHAPE + NANOS_PER_SHAPE_VERTEX * perShape
+                + 2 * (NANOS_PER_PAIR + NANOS_PER_PAIR_VERTEX * perShape)) * COST_SCALE / 1e6;
+    }
+
+    // reach: 두 도형의 경계 원 반경 합 평균
+    // 경계 상자가 겹치는 쌍 ≈ n²/2 × (2·reach)² / 면적, 쓸기가 훑는 쌍 ≈ n²/2 × 2·reach / 폭, 전수 검사(none)는 n²/2
+    private static double groupingNanos(double n, double vertices, double reach, double width, double height,
+                                        String broadPhase) {
+        double allPairs = n * (n - 1) / 2;
+        double boxPairs = allPairs * Math.min(1, 4 * reach * reach / Math.max(1, width * height));
+        double visits;
+        switch (broadPhase) {
+            case "none":
+                visits = allPairs;
+                break;
+            case "sweep":
+                visits = allPairs * Math.min(1, 2 * reach / Math.max(1, width));
+                break;
+            default:
+                visits = n;
+                break;
+        }
+        return NANOS_PER_VISIT * visits + (NANOS_PER_PAIR + NANOS_PER_PAIR_VERTEX * vertices) * boxPairs;
+    }
+
+    public static long getDeadlineMillis() {
+        return DEADLINE_MILLIS;
+    }
+
+    public static long getJobDeadlineMillis() {
+        return JOB_DEADLINE_MILLIS;
+    }
+
+    // 비동기 작업(JobSubmit)은 작업 풀 크기로 동시 실행이 제한되므로 요청당 한도만 본다 (MAX_JOB_MILLIS)
+    public static void checkJobCost(String action, String sizeBucket, double estimatedMillis)
+            throws AdmissionException {
+        if (estimatedMillis > MAX_JOB_MILLIS) {
+            throw rejectCost(action, sizeBucket, estimatedMillis, MAX_JOB_MILLIS);
+        }
+    }
+
+    // 입장 - 자리가 날 때까지 기다릴 수 있고, 받을 수 없으면 AdmissionException (429 / 503)
+    public static Ticket acquire(String client, String action, String sizeBucket, double estimatedMillis,
+                                 long timeoutMillis) throws AdmissionException {
+        if (estimatedMillis > MAX_REQUEST_MILLIS) {
+            throw rejectCost(action, sizeBucket, estimatedMillis, MAX_REQUEST_MILLIS);
+        }
+
+        Ticket ticket = new Ticket(client, action, sizeBucket, estimatedMillis, timeoutMillis);
+        long arrival = System.nanoTime();
+        boolean queued = false;
+        synchronized (LOCK) {
+            // 1. 클라이언트 예산 - 기다리지 않는다 (실행 중인 것이 없으면 한도보다 커도 받는다)
+            double clientMillis = CLIENT_MILLIS.getOrDefault(client, 0.0);
+            if (clientMillis > 0 && clientMillis + estimatedMillis > CLIENT_BUDGET_MILLIS) {
+                long retryAfter = retryAfterSeconds(client, clientMillis + estimatedMillis - CLIENT_BUDGET_MILLIS);
+                shed(action, sizeBucket, "rejected_client", REJECTED_CLIENT);
+                throw new AdmissionException(AdmissionException.TOO_MANY_REQUESTS, retryAfter,
+                        String.format("클라이언트의 실행 중 예상 비용(%.0fms)이 한도(%dms)를 넘습니다.",
+                                clientMillis + estimatedMillis, CLIENT_BUDGET_MILLIS));
+            }
+
+            // 2. 전체 예산 - 앞서 기다리는 요청이 있거나 자리가 없으면 대기열 끝에서 기다린다
+            if (!WAITING.isEmpty() || !fits(ticket)) {
+                if (WAITING.size() >= MAX_QUEUED) {
+                    throw rejectGlobal(ticket, "대기열이 가득 찼습니다.");
+                }
+                WAITING.addLast(ticket);
+                queued = true;
+                long deadline = arrival + TimeUnit.MILLISECONDS.toNanos(QUEUE_MILLIS);
+                try {
+                    while (WAITING.peekFirst() != ticket || !fits(ticket)) {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) {
+                            WAITING.remove(ticket);
+                            LOCK.notifyAll();
+                            throw rejectGlobal(ticket, "서버가 바빠 " + QUEUE_MILLIS + "ms 안에 자리가 나지 않았습니다.");
+                        }
+                        TimeUnit.NANOSECONDS.timedWait(LOCK, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    WAITING.remove(ticket);
+                    LOCK.notifyAll();
+                    throw rejectGlobal(ticket, "입장 대기가 중단되었습니다.");
+                }
+                WAITING.removeFirst();
+                // 다음 대기 요청도 자리가 있을 수 있다
+                LOCK.notifyAll();
+            }
+
+            RUNNING.add(ticket);
+            CLIENT_MILLIS.merge(client, estimatedMillis, Double::sum);
+            inFlightMillis += estimatedMillis;
+            ticket.start(System.nanoTime() - arrival);
+        }
+
+        if (queued) {
+            shed(action, sizeBucket, "queued", QUEUED);
+            ShapeMetrics.recordAdmissionWait(action, sizeBucket, ticket.queuedNanos);
+        } else {
+            shed(action, sizeBucket, "admitted", ADMITTED);
+        }
+        return ticket;
+    }
+
+    // 입장 후 처리 시간 한도를 넘어 중단된 요청 - 503 (같은 요청은 다시 보내도 한도를 넘으므로 Retry-After 없음)
+    public static AdmissionException deadlineExceeded(String action, String sizeBucket, DeadlineExceededException e) {
+        shed(action, sizeBucket, "deadline", DEADLINE);
+        return new AdmissionException(AdmissionException.SERVICE_UNAVAILABLE, 0, e.getMessage());
+    }
+
+    // 실행 중인 것이 없으면 예산보다 큰 요청도 받는다 (요청당 한도는 이미 확인했다)
+    private static boolean fits(Ticket ticket) {
+        return RUNNING.isEmpty() || inFlightMillis + ticket.estimatedMillis <= GLOBAL_BUDGET_MILLIS;
+    }
+
+    private static AdmissionException rejectCost(String action, String sizeBucket, double estimatedMillis,
+                                                 long limitMillis) {
+        shed(action, sizeBucket, "rejected_cost", REJECTED_COST);
+        return new AdmissionException(AdmissionException.TOO_MANY_REQUESTS, 0,
+                String.format("예상 처리 시간(%.0fms)이 요청 한도(%dms)를 넘습니다. HowMany나 MaxEdges를 줄이거나 넓은 단계를 바꾸세요.",
+                        estimatedMillis, limitMillis));
+    }
+
+    // LOCK 안에서 호출
+    private static AdmissionException rejectGlobal(Ticket ticket, String reason) {
+        double waitingMillis = 0;
+        for (Ticket waiting : WAITING) {
+            waitingMillis += waiting.estimatedMillis;
+        }
+        long retryAfter = retryAfterSeconds(null,
+                inFlightMillis + waitingMillis + ticket.estimatedMillis - GLOBAL_BUDGET_MILLIS);
+        shed(ticket.action, ticket.sizeBucket, "rejected_global", REJECTED_GLOBAL);
+        return new AdmissionException(AdmissionException.SERVICE_UNAVAILABLE, retryAfter, reason);
+    }
+
+    // 실행 중인 요청(client가 null이 아니면 그 클라이언트의 것만)이 예상대로 끝나
+    // neededMillis만큼 예산이 풀릴 때까지 걸리는 초 (최소 1) - LOCK 안에서 호출
+    private static long retryAfterSeconds(String client, double neededMillis) {
+        long now = System.nanoTime();
+        List<double[]> finishing = new ArrayList<>();
+        for (Ticket running : RUNNING) {
+            if (client == null || running.client.equals(client)) {
+                double remaining = running.estimatedMillis - (now - running.startNanos) / 1e6;
+                finishing.add(new double[]{Math.max(0, remaining), running.estimatedMillis});
+            }
+        }
+        finishing.sort(Comparator.comparingDouble(f -> f[0]));
+
+        double freed = 0, waitMillis = 0;
+        for (double[] f : finishing) {
+            waitMillis = f[0];
+            freed += f[1];
+            if (freed >= neededMillis) {
+                break;
+            }
+        }
+        return Math.max(1, (long) Math.ceil(waitMillis / 1000));
+    }
+
+    private static void shed(String action, String sizeBucket, String outcome, AtomicLong count) {
+        count.incrementAndGet();
+        ShapeMetrics.recordAdmission(action, sizeBucket, outcome);
+    }
+
+    public static double getInFlightMillis() {
+        synchronized (LOCK) {
+            return inFlightMillis;
+        }
+    }
+
+    public static int getQueued() {
+        synchronized (LOCK) {
+            return WAITING.size();
+        }
+    }
+
+    public static JSONObject statsToJSON() {
+        JSONObject json = new JSONObject();
+        synchronized (LOCK) {
+            json.put("running", RUNNING.size());
+            json.put("queued", WAITING.size());
+            json.put("clients", CLIENT_MILLIS.size());
+            json.put("inFlightMillis", inFlightMillis);
+        }
+        json.put("admitted", ADMITTED.get());
+        json.put("admittedAfterQueue", QUEUED.get());
+        json.put("rejectedCost", REJECTED_COST.get());
+        json.put("rejectedClient", REJECTED_CLIENT.get());
+        json.put("rejectedGlobal", REJECTED_GLOBAL.get());
+        json.put("deadlineExceeded", DEADLINE.get());
+
+        JSONObject limits = new JSONObject();
+        limits.put("maxRequestMillis", MAX_REQUEST_MILLIS);
+        limits.put("maxJobMillis", MAX_JOB_MILLIS);
+        limits.put("clientBudgetMillis", CLIENT_BUDGET_MILLIS);
+        limits.put("globalBudgetMillis", GLOBAL_BUDGET_MILLIS);
+        limits.put("queueMillis", QUEUE_MILLIS);
+        limits.put("maxQueued", MAX_QUEUED);
+        limits.put("deadlineMillis", DEADLINE_MILLIS);
+        limits.put("jobDeadlineMillis", JOB_DEADLINE_MILLIS);
+        limits.put("costScale", COST_SCALE);
+        json.put("limits", limits);
+        return json;
+    }
+
+    // 입장한 요청 하나 - 끝나면 close()로 예산을 돌려준다 (try-with-resources)
+    public static class Ticket implements AutoCloseable {
+        private final String client;
+        private final String action;
+        private final String sizeBucket;
+        private final double estimatedMillis;
+        private final long timeoutMillis;
+        private long queuedNanos;
+        private long startNanos;
+        private boolean closed;
+        // 호출한 쪽이 취소할 수 있도록 미리 만들어 둔 진행 상황 (배치 항목) - 없으면 newProgress가 새로 만든다
+        private GenerationProgress progress;
+
+        private Ticket(String client, String action, String sizeBucket, double estimatedMillis, long timeoutMillis) {
+            this.client = client;
+            this.action = action;
+            this.sizeBucket = sizeBucket;
+            this.estimatedMillis = estimatedMillis;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        private void start(long queuedNanos) {
+            this.queuedNanos = queuedNanos;
+            this.startNanos = System.nanoTime();
+        }
+
+        // 생성기에 넘길 진행 상황 - 생성/쌍 검사 루프가 처리 시간 한도를 확인한다
+        public void setProgress(GenerationProgress progress) {
+            this.progress = progress;
+        }
+
+        public GenerationProgress newProgress() {
+            GenerationProgress progress = this.progress != null ? this.progress : new GenerationProgress();
+            progress.setTimeout(Math.max(1, timeoutMillis - (System.nanoTime() - startNanos) / 1_000_000));
+            return progress;
+        }
+
+        // 생성기를 거치지 않는 반복(SceneStep의 프레임 등)에서 직접 확인
+        public void checkDeadline() {
+            if (System.nanoTime() - startNanos > TimeUnit.MILLISECONDS.toNanos(timeoutMillis)) {
+                throw new DeadlineExceededException(timeoutMillis);
+            }
+        }
+
+        public JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("estimatedMillis", Math.round(estimatedMillis * 10) / 10.0);
+            json.put("queuedMillis", queuedNanos / 1_000_000);
+            json.put("timeoutMillis", timeoutMillis);
+            return json;
+        }
+
+        @Override
+        public void close() {
+            synchronized (LOCK) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                RUNNING.remove(this);
+                double remaining = CLIENT_MILLIS.getOrDefault(client, 0.0) - estimatedMillis;
+                if (remaining <= 1e-9) {
+                    CLIENT_MILLIS.remove(client);
+                } else {
+                    CLIENT_MILLIS.put(client, remaining);
+                }
+                inFlightMillis = RUNNING.isEmpty() ? 0 : inFlightMillis - estimatedMillis;
+                LOCK.notifyAll();
+            }
+            if (estimatedMillis > 0) {
+                ShapeMetrics.recordCostRatio(action, sizeBucket, (System.nanoTime() - startNanos) / 1e6 / estimatedMillis);
+            }
+        }
+    }
+}
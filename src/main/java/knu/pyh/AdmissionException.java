@@ -0,0 +1,25 @@
+package knu.pyh;
+
+// 입장 제어가 요청을 받지 않았거나 처리 시간 한도로 중단했을 때 - API가 status와 Retry-After로 응답한다
+public class AdmissionException extends Exception {
+    public static final int TOO_MANY_REQUESTS = 429;
+    public static final int SERVICE_UNAVAILABLE = 503;
+
+    private final int status;
+    // 0이면 Retry-After를 보내지 않는다 (다시 보내도 같은 결과인 경우)
+    private final long retryAfterSeconds;
+
+    public AdmissionException(int status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
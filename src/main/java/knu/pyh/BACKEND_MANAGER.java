@@ -1,15 +1,65 @@
 package knu.pyh;
 
+import org.json.JSONArray;
 import org.json.JSONObject;
 import org.springframework.stereotype.Component;
+import knu.pyh.shapes.BroadPhase;
+import knu.pyh.shapes.DeadlineExceededException;
+import knu.pyh.shapes.GenerationProgress;
+import knu.pyh.shapes.JsonOptions;
+import knu.pyh.shapes.KineticScene;
+import knu.pyh.shapes.LiveScene;
+import knu.pyh.shapes.MappedShapeGrouper;
+import knu.pyh.shapes.OverlapBinaryWriter;
+import knu.pyh.shapes.OverlapPairs;
+import knu.pyh.shapes.OverlapResult;
+import knu.pyh.shapes.PairIndex;
+import knu.pyh.shapes.Scene;
+import knu.pyh.shapes.Shape;
 import knu.pyh.shapes.ShapeGenerator;
+import knu.pyh.shapes.ShapeReader;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Component
 public class BACKEND_MANAGER    {
 
+    // Action 처리 시간을 action / HowMany 구간별로 기록한다 (Micrometer 타이머 + JFR 이벤트)
     public static void EXEC_TASK(JSONObject jsonResponse) throws Exception {
+        JSONObject reqJson = jsonResponse.getJSONObject("REQ");
+        String action = reqJson.getString("Action");
+        String sizeBucket = ShapeMetrics.sizeBucket(reqJson);
+
+        ShapeRequestEvent event = new ShapeRequestEvent();
+        event.begin();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            DISPATCH(jsonResponse);
+            success = true;
+        } catch (DeadlineExceededException e) {
+            throw AdmissionControl.deadlineExceeded(action, sizeBucket, e);
+        } finally {
+            ShapeMetrics.recordRequest(action, sizeBucket, System.nanoTime() - start, success);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.action = action;
+                event.sizeBucket = sizeBucket;
+                event.success = success;
+                event.commit();
+            }
+        }
+    }
+
+    private static void DISPATCH(JSONObject jsonResponse) throws Exception {
         JSONObject reqJson = jsonResponse.getJSONObject("REQ");
         JSONObject resJson = jsonResponse.getJSONObject("RES");
 
@@ -51,6 +101,8 @@ public class BACKEND_MANAGER    {
                 break;
 
             case "ShapesOverlaps":
+            case "BroadPhaseReport":
+            case "JobSubmit":
                 if (!reqJson.has("Width") || !reqJson.has("Height") ||
                         !reqJson.has("RadiusMax") || !reqJson.has("HowMany") ||
                         !reqJson.has("MaxEdges")) {
@@ -68,20 +120,722 @@ public class BACKEND_MANAGER    {
                             howMany <= 0 || maxEdges < 3) {
                         throw new Exception("파라미터 값이 올바르지 않습니다.");
                     }
+                    checkMaxEdges(maxEdges);
 
-                    ShapeGenerator generator = new ShapeGenerator();
-                    JSONObject shapesData = generator.generateShapes(width, height,
+                    // 시드가 있으면 같은 파라미터에 대해 항상 같은 결과를 만든다
+                    ShapeGenerator generator = reqJson.has("Seed")
+                            ? new ShapeGenerator(Long.parseLong(reqJson.getString("Seed")))
+                            : new ShapeGenerator();
+                    applyGeneratorOptions(reqJson, generator);
+                    if (reqJson.has("PairCursor") && !reqJson.has("Seed")) {
+                        throw new Exception("PairCursor로 다음 페이지를 받으려면 같은 Seed가 필요합니다.");
+                    }
+
+                    String broadPhase = reqJson.optString("BroadPhase", "grid");
+                    double estimatedMillis = estimateMillis(action, broadPhase, width, height,
                             radiusMax, howMany, maxEdges);
 
-                    resJson.put("RESULT", shapesData);
+                    if (action.equals("JobSubmit")) {
+                        // 요청 스레드를 잡아 두지 않고 작업 풀에서 계산한 뒤 JobResult로 가져간다
+                        AdmissionControl.checkJobCost(action, ShapeMetrics.sizeBucket(howMany), estimatedMillis);
+                        resJson.put("RESULT", JobStore.submit(generator, width, height,
+                                radiusMax, howMany, maxEdges).toJSON());
+                    } else if (action.equals("BroadPhaseReport")) {
+                        try (AdmissionControl.Ticket ticket = admit(jsonResponse, estimatedMillis)) {
+                            generator.setProgress(ticket.newProgress());
+                            resJson.put("RESULT", generator.compareBroadPhases(width, height,
+                                    radiusMax, howMany, maxEdges));
+                        }
+                    } else if (reqJson.has("Seed") && reqJson.has("Pairs")) {
+                        // 쌍 목록 페이지 - 전체 간선을 한 번 정렬해 둔 PairIndex에서 커서 뒤를 잘라 내므로 다음 페이지는 다시 생성하지 않는다
+                        // 장면이 캐시 항목 한도보다 커서 보관되지 않으면 페이지마다 전체를 다시 계산하고, 그때마다 전체 generate 비용으로 입장한다
+                        long seed = Long.parseLong(reqJson.getString("Seed"));
+                        String key = ResultCache.key(width, height, radiusMax, howMany, maxEdges, seed,
+                                broadPhase, "pairs");
+                        PairIndex pairIndex = ResultCache.getPairIndex(key, getTimeoutMillis(reqJson), () -> {
+                            try (AdmissionControl.Ticket ticket = admit(jsonResponse, estimatedMillis)) {
+                                generator.setProgress(ticket.newProgress());
+                                PairIndex built = PairIndex.generate(generator, width, height,
+                                        radiusMax, howMany, maxEdges);
+                                ShapeMetrics.recordPhases(action, howMany, generator.getLastPhaseStats());
+                                return built;
+                            }
+                        });
+                        OverlapResult page = pairIndex.page(reqJson.getString("Pairs"),
+                                reqJson.has("PairCursor") ? reqJson.getString("PairCursor") : null, getPairLimit(reqJson));
+                        page.setJsonOptions(getJsonOptions(reqJson));
+                        resJson.put("RESULT", page);
+                    } else if (reqJson.has("Seed")) {
+                        // 시드가 있으면 결과가 결정적이므로 직렬화된 바이트를 캐시에서 재사용한다
+                        long seed = Long.parseLong(reqJson.getString("Seed"));
+                        String format = reqJson.optString("Format", "json");
+                        JsonOptions jsonOptions = getJsonOptions(reqJson);
+                        String key = ResultCache.key(width, height, radiusMax, howMany, maxEdges, seed,
+                                broadPhase, format.equals("json") ? format + "|" + jsonOptions.cacheKey() : format);
+
+                        // 캐시에 있으면 계산하지 않으므로 입장 제어는 실제로 계산할 때만 거친다
+                        resJson.put("RESULT", ResultCache.get(key, getTimeoutMillis(reqJson), () -> {
+                            try (AdmissionControl.Ticket ticket = admit(jsonResponse, estimatedMillis)) {
+                                generator.setProgress(ticket.newProgress());
+                                OverlapResult shapesData = generator.generate(width, height,
+                                        radiusMax, howMany, maxEdges);
+                                ShapeMetrics.recordPhases(action, howMany, generator.getLastPhaseStats());
+                                if (format.equals("json")) {
+                                    shapesData.setJsonOptions(jsonOptions);
+                                    return shapesData.toJSONBytes();
+                                }
+                                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                                OverlapBinaryWriter.write(shapesData, out, format.equals("bin32"));
+                                return out.toByteArray();
+                            }
+                        }));
+                    } else {
+                        // 결과 객체를 그대로 넘기면 API에서 JSON 트리 없이 스트리밍으로 직렬화한다
+                        JsonOptions jsonOptions = getJsonOptions(reqJson);
+                        OverlapResult shapesData;
+                        try (AdmissionControl.Ticket ticket = admit(jsonResponse, estimatedMillis)) {
+                            generator.setProgress(ticket.newProgress());
+                            shapesData = generator.generate(width, height, radiusMax, howMany, maxEdges);
+                        }
+                        shapesData.setJsonOptions(jsonOptions);
+                        ShapeMetrics.recordPhases(action, howMany, generator.getLastPhaseStats());
+                        if (generator.getLastTileStats() != null) {
+                            resJson.put("TILES", generator.getLastTileStats().toJSON());
+                        }
+                        resJson.put("RESULT", shapesData);
+                    }
+
+                } catch (NumberFormatException e) {
+                    throw new Exception("숫자 파라미터 형식이 올바르지 않습니다.");
+                }
+                break;
+
+            case "ShapesIngest": {
+                // POST 본문(NDJSON / CSV)의 도형을 스트리밍으로 읽어 같은 방식으로 그룹화한다
+                Object body = jsonResponse.opt("BODY_STREAM");
+                if (!(body instanceof InputStream)) {
+                    throw new Exception("POST 본문에 NDJSON(application/x-ndjson) 또는 CSV(text/csv) 도형 데이터가 필요합니다.");
+                }
+                String inputFormat = reqJson.optString("InputFormat", jsonResponse.optString("BODY_FORMAT", "ndjson"));
+
+                try {
+                    ShapeGenerator generator = new ShapeGenerator();
+                    applyGeneratorOptions(reqJson, generator);
+                    JsonOptions jsonOptions = getJsonOptions(reqJson);
+
+                    ShapeReader reader = new ShapeReader();
+                    Scene scene = reader.read((InputStream) body, inputFormat);
+                    ShapeMetrics.recordIngest(action, ShapeMetrics.sizeBucket(scene.size()), inputFormat,
+                            reader.getNanos(), reader.getBytesRead());
 
+                    // 본문은 스트리밍으로 읽었으므로 비용이 큰 그룹화 직전에 읽은 장면으로 비용을 어림해 입장한다
+                    OverlapResult shapesData;
+                    try (AdmissionControl.Ticket ticket = admit(jsonResponse,
+                            AdmissionControl.estimateGroupingMillis(scene, reqJson.optString("BroadPhase", "grid")))) {
+                        generator.setProgress(ticket.newProgress());
+                        shapesData = generator.group(scene);
+                    }
+                    shapesData.setJsonOptions(jsonOptions);
+                    ShapeMetrics.recordPhases(action, scene.size(), generator.getLastPhaseStats());
+                    resJson.put("INGEST", reader.toJSON());
+                    if (generator.getLastTileStats() != null) {
+                        resJson.put("TILES", generator.getLastTileStats().toJSON());
+                    }
+                    resJson.put("RESULT", shapesData);
                 } catch (NumberFormatException e) {
                     throw new Exception("숫자 파라미터 형식이 올바르지 않습니다.");
                 }
                 break;
+            }
+
+            case "ShapesOverlapsFile": {
+                // 서버의 데이터 디렉터리에 있는 이진 도형 파일(Format=bin / bin32 응답과 같은 형식)을
+                // 메모리 매핑으로 그룹화하고, 도형별 연결 요소 번호를 출력 파일에 쓴다
+                if (!reqJson.has("InputPath")) {
+                    throw new Exception("InputPath 파라미터가 필요합니다.");
+                }
+                Path input = resolveDataPath(reqJson.getString("InputPath"));
+                Path output = resolveDataPath(reqJson.optString("OutputPath", reqJson.getString("InputPath") + ".labels"));
+                if (!Files.isRegularFile(input)) {
+                    throw new Exception("입력 파일이 없습니다: " + reqJson.getString("InputPath"));
+                }
+                if (input.equals(output)) {
+                    throw new Exception("OutputPath는 InputPath와 달라야 합니다.");
+                }
+                // 헤더의 도형 / 정점 수로 비용을 어림해 입장하고, 그룹화 루프가 처리 시간 한도를 확인한다
+                long[] counts = MappedShapeGrouper.readCounts(input);
+                MappedShapeGrouper grouper = new MappedShapeGrouper(input, output);
+                try (AdmissionControl.Ticket ticket = admit(jsonResponse,
+                        AdmissionControl.estimateFileMillis(counts[0], counts[1]))) {
+                    grouper.setProgress(ticket.newProgress());
+                    resJson.put("RESULT", grouper.run());
+                }
+                break;
+            }
+
+            case "ShapesOverlapsBatch": {
+                // POST 본문: 파라미터 객체 배열, 또는 {"Items": [...]}
+                Object body = jsonResponse.opt("BODY");
+                if (body instanceof JSONObject && ((JSONObject) body).has("Items")) {
+                    body = ((JSONObject) body).get("Items");
+                }
+                if (!(body instanceof JSONArray)) {
+                    throw new Exception("POST 본문에 파라미터 배열(JSON)이 필요합니다.");
+                }
+
+                JSONObject defaults = new JSONObject();
+                for (String key : reqJson.keySet()) {
+                    if (!key.equals("Action") && !key.equals("Format")) {
+                        defaults.put(key, reqJson.get(key));
+                    }
+                }
+                // 항목별 계산은 API가 응답을 쓰면서 순서대로 기다린다
+                resJson.put("RESULT", new ShapesBatch((JSONArray) body, defaults, getClient(jsonResponse)));
+                break;
+            }
+
+            case "JobStatus":
+            case "JobResult":
+            case "JobCancel":
+            case "JobEvents": {
+                if (!reqJson.has("JobId")) {
+                    throw new Exception("JobId 파라미터가 필요합니다.");
+                }
+                ShapeJob job = JobStore.get(reqJson.getString("JobId"));
+
+                if (action.equals("JobResult")) {
+                    resJson.put("RESULT", job.getResult());
+                } else if (action.equals("JobEvents")) {
+                    // API가 작업이 끝날 때까지 진행 상황을 server-sent events로 보낸다
+                    resJson.put("RESULT", job);
+                } else {
+                    if (action.equals("JobCancel")) {
+                        job.cancel();
+                    }
+                    resJson.put("RESULT", job.toJSON());
+                }
+                break;
+            }
+
+            case "CacheStats":
+                resJson.put("RESULT", ResultCache.statsToJSON());
+                break;
+
+            case "AdmissionStats":
+                resJson.put("RESULT", AdmissionControl.statsToJSON());
+                break;
+
+            case "SceneCreate":
+            case "SceneAdd":
+            case "SceneMove":
+            case "SceneRemove":
+            case "SceneGroups":
+            case "SceneDelete":
+            case "SceneQueryPoint":
+            case "SceneQueryRect":
+            case "SceneQueryShape":
+            case "SceneStep":
+                resJson.put("RESULT", EXEC_SCENE_TASK(action, jsonResponse));
+                break;
 
             default:
                 throw new Exception("지원하지 않는 Action입니다: " + action);
         }
     }
+
+    // 파일 기반 Action이 접근할 수 있는 디렉터리 (-Dshapes.dataDir=..., 기본값은 작업 디렉터리의 shape-data)
+    private static final Path DATA_DIR = Paths.get(System.getProperty("shapes.dataDir", "shape-data"))
+            .toAbsolutePath().normalize();
+
+    // 요청의 상대 경로를 데이터 디렉터리 안의 경로로 바꾼다 (디렉터리 밖을 가리키면 거부)
+    private static Path resolveDataPath(String relativePath) throws Exception {
+        Path path = DATA_DIR.resolve(relativePath).normalize();
+        if (!path.startsWith(DATA_DIR) || path.equals(DATA_DIR)) {
+            throw new Exception("데이터 디렉터리 밖의 경로는 사용할 수 없습니다: " + relativePath);
+        }
+        return path;
+    }
+
+    // API가 넣어 준 클라이언트 구분 (내부 호출은 local)
+    private static String getClient(JSONObject jsonResponse) {
+        return jsonResponse.optString("CLIENT", "local");
+    }
+
+    // 생성 + 그룹화 예상 비용 - BroadPhaseReport는 같은 장면을 세 전략으로 모두 그룹화한다
+    private static double estimateMillis(String action, String broadPhase, int width, int height,
+                                         int radiusMax, int howMany, int maxEdges) {
+        if (!action.equals("BroadPhaseReport")) {
+            return AdmissionControl.estimateMillis(width, height, radiusMax, howMany, maxEdges, broadPhase);
+        }
+        double total = 0;
+        for (String name : new String[]{"none", "grid", "sweep"}) {
+            total += AdmissionControl.estimateMillis(width, height, radiusMax, howMany, maxEdges, name);
+        }
+        return total;
+    }
+
+    // 계산 Action 입장 - 받을 수 없으면 AdmissionException (API가 429 / 503으로 응답)
+    // TimeoutMillis 파라미터로 처리 시간 한도를 서버 기본값보다 줄일 수 있다
+    private static AdmissionControl.Ticket admit(JSONObject jsonResponse, double estimatedMillis) throws Exception {
+        JSONObject reqJson = jsonResponse.getJSONObject("REQ");
+        AdmissionControl.Ticket ticket = AdmissionControl.acquire(getClient(jsonResponse),
+                reqJson.getString("Action"), ShapeMetrics.sizeBucket(reqJson), estimatedMillis,
+                getTimeoutMillis(reqJson));
+        // 배치 항목은 자기 진행 상황을 넘겨 두고, 클라이언트가 끊기면 그것으로 계산을 멈춘다
+        Object progress = jsonResponse.opt("PROGRESS");
+        if (progress instanceof GenerationProgress) {
+            ticket.setProgress((GenerationProgress) progress);
+        }
+        jsonResponse.getJSONObject("RES").put("ADMISSION", ticket.toJSON());
+        return ticket;
+    }
+
+    // 도형 하나의 꼭짓점 수 상한은 업로드(ShapeReader) / SceneAdd의 Sides와 같다
+    private static void checkMaxEdges(int maxEdges) throws Exception {
+        if (maxEdges > ShapeReader.MAX_VERTICES) {
+            throw new Exception("MaxEdges는 3 이상 " + ShapeReader.MAX_VERTICES + " 이하여야 합니다.");
+        }
+    }
+
+    private static long getTimeoutMillis(JSONObject reqJson) throws Exception {
+        long timeoutMillis = AdmissionControl.getDeadlineMillis();
+        if (reqJson.has("TimeoutMillis")) {
+            long requested = getIntParam(reqJson, "TimeoutMillis");
+            if (requested < 1 || requested > timeoutMillis) {
+                throw new Exception("TimeoutMillis는 1 이상 " + timeoutMillis + " 이하여야 합니다.");
+            }
+            timeoutMillis = requested;
+        }
+        return timeoutMillis;
+    }
+
+    private static final int DEFAULT_PAIR_LIMIT = 10_000;
+
+    // BroadPhase / Format / Parallelism / TileSize / Pairs 파라미터 검증 후 생성기에 적용
+    private static void applyGeneratorOptions(JSONObject reqJson, ShapeGenerator generator) throws Exception {
+        if (reqJson.has("BroadPhase")) {
+            BroadPhase broadPhase = BroadPhase.forName(reqJson.getString("BroadPhase"));
+            if (broadPhase == null) {
+                throw new Exception("지원하지 않는 BroadPhase입니다: " + reqJson.getString("BroadPhase"));
+            }
+            generator.setBroadPhase(broadPhase);
+        }
+        if (reqJson.has("Format")) {
+            String format = reqJson.getString("Format");
+            if (!format.equals("json") && !format.equals("bin") && !format.equals("bin32")) {
+                throw new Exception("지원하지 않는 Format입니다: " + format);
+            }
+        }
+        if (reqJson.has("Parallelism")) {
+            int parallelism = Integer.parseInt(reqJson.getString("Parallelism"));
+            if (parallelism < 1) {
+                throw new Exception("Parallelism은 1 이상이어야 합니다.");
+            }
+            generator.setParallelism(parallelism);
+        }
+        if (reqJson.has("TileSize")) {
+            // auto: RadiusMax와 스레드 수로 타일 크기를 정한다
+            String tileSize = reqJson.getString("TileSize");
+            double size = tileSize.equals("auto") ? ShapeGenerator.AUTO_TILE_SIZE : Double.parseDouble(tileSize);
+            if (!tileSize.equals("auto") && !(Double.isFinite(size) && size > 0)) {
+                throw new Exception("TileSize는 auto 또는 0보다 큰 수여야 합니다.");
+            }
+            generator.setTileSize(size);
+        }
+        if (reqJson.has("Pairs")) {
+            // 겹친 쌍 목록 (edges / csr) - 한 페이지에 PairLimit개까지, 다음 페이지는 PairCursor로
+            if (!reqJson.optString("Format", "json").equals("json")) {
+                throw new Exception("Pairs는 Format=json에서만 사용할 수 있습니다.");
+            }
+            generator.setPairCollector(new OverlapPairs(reqJson.getString("Pairs"),
+                    reqJson.has("PairCursor") ? reqJson.getString("PairCursor") : null, getPairLimit(reqJson)));
+        }
+    }
+
+    private static int getPairLimit(JSONObject reqJson) {
+        return Integer.parseInt(reqJson.optString("PairLimit", String.valueOf(DEFAULT_PAIR_LIMIT)));
+    }
+
+    // 상태 유지 장면 Action 처리 (생성 / 도형 추가 / 이동 / 삭제 / 그룹 조회 / 공간 질의 / 프레임 진행 / 장면 삭제)
+    private static JSONObject EXEC_SCENE_TASK(String action, JSONObject jsonResponse) throws Exception {
+        JSONObject reqJson = jsonResponse.getJSONObject("REQ");
+        JSONObject result = new JSONObject();
+
+        if (action.equals("SceneCreate")) {
+            int radiusMax = getIntParam(reqJson, "RadiusMax");
+            if (radiusMax <= 0) {
+                throw new Exception("파라미터 값이 올바르지 않습니다.");
+            }
+
+            // Mode=Step: 도형마다 속도/각속도를 주고 SceneStep으로 프레임을 진행하는 장면
+            boolean step = reqJson.optString("Mode", "").equals("Step");
+            double velocityMax = 0, angularMax = 0;
+            if (step) {
+                if (!reqJson.has("HowMany")) {
+                    throw new Exception("Step 모드 장면은 HowMany 파라미터가 필요합니다.");
+                }
+                velocityMax = reqJson.has("VelocityMax") ? getDoubleParam(reqJson, "VelocityMax") : radiusMax / 10.0;
+                angularMax = reqJson.has("AngularVelocityMax") ? getDoubleParam(reqJson, "AngularVelocityMax") : 0.05;
+                if (velocityMax < 0 || angularMax < 0) {
+                    throw new Exception("VelocityMax와 AngularVelocityMax는 0 이상이어야 합니다.");
+                }
+            }
+
+            // Width/Height/HowMany/MaxEdges가 함께 오면 무작위 도형으로 채운 장면에서 시작
+            int width = 0, height = 0, howMany = 0, maxEdges = 0;
+            double estimatedMillis = 0;
+            if (reqJson.has("HowMany")) {
+                width = getIntParam(reqJson, "Width");
+                height = getIntParam(reqJson, "Height");
+                howMany = getIntParam(reqJson, "HowMany");
+                maxEdges = getIntParam(reqJson, "MaxEdges");
+                if (width <= 0 || height <= 0 || howMany <= 0 || maxEdges < 3) {
+                    throw new Exception("파라미터 값이 올바르지 않습니다.");
+                }
+                checkMaxEdges(maxEdges);
+                // 생성 + (LiveScene이면) 처음 그룹화 - 격자 넓은 단계와 같은 비용으로 어림한다
+                estimatedMillis = AdmissionControl.estimateMillis(width, height, radiusMax, howMany, maxEdges, "grid");
+            }
+
+            // 생성과 처음 그룹화 모두 입장권 안에서, 같은 처리 시간 한도로 진행한다
+            try (AdmissionControl.Ticket ticket = admit(jsonResponse, estimatedMillis)) {
+                Scene scene = new Scene();
+                if (reqJson.has("HowMany")) {
+                    ShapeGenerator generator = reqJson.has("Seed")
+                            ? new ShapeGenerator(Long.parseLong(reqJson.getString("Seed"))) : new ShapeGenerator();
+                    generator.setProgress(ticket.newProgress());
+                    scene = generator.createScene(width, height, radiusMax, howMany, maxEdges);
+                }
+
+                if (step) {
+                    long seed = reqJson.has("Seed") ? Long.parseLong(getStringParam(reqJson, "Seed")) : System.nanoTime();
+                    KineticScene kineticScene = new KineticScene(scene, width, height);
+                    kineticScene.randomizeVelocities(seed, velocityMax, angularMax);
+                    ticket.checkDeadline();
+                    result.put("sceneId", SceneStore.putKinetic(kineticScene));
+                    result.put("mode", "Step");
+                    result.put("totalCount", scene.size());
+                    return result;
+                }
+
+                LiveScene liveScene = new LiveScene(scene, 2.0 * radiusMax, ticket.newProgress());
+                result.put("sceneId", SceneStore.put(liveScene));
+                result.put("totalCount", liveScene.getLiveCount());
+                return result;
+            }
+        }
+
+        String sceneId = getStringParam(reqJson, "SceneId");
+        if (action.equals("SceneDelete")) {
+            result.put("sceneId", sceneId);
+            result.put("deleted", SceneStore.remove(sceneId));
+            return result;
+        }
+
+        if (action.equals("SceneStep")) {
+            return EXEC_SCENE_STEP(sceneId, jsonResponse);
+        }
+
+        LiveScene liveScene = SceneStore.get(sceneId);
+        result.put("sceneId", sceneId);
+        long start = System.nanoTime();
+
+        switch (action) {
+            case "SceneAdd": {
+                String type = getStringParam(reqJson, "Type");
+                double x = getDoubleParam(reqJson, "X");
+                double y = getDoubleParam(reqJson, "Y");
+                double radius = getDoubleParam(reqJson, "Radius");
+                checkPosition(x, y);
+                if (!(radius > 0 && radius <= LiveScene.MAX_RADIUS)) {
+                    throw new Exception("Radius는 0보다 크고 " + LiveScene.MAX_RADIUS + " 이하여야 합니다.");
+                }
+                int color = ThreadLocalRandom.current().nextInt(0x1000000);
+
+                int sides = 0;
+                if (type.equals("regularPolygon") || type.equals("irregularPolygon")) {
+                    sides = getIntParam(reqJson, "Sides");
+                    if (sides < 3 || sides > ShapeReader.MAX_VERTICES) {
+                        throw new Exception("Sides는 3 이상 " + ShapeReader.MAX_VERTICES + " 이하여야 합니다.");
+                    }
+                } else if (!type.equals("circle")) {
+                    throw new Exception("지원하지 않는 Type입니다: " + type);
+                }
+
+                // 변경은 장면 잠금 안에서 한 번에 끝나므로 처리 시간 한도 없이 입장만 거친다
+                LiveScene.Update update;
+                try (AdmissionControl.Ticket ignored = admit(jsonResponse,
+                        AdmissionControl.estimateUpdateMillis(liveScene.estimateCandidates(radius), sides))) {
+                    if (type.equals("circle")) {
+                        update = liveScene.addCircle(x, y, radius, color);
+                    } else if (type.equals("regularPolygon")) {
+                        double rotation = reqJson.has("Rotation") ? getDoubleParam(reqJson, "Rotation") : 0.0;
+                        update = liveScene.addRegularPolygon(x, y, radius, sides, rotation, color);
+                    } else {
+                        update = liveScene.addIrregularPolygon(x, y, radius, sides, color);
+                    }
+                }
+                putShapeUpdate(result, update);
+                break;
+            }
+
+            case "SceneMove": {
+                int index = getShapeIndexParam(reqJson);
+                double x = getDoubleParam(reqJson, "X");
+                double y = getDoubleParam(reqJson, "Y");
+                checkPosition(x, y);
+                // 옮기는 도형의 꼭짓점 수 대신 장면의 도형당 평균 꼭짓점 수로 어림한다
+                Scene scene = liveScene.getScene();
+                double vertices = (double) scene.getVertexCount() / Math.max(1, scene.size());
+                try (AdmissionControl.Ticket ignored = admit(jsonResponse,
+                        AdmissionControl.estimateUpdateMillis(liveScene.estimateMoveCandidates(index), vertices))) {
+                    putShapeUpdate(result, liveScene.move(index, x, y));
+                }
+                break;
+            }
+
+            case "SceneRemove": {
+                int index = getShapeIndexParam(reqJson);
+                liveScene.remove(index);
+                result.put("shapeId", Shape.toId(index));
+                break;
+            }
+
+            case "SceneQueryPoint": {
+                putQueryResult(result, liveScene.queryPoint(getDoubleParam(reqJson, "X"), getDoubleParam(reqJson, "Y")));
+                break;
+            }
+
+            case "SceneQueryRect": {
+                double minX = getDoubleParam(reqJson, "MinX");
+                double minY = getDoubleParam(reqJson, "MinY");
+                double maxX = getDoubleParam(reqJson, "MaxX");
+                double maxY = getDoubleParam(reqJson, "MaxY");
+                if (minX > maxX || minY > maxY) {
+                    throw new Exception("MinX/MinY는 MaxX/MaxY보다 클 수 없습니다.");
+                }
+                putQueryResult(result, liveScene.queryRect(minX, minY, maxX, maxY));
+                break;
+            }
+
+            // 탐침 도형: circle / regularPolygon (X, Y, Radius[, Sides, Rotation]) 또는
+            // irregularPolygon (Vertices = "x1,y1,x2,y2,..." 볼록 다각형)
+            case "SceneQueryShape": {
+                String type = getStringParam(reqJson, "Type");
+                LiveScene.QueryResult hits;
+                if (type.equals("irregularPolygon")) {
+                    String[] parts = getStringParam(reqJson, "Vertices").split(",");
+                    if (parts.length % 2 != 0 || parts.length > 2 * ShapeReader.MAX_VERTICES) {
+                        throw new Exception("Vertices는 x, y 쌍 목록이어야 합니다.");
+                    }
+                    int count = parts.length / 2;
+                    double[] vx = new double[count];
+                    double[] vy = new double[count];
+                    try {
+                        for (int k = 0; k < count; k++) {
+                            vx[k] = Double.parseDouble(parts[2 * k].trim());
+                            vy[k] = Double.parseDouble(parts[2 * k + 1].trim());
+                        }
+                    } catch (NumberFormatException e) {
+                        throw new Exception("Vertices는 유효한 숫자 목록이어야 합니다.");
+                    }
+                    try {
+                        hits = liveScene.queryPolygon(vx, vy, count);
+                    } catch (IllegalArgumentException e) {
+                        throw new Exception(e.getMessage());
+                    }
+                } else {
+                    double x = getDoubleParam(reqJson, "X");
+                    double y = getDoubleParam(reqJson, "Y");
+                    double radius = getDoubleParam(reqJson, "Radius");
+                    if (radius <= 0) {
+                        throw new Exception("Radius는 0보다 커야 합니다.");
+                    }
+                    if (type.equals("circle")) {
+                        hits = liveScene.queryCircle(x, y, radius);
+                    } else if (type.equals("regularPolygon")) {
+                        int sides = getIntParam(reqJson, "Sides");
+                        if (sides < 3 || sides > ShapeReader.MAX_VERTICES) {
+                            throw new Exception("Sides는 3 이상 " + ShapeReader.MAX_VERTICES + " 이하여야 합니다.");
+                        }
+                        double rotation = reqJson.has("Rotation") ? getDoubleParam(reqJson, "Rotation") : 0.0;
+                        hits = liveScene.queryRegularPolygon(x, y, radius, sides, rotation);
+                    } else {
+                        throw new Exception("지원하지 않는 Type입니다: " + type);
+                    }
+                }
+                putQueryResult(result, hits);
+                break;
+            }
+
+            default: {
+                List<int[]> groups = liveScene.groups();
+                JSONArray groupsArray = new JSONArray();
+                for (int[] group : groups) {
+                    if (group.length > 1) {
+                        JSONArray shapeIds = new JSONArray();
+                        for (int index : group) {
+                            shapeIds.put(Shape.toId(index));
+                        }
+                        groupsArray.put(new JSONObject().put("shapeIds", shapeIds).put("size", group.length));
+                    }
+                }
+                result.put("overlapGroups", groupsArray);
+                result.put("groupCount", groups.size());
+
+                if (reqJson.optString("IncludeShapes", "false").equals("true")) {
+                    Scene scene = liveScene.getScene();
+                    JSONArray shapesArray = new JSONArray();
+                    synchronized (liveScene) {
+                        for (int i = 0; i < scene.size(); i++) {
+                            if (!scene.isRemoved(i)) {
+                                shapesArray.put(scene.toJSON(i));
+                            }
+                        }
+                    }
+                    result.put("shapes", shapesArray);
+                }
+                break;
+            }
+        }
+
+        result.put("totalCount", liveScene.getLiveCount());
+        result.put("elapsedMicros", (System.nanoTime() - start) / 1000);
+        return result;
+    }
+
+    // Output / Precision / DerivedVertices / Fields - JSON 결과 출력 옵션 (Format=json일 때만 의미가 있다)
+    private static JsonOptions getJsonOptions(JSONObject reqJson) throws Exception {
+        try {
+            return JsonOptions.parse(reqJson.has("Output") ? reqJson.getString("Output") : null,
+                    reqJson.has("Precision") ? reqJson.getString("Precision") : null,
+                    reqJson.has("DerivedVertices") ? reqJson.getString("DerivedVertices") : null,
+                    reqJson.has("Fields") ? reqJson.getString("Fields") : null);
+        } catch (IllegalArgumentException e) {
+            throw new Exception(e.getMessage());
+        }
+    }
+
+    private static final int MAX_STEP_FRAMES = 1000;
+
+    // Step 모드 장면을 Frames 프레임(기본 1) 진행 - 프레임별 비용/분리 축 캐시 적중과 마지막 프레임의 그룹을 돌려준다
+    private static JSONObject EXEC_SCENE_STEP(String sceneId, JSONObject jsonResponse) throws Exception {
+        JSONObject reqJson = jsonResponse.getJSONObject("REQ");
+        KineticScene kineticScene = SceneStore.getKinetic(sceneId);
+        int frames = reqJson.has("Frames") ? getIntParam(reqJson, "Frames") : 1;
+        double dt = reqJson.has("Dt") ? getDoubleParam(reqJson, "Dt") : 1.0;
+        if (frames < 1 || frames > MAX_STEP_FRAMES) {
+            throw new Exception("Frames는 1 이상 " + MAX_STEP_FRAMES + " 이하여야 합니다.");
+        }
+        if (dt <= 0) {
+            throw new Exception("Dt는 0보다 커야 합니다.");
+        }
+
+        JSONObject result = new JSONObject();
+        result.put("sceneId", sceneId);
+        JSONArray frameStats = new JSONArray();
+        long totalNanos = 0, axisLookups = 0, axisHits = 0, fullTests = 0;
+        List<int[]> groups;
+        // 프레임 하나는 쓸기 넓은 단계로 장면을 다시 그룹화하는 것과 비슷한 비용 (분리 축 캐시 적중분은 덜 든다)
+        // 처리 시간 한도는 프레임 사이에서 확인한다 (한도를 넘기 전까지 진행한 프레임은 장면에 남는다)
+        double estimatedMillis = frames * AdmissionControl.estimateGroupingMillis(kineticScene.getScene(), "sweep");
+        try (AdmissionControl.Ticket ticket = admit(jsonResponse, estimatedMillis)) {
+            synchronized (kineticScene) {
+                for (int f = 0; f < frames; f++) {
+                    ticket.checkDeadline();
+                    KineticScene.FrameStats stats = kineticScene.step(dt);
+                    frameStats.put(stats.toJSON());
+                    totalNanos += stats.getTotalNanos();
+                    axisLookups += stats.getAxisLookups();
+                    axisHits += stats.getAxisHits();
+                    fullTests += stats.getFullTests();
+                }
+                groups = kineticScene.getGroups();
+                result.put("frame", kineticScene.getFrame());
+            }
+        }
+
+        JSONArray groupsArray = new JSONArray();
+        for (int[] group : groups) {
+            if (group.length > 1) {
+                JSONArray shapeIds = new JSONArray();
+                for (int index : group) {
+                    shapeIds.put(Shape.toId(index));
+                }
+                groupsArray.put(new JSONObject().put("shapeIds", shapeIds).put("size", group.length));
+            }
+        }
+        result.put("overlapGroups", groupsArray);
+        result.put("groupCount", groups.size());
+        result.put("frames", frameStats);
+        result.put("totalMicros", totalNanos / 1000);
+        result.put("microsPerFrame", totalNanos / 1000 / frames);
+        result.put("axisHitRate", axisLookups == 0 ? 0.0 : (double) axisHits / axisLookups);
+        result.put("fullTests", fullTests);
+        result.put("totalCount", kineticScene.getScene().size());
+        return result;
+    }
+
+    // 살아 있는 장면의 중심 좌표 한도 (NaN도 거른다)
+    private static void checkPosition(double x, double y) throws Exception {
+        if (!(Math.abs(x) <= LiveScene.MAX_COORDINATE && Math.abs(y) <= LiveScene.MAX_COORDINATE)) {
+            throw new Exception("X/Y는 절댓값 " + LiveScene.MAX_COORDINATE + " 이하여야 합니다.");
+        }
+    }
+
+    private static void putShapeUpdate(JSONObject result, LiveScene.Update update) {
+        result.put("shapeId", Shape.toId(update.getShape()));
+        result.put("groupSize", update.getGroupSize());
+        result.put("neighborCount", update.getNeighborCount());
+        result.put("testedPairs", update.getPairTests());
+    }
+
+    private static void putQueryResult(JSONObject result, LiveScene.QueryResult query) {
+        JSONArray shapeIds = new JSONArray();
+        for (int index : query.getHits()) {
+            shapeIds.put(Shape.toId(index));
+        }
+        result.put("shapeIds", shapeIds);
+        result.put("count", query.getHits().length);
+        result.put("candidates", query.getCandidates());
+        result.put("nodesVisited", query.getNodesVisited());
+        result.put("indexRebuilt", query.isIndexRebuilt());
+    }
+
+    private static String getStringParam(JSONObject reqJson, String name) throws Exception {
+        if (!reqJson.has(name)) {
+            throw new Exception(name + " 파라미터가 필요합니다.");
+        }
+        return reqJson.getString(name);
+    }
+
+    private static int getIntParam(JSONObject reqJson, String name) throws Exception {
+        try {
+            return Integer.parseInt(getStringParam(reqJson, name));
+        } catch (NumberFormatException e) {
+            throw new Exception(name + "는 유효한 정수여야 합니다.");
+        }
+    }
+
+    private static double getDoubleParam(JSONObject reqJson, String name) throws Exception {
+        try {
+            double value = Double.parseDouble(getStringParam(reqJson, name));
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new NumberFormatException();
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new Exception(name + "는 유효한 숫자여야 합니다.");
+        }
+    }
+
+    // ShapeId는 "shape_12" 또는 "12" 형식
+    private static int getShapeIndexParam(JSONObject reqJson) throws Exception {
+        String shapeId = getStringParam(reqJson, "ShapeId");
+        try {
+            return Integer.parseInt(shapeId.startsWith("shape_") ? shapeId.substring(6) : shapeId);
+        } catch (NumberFormatException e) {
+            throw new Exception("ShapeId 형식이 올바르지 않습니다: " + shapeId);
+        }
+    }
 }
@@ -0,0 +1,59 @@
+package knu.pyh;
+
+import knu.pyh.shapes.ShapeGenerator;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 비동기 ShapesOverlaps 작업 보관소
+// 작업은 요청 스레드가 아닌 전용 스레드 풀에서 실행되며, 끝난 작업은 결과를 가져갈 수 있도록 남겨 둔다
+public class JobStore {
+    // 한 번에 실행하는 작업 수 - 나머지는 대기열에서 기다린다
+    private static final int JOB_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    // 보관하는 작업 수 (끝난 작업의 결과가 메모리를 계속 차지하지 않도록 오래된 것부터 지운다)
+    private static final int MAX_JOBS = 32;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(JOB_THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "shape-job");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final Map<String, ShapeJob> JOBS = new ConcurrentHashMap<>();
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    public static synchronized ShapeJob submit(ShapeGenerator generator, int width, int height,
+                                               int radiusMax, int howMany, int maxEdges) throws Exception {
+        if (JOBS.size() >= MAX_JOBS) {
+            evictOldestFinished();
+        }
+        if (JOBS.size() >= MAX_JOBS) {
+            throw new Exception("실행 중이거나 대기 중인 작업이 너무 많습니다.");
+        }
+
+        ShapeJob job = new ShapeJob("job_" + NEXT_ID.getAndIncrement(), howMany);
+        JOBS.put(job.getJobId(), job);
+        job.setFuture(EXECUTOR.submit(() -> job.run(generator, width, height, radiusMax, maxEdges)));
+        return job;
+    }
+
+    public static ShapeJob get(String jobId) throws Exception {
+        ShapeJob job = JOBS.get(jobId);
+        if (job == null) {
+            throw new Exception("존재하지 않는 작업입니다: " + jobId);
+        }
+        return job;
+    }
+
+    private static void evictOldestFinished() {
+        JOBS.values().stream()
+                .filter(ShapeJob::isFinished)
+                .min(Comparator.comparingLong(ShapeJob::getFinishedAt))
+                .ifPresent(job -> JOBS.remove(job.getJobId()));
+    }
+}
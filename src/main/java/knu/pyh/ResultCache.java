@@ -0,0 +1,162 @@
+package knu.pyh;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import knu.pyh.shapes.DeadlineExceededException;
+import knu.pyh.shapes.PairIndex;
+import org.json.JSONObject;
+
+// 시드가 주어진 ShapesOverlaps 결과를 보관하는 크기 기반 LRU 캐시
+// 값은 직렬화된 바이트(byte[]) 또는 쌍 목록 페이지용 PairIndex이고, 둘이 같은 바이트 한도를 나눠 쓴다
+// 같은 키의 요청이 동시에 들어오면 하나만 계산하고 나머지는 그 결과를 기다린다 (single-flight)
+public class ResultCache {
+    // 캐시 전체가 차지할 수 있는 최대 바이트 수 / 항목 하나의 최대 크기
+    static final long MAX_BYTES = Long.getLong("shapes.resultCache.maxBytes", 256L * 1024 * 1024);
+    static final long MAX_ENTRY_BYTES = MAX_BYTES / 4;
+
+    public interface Loader<T> {
+        T load() throws Exception;
+    }
+
+    // accessOrder=true 이므로 순회 순서가 가장 오래 사용되지 않은 항목부터이다
+    private static final LinkedHashMap<String, Object> ENTRIES = new LinkedHashMap<>(64, 0.75f, true);
+    private static final Map<String, CompletableFuture<Object>> IN_FLIGHT = new ConcurrentHashMap<>();
+    private static long totalBytes;
+
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong COALESCED = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    public static String key(int width, int height, int radiusMax, int howMany, int maxEdges, long seed,
+                             String broadPhase, String format) {
+        return width + "|" + height + "|" + radiusMax + "|" + howMany + "|" + maxEdges + "|" + seed
+                + "|" + broadPhase + "|" + format;
+    }
+
+    // timeoutMillis: 다른 요청의 계산을 기다릴 때 쓰는 이 요청 자신의 처리 시간 한도
+    public static byte[] get(String key, long timeoutMillis, Loader<byte[]> loader) throws Exception {
+        return (byte[]) load(key, timeoutMillis, loader);
+    }
+
+    public static PairIndex getPairIndex(String key, long timeoutMillis, Loader<PairIndex> loader) throws Exception {
+        return (PairIndex) load(key, timeoutMillis, loader);
+    }
+
+    private static Object cached(String key) {
+        synchronized (ENTRIES) {
+            Object cached = ENTRIES.get(key);
+            if (cached != null) {
+                HITS.incrementAndGet();
+            }
+            return cached;
+        }
+    }
+
+    private static Object load(String key, long timeoutMillis, Loader<?> loader) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (true) {
+            Object cached = cached(key);
+            if (cached != null) {
+                return cached;
+            }
+
+            // 1. 같은 키를 계산 중인 요청이 있으면 그 결과를 기다린다 (자기 한도까지만)
+            CompletableFuture<Object> future = new CompletableFuture<>();
+            CompletableFuture<Object> running = IN_FLIGHT.putIfAbsent(key, future);
+            if (running != null) {
+                COALESCED.incrementAndGet();
+                try {
+                    return running.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (CancellationException e) {
+                    // 앞선 계산이 취소되었으면(배치 클라이언트가 끊김) 이 요청이 다시 계산한다 - 한도 초과는 그대로 전한다
+                    // (CompletableFuture.get은 취소 예외를 ExecutionException으로 감싸지 않고 그대로 던진다)
+                    if (e instanceof DeadlineExceededException) {
+                        throw e;
+                    }
+                    continue;
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                } catch (TimeoutException e) {
+                    throw new DeadlineExceededException(timeoutMillis);
+                }
+            }
+
+            try {
+                // 2. 처음 조회와 putIfAbsent 사이에 앞선 계산이 끝나 캐시에 들어갔을 수 있다
+                cached = cached(key);
+                if (cached != null) {
+                    future.complete(cached);
+                    return cached;
+                }
+
+                // 3. 직접 계산하고 캐시에 넣은 뒤 기다리던 요청들을 깨운다
+                MISSES.incrementAndGet();
+                Object value = loader.load();
+                put(key, value);
+                future.complete(value);
+                return value;
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+                throw e;
+            } finally {
+                IN_FLIGHT.remove(key);
+            }
+        }
+    }
+
+    private static long sizeOf(Object value) {
+        return value instanceof byte[] ? ((byte[]) value).length : ((PairIndex) value).estimateBytes();
+    }
+
+    private static void put(String key, Object value) {
+        long size = sizeOf(value);
+        if (size > MAX_ENTRY_BYTES) {
+            return;
+        }
+        synchronized (ENTRIES) {
+            Object previous = ENTRIES.put(key, value);
+            if (previous != null) {
+                totalBytes -= sizeOf(previous);
+            }
+            totalBytes += size;
+
+            Iterator<Map.Entry<String, Object>> it = ENTRIES.entrySet().iterator();
+            while (totalBytes > MAX_BYTES && it.hasNext()) {
+                Map.Entry<String, Object> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                totalBytes -= sizeOf(eldest.getValue());
+                it.remove();
+                EVICTIONS.incrementAndGet();
+            }
+        }
+    }
+
+    public static JSONObject statsToJSON() {
+        JSONObject stats = new JSONObject();
+        synchronized (ENTRIES) {
+            stats.put("entries", ENTRIES.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("maxBytes", MAX_BYTES);
+        stats.put("hits", HITS.get());
+        stats.put("misses", MISSES.get());
+        stats.put("coalesced", COALESCED.get());
+        stats.put("evictions", EVICTIONS.get());
+
+        long lookups = HITS.get() + MISSES.get() + COALESCED.get();
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) (HITS.get() + COALESCED.get()) / lookups);
+        return stats;
+    }
+}
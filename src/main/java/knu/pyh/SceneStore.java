@@ -0,0 +1,56 @@
+package knu.pyh;
+
+import knu.pyh.shapes.KineticScene;
+import knu.pyh.shapes.LiveScene;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 서버에 유지되는 장면 보관소 - 변경 단위 장면(LiveScene)과 Step 모드 장면(KineticScene)이 같은 번호 공간과 상한을 쓴다
+public class SceneStore {
+    private static final int MAX_SCENES = 256;
+
+    private static final Map<String, LiveScene> SCENES = new ConcurrentHashMap<>();
+    private static final Map<String, KineticScene> KINETIC_SCENES = new ConcurrentHashMap<>();
+    private static final AtomicLong NEXT_ID = new AtomicLong(1);
+
+    public static String put(LiveScene scene) throws Exception {
+        String sceneId = nextId();
+        SCENES.put(sceneId, scene);
+        return sceneId;
+    }
+
+    public static String putKinetic(KineticScene scene) throws Exception {
+        String sceneId = nextId();
+        KINETIC_SCENES.put(sceneId, scene);
+        return sceneId;
+    }
+
+    private static String nextId() throws Exception {
+        if (SCENES.size() + KINETIC_SCENES.size() >= MAX_SCENES) {
+            throw new Exception("저장할 수 있는 장면 수(" + MAX_SCENES + ")를 초과했습니다.");
+        }
+        return "scene_" + NEXT_ID.getAndIncrement();
+    }
+
+    public static LiveScene get(String sceneId) throws Exception {
+        LiveScene scene = SCENES.get(sceneId);
+        if (scene == null) {
+            throw new Exception("존재하지 않는 장면입니다: " + sceneId);
+        }
+        return scene;
+    }
+
+    public static KineticScene getKinetic(String sceneId) throws Exception {
+        KineticScene scene = KINETIC_SCENES.get(sceneId);
+        if (scene == null) {
+            throw new Exception("존재하지 않는 Step 모드 장면입니다: " + sceneId);
+        }
+        return scene;
+    }
+
+    public static boolean remove(String sceneId) {
+        return SCENES.remove(sceneId) != null | KINETIC_SCENES.remove(sceneId) != null;
+    }
+}
@@ -0,0 +1,129 @@
+package knu.pyh;
+
+import knu.pyh.shapes.DeadlineExceededException;
+import knu.pyh.shapes.GenerationProgress;
+import knu.pyh.shapes.OverlapResult;
+import knu.pyh.shapes.ShapeGenerator;
+import org.json.JSONObject;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Future;
+
+// 비동기로 실행되는 ShapesOverlaps 작업 하나 - 상태, 진행 상황, 결과를 보관한다
+public class ShapeJob {
+    public enum State { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    private final String jobId;
+    private final int howMany;
+    private final GenerationProgress progress = new GenerationProgress();
+    private final long submittedAt = System.currentTimeMillis();
+
+    private volatile State state = State.QUEUED;
+    private volatile long startedAt;
+    private volatile long finishedAt;
+    private volatile OverlapResult result;
+    private volatile String errorMessage;
+    private volatile Future<?> future;
+
+    ShapeJob(String jobId, int howMany) {
+        this.jobId = jobId;
+        this.howMany = howMany;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED || state == State.CANCELLED;
+    }
+
+    long getFinishedAt() {
+        return finishedAt;
+    }
+
+    void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    // 작업 풀 스레드에서 실행
+    void run(ShapeGenerator generator, int width, int height, int radiusMax, int maxEdges) {
+        if (progress.isCancelled()) {
+            finish(State.CANCELLED);
+            return;
+        }
+        state = State.RUNNING;
+        startedAt = System.currentTimeMillis();
+
+        // 작업도 처리 시간 한도 안에서만 돈다 (대기열에서 기다린 시간은 빼고 실행 시작부터)
+        progress.setTimeout(AdmissionControl.getJobDeadlineMillis());
+        generator.setProgress(progress);
+        try {
+            result = generator.generate(width, height, radiusMax, howMany, maxEdges);
+            ShapeMetrics.recordPhases("JobSubmit", howMany, generator.getLastPhaseStats());
+            finish(State.DONE);
+        } catch (DeadlineExceededException e) {
+            errorMessage = e.getMessage();
+            ShapeMetrics.recordAdmission("JobSubmit", ShapeMetrics.sizeBucket(howMany), "deadline");
+            finish(State.FAILED);
+        } catch (CancellationException e) {
+            finish(State.CANCELLED);
+        } catch (RuntimeException | OutOfMemoryError e) {
+            errorMessage = e.getMessage();
+            finish(progress.isCancelled() ? State.CANCELLED : State.FAILED);
+        }
+    }
+
+    private void finish(State finalState) {
+        finishedAt = System.currentTimeMillis();
+        state = finalState;
+    }
+
+    public void cancel() {
+        if (isFinished()) {
+            return;
+        }
+        progress.cancel();
+        Future<?> running = future;
+        // 아직 대기열에 있는 작업은 실행되지 않도록 꺼낸다 (실행 중이면 루프의 취소 확인에서 멈춘다)
+        if (state == State.QUEUED && running != null && running.cancel(false)) {
+            finish(State.CANCELLED);
+        }
+    }
+
+    public OverlapResult getResult() throws Exception {
+        switch (state) {
+            case DONE:
+                return result;
+            case FAILED:
+                throw new Exception("작업이 실패했습니다: " + errorMessage);
+            case CANCELLED:
+                throw new Exception("취소된 작업입니다: " + jobId);
+            default:
+                throw new Exception("작업이 아직 끝나지 않았습니다: " + jobId);
+        }
+    }
+
+    public JSONObject toJSON() {
+        JSONObject json = new JSONObject();
+        json.put("jobId", jobId);
+        json.put("state", state.name());
+        json.put("phase", progress.getPhase());
+        json.put("howMany", howMany);
+        json.put("shapesGenerated", progress.getShapesGenerated());
+        json.put("pairsTested", progress.getPairsTested());
+        json.put("components", progress.getComponents());
+
+        long end = finishedAt != 0 ? finishedAt : System.currentTimeMillis();
+        json.put("queuedMillis", (startedAt != 0 ? startedAt : end) - submittedAt);
+        json.put("elapsedMillis", startedAt != 0 ? end - startedAt : 0);
+        if (errorMessage != null) {
+            json.put("error", errorMessage);
+        }
+        return json;
+    }
+}
@@ -0,0 +1,167 @@
+package knu.pyh;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import knu.pyh.shapes.PhaseStats;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// 요청/단계별 Micrometer 지표 (Actuator의 /actuator/metrics, /actuator/prometheus로 노출)
+// 모든 지표는 action과 size(HowMany 구간) 태그를 가진다
+// 미터는 태그 조합별로 한 번만 등록해 두고 재사용하므로 요청당 비용은 해시 조회 몇 번이다
+public class ShapeMetrics {
+    private static final MeterRegistry REGISTRY = Metrics.globalRegistry;
+    private static final double[] PERCENTILES = {0.5, 0.95, 0.99};
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, DistributionSummary> SUMMARIES = new ConcurrentHashMap<>();
+
+    // 입장 제어 상태 - 실행 중인 요청의 예상 비용 합과 대기열 길이
+    static {
+        Gauge.builder("shapes.admission.inFlight", AdmissionControl::getInFlightMillis)
+                .description("실행 중인 요청의 예상 비용 합")
+                .baseUnit("milliseconds")
+                .register(REGISTRY);
+        Gauge.builder("shapes.admission.queued", AdmissionControl::getQueued)
+                .description("입장을 기다리는 요청 수")
+                .register(REGISTRY);
+    }
+
+    // HowMany 구간 - 태그 값의 가짓수를 작게 유지한다
+    public static String sizeBucket(int howMany) {
+        if (howMany <= 1_000) {
+            return "le1k";
+        } else if (howMany <= 10_000) {
+            return "le10k";
+        } else if (howMany <= 100_000) {
+            return "le100k";
+        }
+        return "gt100k";
+    }
+
+    public static String sizeBucket(JSONObject reqJson) {
+        try {
+            return sizeBucket(Integer.parseInt(reqJson.optString("HowMany", "")));
+        } catch (NumberFormatException e) {
+            return "none";
+        }
+    }
+
+    public static void recordRequest(String action, String sizeBucket, long nanos, boolean success) {
+        timer("shapes.request", "요청 처리 시간 (응답 직렬화 제외)",
+                "action", action, "size", sizeBucket, "outcome", success ? "success" : "error")
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static void recordPhases(String action, int howMany, PhaseStats stats) {
+        String sizeBucket = sizeBucket(howMany);
+        for (PhaseStats.Phase phase : PhaseStats.Phase.values()) {
+            timer("shapes.phase", "ShapeGenerator 단계별 소요 시간",
+                    "action", action, "size", sizeBucket, "phase", phase.getName())
+                    .record(stats.getNanos(phase), TimeUnit.NANOSECONDS);
+        }
+
+        counter("shapes.pairs.tested", "좁은 단계로 넘어간 후보 쌍 수", action, sizeBucket)
+                .increment(stats.getPairsTested());
+        counter("shapes.pairs.overlapping", "겹친 쌍 수", action, sizeBucket)
+                .increment(stats.getPairsOverlapping());
+        counter("shapes.groups", "크기 2 이상인 겹침 그룹 수", action, sizeBucket)
+                .increment(stats.getOverlapGroups());
+        counter("shapes.vertices.emitted", "생성된 다각형 꼭짓점 수", action, sizeBucket)
+                .increment(stats.getVerticesEmitted());
+    }
+
+    // bytes는 실제로 보낸(압축된) 바이트, rawBytes는 압축 전 JSON 바이트 - 압축하지 않았으면 같다
+    public static void recordSerialization(String action, String sizeBucket, String format, long nanos,
+                                           long bytes, long rawBytes) {
+        timer("shapes.phase", "ShapeGenerator 단계별 소요 시간",
+                "action", action, "size", sizeBucket, "phase", "serialize")
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        String key = "shapes.response.bytes|" + action + "|" + sizeBucket + "|" + format;
+        SUMMARIES.computeIfAbsent(key, k -> DistributionSummary.builder("shapes.response.bytes")
+                .description("응답으로 쓴 바이트 수")
+                .baseUnit("bytes")
+                .tags("action", action, "size", sizeBucket, "format", format)
+                .publishPercentiles(PERCENTILES)
+                .register(REGISTRY))
+                .record(bytes);
+
+        if (rawBytes != bytes) {
+            String rawKey = "shapes.response.rawBytes|" + action + "|" + sizeBucket + "|" + format;
+            SUMMARIES.computeIfAbsent(rawKey, k -> DistributionSummary.builder("shapes.response.rawBytes")
+                    .description("압축 전 응답 바이트 수")
+                    .baseUnit("bytes")
+                    .tags("action", action, "size", sizeBucket, "format", format)
+                    .publishPercentiles(PERCENTILES)
+                    .register(REGISTRY))
+                    .record(rawBytes);
+        }
+    }
+
+    // 업로드 도형 읽기 (ShapesIngest) - 읽기 시간은 parse 단계로, 본문 크기는 형식별 분포로 기록
+    public static void recordIngest(String action, String sizeBucket, String format, long nanos, long bytes) {
+        timer("shapes.phase", "ShapeGenerator 단계별 소요 시간",
+                "action", action, "size", sizeBucket, "phase", "parse")
+                .record(nanos, TimeUnit.NANOSECONDS);
+
+        String key = "shapes.ingest.bytes|" + action + "|" + sizeBucket + "|" + format;
+        SUMMARIES.computeIfAbsent(key, k -> DistributionSummary.builder("shapes.ingest.bytes")
+                .description("업로드로 읽은 본문 바이트 수")
+                .baseUnit("bytes")
+                .tags("action", action, "size", sizeBucket, "format", format)
+                .publishPercentiles(PERCENTILES)
+                .register(REGISTRY))
+                .record(bytes);
+    }
+
+    // 입장 제어 결정 - outcome: admitted / queued (기다린 뒤 입장) / rejected_cost / rejected_client / rejected_global / deadline
+    public static void recordAdmission(String action, String sizeBucket, String outcome) {
+        String key = "shapes.admission|" + action + "|" + sizeBucket + "|" + outcome;
+        COUNTERS.computeIfAbsent(key, k -> Counter.builder("shapes.admission")
+                .description("입장 제어 결정 수")
+                .tags("action", action, "size", sizeBucket, "outcome", outcome)
+                .register(REGISTRY))
+                .increment();
+    }
+
+    public static void recordAdmissionWait(String action, String sizeBucket, long nanos) {
+        timer("shapes.admission.wait", "입장 대기열에서 기다린 시간", "action", action, "size", sizeBucket)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    // 실제 처리 시간 / 예상 비용 - 1에서 멀어지면 비용 모델(shapes.admission.costScale)을 맞춘다
+    public static void recordCostRatio(String action, String sizeBucket, double ratio) {
+        String key = "shapes.admission.costRatio|" + action + "|" + sizeBucket;
+        SUMMARIES.computeIfAbsent(key, k -> DistributionSummary.builder("shapes.admission.costRatio")
+                .description("실제 처리 시간 / 예상 비용")
+                .tags("action", action, "size", sizeBucket)
+                .publishPercentiles(PERCENTILES)
+                .register(REGISTRY))
+                .record(ratio);
+    }
+
+    private static Timer timer(String name, String description, String... tags) {
+        return TIMERS.computeIfAbsent(name + "|" + String.join("|", tags), k -> Timer.builder(name)
+                .description(description)
+                .tags(tags)
+                .publishPercentiles(PERCENTILES)
+                .publishPercentileHistogram()
+                .register(REGISTRY));
+    }
+
+    private static Counter counter(String name, String description, String action, String sizeBucket) {
+        return COUNTERS.computeIfAbsent(name + "|" + action + "|" + sizeBucket, k -> Counter.builder(name)
+                .description(description)
+                .tags("action", action, "size", sizeBucket)
+                .register(REGISTRY));
+    }
+}
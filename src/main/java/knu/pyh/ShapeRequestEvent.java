@@ -0,0 +1,26 @@
+package knu.pyh;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// BACKEND_MANAGER.EXEC_TASK 한 번의 JFR 이벤트
+// 같은 스레드에서 이 이벤트 구간 안에 기록된 knu.pyh.ShapePhase 이벤트가 해당 요청의 단계들이다
+@Name("knu.pyh.ShapeRequest")
+@Label("Shape Overlap Request")
+@Category({"Shape Overlaps"})
+@Description("Action 하나의 처리 (응답 직렬화 제외)")
+@StackTrace(false)
+class ShapeRequestEvent extends Event {
+    @Label("Action")
+    String action;
+
+    @Label("Size Bucket")
+    String sizeBucket;
+
+    @Label("Success")
+    boolean success;
+}
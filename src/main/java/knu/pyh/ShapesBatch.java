@@ -0,0 +1,168 @@
+package knu.pyh;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import knu.pyh.shapes.GenerationProgress;
+import knu.pyh.shapes.OverlapResult;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// ShapesOverlapsBatch - 여러 ShapesOverlaps 파라미터 묶음을 공유 스레드 풀에서 동시에 계산하고
+// 요청 순서대로 결과를 하나씩 스트리밍한다. 항목 하나의 실패는 해당 항목에만 기록된다.
+public class ShapesBatch {
+    public static final int MAX_ITEMS = 10000;
+
+    private static final int THREADS = Runtime.getRuntime().availableProcessors();
+
+    // 한 배치가 동시에 잡아 둘 수 있는 항목 수 (계산이 끝나고 아직 쓰지 않은 결과의 메모리를 제한)
+    private static final int WINDOW = THREADS * 2;
+
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(THREADS, runnable -> {
+        Thread thread = new Thread(runnable, "shapes-batch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final List<JSONObject> items;
+    // 입장 제어의 클라이언트 구분 - 항목마다 배치를 보낸 클라이언트의 예산으로 입장한다
+    private final String client;
+
+    // defaults: 쿼리 파라미터 (Action 제외) - 항목에 없는 값은 여기서 가져온다
+    public ShapesBatch(JSONArray itemsArray, JSONObject defaults, String client) throws Exception {
+        if (itemsArray.length() == 0) {
+            throw new Exception("Items가 비어 있습니다.");
+        }
+        if (itemsArray.length() > MAX_ITEMS) {
+            throw new Exception("한 번에 처리할 수 있는 항목 수(" + MAX_ITEMS + ")를 초과했습니다.");
+        }
+
+        this.client = client;
+        this.items = new ArrayList<>(itemsArray.length());
+        for (int i = 0; i < itemsArray.length(); i++) {
+            if (!(itemsArray.get(i) instanceof JSONObject)) {
+                throw new Exception(i + "번째 항목이 JSON 객체가 아닙니다.");
+            }
+            JSONObject item = itemsArray.getJSONObject(i);
+
+            // 단일 호출과 같은 검증을 타도록 모든 값을 문자열 파라미터로 맞춘다
+            JSONObject params = new JSONObject();
+            for (String key : defaults.keySet()) {
+                params.put(key, defaults.get(key).toString());
+            }
+            for (String key : item.keySet()) {
+                params.put(key, item.get(key).toString());
+            }
+            params.put("Action", "ShapesOverlaps");
+            params.put("Format", "json");
+            items.add(params);
+        }
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    // RESULT 값 자리에 {"items":[...], "count", "failed", "elapsedMillis", "scenesPerSecond"}를 쓴다
+    public void writeJSON(JsonGenerator gen, OutputStream out) throws IOException {
+        long start = System.nanoTime();
+        int failed = 0;
+
+        // 항목마다 진행 상황을 따로 두어, 쓰지 못하고 끝나면 계산 루프를 취소 플래그로 멈춘다
+        // (Future.cancel의 인터럽트는 생성기가 확인하지 않는다)
+        List<Future<byte[]>> futures = new ArrayList<>(items.size());
+        List<GenerationProgress> progresses = new ArrayList<>(items.size());
+        try {
+            for (int i = 0; i < Math.min(WINDOW, items.size()); i++) {
+                submit(i, futures, progresses);
+            }
+
+            gen.writeStartObject();
+            gen.writeArrayFieldStart("items");
+            for (int i = 0; i < items.size(); i++) {
+                // 1. 요청 순서대로 결과를 기다리고, 하나를 쓸 때마다 다음 항목을 제출한다
+                Future<byte[]> future = futures.get(i);
+                if (i + WINDOW < items.size()) {
+                    submit(i + WINDOW, futures, progresses);
+                }
+
+                gen.writeStartObject();
+                gen.writeNumberField("index", i);
+                try {
+                    byte[] result = future.get();
+                    futures.set(i, null);
+                    gen.writeNumberField("STATUS", 200);
+                    gen.writeFieldName("RESULT");
+
+                    // 2. 작업 스레드에서 이미 직렬화한 바이트를 그대로 이어 붙인다
+                    gen.writeRawValue("");
+                    gen.flush();
+                    out.write(result);
+                } catch (ExecutionException e) {
+                    futures.set(i, null);
+                    failed++;
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    // 입장 제어로 거절/중단된 항목은 단일 호출과 같은 429 / 503
+                    if (cause instanceof AdmissionException) {
+                        AdmissionException admission = (AdmissionException) cause;
+                        gen.writeNumberField("STATUS", admission.getStatus());
+                        if (admission.getRetryAfterSeconds() > 0) {
+                            gen.writeNumberField("RETRY_AFTER", admission.getRetryAfterSeconds());
+                        }
+                    } else {
+                        gen.writeNumberField("STATUS", 500);
+                    }
+                    gen.writeStringField("ERROR_MESSAGE", cause.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("배치 처리가 중단되었습니다.", e);
+                }
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        } finally {
+            // 클라이언트가 끊겨 쓰기가 IOException으로 끝났거나 중단되었으면 남은 항목을 모두 취소한다
+            for (int i = 0; i < futures.size(); i++) {
+                if (futures.get(i) != null) {
+                    progresses.get(i).cancel();
+                    futures.get(i).cancel(true);
+                }
+            }
+        }
+
+        double elapsedMillis = (System.nanoTime() - start) / 1_000_000.0;
+        gen.writeNumberField("count", items.size());
+        gen.writeNumberField("failed", failed);
+        gen.writeNumberField("elapsedMillis", elapsedMillis);
+        gen.writeNumberField("scenesPerSecond", items.size() / Math.max(elapsedMillis / 1000.0, 1e-9));
+        gen.writeEndObject();
+    }
+
+    // 단일 ShapesOverlaps와 같은 경로(BACKEND_MANAGER)로 계산하고 JSON 바이트로 직렬화한다
+    private void submit(int index, List<Future<byte[]>> futures, List<GenerationProgress> progresses) {
+        JSONObject params = items.get(index);
+        GenerationProgress progress = new GenerationProgress();
+        progresses.add(progress);
+        futures.add(EXECUTOR.submit(() -> {
+            JSONObject envelope = new JSONObject();
+            envelope.put("REQ", params);
+            envelope.put("RES", new JSONObject());
+            envelope.put("CLIENT", client);
+            envelope.put("PROGRESS", progress);
+            BACKEND_MANAGER.EXEC_TASK(envelope);
+
+            Object result = envelope.getJSONObject("RES").get("RESULT");
+            if (result instanceof OverlapResult) {
+                return ((OverlapResult) result).toJSONBytes();
+            }
+            return (byte[]) result;
+        }));
+    }
+}
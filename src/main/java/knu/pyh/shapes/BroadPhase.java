@@ -0,0 +1,43 @@
+package knu.pyh.shapes;
+
+// 넓은 단계(Broad-phase) 전략
+// 경계 상자(AABB)가 겹치는 후보 쌍만 골라 좁은 단계(overlaps)로 넘긴다
+public interface BroadPhase {
+
+    @FunctionalInterface
+    interface PairVisitor {
+        // 항상 i < j 순서로 호출된다
+        void visit(int i, int j);
+    }
+
+    // 준비된 후보 쌍 집합 - task 단위로 나누어 순회하며, 서로 다른 task는 병렬로 순회해도 된다
+    interface Candidates {
+        int taskCount();
+
+        void forEachPair(int task, PairVisitor visitor);
+    }
+
+    String getName();
+
+    Candidates prepare(Scene scene, double maxRadius);
+
+    default void forEachCandidatePair(Scene scene, double maxRadius, PairVisitor visitor) {
+        Candidates candidates = prepare(scene, maxRadius);
+        for (int task = 0; task < candidates.taskCount(); task++) {
+            candidates.forEachPair(task, visitor);
+        }
+    }
+
+    static BroadPhase forName(String name) {
+        switch (name) {
+            case "none":
+                return new BruteForceBroadPhase();
+            case "grid":
+                return new UniformGridBroadPhase();
+            case "sweep":
+                return new SweepAndPruneBroadPhase();
+            default:
+                return null;
+        }
+    }
+}
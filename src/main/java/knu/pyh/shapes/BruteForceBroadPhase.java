@@ -0,0 +1,30 @@
+package knu.pyh.shapes;
+
+// 가지치기 없이 모든 쌍을 후보로 넘기는 기준 전략 (비교용)
+public class BruteForceBroadPhase implements BroadPhase {
+
+    @Override
+    public String getName() {
+        return "none";
+    }
+
+    @Override
+    public Candidates prepare(Scene scene, double maxRadius) {
+        int n = scene.size();
+
+        // task i = i번째 도형과 그 뒤의 모든 도형
+        return new Candidates() {
+            @Override
+            public int taskCount() {
+                return n;
+            }
+
+            @Override
+            public void forEachPair(int i, PairVisitor visitor) {
+                for (int j = i + 1; j < n; j++) {
+                    visitor.visit(i, j);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,7 @@
+package knu.pyh.shapes;
+
+// 특정 도형 종류 쌍 전용 좁은 단계 겹침 검사
+@FunctionalInterface
+public interface CollisionKernel {
+    boolean test(Scene a, int i, Scene b, int j);
+}
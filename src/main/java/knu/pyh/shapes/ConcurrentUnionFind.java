@@ -0,0 +1,51 @@
+package knu.pyh.shapes;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// 락 없이 여러 스레드가 동시에 union 할 수 있는 Union-Find
+// parent 배열을 CAS로만 갱신하며, 항상 인덱스가 큰 루트를 작은 루트 아래에 붙여 순환이 생기지 않는다
+public class ConcurrentUnionFind {
+    private final AtomicIntegerArray parent;
+
+    public ConcurrentUnionFind(int size) {
+        this.parent = new AtomicIntegerArray(size);
+        for (int i = 0; i < size; i++) {
+            parent.set(i, i);
+        }
+    }
+
+    public int find(int x) {
+        while (true) {
+            int p = parent.get(x);
+            if (p == x) {
+                return x;
+            }
+            int gp = parent.get(p);
+            // 경로 절반 압축 - 실패해도 다른 스레드가 이미 갱신한 것이므로 무시
+            if (p != gp) {
+                parent.compareAndSet(x, p, gp);
+            }
+            x = gp;
+        }
+    }
+
+    // 이 호출이 두 집합을 합쳤으면 true (동시에 같은 집합을 합친 다른 스레드가 있으면 한쪽만 true)
+    public boolean union(int x, int y) {
+        while (true) {
+            int rootX = find(x);
+            int rootY = find(y);
+            if (rootX == rootY) {
+                return false;
+            }
+            if (rootX < rootY) {
+                int tmp = rootX;
+                rootX = rootY;
+                rootY = tmp;
+            }
+            // rootX가 아직 루트일 때만 연결, 그 사이 다른 스레드가 바꿨다면 다시 시도
+            if (parent.compareAndSet(rootX, rootX, rootY)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package knu.pyh.shapes;
+
+import java.util.concurrent.CancellationException;
+
+// 처리 시간 한도를 넘어 생성/쌍 검사 루프가 스스로 멈췄을 때 (취소의 한 종류 - 취소와 같은 경로로 빠져나간다)
+public class DeadlineExceededException extends CancellationException {
+    private final long timeoutMillis;
+
+    public DeadlineExceededException(long timeoutMillis) {
+        super("처리 시간 한도(" + timeoutMillis + "ms)를 넘어 중단했습니다.");
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+}
@@ -0,0 +1,73 @@
+package knu.pyh.shapes;
+
+import java.util.concurrent.CancellationException;
+
+// ShapeGenerator 실행 진행 상황 - 다른 스레드에서 읽고 취소할 수 있다
+// 생성기는 도형/쌍을 일정 개수 처리할 때마다 값을 갱신하고 취소 여부를 확인한다
+// 처리 시간 한도(setTimeout)가 있으면 같은 확인 지점에서 한도도 본다 (넘으면 DeadlineExceededException)
+public class GenerationProgress {
+    private volatile String phase = "queued";
+    private volatile long shapesGenerated;
+    private volatile long pairsTested;
+    private volatile long components;
+    private volatile boolean cancelled;
+    private volatile long timeoutMillis;
+    private volatile long deadlineNanos;
+
+    public String getPhase() {
+        return phase;
+    }
+
+    public long getShapesGenerated() {
+        return shapesGenerated;
+    }
+
+    public long getPairsTested() {
+        return pairsTested;
+    }
+
+    // 지금까지 합쳐진 결과 기준의 연결 요소 수 (겹침 검사가 끝나면 최종 그룹 수)
+    public long getComponents() {
+        return components;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // 지금부터 timeoutMillis 안에 끝나야 한다 (0 이하면 한도 없음)
+    public void setTimeout(long timeoutMillis) {
+        this.deadlineNanos = System.nanoTime() + timeoutMillis * 1_000_000;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    void setPhase(String phase) {
+        this.phase = phase;
+    }
+
+    void setShapesGenerated(long shapesGenerated) {
+        this.shapesGenerated = shapesGenerated;
+    }
+
+    void setPairs(long pairsTested, long components) {
+        this.pairsTested = pairsTested;
+        this.components = components;
+    }
+
+    void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("작업이 취소되었습니다.");
+        }
+        if (timeoutMillis > 0 && System.nanoTime() - deadlineNanos > 0) {
+            throw new DeadlineExceededException(timeoutMillis);
+        }
+    }
+}
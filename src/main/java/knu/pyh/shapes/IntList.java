@@ -0,0 +1,59 @@
+package knu.pyh.shapes;
+
+import java.util.Arrays;
+
+// 박싱 없는 가변 길이 int 목록
+public class IntList {
+    private int[] values;
+    private int size;
+
+    public IntList() {
+        this(4);
+    }
+
+    public IntList(int capacity) {
+        this.values = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public int get(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int removeLast() {
+        return values[--size];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    // 순서를 유지하지 않고 값 하나를 지운다 (마지막 원소를 빈자리로 옮김)
+    public boolean removeValue(int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                values[i] = values[--size];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
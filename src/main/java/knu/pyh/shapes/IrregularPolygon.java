@@ -1,213 +1,102 @@
 package knu.pyh.shapes;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-import java.util.List;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
 
 public class IrregularPolygon extends Shape {
-    private List<Point> vertices;
 
-    public IrregularPolygon(Point center, double radius, int numVertices) {
-        super(center, radius);
-        this.vertices = generateIrregularVertices(numVertices);
+    IrregularPolygon(Scene scene, int index) {
+        super(scene, index);
     }
 
-    private List<Point> generateIrregularVertices(int numVertices) {
-        List<Point> points = new ArrayList<>();
+    // 무작위 일반 다각형을 만들어 장면에 추가하고 인덱스를 돌려준다
+    // 같은 시드의 random을 넘기면 같은 다각형이 만들어진다
+    public static int addRandom(Scene scene, RandomGenerator random, double cx, double cy, double radius,
+                                int numVertices, int color) {
+        double[] xs = new double[numVertices];
+        double[] ys = new double[numVertices];
+        int count = generateIrregularVertices(random, cx, cy, radius, numVertices, xs, ys);
+        return scene.addIrregularPolygon(cx, cy, radius, xs, ys, count, color);
+    }
 
+    // 꼭짓점을 xs/ys에 만들고 볼록 껍질의 꼭짓점 수를 돌려준다 (껍질은 xs/ys 앞쪽에 담긴다)
+    private static int generateIrregularVertices(RandomGenerator random, double cx, double cy, double radius,
+                                                 int numVertices, double[] xs, double[] ys) {
         // 1. 무작위 각도로 점들 생성
-        List<Double> angles = new ArrayList<>();
+        double[] angles = new double[numVertices];
         for (int i = 0; i < numVertices; i++) {
-            angles.add(Math.random() * 2 * Math.PI);
+            angles[i] = random.nextDouble() * 2 * Math.PI;
+        }
+        // 각도 순으로 정렬 - 꼭짓점이 4개 이상이면 어차피 컨벡스 헐이 x 좌표로 다시 정렬하므로 생략
+        if (numVertices <= 3) {
+            Arrays.sort(angles);
         }
-        Collections.sort(angles); // 각도 순으로 정렬
 
         // 2. 각 점에 대해 무작위 반경 적용
         for (int i = 0; i < numVertices; i++) {
-            double angle = angles.get(i);
-            double r = radius * (0.5 + Math.random() * 0.5);
-            double x = center.getX() + r * Math.cos(angle);
-            double y = center.getY() + r * Math.sin(angle);
-            points.add(new Point(x, y));
+            double r = radius * (0.5 + random.nextDouble() * 0.5);
+            xs[i] = cx + r * Math.cos(angles[i]);
+            ys[i] = cy + r * Math.sin(angles[i]);
         }
 
         // 간단한 컨벡스 헐 생성 (선분 교차 방지)
-        return createSimpleConvexHull(points);
+        return createSimpleConvexHull(xs, ys, numVertices);
     }
 
-    private List<Point> createSimpleConvexHull(List<Point> points) {
-        // 간단한 컨벡스 헐 구현
-        if (points.size() <= 3) return points;
-
-        // x 좌표로 정렬
-        points.sort(Comparator.comparingDouble(Point::getX));
+    // 단조 사슬(monotone chain) 컨벡스 헐 - 기본형 배열 위에서 계산하고 헐의 꼭짓점 수를 돌려준다
+    static int createSimpleConvexHull(double[] xs, double[] ys, int n) {
+        if (n <= 3) return n;
+
+        // x 좌표로 정렬 - 꼭짓점 수가 작으므로 삽입 정렬 (x가 같으면 원래 순서 유지)
+        for (int i = 1; i < n; i++) {
+            double x = xs[i];
+            double y = ys[i];
+            int j = i - 1;
+            while (j >= 0 && xs[j] > x) {
+                xs[j + 1] = xs[j];
+                ys[j + 1] = ys[j];
+                j--;
+            }
+            xs[j + 1] = x;
+            ys[j + 1] = y;
+        }
 
-        List<Point> hull = new ArrayList<>();
+        double[] hullX = new double[2 * n];
+        double[] hullY = new double[2 * n];
+        int h = 0;
 
         // 하부 헐
-        for (Point p : points) {
-            while (hull.size() >= 2 && orientation(hull.get(hull.size() - 2),
-                    hull.get(hull.size() - 1), p) <= 0) {
-                hull.remove(hull.size() - 1);
+        for (int i = 0; i < n; i++) {
+            while (h >= 2 && orientation(hullX[h - 2], hullY[h - 2], hullX[h - 1], hullY[h - 1],
+                    xs[i], ys[i]) <= 0) {
+                h--;
             }
-            hull.add(p);
+            hullX[h] = xs[i];
+            hullY[h] = ys[i];
+            h++;
         }
 
         // 상부 헐
-        int lowerSize = hull.size();
-        for (int i = points.size() - 2; i >= 0; i--) {
-            Point p = points.get(i);
-            while (hull.size() > lowerSize && orientation(hull.get(hull.size() - 2),
-                    hull.get(hull.size() - 1), p) <= 0) {
-                hull.remove(hull.size() - 1);
+        int lowerSize = h;
+        for (int i = n - 2; i >= 0; i--) {
+            while (h > lowerSize && orientation(hullX[h - 2], hullY[h - 2], hullX[h - 1], hullY[h - 1],
+                    xs[i], ys[i]) <= 0) {
+                h--;
             }
-            hull.add(p);
+            hullX[h] = xs[i];
+            hullY[h] = ys[i];
+            h++;
         }
 
         // 마지막 점 제거 (중복)
-        if (hull.size() > 1) hull.remove(hull.size() - 1);
-
-        return hull;
-    }
-
-    private double orientation(Point p, Point q, Point r) {
-        return (q.getX() - p.getX()) * (r.getY() - p.getY()) -
-                (q.getY() - p.getY()) * (r.getX() - p.getX());
-    }
-
-    // TODO: 학생 과제 - 일반 다각형의 겹침 감지 알고리즘 구현
-    @Override
-    public boolean overlaps(Shape other) {
-        List<Point> verticesA = this.getVertices();
-        List<Point> verticesB = other.getVertices();
-
-        List<Point> axes = new ArrayList<>();
-
-        // 1. this(불규칙 다각형)의 변 법선 구하기
-        int nA = verticesA.size();
-        for (int i = 0; i < nA; i++) {
-            Point p1 = verticesA.get(i);
-            Point p2 = verticesA.get((i + 1) % nA);
-
-            double edgeX = p2.getX() - p1.getX();
-            double edgeY = p2.getY() - p1.getY();
-
-            Point axis = new Point(edgeY, -edgeX);
-
-            double length = Math.sqrt(axis.getX() * axis.getX() + axis.getY() * axis.getY());
-            axis = new Point(axis.getX() / length, axis.getY() / length);
-
-            axes.add(axis);
-        }
-
-        // 2. other 도형이 다각형인 경우 other의 법선도 추가
-        if (other instanceof IrregularPolygon || other instanceof RegularPolygon || other.getShapeType().contains("Polygon")) {
-            int nB = verticesB.size();
-            for (int i = 0; i < nB; i++) {
-                Point p1 = verticesB.get(i);
-                Point p2 = verticesB.get((i + 1) % nB);
-
-                double edgeX = p2.getX() - p1.getX();
-                double edgeY = p2.getY() - p1.getY();
-
-                Point axis = new Point(edgeY, -edgeX);
-
-                double length = Math.sqrt(axis.getX() * axis.getX() + axis.getY() * axis.getY());
-                axis = new Point(axis.getX() / length, axis.getY() / length);
-
-                axes.add(axis);
-            }
-        } else if (other instanceof Circle) {
-            Circle circle = (Circle) other;
-            Point centerC = circle.center;
-
-            // 원 중심과 this 도형에서 가장 가까운 정점 사이 축 추가
-            double minDist = Double.MAX_VALUE;
-            Point closestPoint = null;
-            for (Point v : verticesA) {
-                double dx = v.getX() - centerC.getX();
-                double dy = v.getY() - centerC.getY();
-                double dist = dx * dx + dy * dy;
-                if (dist < minDist) {
-                    minDist = dist;
-                    closestPoint = v;
-                }
-            }
-
-            if (closestPoint != null) {
-                double axisX = closestPoint.getX() - centerC.getX();
-                double axisY = closestPoint.getY() - centerC.getY();
-                double length = Math.sqrt(axisX * axisX + axisY * axisY);
-                if (length != 0) {
-                    axisX /= length;
-                    axisY /= length;
-                    axes.add(new Point(axisX, axisY));
-                }
-            }
-        }
-
-        // 3. 각 축에 대해 투영 검사
-        for (Point axis : axes) {
-            double minA = Double.MAX_VALUE;
-            double maxA = -Double.MAX_VALUE;
-            for (Point v : verticesA) {
-                double proj = v.getX() * axis.getX() + v.getY() * axis.getY();
-                if (proj < minA) minA = proj;
-                if (proj > maxA) maxA = proj;
-            }
-
-            double minB = Double.MAX_VALUE;
-            double maxB = -Double.MAX_VALUE;
-
-            if (other instanceof Circle) {
-                Circle circle = (Circle) other;
-                double centerProj = circle.center.getX() * axis.getX() + circle.center.getY() * axis.getY();
-                minB = centerProj - circle.radius;
-                maxB = centerProj + circle.radius;
-            } else {
-                for (Point v : verticesB) {
-                    double proj = v.getX() * axis.getX() + v.getY() * axis.getY();
-                    if (proj < minB) minB = proj;
-                    if (proj > maxB) maxB = proj;
-                }
-            }
-
-            if (maxA < minB || maxB < minA) {
-                return false; // 분리 축 발견 → 겹치지 않음
-            }
-        }
-
-        return true; // 모든 축에서 겹침 → 겹침
-    }
-
-    @Override
-    public JSONObject toJSON() {
-        JSONObject json = new JSONObject();
-        json.put("type", "irregularPolygon");
-        json.put("id", id);
-        json.put("center", center.toJSON());
-        json.put("radius", radius);
-        json.put("color", color);
-
-        JSONArray verticesArray = new JSONArray();
-        for (Point vertex : vertices) {
-            verticesArray.put(vertex.toJSON());
-        }
-        json.put("vertices", verticesArray);
-
-        return json;
-    }
+        if (h > 1) h--;
 
-    @Override
-    public String getShapeType() {
-        return "irregularPolygon";
+        System.arraycopy(hullX, 0, xs, 0, h);
+        System.arraycopy(hullY, 0, ys, 0, h);
+        return h;
     }
 
-    @Override
-    public List<Point> getVertices() {
-        return new ArrayList<>(vertices);
+    private static double orientation(double px, double py, double qx, double qy, double rx, double ry) {
+        return (qx - px) * (ry - py) - (qy - py) * (rx - px);
     }
 }
@@ -0,0 +1,207 @@
+package knu.pyh.shapes;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+// 도형 결과 JSON 출력 옵션 - Output / Precision / DerivedVertices / Fields 파라미터
+//
+// Output=full (기본): 지금까지의 형식 그대로 ({"x": .., "y": ..} 점, 모든 꼭짓점, 전체 정밀도)
+// Output=compact: 점을 [x, y]로, 좌표를 소수점 3자리로, 정다각형 꼭짓점은 생략 (ShapeReader가 그대로 읽을 수 있는 형식)
+//   정다각형 꼭짓점 k = center + radius * (cos, sin)(2πk / sides + rotationAngle) 이므로
+//   rotationAngle은 Precision과 관계없이 전체 정밀도로 쓴다 (각도 반올림 오차가 반경만큼 커지지 않게)
+// Precision=N (0~15): 좌표와 반경을 소수점 N자리로 반올림 (-1이면 그대로)
+//   거의 일직선인 꼭짓점이 있는 일반 다각형은 반올림하면 오목해질 수 있어, 그런 다각형의 꼭짓점만 전체 정밀도로 쓴다
+// DerivedVertices=include|omit: 정다각형 꼭짓점을 쓸지
+// Fields=shapes,groups,pairs,summary,memory 중 일부: 결과에 넣을 부분 (summary = totalCount, broadPhase)
+//   memory(장면 배열과 객체 그래프 메모리 추정치)는 진단용이라 기본 출력에는 없고 Fields로 요청할 때만 쓴다
+public class JsonOptions {
+    public static final JsonOptions FULL = new JsonOptions(false, -1, true, true, true, true, true, false);
+
+    private static final int MAX_PRECISION = 15;
+    private static final int COMPACT_PRECISION = 3;
+
+    private final boolean compact;
+    private final int precision;
+    private final double scale;
+    private final boolean derivedVertices;
+    private final boolean shapes;
+    private final boolean groups;
+    private final boolean pairs;
+    private final boolean summary;
+    private final boolean memory;
+    // 같은 옵션에서 정밀도만 -1인 것 (반올림하면 볼록성이 깨지는 다각형용)
+    private final JsonOptions exact;
+
+    private JsonOptions(boolean compact, int precision, boolean derivedVertices,
+                        boolean shapes, boolean groups, boolean pairs, boolean summary, boolean memory) {
+        this.compact = compact;
+        this.precision = precision;
+        this.scale = precision < 0 ? 1 : Math.pow(10, precision);
+        this.derivedVertices = derivedVertices;
+        this.shapes = shapes;
+        this.groups = groups;
+        this.pairs = pairs;
+        this.summary = summary;
+        this.memory = memory;
+        this.exact = precision < 0 ? this
+                : new JsonOptions(compact, -1, derivedVertices, shapes, groups, pairs, summary, memory);
+    }
+
+    // 요청 파라미터 (없는 값은 null)
+    public static JsonOptions parse(String output, String precision, String derivedVertices, String fields) {
+        boolean compact;
+        if (output == null || output.equals("full")) {
+            compact = false;
+        } else if (output.equals("compact")) {
+            compact = true;
+        } else {
+            throw new IllegalArgumentException("지원하지 않는 Output입니다: " + output);
+        }
+
+        int digits = compact ? COMPACT_PRECISION : -1;
+        if (precision != null) {
+            try {
+                digits = Integer.parseInt(precision);
+            } catch (NumberFormatException e) {
+                digits = Integer.MIN_VALUE;
+            }
+            if (digits < -1 || digits > MAX_PRECISION) {
+                throw new IllegalArgumentException("Precision은 -1 이상 " + MAX_PRECISION + " 이하의 정수여야 합니다.");
+            }
+        }
+
+        boolean derived = !compact;
+        if (derivedVertices != null) {
+            if (!derivedVertices.equals("include") && !derivedVertices.equals("omit")) {
+                throw new IllegalArgumentException("DerivedVertices는 include 또는 omit이어야 합니다.");
+            }
+            derived = derivedVertices.equals("include");
+        }
+
+        boolean shapes = true, groups = true, pairs = true, summary = true, memory = false;
+        if (fields != null) {
+            shapes = groups = pairs = summary = false;
+            for (String field : fields.split(",")) {
+                switch (field.trim()) {
+                    case "shapes":
+                        shapes = true;
+                        break;
+                    case "groups":
+                        groups = true;
+                        break;
+                    case "pairs":
+                        pairs = true;
+                        break;
+                    case "summary":
+                        summary = true;
+                        break;
+                    case "memory":
+                        memory = true;
+                        break;
+                    default:
+                        throw new IllegalArgumentException("지원하지 않는 Fields 항목입니다: " + field.trim());
+                }
+            }
+        }
+
+        return new JsonOptions(compact, digits, derived, shapes, groups, pairs, summary, memory);
+    }
+
+    public boolean isCompact() {
+        return compact;
+    }
+
+    public boolean isDefault() {
+        return cacheKey().equals(FULL.cacheKey());
+    }
+
+    // 결과 캐시 키에 붙일 문자열 - 같은 옵션이면 같은 바이트가 나온다
+    public String cacheKey() {
+        return (compact ? "compact" : "full") + "/" + precision + "/" + (derivedVertices ? "v" : "-")
+                + (shapes ? "s" : "-") + (groups ? "g" : "-") + (pairs ? "p" : "-") + (summary ? "m" : "-")
+                + (memory ? "b" : "-");
+    }
+
+    boolean includesShapes() {
+        return shapes;
+    }
+
+    boolean includesGroups() {
+        return groups;
+    }
+
+    boolean includesPairs() {
+        return pairs;
+    }
+
+    boolean includesSummary() {
+        return summary;
+    }
+
+    boolean includesMemory() {
+        return memory;
+    }
+
+    boolean includesDerivedVertices() {
+        return derivedVertices;
+    }
+
+    // 일반 다각형 꼭짓점 xs/ys[start, end)를 쓸 옵션 - 반올림한 꼭짓점이 ShapeReader 검증을 통과하지 못하면 전체 정밀도
+    JsonOptions forPolygon(double[] xs, double[] ys, int start, int end) {
+        if (precision < 0) {
+            return this;
+        }
+        int count = end - start;
+        double[] vx = new double[count];
+        double[] vy = new double[count];
+        for (int k = 0; k < count; k++) {
+            vx[k] = round(xs[start + k]);
+            vy[k] = round(ys[start + k]);
+        }
+        try {
+            ShapeReader.checkConvexPolygon(vx, vy, count);
+            return this;
+        } catch (IllegalArgumentException e) {
+            return exact;
+        }
+    }
+
+    private double round(double value) {
+        return Math.rint(value * scale) / scale;
+    }
+
+    // 좌표/반경 - Precision 자리로 반올림 (정수가 되면 소수점 없이)
+    void writeNumber(JsonGenerator gen, double value) throws IOException {
+        if (precision < 0) {
+            gen.writeNumber(value);
+            return;
+        }
+        double rounded = round(value);
+        if (rounded == (long) rounded && Math.abs(rounded) < 1e15) {
+            gen.writeNumber((long) rounded);
+        } else {
+            gen.writeNumber(rounded);
+        }
+    }
+
+    void writeNumberField(JsonGenerator gen, String name, double value) throws IOException {
+        gen.writeFieldName(name);
+        writeNumber(gen, value);
+    }
+
+    // compact면 [x, y], 아니면 {"x": x, "y": y}
+    void writePoint(JsonGenerator gen, double x, double y) throws IOException {
+        if (compact) {
+            gen.writeStartArray();
+            writeNumber(gen, x);
+            writeNumber(gen, y);
+            gen.writeEndArray();
+        } else {
+            gen.writeStartObject();
+            writeNumberField(gen, "x", x);
+            writeNumberField(gen, "y", y);
+            gen.writeEndObject();
+        }
+    }
+}
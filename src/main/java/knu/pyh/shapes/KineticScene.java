@@ -0,0 +1,295 @@
+package knu.pyh.shapes;
+
+import org.json.JSONObject;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+// 프레임 단위 시뮬레이션 장면 (Step 모드) - 도형마다 속도와 각속도를 갖고, step마다 움직인 뒤 겹침 그룹을 다시 구한다
+// 프레임 사이에 도형은 조금씩만 움직인다는 점(시간 일관성)을 이용해 findConnectedComponents를 처음부터 돌리지 않는다
+// - 넓은 단계: x 구간 시작점 순서(order)를 프레임 사이에 유지하고 삽입 정렬로만 고친 뒤 쓸기(sort-and-sweep)
+// - 좁은 단계: 지난 프레임에 쌍을 갈랐던 분리 축을 먼저 확인하고, 여전히 가르지 못할 때만 전체 SAT
+// 장면 경계 [0, width] x [0, height]에 닿은 도형은 튕겨 나온다
+public class KineticScene {
+    private final Scene scene;
+    private final double width;
+    private final double height;
+    private final double[] velocityX;
+    private final double[] velocityY;
+    private final double[] angularVelocity;
+
+    // 경계 상자 minX 순서 - 프레임 사이에 유지된다
+    private final int[] order;
+    // 지난 프레임 / 이번 프레임의 분리 축 (이번 프레임 후보가 아닌 쌍은 옮겨 담지 않아 저절로 빠진다)
+    private AxisCache previousAxes = new AxisCache();
+    private AxisCache currentAxes = new AxisCache();
+
+    private long frame;
+    private List<int[]> groups;
+
+    public KineticScene(Scene scene, double width, double height) {
+        int n = scene.size();
+        this.scene = scene;
+        this.width = width;
+        this.height = height;
+        this.velocityX = new double[n];
+        this.velocityY = new double[n];
+        this.angularVelocity = new double[n];
+        this.order = IntStream.range(0, n).boxed()
+                .sorted((a, b) -> Double.compare(scene.minX[a], scene.minX[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    public void setVelocity(int i, double vx, double vy, double omega) {
+        velocityX[i] = vx;
+        velocityY[i] = vy;
+        angularVelocity[i] = omega;
+    }
+
+    // 모든 도형에 [-speedMax, speedMax] 속도 성분과 [-angularMax, angularMax] 각속도를 준다
+    public void randomizeVelocities(long seed, double speedMax, double angularMax) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < scene.size(); i++) {
+            velocityX[i] = speedMax > 0 ? random.nextDouble(-speedMax, speedMax) : 0;
+            velocityY[i] = speedMax > 0 ? random.nextDouble(-speedMax, speedMax) : 0;
+            angularVelocity[i] = angularMax > 0 ? random.nextDouble(-angularMax, angularMax) : 0;
+        }
+    }
+
+    public Scene getScene() {
+        return scene;
+    }
+
+    public long getFrame() {
+        return frame;
+    }
+
+    // 마지막 step의 연결 요소 (ShapeGenerator와 같이 첫 도형 인덱스 순서), step 전이면 null
+    public List<int[]> getGroups() {
+        return groups;
+    }
+
+    // 한 프레임 진행
+    public FrameStats step(double dt) {
+        int n = scene.size();
+        FrameStats stats = new FrameStats(++frame);
+
+        // 1. 적분 - 평행 이동 후 회전, 경계에 닿으면 속도 성분을 뒤집는다
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            double cx = scene.centerX[i] + velocityX[i] * dt;
+            double cy = scene.centerY[i] + velocityY[i] * dt;
+            if (cx < 0 || cx > width) {
+                velocityX[i] = -velocityX[i];
+                cx = Math.max(0, Math.min(width, cx));
+            }
+            if (cy < 0 || cy > height) {
+                velocityY[i] = -velocityY[i];
+                cy = Math.max(0, Math.min(height, cy));
+            }
+            scene.moveTo(i, cx, cy);
+            if (angularVelocity[i] != 0) {
+                scene.rotateBy(i, angularVelocity[i] * dt);
+            }
+        }
+        stats.integrateNanos = System.nanoTime() - start;
+
+        // 2. 삽입 정렬 - 거의 정렬된 순서라 O(n + 자리바꿈 수)
+        start = System.nanoTime();
+        double[] minX = scene.minX;
+        for (int k = 1; k < n; k++) {
+            int shape = order[k];
+            double key = minX[shape];
+            int m = k - 1;
+            while (m >= 0 && minX[order[m]] > key) {
+                order[m + 1] = order[m];
+                m--;
+            }
+            stats.swaps += k - 1 - m;
+            order[m + 1] = shape;
+        }
+        stats.sortNanos = System.nanoTime() - start;
+
+        // 3. 쓸기 + 분리 축 캐시를 거친 좁은 단계
+        start = System.nanoTime();
+        UnionFind unionFind = new UnionFind(n);
+        double[] minY = scene.minY;
+        double[] maxX = scene.maxX;
+        double[] maxY = scene.maxY;
+        for (int k = 0; k < n; k++) {
+            int a = order[k];
+            for (int m = k + 1; m < n && minX[order[m]] <= maxX[a]; m++) {
+                int b = order[m];
+                if (maxY[a] < minY[b] || maxY[b] < minY[a]) {
+                    continue;
+                }
+                stats.candidatePairs++;
+                if (overlaps(Math.min(a, b), Math.max(a, b), stats)) {
+                    stats.overlappingPairs++;
+                    unionFind.union(a, b);
+                }
+            }
+        }
+        AxisCache swap = previousAxes;
+        previousAxes = currentAxes;
+        currentAxes = swap;
+        currentAxes.clear();
+        stats.narrowNanos = System.nanoTime() - start;
+
+        // 4. 연결 요소
+        start = System.nanoTime();
+        groups = ShapeGenerator.collectGroups(n, unionFind::find);
+        stats.groupCount = groups.size();
+        stats.groupNanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    // NarrowPhase.overlaps와 같은 판정 - 경계 원 → (다각형이 낀 쌍) 캐시된 분리 축 → 전체 검사
+    private boolean overlaps(int i, int j, FrameStats stats) {
+        double dx = scene.boundX[i] - scene.boundX[j];
+        double dy = scene.boundY[i] - scene.boundY[j];
+        double reach = scene.boundRadius[i] + scene.boundRadius[j];
+        if (dx * dx + dy * dy > reach * reach) {
+            return false;
+        }
+        if (scene.vertexStart[i] == scene.vertexStart[i + 1] && scene.vertexStart[j] == scene.vertexStart[j + 1]) {
+            return NarrowPhase.circleCircle(scene, i, scene, j);
+        }
+
+        long key = ((long) i << 32) | j;
+        int axis = previousAxes.get(key);
+        if (axis >= 0) {
+            stats.axisLookups++;
+            if (NarrowPhase.separatedOn(scene, i, scene, j, axis)) {
+                stats.axisHits++;
+                currentAxes.put(key, axis);
+                return false;
+            }
+        }
+
+        stats.fullTests++;
+        axis = NarrowPhase.separatingAxis(scene, i, scene, j);
+        if (axis >= 0) {
+            currentAxes.put(key, axis);
+        }
+        return axis == NarrowPhase.OVERLAPPING;
+    }
+
+    // 한 프레임의 비용과 캐시 적중 통계
+    public static class FrameStats {
+        private final long frame;
+        private long swaps;
+        private long candidatePairs;
+        private long overlappingPairs;
+        // 캐시된 축이 있던 쌍 / 그 축이 여전히 갈라 전체 SAT를 건너뛴 쌍 / 전체 검사를 한 쌍
+        private long axisLookups;
+        private long axisHits;
+        private long fullTests;
+        private int groupCount;
+        private long integrateNanos;
+        private long sortNanos;
+        private long narrowNanos;
+        private long groupNanos;
+
+        FrameStats(long frame) {
+            this.frame = frame;
+        }
+
+        public long getTotalNanos() {
+            return integrateNanos + sortNanos + narrowNanos + groupNanos;
+        }
+
+        public long getAxisLookups() {
+            return axisLookups;
+        }
+
+        public long getAxisHits() {
+            return axisHits;
+        }
+
+        public long getFullTests() {
+            return fullTests;
+        }
+
+        public int getGroupCount() {
+            return groupCount;
+        }
+
+        public JSONObject toJSON() {
+            JSONObject json = new JSONObject();
+            json.put("frame", frame);
+            json.put("swaps", swaps);
+            json.put("candidatePairs", candidatePairs);
+            json.put("overlappingPairs", overlappingPairs);
+            json.put("axisLookups", axisLookups);
+            json.put("axisHits", axisHits);
+            json.put("axisHitRate", axisLookups == 0 ? 0.0 : (double) axisHits / axisLookups);
+            json.put("fullTests", fullTests);
+            json.put("groupCount", groupCount);
+            json.put("integrateMicros", integrateNanos / 1000);
+            json.put("sortMicros", sortNanos / 1000);
+            json.put("narrowMicros", narrowNanos / 1000);
+            json.put("groupMicros", groupNanos / 1000);
+            json.put("totalMicros", getTotalNanos() / 1000);
+            return json;
+        }
+    }
+
+    // 쌍 키 (i << 32 | j) → 분리 축 번호, 열린 주소법 (키는 +1해 저장하고 0은 빈 칸)
+    private static final class AxisCache {
+        private long[] keys = new long[1024];
+        private int[] axes = new int[1024];
+        private int size;
+
+        int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key + 1) {
+                    return axes[slot];
+                }
+            }
+            return NarrowPhase.OVERLAPPING;
+        }
+
+        // 한 프레임에 같은 쌍은 한 번만 넣는다
+        void put(long key, int axis) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+            }
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (keys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key + 1;
+            axes[slot] = axis;
+            size++;
+        }
+
+        void clear() {
+            Arrays.fill(keys, 0);
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldAxes = axes;
+            keys = new long[oldKeys.length * 2];
+            axes = new int[oldKeys.length * 2];
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldKeys[slot] != 0) {
+                    put(oldKeys[slot] - 1, oldAxes[slot]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32);
+        }
+    }
+}
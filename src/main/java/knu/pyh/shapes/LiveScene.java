@@ -0,0 +1,482 @@
+package knu.pyh.shapes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+// 서버에 유지되며 도형 추가/이동/삭제를 받는 장면
+// 겹침 그래프(인접 목록)와 연결 요소 번호를 계속 유지하므로 한 번의 변경은
+// - 추가/이동: 균일 격자에서 찾은 이웃만 좁은 단계 검사 후 작은 그룹을 큰 그룹에 합침
+// - 삭제/이동 전 분리: 해당 도형이 속했던 연결 요소 안에서만 BFS로 다시 나눔
+// 으로 처리되어 전체 O(n²) 재계산이 필요 없다
+// 경계 상자가 격자 칸 LARGE_CELLS개 넘게 걸치는 큰 도형은 격자에 퍼뜨리지 않고 따로 모아 둔다
+// (큰 도형을 넣을 때는 살아 있는 도형을 한 번 훑고, 보통 도형을 넣을 때는 큰 도형 목록도 확인한다)
+// 변경/질의 메서드는 잠금 안에서 구한 통계를 결과 객체로 함께 돌려준다 (동시 요청끼리 통계가 섞이지 않게)
+// 점/사각형/탐침 도형 질의는 경계 상자 R-tree(STR로 한 번에 쌓음)로 후보를 좁힌 뒤 같은 좁은 단계 커널로 확인한다
+// R-tree는 변경이 있으면 버리고 다음 질의에서 다시 쌓는다 (변경 없이 이어지는 질의는 트리를 공유)
+public class LiveScene {
+    // 요청으로 받는 중심 좌표 / 반경의 한도 (격자 칸 번호가 int 범위를 넘지 않게)
+    public static final double MAX_COORDINATE = 1e9;
+    public static final double MAX_RADIUS = 1e6;
+
+    // 한 축으로 이보다 많은 칸에 걸치는 도형은 큰 도형 목록에 둔다
+    private static final int LARGE_CELLS = 4;
+
+    private final Scene scene;
+    private final double cellSize;
+    private final Map<Long, IntList> grid = new HashMap<>();
+    private final IntList largeShapes = new IntList();
+
+    private IntList[] neighbors = new IntList[16];
+    // 연결 요소 번호 (-1이면 격자/겹침 그래프에 아직 없거나 삭제된 도형)
+    private int[] component = filled(16);
+    private int[] visited = new int[16];
+    private int stamp;
+
+    // 연결 요소 번호 → 구성 도형 (null이면 비어 있는 번호)
+    private final List<IntList> members = new ArrayList<>();
+    private final IntList freeLabels = new IntList();
+    private int liveCount;
+
+    // 질의용 R-tree (null이면 마지막 변경 이후 아직 쌓지 않음)와 탐침 도형 하나를 담는 작업용 장면
+    private RTree index;
+    private final Scene probe = new Scene(1, 16);
+
+    public LiveScene(Scene scene, double cellSize) {
+        this(scene, cellSize, new GenerationProgress());
+    }
+
+    // 처음 그룹화는 도형 1024개마다 progress의 취소 / 처리 시간 한도를 확인한다
+    public LiveScene(Scene scene, double cellSize, GenerationProgress progress) {
+        this.scene = scene;
+        this.cellSize = Math.max(cellSize, 1.0);
+        for (int i = 0; i < scene.size(); i++) {
+            if ((i & 1023) == 0) {
+                progress.checkCancelled();
+            }
+            if (!scene.isRemoved(i)) {
+                attach(i);
+                liveCount++;
+            }
+        }
+    }
+
+    public synchronized Update addCircle(double cx, double cy, double r, int color) {
+        return added(scene.addCircle(cx, cy, r, color));
+    }
+
+    public synchronized Update addRegularPolygon(double cx, double cy, double r, int sides, double rotation, int color) {
+        return added(scene.addRegularPolygon(cx, cy, r, sides, rotation, color));
+    }
+
+    public synchronized Update addIrregularPolygon(double cx, double cy, double r, int numVertices, int color) {
+        return added(IrregularPolygon.addRandom(scene, ThreadLocalRandom.current(), cx, cy, r, numVertices, color));
+    }
+
+    private Update added(int i) {
+        index = null;
+        int pairTests = attach(i);
+        liveCount++;
+        return update(i, pairTests);
+    }
+
+    public synchronized Update move(int i, double cx, double cy) {
+        checkIndex(i);
+        index = null;
+        detach(i);
+        scene.moveTo(i, cx, cy);
+        return update(i, attach(i));
+    }
+
+    private Update update(int i, int pairTests) {
+        return new Update(i, members.get(component[i]).size(), neighbors[i].size(), pairTests);
+    }
+
+    public synchronized void remove(int i) {
+        checkIndex(i);
+        index = null;
+        detach(i);
+        scene.remove(i);
+        liveCount--;
+    }
+
+    // 경계 원 반경이 radius인 도형을 넣을 때 경계 상자 검사까지 갈 후보 수 어림 (입장 제어용)
+    // 큰 도형은 살아 있는 도형 전체, 보통 도형은 걸치는 칸 수 × 칸당 평균 도형 수 + 큰 도형 목록
+    public synchronized int estimateCandidates(double radius) {
+        int span = (int) Math.ceil(2 * radius / cellSize) + 1;
+        if (span - 1 > LARGE_CELLS) {
+            return liveCount;
+        }
+        double perCell = grid.isEmpty() ? 0 : (double) liveCount / grid.size();
+        return (int) Math.min(liveCount, Math.ceil(span * span * perCell) + largeShapes.size());
+    }
+
+    // 도형 i를 옮길 때의 후보 수 어림 - 떼어 낼 때 원래 연결 요소를 다시 훑는 수를 더한다
+    public synchronized int estimateMoveCandidates(int i) {
+        checkIndex(i);
+        return estimateCandidates(scene.boundRadius[i]) + members.get(component[i]).size();
+    }
+
+    public synchronized int getLargeShapeCount() {
+        return largeShapes.size();
+    }
+
+    public synchronized int getLiveCount() {
+        return liveCount;
+    }
+
+    public Scene getScene() {
+        return scene;
+    }
+
+    // 살아 있는 도형의 연결 요소 (ShapeGenerator와 같이 첫 도형 인덱스 순서)
+    public synchronized List<int[]> groups() {
+        int[] groupOfLabel = new int[members.size()];
+        Arrays.fill(groupOfLabel, -1);
+        List<int[]> groups = new ArrayList<>();
+        int[] fill = new int[members.size()];
+
+        for (int i = 0; i < scene.size(); i++) {
+            if (scene.isRemoved(i)) continue;
+            int label = component[i];
+            if (groupOfLabel[label] < 0) {
+                groupOfLabel[label] = groups.size();
+                groups.add(new int[members.get(label).size()]);
+            }
+            groups.get(groupOfLabel[label])[fill[label]++] = i;
+        }
+        return groups;
+    }
+
+    // 점 (x, y)를 포함하는 도형 (경계 포함) - 반경 0인 원 탐침과 겹치는 도형과 같다
+    public synchronized QueryResult queryPoint(double x, double y) {
+        probe.clear();
+        probe.addCircle(x, y, 0, 0);
+        return query();
+    }
+
+    // [x0, x1] x [y0, y1] 사각형과 겹치는 도형
+    public synchronized QueryResult queryRect(double x0, double y0, double x1, double y1) {
+        probe.clear();
+        double[] vx = {x0, x1, x1, x0};
+        double[] vy = {y0, y0, y1, y1};
+        probe.addIrregularPolygon((x0 + x1) / 2, (y0 + y1) / 2, Math.hypot(x1 - x0, y1 - y0) / 2, vx, vy, 4, 0);
+        return query();
+    }
+
+    public synchronized QueryResult queryCircle(double cx, double cy, double r) {
+        probe.clear();
+        probe.addCircle(cx, cy, r, 0);
+        return query();
+    }
+
+    public synchronized QueryResult queryRegularPolygon(double cx, double cy, double r, int sides, double rotation) {
+        probe.clear();
+        probe.addRegularPolygon(cx, cy, r, sides, rotation, 0);
+        return query();
+    }
+
+    // 볼록 다각형 탐침 (볼록하지 않으면 IllegalArgumentException)
+    public synchronized QueryResult queryPolygon(double[] vx, double[] vy, int count) {
+        ShapeReader.checkConvexPolygon(vx, vy, count);
+        double cx = 0, cy = 0, r = 0;
+        for (int k = 0; k < count; k++) {
+            cx += vx[k];
+            cy += vy[k];
+        }
+        cx /= count;
+        cy /= count;
+        for (int k = 0; k < count; k++) {
+            r = Math.max(r, Math.hypot(vx[k] - cx, vy[k] - cy));
+        }
+        probe.clear();
+        probe.addIrregularPolygon(cx, cy, r, vx, vy, count, 0);
+        return query();
+    }
+
+    // 탐침 장면의 0번 도형과 겹치는 도형 - R-tree로 경계 상자 후보를 찾고 좁은 단계로 확인 (인덱스 오름차순)
+    private QueryResult query() {
+        boolean indexRebuilt = index == null;
+        if (index == null) {
+            index = RTree.build(scene);
+        }
+        IntList candidates = new IntList();
+        int nodesVisited = index.search(probe.minX[0], probe.minY[0], probe.maxX[0], probe.maxY[0], candidates);
+
+        IntList hits = new IntList();
+        for (int p = 0; p < candidates.size(); p++) {
+            int i = candidates.get(p);
+            if (NarrowPhase.overlaps(probe, 0, scene, i)) {
+                hits.add(i);
+            }
+        }
+        int[] result = hits.toArray();
+        Arrays.sort(result);
+        return new QueryResult(result, candidates.size(), nodesVisited, indexRebuilt);
+    }
+
+    private void checkIndex(int i) {
+        if (i < 0 || i >= scene.size() || scene.isRemoved(i)) {
+            throw new IllegalArgumentException("존재하지 않는 도형입니다: " + Shape.toId(i));
+        }
+    }
+
+    // 도형 i를 격자(또는 큰 도형 목록)에 넣고 이웃과 간선을 만든 뒤 연결 요소를 합친다 - 좁은 단계 검사 수를 돌려준다
+    private int attach(int i) {
+        ensureCapacity(i + 1);
+        if (neighbors[i] == null) {
+            neighbors[i] = new IntList();
+        }
+        int label = newLabel();
+        members.get(label).add(i);
+        component[i] = label;
+
+        int pairTests = 0;
+        if (isLarge(i)) {
+            // 1. 큰 도형 - 이미 들어와 있는 모든 도형과 비교 (칸 수가 아니라 도형 수에 비례)
+            for (int j = 0; j < scene.size(); j++) {
+                if (j != i && component[j] >= 0) {
+                    pairTests += link(i, j);
+                }
+            }
+            largeShapes.add(i);
+            return pairTests;
+        }
+
+        // 2. 보통 도형 - 걸치는 칸(한 축에 LARGE_CELLS개 이하)의 도형과 큰 도형 목록
+        stamp++;
+        int x0 = cell(scene.minX[i]), x1 = cell(scene.maxX[i]);
+        int y0 = cell(scene.minY[i]), y1 = cell(scene.maxY[i]);
+        for (int y = y0; y <= y1; y++) {
+            for (int x = x0; x <= x1; x++) {
+                IntList items = grid.computeIfAbsent(key(x, y), k -> new IntList());
+                for (int p = 0; p < items.size(); p++) {
+                    int j = items.get(p);
+                    if (visited[j] == stamp) continue;
+                    visited[j] = stamp;
+                    pairTests += link(i, j);
+                }
+                items.add(i);
+            }
+        }
+        for (int p = 0; p < largeShapes.size(); p++) {
+            pairTests += link(i, largeShapes.get(p));
+        }
+        return pairTests;
+    }
+
+    // 경계 상자가 겹치면 좁은 단계로 확인해 간선을 만든다 - 검사했으면 1
+    private int link(int i, int j) {
+        if (scene.maxX[i] < scene.minX[j] || scene.maxX[j] < scene.minX[i] ||
+                scene.maxY[i] < scene.minY[j] || scene.maxY[j] < scene.minY[i]) {
+            return 0;
+        }
+        if (NarrowPhase.overlaps(scene, i, scene, j)) {
+            neighbors[i].add(j);
+            neighbors[j].add(i);
+            merge(component[i], component[j]);
+        }
+        return 1;
+    }
+
+    private boolean isLarge(int i) {
+        return cell(scene.maxX[i]) - cell(scene.minX[i]) > LARGE_CELLS
+                || cell(scene.maxY[i]) - cell(scene.minY[i]) > LARGE_CELLS;
+    }
+
+    // 도형 i를 격자와 겹침 그래프에서 떼어 내고, 원래 연결 요소가 끊어졌으면 나눈다
+    private void detach(int i) {
+        if (isLarge(i)) {
+            largeShapes.removeValue(i);
+        } else {
+            int x0 = cell(scene.minX[i]), x1 = cell(scene.maxX[i]);
+            int y0 = cell(scene.minY[i]), y1 = cell(scene.maxY[i]);
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    long key = key(x, y);
+                    IntList items = grid.get(key);
+                    items.removeValue(i);
+                    if (items.isEmpty()) {
+                        grid.remove(key);
+                    }
+                }
+            }
+        }
+
+        int[] former = neighbors[i].toArray();
+        neighbors[i].clear();
+        for (int j : former) {
+            neighbors[j].removeValue(i);
+        }
+
+        int label = component[i];
+        IntList group = members.get(label);
+        group.removeValue(i);
+        component[i] = -1;
+        if (group.isEmpty()) {
+            releaseLabel(label);
+        } else if (former.length > 1) {
+            // 이웃이 하나 이하였다면 나머지는 여전히 연결되어 있다
+            split(label, former);
+        }
+    }
+
+    private void split(int label, int[] former) {
+        stamp++;
+        IntList first = collect(former[0]);
+        if (first.size() == members.get(label).size()) {
+            return;
+        }
+
+        members.set(label, first);
+        for (int start : former) {
+            if (visited[start] == stamp) continue;
+            IntList piece = collect(start);
+            int pieceLabel = newLabel();
+            members.set(pieceLabel, piece);
+            for (int p = 0; p < piece.size(); p++) {
+                component[piece.get(p)] = pieceLabel;
+            }
+        }
+    }
+
+    // start에서 겹침 그래프를 따라 닿는 도형들 (BFS, 현재 stamp로 방문 표시)
+    private IntList collect(int start) {
+        IntList piece = new IntList();
+        visited[start] = stamp;
+        piece.add(start);
+        for (int head = 0; head < piece.size(); head++) {
+            IntList adjacent = neighbors[piece.get(head)];
+            for (int p = 0; p < adjacent.size(); p++) {
+                int j = adjacent.get(p);
+                if (visited[j] != stamp) {
+                    visited[j] = stamp;
+                    piece.add(j);
+                }
+            }
+        }
+        return piece;
+    }
+
+    // 작은 연결 요소의 도형들을 큰 쪽 번호로 옮긴다
+    private void merge(int a, int b) {
+        if (a == b) return;
+        if (members.get(a).size() < members.get(b).size()) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        IntList from = members.get(b);
+        IntList into = members.get(a);
+        for (int p = 0; p < from.size(); p++) {
+            component[from.get(p)] = a;
+            into.add(from.get(p));
+        }
+        releaseLabel(b);
+    }
+
+    private int newLabel() {
+        if (!freeLabels.isEmpty()) {
+            int label = freeLabels.removeLast();
+            members.set(label, new IntList());
+            return label;
+        }
+        members.add(new IntList());
+        return members.size() - 1;
+    }
+
+    private void releaseLabel(int label) {
+        members.set(label, null);
+        freeLabels.add(label);
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > component.length) {
+            int capacity = Math.max(component.length * 2, size);
+            neighbors = Arrays.copyOf(neighbors, capacity);
+            int[] grown = filled(capacity);
+            System.arraycopy(component, 0, grown, 0, component.length);
+            component = grown;
+            visited = Arrays.copyOf(visited, capacity);
+        }
+    }
+
+    private static int[] filled(int size) {
+        int[] values = new int[size];
+        Arrays.fill(values, -1);
+        return values;
+    }
+
+    private int cell(double v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    // 추가/이동한 도형의 결과 - 연결 요소 크기, 이웃 수, 좁은 단계 검사 수
+    public static class Update {
+        private final int shape;
+        private final int groupSize;
+        private final int neighborCount;
+        private final int pairTests;
+
+        Update(int shape, int groupSize, int neighborCount, int pairTests) {
+            this.shape = shape;
+            this.groupSize = groupSize;
+            this.neighborCount = neighborCount;
+            this.pairTests = pairTests;
+        }
+
+        public int getShape() {
+            return shape;
+        }
+
+        public int getGroupSize() {
+            return groupSize;
+        }
+
+        public int getNeighborCount() {
+            return neighborCount;
+        }
+
+        public int getPairTests() {
+            return pairTests;
+        }
+    }
+
+    // 질의 결과 - 겹친 도형(인덱스 오름차순)과 R-tree 후보 수, 방문 노드 수, 트리를 다시 쌓았는지
+    public static class QueryResult {
+        private final int[] hits;
+        private final int candidates;
+        private final int nodesVisited;
+        private final boolean indexRebuilt;
+
+        QueryResult(int[] hits, int candidates, int nodesVisited, boolean indexRebuilt) {
+            this.hits = hits;
+            this.candidates = candidates;
+            this.nodesVisited = nodesVisited;
+            this.indexRebuilt = indexRebuilt;
+        }
+
+        public int[] getHits() {
+            return hits;
+        }
+
+        public int getCandidates() {
+            return candidates;
+        }
+
+        public int getNodesVisited() {
+            return nodesVisited;
+        }
+
+        public boolean isIndexRebuilt() {
+            return indexRebuilt;
+        }
+    }
+}
@@ -0,0 +1,645 @@
+package knu.pyh.shapes;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// 힙에 올리기 어려운 큰 이진 도형 파일(OverlapBinaryWriter 형식, "SOVB")을 메모리 매핑으로 그룹화한다
+//
+// 입력 파일은 FileChannel.map으로 읽기 전용 매핑하고, 넓은 단계 격자(셀 시작 위치, 셀별 도형 목록)는
+// 임시 파일에, Union-Find 부모 배열은 출력 파일에 매핑해 두므로 힙 사용량은 도형 수와 무관하다.
+// 힙에 올라가는 것은 한 셀에 든 도형 일부만 담는 작업용 Scene 하나 뿐이다 (좁은 단계 커널을 그대로 쓰기 위함).
+// 셀 크기는 평균 경계 상자 크기로 잡고, 셀 LARGE_CELLS개보다 큰 도형은 격자에 넣지 않고 따로 모아
+// 자기가 덮는 셀의 도형과 검사한다 (큰 도형 하나 때문에 모든 도형이 한 셀에 몰리지 않도록).
+// 도형이 몰린 셀은 CELL_BLOCK개씩 나누어 블록 쌍마다 작업용 장면에 올린다.
+//
+// 출력 파일 (little-endian)
+//   0  u8[4]  매직 "SOVL"
+//   4  u16    버전 (1)
+//   6  u16    예약 (0)
+//   8  u32    도형 수 N
+//   12 u32    겹침 그룹 수 G (크기 2 이상인 연결 요소)
+//   16 i32[N] 도형별 연결 요소 번호 = 그 요소에서 가장 작은 도형 인덱스 (겹치지 않는 도형은 자기 인덱스)
+public class MappedShapeGrouper {
+    public static final int LABEL_VERSION = 1;
+    public static final int LABEL_HEADER_BYTES = 16;
+
+    // 격자가 지나치게 커지지 않도록 셀 개수 상한 (UniformGridBroadPhase와 같음)
+    private static final long MAX_CELLS = 1L << 22;
+    // 경계 상자의 한 변이 셀 몇 개보다 크면 격자 대신 큰 도형 목록에 넣을지 (LiveScene과 같음)
+    private static final int LARGE_CELLS = 4;
+    // 작업용 장면에 한 번에 올리는 도형 수 (한 블록 쌍 = 최대 2 * CELL_BLOCK개)
+    static final int CELL_BLOCK = 4096;
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private final Path inputPath;
+    private final Path outputPath;
+
+    // 입력 구역의 파일 내 위치
+    private MappedRegion input;
+    private int n;
+    private int vertexTotal;
+    private int coordinateBytes;
+    private long typesOffset;
+    private long centerXOffset;
+    private long centerYOffset;
+    private long radiusOffset;
+    private long vertexStartOffset;
+    private long xsOffset;
+    private long ysOffset;
+
+    private MappedRegion labels;
+
+    // 한 셀의 도형만 담는 작업용 장면과 꼭짓점 버퍼
+    private final Scene cellScene = new Scene(64, 512);
+    private int[] cellShapes = new int[64];
+    private double[] vx = new double[64];
+    private double[] vy = new double[64];
+
+    private long candidatePairs;
+    private long overlappingPairs;
+    private int largeCount;
+    private long peakHeapBytes;
+
+    // 취소 / 처리 시간 한도 확인 (도형 65536개, 셀 1024개, 셀 안의 도형 256개마다)
+    private GenerationProgress progress = new GenerationProgress();
+
+    public MappedShapeGrouper(Path inputPath, Path outputPath) {
+        this.inputPath = inputPath;
+        this.outputPath = outputPath;
+    }
+
+    public void setProgress(GenerationProgress progress) {
+        this.progress = progress;
+    }
+
+    // 파일 헤더의 {도형 수, 정점 수} - 매핑 전에 비용을 어림할 때 쓴다
+    public static long[] readCounts(Path inputPath) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16).order(ByteOrder.LITTLE_ENDIAN);
+        try (FileChannel channel = FileChannel.open(inputPath, StandardOpenOption.READ)) {
+            int read;
+            do {
+                read = channel.read(header);
+            } while (read >= 0 && header.hasRemaining());
+        }
+        if (header.hasRemaining() || header.get(0) != 'S' || header.get(1) != 'O' ||
+                header.get(2) != 'V' || header.get(3) != 'B') {
+            throw new IllegalArgumentException("SOVB 이진 도형 파일이 아닙니다: " + inputPath);
+        }
+        return new long[]{Integer.toUnsignedLong(header.getInt(8)), Integer.toUnsignedLong(header.getInt(12))};
+    }
+
+    private void checkCancelled(int i) {
+        if ((i & 0xFFFF) == 0) {
+            progress.checkCancelled();
+        }
+    }
+
+    public JSONObject run() throws IOException {
+        long heapBeforeBytes = MEMORY.getHeapMemoryUsage().getUsed();
+        peakHeapBytes = heapBeforeBytes;
+        long totalStart = System.nanoTime();
+
+        try (FileChannel inputChannel = FileChannel.open(inputPath, StandardOpenOption.READ);
+             FileChannel labelChannel = FileChannel.open(outputPath, StandardOpenOption.CREATE,
+                     StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 1. 입력 헤더와 구역 위치 읽기
+            input = new MappedRegion(inputChannel, FileChannel.MapMode.READ_ONLY, inputChannel.size());
+            readLayout(inputChannel.size());
+
+            // 2. 출력 파일 = Union-Find 부모 배열 (처음에는 모두 자기 자신)
+            labels = new MappedRegion(labelChannel, FileChannel.MapMode.READ_WRITE,
+                    LABEL_HEADER_BYTES + 4L * n);
+            for (int i = 0; i < n; i++) {
+                checkCancelled(i);
+                setParent(i, i);
+            }
+
+            // 3. 장면 범위와 평균 경계 상자 크기 -> 셀 크기
+            long start = System.nanoTime();
+            double[] box = new double[4];
+            double originX = 0, originY = 0, extentX = 0, extentY = 0, sizeSum = 0;
+            for (int i = 0; i < n; i++) {
+                checkCancelled(i);
+                bounds(i, box);
+                if (!(Double.isFinite(box[0]) && Double.isFinite(box[1])
+                        && Double.isFinite(box[2]) && Double.isFinite(box[3]))) {
+                    throw new IllegalArgumentException(i + "번째 도형의 좌표가 올바르지 않습니다.");
+                }
+                originX = i == 0 ? box[0] : Math.min(originX, box[0]);
+                originY = i == 0 ? box[1] : Math.min(originY, box[1]);
+                extentX = i == 0 ? box[2] : Math.max(extentX, box[2]);
+                extentY = i == 0 ? box[3] : Math.max(extentY, box[3]);
+                sizeSum += Math.max(box[2] - box[0], box[3] - box[1]);
+            }
+            double cellSize = Math.max(n == 0 ? 0 : sizeSum / n, 1.0);
+            int cols, rows;
+            while (true) {
+                // 칸 수는 실수로 먼저 확인한다 (범위가 넓으면 int 변환이 포화되어 곱 검사를 빠져나간다)
+                double spanX = Math.floor((extentX - originX) / cellSize) + 1;
+                double spanY = Math.floor((extentY - originY) / cellSize) + 1;
+                if (spanX * spanY <= MAX_CELLS) {
+                    cols = (int) spanX;
+                    rows = (int) spanY;
+                    break;
+                }
+                cellSize *= 2;
+            }
+            long boundsNanos = System.nanoTime() - start;
+
+            Path directory = outputPath.toAbsolutePath().getParent();
+            Path cellFile = Files.createTempFile(directory, "shapes-cells", ".tmp");
+            Path itemFile = Files.createTempFile(directory, "shapes-items", ".tmp");
+            Path largeFile = Files.createTempFile(directory, "shapes-large", ".tmp");
+            long gridNanos, pairNanos;
+            long gridEntries;
+            try (FileChannel cellChannel = FileChannel.open(cellFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileChannel itemChannel = FileChannel.open(itemFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileChannel largeChannel = FileChannel.open(largeFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // 4. 셀별 도형 목록 (CSR) - 셀 c의 도형은 items[cells[c] .. cells[c + 1])
+                //    큰 도형은 격자 대신 large[0 .. largeCount)에 인덱스 오름차순으로 넣는다
+                start = System.nanoTime();
+                int cellCount = cols * rows;
+                double largeSize = LARGE_CELLS * cellSize;
+                MappedRegion cells = new MappedRegion(cellChannel, FileChannel.MapMode.READ_WRITE, 4L * (cellCount + 1));
+                gridEntries = 0;
+                largeCount = 0;
+                for (int i = 0; i < n; i++) {
+                    checkCancelled(i);
+                    bounds(i, box);
+                    if (isLarge(box, largeSize)) {
+                        largeCount++;
+                        continue;
+                    }
+                    int x0 = cell(box[0], originX, cellSize), x1 = cell(box[2], originX, cellSize);
+                    int y0 = cell(box[1], originY, cellSize), y1 = cell(box[3], originY, cellSize);
+                    for (int y = y0; y <= y1; y++) {
+                        for (int x = x0; x <= x1; x++) {
+                            long at = 4L * (y * cols + x);
+                            cells.putInt(at, cells.getInt(at) + 1);
+                            gridEntries++;
+                        }
+                    }
+                }
+                if (gridEntries > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("격자 항목이 너무 많습니다: " + gridEntries);
+                }
+                // 누적합으로 각 셀의 끝 위치를 만든 뒤, 도형을 뒤에서부터 채우며 끝 위치를 시작 위치로 당긴다
+                // (도형을 큰 인덱스부터 넣으므로 셀 안에서는 인덱스 오름차순)
+                int sum = 0;
+                for (int c = 0; c < cellCount; c++) {
+                    sum += cells.getInt(4L * c);
+                    cells.putInt(4L * c, sum);
+                }
+                cells.putInt(4L * cellCount, sum);
+                MappedRegion items = new MappedRegion(itemChannel, FileChannel.MapMode.READ_WRITE, 4L * Math.max(gridEntries, 1));
+                MappedRegion large = new MappedRegion(largeChannel, FileChannel.MapMode.READ_WRITE, 4L * Math.max(largeCount, 1));
+                int largePosition = largeCount;
+                for (int i = n - 1; i >= 0; i--) {
+                    checkCancelled(i);
+                    bounds(i, box);
+                    if (isLarge(box, largeSize)) {
+                        large.putInt(4L * --largePosition, i);
+                        continue;
+                    }
+                    int x0 = cell(box[0], originX, cellSize), x1 = cell(box[2], originX, cellSize);
+                    int y0 = cell(box[1], originY, cellSize), y1 = cell(box[3], originY, cellSize);
+                    for (int y = y0; y <= y1; y++) {
+                        for (int x = x0; x <= x1; x++) {
+                            long at = 4L * (y * cols + x);
+                            int position = cells.getInt(at) - 1;
+                            cells.putInt(at, position);
+                            items.putInt(4L * position, i);
+                        }
+                    }
+                }
+                gridNanos = System.nanoTime() - start;
+                sampleHeap();
+
+                // 5. 셀마다 도형을 작업용 장면에 올려 같은 셀 안의 쌍만 검사
+                //    도형이 CELL_BLOCK개보다 많은 셀은 블록 쌍 (a <= b)마다 두 블록만 올린다
+                start = System.nanoTime();
+                candidatePairs = 0;
+                overlappingPairs = 0;
+                for (int c = 0; c < cellCount; c++) {
+                    if ((c & 0x3FF) == 0) {
+                        progress.checkCancelled();
+                    }
+                    int from = cells.getInt(4L * c);
+                    int to = cells.getInt(4L * (c + 1));
+                    if (to - from < 2) {
+                        continue;
+                    }
+                    for (int blockA = from; blockA < to; blockA += CELL_BLOCK) {
+                        int endA = Math.min(blockA + CELL_BLOCK, to);
+                        for (int blockB = blockA; blockB < to; blockB += CELL_BLOCK) {
+                            int endB = Math.min(blockB + CELL_BLOCK, to);
+                            cellScene.clear();
+                            int count = 0;
+                            for (int p = blockA; p < endA; p++) {
+                                count = addToCell(count, items.getInt(4L * p));
+                            }
+                            int split = count;
+                            if (blockB != blockA) {
+                                for (int p = blockB; p < endB; p++) {
+                                    count = addToCell(count, items.getInt(4L * p));
+                                }
+                            }
+                            testCell(cellShapes, count, blockB == blockA ? count : split,
+                                    c % cols, c / cols, originX, originY, cellSize);
+                        }
+                    }
+                    if ((c & 0xFFFF) == 0) {
+                        sampleHeap();
+                    }
+                }
+
+                // 큰 도형은 자기가 덮는 셀의 도형과, 목록에서 자기 뒤에 있는 큰 도형과 검사한다
+                // 격자 도형과의 쌍은 교차 영역 좌하단 모서리가 속한 셀에서만 후보로 모으므로 한 번만 검사된다
+                double[] other = new double[4];
+                for (int k = 0; k < largeCount; k++) {
+                    progress.checkCancelled();
+                    int a = large.getInt(4L * k);
+                    bounds(a, box);
+                    cellScene.clear();
+                    int count = addToCell(0, a);
+                    int x0 = cell(box[0], originX, cellSize), x1 = cell(box[2], originX, cellSize);
+                    int y0 = cell(box[1], originY, cellSize), y1 = cell(box[3], originY, cellSize);
+                    long visited = 0;
+                    for (int y = y0; y <= y1; y++) {
+                        for (int x = x0; x <= x1; x++) {
+                            if ((++visited & 0x3FF) == 0) {
+                                progress.checkCancelled();
+                            }
+                            int c = y * cols + x;
+                            int to = cells.getInt(4L * (c + 1));
+                            for (int p = cells.getInt(4L * c); p < to; p++) {
+                                int b = items.getInt(4L * p);
+                                bounds(b, other);
+                                if (!boxesOverlap(box, other) ||
+                                        cell(Math.max(box[0], other[0]), originX, cellSize) != x ||
+                                        cell(Math.max(box[1], other[1]), originY, cellSize) != y) {
+                                    continue;
+                                }
+                                count = flushLarge(addToCell(count, b), a);
+                            }
+                        }
+                    }
+                    for (int k2 = k + 1; k2 < largeCount; k2++) {
+                        int b = large.getInt(4L * k2);
+                        bounds(b, other);
+                        if (boxesOverlap(box, other)) {
+                            count = flushLarge(addToCell(count, b), a);
+                        }
+                    }
+                    testCell(cellShapes, count, 1, -1, -1, originX, originY, cellSize);
+                }
+                sampleHeap();
+                pairNanos = System.nanoTime() - start;
+            } finally {
+                Files.deleteIfExists(cellFile);
+                Files.deleteIfExists(itemFile);
+                Files.deleteIfExists(largeFile);
+            }
+
+            // 6. 부모 배열을 연결 요소 번호로 정리
+            start = System.nanoTime();
+            int overlapGroups = writeLabels();
+            labels.putByte(0, (byte) 'S');
+            labels.putByte(1, (byte) 'O');
+            labels.putByte(2, (byte) 'V');
+            labels.putByte(3, (byte) 'L');
+            labels.putShort(4, (short) LABEL_VERSION);
+            labels.putShort(6, (short) 0);
+            labels.putInt(8, n);
+            labels.putInt(12, overlapGroups);
+            labels.force();
+            long labelNanos = System.nanoTime() - start;
+            sampleHeap();
+
+            JSONObject json = new JSONObject();
+            json.put("input", inputPath.toString());
+            json.put("output", outputPath.toString());
+            json.put("totalCount", n);
+            json.put("vertexCount", vertexTotal);
+            json.put("coordinateBytes", coordinateBytes);
+            json.put("inputBytes", inputChannel.size());
+            json.put("cellSize", cellSize);
+            json.put("cellCount", (long) cols * rows);
+            json.put("gridEntries", gridEntries);
+            json.put("largeShapes", largeCount);
+            json.put("candidatePairs", candidatePairs);
+            json.put("overlappingPairs", overlappingPairs);
+            json.put("overlapGroups", overlapGroups);
+            json.put("boundsMillis", boundsNanos / 1_000_000.0);
+            json.put("gridMillis", gridNanos / 1_000_000.0);
+            json.put("pairTestMillis", pairNanos / 1_000_000.0);
+            json.put("labelMillis", labelNanos / 1_000_000.0);
+            json.put("elapsedMillis", (System.nanoTime() - totalStart) / 1_000_000.0);
+            json.put("heapBeforeBytes", heapBeforeBytes);
+            json.put("peakHeapBytes", peakHeapBytes);
+            return json;
+        }
+    }
+
+    private void readLayout(long fileSize) {
+        if (fileSize < 32 || input.getByte(0) != 'S' || input.getByte(1) != 'O' ||
+                input.getByte(2) != 'V' || input.getByte(3) != 'B') {
+            throw new IllegalArgumentException("SOVB 이진 도형 파일이 아닙니다: " + inputPath);
+        }
+        if (input.getShort(4) != OverlapBinaryWriter.VERSION) {
+            throw new IllegalArgumentException("지원하지 않는 이진 도형 파일 버전입니다: " + input.getShort(4));
+        }
+        coordinateBytes = input.getByte(6);
+        if (coordinateBytes != 4 && coordinateBytes != 8) {
+            throw new IllegalArgumentException("좌표 크기가 올바르지 않습니다: " + coordinateBytes);
+        }
+        long shapeCount = Integer.toUnsignedLong(input.getInt(8));
+        long vertexCount = Integer.toUnsignedLong(input.getInt(12));
+        if (shapeCount > Integer.MAX_VALUE - 1 || vertexCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("도형 또는 정점 수가 너무 많습니다.");
+        }
+        n = (int) shapeCount;
+        vertexTotal = (int) vertexCount;
+
+        // 구역은 (u32 길이, u32 예약, 내용, 8바이트 정렬용 채움) 순서로 이어진다
+        long[] offsets = new long[13];
+        long[] expected = {0, n, 4L * n, (long) coordinateBytes * n, (long) coordinateBytes * n,
+                (long) coordinateBytes * n, 4L * n, (long) coordinateBytes * n, 4L * (n + 1),
+                (long) coordinateBytes * vertexTotal, (long) coordinateBytes * vertexTotal};
+        long at = 32;
+        for (int s = 1; s <= 10; s++) {
+            if (at + 8 > fileSize) {
+                throw new IllegalArgumentException("이진 도형 파일이 잘렸습니다.");
+            }
+            long length = Integer.toUnsignedLong(input.getInt(at));
+            if (length != expected[s]) {
+                throw new IllegalArgumentException(s + "번째 구역의 길이가 올바르지 않습니다.");
+            }
+            offsets[s] = at + 8;
+            at = offsets[s] + ((length + 7) & ~7L);
+        }
+        if (at > fileSize) {
+            throw new IllegalArgumentException("이진 도형 파일이 잘렸습니다.");
+        }
+        typesOffset = offsets[1];
+        centerXOffset = offsets[3];
+        centerYOffset = offsets[4];
+        radiusOffset = offsets[5];
+        vertexStartOffset = offsets[8];
+        xsOffset = offsets[9];
+        ysOffset = offsets[10];
+    }
+
+    private double real(long sectionOffset, long index) {
+        return coordinateBytes == 8
+                ? input.getDouble(sectionOffset + 8 * index)
+                : input.getFloat(sectionOffset + 4 * index);
+    }
+
+    private int vertexStart(int i) {
+        int start = input.getInt(vertexStartOffset + 4L * i);
+        int end = input.getInt(vertexStartOffset + 4L * (i + 1));
+        if (start < 0 || start > end || end > vertexTotal) {
+            throw new IllegalArgumentException(i + "번째 도형의 정점 범위가 올바르지 않습니다.");
+        }
+        return start;
+    }
+
+    // 도형 i의 경계 상자 {minX, minY, maxX, maxY} (원은 중심과 반지름, 다각형은 정점에서)
+    private void bounds(int i, double[] box) {
+        if (input.getByte(typesOffset + i) == ShapeType.CIRCLE.tag()) {
+            double cx = real(centerXOffset, i), cy = real(centerYOffset, i), r = real(radiusOffset, i);
+            box[0] = cx - r;
+            box[1] = cy - r;
+            box[2] = cx + r;
+            box[3] = cy + r;
+            return;
+        }
+        int start = vertexStart(i);
+        int end = input.getInt(vertexStartOffset + 4L * (i + 1));
+        box[0] = box[1] = Double.POSITIVE_INFINITY;
+        box[2] = box[3] = Double.NEGATIVE_INFINITY;
+        for (int k = start; k < end; k++) {
+            double x = real(xsOffset, k), y = real(ysOffset, k);
+            box[0] = Math.min(box[0], x);
+            box[1] = Math.min(box[1], y);
+            box[2] = Math.max(box[2], x);
+            box[3] = Math.max(box[3], y);
+        }
+    }
+
+    // 매핑된 도형 i를 작업용 장면에 추가 (다각형은 저장된 정점을 그대로 쓴다)
+    private void load(int i) {
+        double cx = real(centerXOffset, i), cy = real(centerYOffset, i), r = real(radiusOffset, i);
+        byte type = input.getByte(typesOffset + i);
+        if (type == ShapeType.CIRCLE.tag()) {
+            cellScene.addCircle(cx, cy, r, 0);
+            return;
+        }
+        if (type != ShapeType.REGULAR_POLYGON.tag() && type != ShapeType.IRREGULAR_POLYGON.tag()) {
+            throw new IllegalArgumentException(i + "번째 도형의 종류가 올바르지 않습니다: " + type);
+        }
+        int start = vertexStart(i);
+        int count = input.getInt(vertexStartOffset + 4L * (i + 1)) - start;
+        if (count < 3) {
+            throw new IllegalArgumentException(i + "번째 도형의 정점이 3개 미만입니다.");
+        }
+        if (count > vx.length) {
+            vx = new double[Math.max(count, vx.length * 2)];
+            vy = new double[vx.length];
+        }
+        for (int k = 0; k < count; k++) {
+            vx[k] = real(xsOffset, start + k);
+            vy[k] = real(ysOffset, start + k);
+        }
+        cellScene.addIrregularPolygon(cx, cy, r, vx, vy, count, 0);
+    }
+
+    // 매핑된 도형 i를 작업용 장면의 count번째 자리에 올린다
+    private int addToCell(int count, int i) {
+        if (cellShapes.length <= count) {
+            cellShapes = Arrays.copyOf(cellShapes, cellShapes.length * 2);
+        }
+        cellShapes[count] = i;
+        load(i);
+        return count + 1;
+    }
+
+    // 큰 도형 a(작업용 장면 0번)의 후보가 한 블록만큼 모이면 검사하고 a만 남긴다
+    private int flushLarge(int count, int a) {
+        if (count <= CELL_BLOCK) {
+            return count;
+        }
+        testCell(cellShapes, count, 1, -1, -1, 0, 0, 1);
+        cellScene.clear();
+        return addToCell(0, a);
+    }
+
+    private static boolean isLarge(double[] box, double largeSize) {
+        return box[2] - box[0] > largeSize || box[3] - box[1] > largeSize;
+    }
+
+    private static boolean boxesOverlap(double[] a, double[] b) {
+        return !(a[2] < b[0] || b[2] < a[0] || a[3] < b[1] || b[3] < a[1]);
+    }
+
+    // 작업용 장면의 도형 쌍 검사 - 한 블록이면 (split == count) 모든 쌍을, 두 블록이면 [0, split)과 [split, count) 사이의 쌍만
+    // 여러 셀을 공유하는 쌍은 교차 영역 좌하단 모서리가 속한 셀 (cx, cy)에서만 검사한다 (cx < 0 이면 이미 골라 둔 후보)
+    private void testCell(int[] shapes, int count, int split, int cx, int cy, double originX, double originY, double cellSize) {
+        Scene scene = cellScene;
+        boolean sameBlock = split == count;
+        for (int p = 0; p < (sameBlock ? count : split); p++) {
+            if ((p & 0xFF) == 0xFF) {
+                progress.checkCancelled();
+            }
+            for (int q = sameBlock ? p + 1 : split; q < count; q++) {
+                if (scene.maxX[p] < scene.minX[q] || scene.maxX[q] < scene.minX[p] ||
+                        scene.maxY[p] < scene.minY[q] || scene.maxY[q] < scene.minY[p]) {
+                    continue;
+                }
+                if (cx >= 0 && (cell(Math.max(scene.minX[p], scene.minX[q]), originX, cellSize) != cx ||
+                        cell(Math.max(scene.minY[p], scene.minY[q]), originY, cellSize) != cy)) {
+                    continue;
+                }
+                candidatePairs++;
+                if (NarrowPhase.overlaps(scene, p, scene, q)) {
+                    overlappingPairs++;
+                    union(shapes[p], shapes[q]);
+                }
+            }
+        }
+    }
+
+    private static int cell(double v, double origin, double cellSize) {
+        return (int) ((v - origin) / cellSize);
+    }
+
+    // 출력 파일 위의 Union-Find - 항상 작은 루트 아래로 합치므로 parent(x) <= x 이다
+    private int parent(int x) {
+        return labels.getInt(LABEL_HEADER_BYTES + 4L * x);
+    }
+
+    private void setParent(int x, int p) {
+        labels.putInt(LABEL_HEADER_BYTES + 4L * x, p);
+    }
+
+    private int find(int x) {
+        int p;
+        while ((p = parent(x)) != x) {
+            int grandParent = parent(p);
+            setParent(x, grandParent);
+            x = grandParent;
+        }
+        return x;
+    }
+
+    private void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA < rootB) {
+            setParent(rootB, rootA);
+        } else if (rootB < rootA) {
+            setParent(rootA, rootB);
+        }
+    }
+
+    // parent(x) <= x 이므로 인덱스 오름차순으로 한 번 훑으면 모든 도형이 루트(요소의 최소 인덱스)를 가리킨다
+    // 겹침 그룹 수는 처음으로 자식이 발견된 루트를 ~root로 표시해 세고, 두 번째로 훑을 때 표시를 지운다
+    private int writeLabels() {
+        int overlapGroups = 0;
+        for (int i = 0; i < n; i++) {
+            checkCancelled(i);
+            int p = parent(i);
+            if (p == i) {
+                continue;
+            }
+            int value = parent(p);
+            int root = value < 0 ? ~value : value;
+            if (parent(root) == root) {
+                overlapGroups++;
+                setParent(root, ~root);
+            }
+            setParent(i, root);
+        }
+        for (int i = 0; i < n; i++) {
+            int value = parent(i);
+            if (value < 0) {
+                setParent(i, ~value);
+            }
+        }
+        return overlapGroups;
+    }
+
+    private void sampleHeap() {
+        peakHeapBytes = Math.max(peakHeapBytes, MEMORY.getHeapMemoryUsage().getUsed());
+    }
+
+    // 2GB를 넘는 파일도 다룰 수 있도록 1GB 단위로 나누어 매핑한 영역
+    // 모든 값은 자기 크기의 배수 위치에 있으므로 한 값이 두 조각에 걸치지 않는다
+    private static final class MappedRegion {
+        private static final int CHUNK_SHIFT = 30;
+        private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+        private final MappedByteBuffer[] chunks;
+
+        MappedRegion(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+            int count = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+            chunks = new MappedByteBuffer[Math.max(count, 1)];
+            for (int c = 0; c < chunks.length; c++) {
+                long position = (long) c << CHUNK_SHIFT;
+                long length = Math.min(size - position, 1L << CHUNK_SHIFT);
+                chunks[c] = channel.map(mode, position, Math.max(length, 0));
+                chunks[c].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        byte getByte(long at) {
+            return chunks[(int) (at >>> CHUNK_SHIFT)].get((int) (at & CHUNK_MASK));
+        }
+
+        short getShort(long at) {
+            return chunks[(int) (at >>> CHUNK_SHIFT)].getShort((int) (at & CHUNK_MASK));
+        }
+
+        int getInt(long at) {
+            return chunks[(int) (at >>> CHUNK_SHIFT)].getInt((int) (at & CHUNK_MASK));
+        }
+
+        float getFloat(long at) {
+            return chunks[(int) (at >>> CHUNK_SHIFT)].getFloat((int) (at & CHUNK_MASK));
+        }
+
+        double getDouble(long at) {
+            return chunks[(int) (at >>> CHUNK_SHIFT)].getDouble((int) (at & CHUNK_MASK));
+        }
+
+        void putByte(long at, byte value) {
+            chunks[(int) (at >>> CHUNK_SHIFT)].put((int) (at & CHUNK_MASK), value);
+        }
+
+        void putShort(long at, short value) {
+            chunks[(int) (at >>> CHUNK_SHIFT)].putShort((int) (at & CHUNK_MASK), value);
+        }
+
+        void putInt(long at, int value) {
+            chunks[(int) (at >>> CHUNK_SHIFT)].putInt((int) (at & CHUNK_MASK), value);
+        }
+
+        void force() {
+            for (MappedByteBuffer chunk : chunks) {
+                chunk.force();
+            }
+        }
+    }
+}
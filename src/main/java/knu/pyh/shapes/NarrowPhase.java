@@ -0,0 +1,225 @@
+package knu.pyh.shapes;
+
+// 좁은 단계(Narrow-phase) 겹침 검사 - Scene의 평평한 배열 위에서 바로 동작하며 객체를 만들지 않는다
+// 도형 종류 태그 쌍 (typeA, typeB)으로 커널 표를 찾아 호출하며, instanceof나 문자열 비교는 하지 않는다
+public final class NarrowPhase {
+    private static final int TYPE_COUNT = ShapeType.values().length;
+    private static final CollisionKernel[] KERNELS = new CollisionKernel[TYPE_COUNT * TYPE_COUNT];
+
+    static {
+        register(ShapeType.CIRCLE, ShapeType.CIRCLE, NarrowPhase::circleCircle);
+        register(ShapeType.CIRCLE, ShapeType.REGULAR_POLYGON, NarrowPhase::circleConvex);
+        register(ShapeType.CIRCLE, ShapeType.IRREGULAR_POLYGON, NarrowPhase::circleConvex);
+        register(ShapeType.REGULAR_POLYGON, ShapeType.REGULAR_POLYGON, NarrowPhase::convexConvex);
+        register(ShapeType.REGULAR_POLYGON, ShapeType.IRREGULAR_POLYGON, NarrowPhase::convexConvex);
+        register(ShapeType.IRREGULAR_POLYGON, ShapeType.IRREGULAR_POLYGON, NarrowPhase::convexConvex);
+    }
+
+    // separatingAxis 결과 - 겹침 / 떨어져 있지만 변 법선이 아닌 곳(원과 다각형 꼭짓점 영역)에서 갈림
+    public static final int OVERLAPPING = -1;
+    public static final int SEPARATED_NO_AXIS = -2;
+
+    private NarrowPhase() {
+    }
+
+    // (typeA, typeB) 커널을 등록하면 (typeB, typeA)에는 인자를 뒤바꾼 커널이 함께 등록되어 항상 대칭이다
+    private static void register(ShapeType typeA, ShapeType typeB, CollisionKernel kernel) {
+        KERNELS[typeA.ordinal() * TYPE_COUNT + typeB.ordinal()] = kernel;
+        if (typeA != typeB) {
+            KERNELS[typeB.ordinal() * TYPE_COUNT + typeA.ordinal()] = (a, i, b, j) -> kernel.test(b, j, a, i);
+        }
+    }
+
+    public static CollisionKernel kernelFor(ShapeType typeA, ShapeType typeB) {
+        return KERNELS[typeA.ordinal() * TYPE_COUNT + typeB.ordinal()];
+    }
+
+    public static boolean overlaps(Scene a, int i, Scene b, int j) {
+        // 경계 원이 떨어져 있으면 도형도 떨어져 있다
+        double dx = a.boundX[i] - b.boundX[j];
+        double dy = a.boundY[i] - b.boundY[j];
+        double reach = a.boundRadius[i] + b.boundRadius[j];
+        if (dx * dx + dy * dy > reach * reach) {
+            return false;
+        }
+
+        return KERNELS[a.types[i] * TYPE_COUNT + b.types[j]].test(a, i, b, j);
+    }
+
+    // Circle vs Circle 겹침 검사
+    static boolean circleCircle(Scene a, int i, Scene b, int j) {
+        double dx = a.centerX[i] - b.centerX[j];
+        double dy = a.centerY[i] - b.centerY[j];
+        double reach = a.radius[i] + b.radius[j];
+        return dx * dx + dy * dy <= reach * reach;
+    }
+
+    // Circle(a) vs 볼록 다각형(b) - 원 중심에서 다각형까지의 최단 거리 (제곱 거리만 사용, 할당 없음)
+    // Scene의 다각형은 반시계 방향이므로 미리 계산된 법선은 바깥을 향하고, 변 자체의 투영값은 selfMax다
+    static boolean circleConvex(Scene a, int i, Scene b, int j) {
+        double cx = a.centerX[i];
+        double cy = a.centerY[i];
+        double r = a.radius[i];
+        int start = b.vertexStart[j];
+        int end = b.vertexStart[j + 1];
+
+        // 1. 각 변의 직선까지 부호 있는 거리 - r보다 멀면 분리, 모두 0 이하이면 중심이 다각형 내부
+        boolean inside = true;
+        for (int k = start; k < end; k++) {
+            double distance = cx * b.normalX[k] + cy * b.normalY[k] - b.selfMax[k];
+            if (distance > r) {
+                return false;
+            }
+            if (distance > 0) {
+                inside = false;
+            }
+        }
+        if (inside) {
+            return true;
+        }
+
+        // 2. 중심이 바깥에 있으면 원 중심이 바깥쪽에 있는 변들만 선분까지의 제곱 거리로 확인
+        double r2 = r * r;
+        for (int k = start; k < end; k++) {
+            if (cx * b.normalX[k] + cy * b.normalY[k] - b.selfMax[k] <= 0) {
+                continue;
+            }
+            int next = k + 1 == end ? start : k + 1;
+            double edgeX = b.xs[next] - b.xs[k];
+            double edgeY = b.ys[next] - b.ys[k];
+            double fx = cx - b.xs[k];
+            double fy = cy - b.ys[k];
+
+            double edgeLength2 = edgeX * edgeX + edgeY * edgeY;
+            double t = edgeLength2 == 0 ? 0 : (fx * edgeX + fy * edgeY) / edgeLength2;
+            if (t < 0) t = 0;
+            if (t > 1) t = 1;
+
+            double dx = fx - t * edgeX;
+            double dy = fy - t * edgeY;
+            if (dx * dx + dy * dy <= r2) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // 볼록 다각형 vs 볼록 다각형 - SAT
+    // 법선과 자기 투영 구간은 Scene에 미리 계산되어 있으므로 상대 도형의 정점만 투영한다
+    static boolean convexConvex(Scene a, int i, Scene b, int j) {
+        return !separatedOnOwnNormals(a, i, b, j) && !separatedOnOwnNormals(b, j, a, i);
+    }
+
+    // owner 도형의 변 법선들 중 owner와 other를 가르는 분리 축이 있는지 확인
+    private static boolean separatedOnOwnNormals(Scene owner, int o, Scene other, int t) {
+        int otherStart = other.vertexStart[t];
+        int otherEnd = other.vertexStart[t + 1];
+
+        for (int k = owner.vertexStart[o]; k < owner.vertexStart[o + 1]; k++) {
+            double axisX = owner.normalX[k];
+            double axisY = owner.normalY[k];
+
+            double minB = Double.MAX_VALUE;
+            double maxB = -Double.MAX_VALUE;
+            for (int m = otherStart; m < otherEnd; m++) {
+                double proj = other.xs[m] * axisX + other.ys[m] * axisY;
+                if (proj < minB) minB = proj;
+                if (proj > maxB) maxB = proj;
+            }
+
+            if (owner.selfMax[k] < minB || maxB < owner.selfMin[k]) {
+                return true;  // 분리 축 발견
+            }
+        }
+        return false;
+    }
+
+    // 시간 일관성 캐시용 검사 - 다각형이 낀 쌍에서 두 도형을 가르는 변 법선 축을 찾는다
+    // 축 번호 = (도형 안에서의 변 번호 << 1) | (b 도형의 변이면 1) - 회전해도 같은 변을 가리키므로 다음 프레임에 재사용한다
+    // 결과의 겹침 여부는 overlaps의 커널과 같다 (원끼리는 축이 없으므로 호출하지 않는다)
+    static int separatingAxis(Scene a, int i, Scene b, int j) {
+        boolean circleA = a.vertexStart[i] == a.vertexStart[i + 1];
+        boolean circleB = b.vertexStart[j] == b.vertexStart[j + 1];
+        if (circleA || circleB) {
+            int axis = circleA ? edgeSeparatingCircle(b, j, a, i) : edgeSeparatingCircle(a, i, b, j);
+            if (axis >= 0) {
+                return (axis << 1) | (circleA ? 1 : 0);
+            }
+            boolean overlapping = circleA ? circleConvex(a, i, b, j) : circleConvex(b, j, a, i);
+            return overlapping ? OVERLAPPING : SEPARATED_NO_AXIS;
+        }
+
+        int axis = separatingEdge(a, i, b, j);
+        if (axis >= 0) {
+            return axis << 1;
+        }
+        axis = separatingEdge(b, j, a, i);
+        return axis >= 0 ? (axis << 1) | 1 : OVERLAPPING;
+    }
+
+    // 캐시된 축 하나로만 확인 - true면 떨어져 있다 (false면 전체 검사가 필요)
+    static boolean separatedOn(Scene a, int i, Scene b, int j, int axis) {
+        Scene owner = (axis & 1) == 0 ? a : b;
+        int o = (axis & 1) == 0 ? i : j;
+        Scene other = (axis & 1) == 0 ? b : a;
+        int t = (axis & 1) == 0 ? j : i;
+        int k = owner.vertexStart[o] + (axis >> 1);
+        if (k >= owner.vertexStart[o + 1]) {
+            return false;
+        }
+
+        int otherStart = other.vertexStart[t];
+        int otherEnd = other.vertexStart[t + 1];
+        if (otherStart == otherEnd) {
+            double distance = other.centerX[t] * owner.normalX[k] + other.centerY[t] * owner.normalY[k] - owner.selfMax[k];
+            return distance > other.radius[t];
+        }
+        double minB = Double.MAX_VALUE;
+        double maxB = -Double.MAX_VALUE;
+        for (int m = otherStart; m < otherEnd; m++) {
+            double proj = other.xs[m] * owner.normalX[k] + other.ys[m] * owner.normalY[k];
+            if (proj < minB) minB = proj;
+            if (proj > maxB) maxB = proj;
+        }
+        return owner.selfMax[k] < minB || maxB < owner.selfMin[k];
+    }
+
+    // separatedOnOwnNormals와 같은 검사 - 가르는 변의 (도형 안) 번호, 없으면 -1
+    private static int separatingEdge(Scene owner, int o, Scene other, int t) {
+        int otherStart = other.vertexStart[t];
+        int otherEnd = other.vertexStart[t + 1];
+        int start = owner.vertexStart[o];
+
+        for (int k = start; k < owner.vertexStart[o + 1]; k++) {
+            double axisX = owner.normalX[k];
+            double axisY = owner.normalY[k];
+
+            double minB = Double.MAX_VALUE;
+            double maxB = -Double.MAX_VALUE;
+            for (int m = otherStart; m < otherEnd; m++) {
+                double proj = other.xs[m] * axisX + other.ys[m] * axisY;
+                if (proj < minB) minB = proj;
+                if (proj > maxB) maxB = proj;
+            }
+
+            if (owner.selfMax[k] < minB || maxB < owner.selfMin[k]) {
+                return k - start;
+            }
+        }
+        return -1;
+    }
+
+    // circleConvex 1단계와 같은 검사 - 원 중심까지의 거리가 반경보다 먼 다각형 변의 번호, 없으면 -1
+    private static int edgeSeparatingCircle(Scene polygon, int p, Scene circle, int c) {
+        double cx = circle.centerX[c];
+        double cy = circle.centerY[c];
+        double r = circle.radius[c];
+        int start = polygon.vertexStart[p];
+        for (int k = start; k < polygon.vertexStart[p + 1]; k++) {
+            if (cx * polygon.normalX[k] + cy * polygon.normalY[k] - polygon.selfMax[k] > r) {
+                return k - start;
+            }
+        }
+        return -1;
+    }
+}
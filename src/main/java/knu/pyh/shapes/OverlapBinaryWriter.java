@@ -0,0 +1,189 @@
+package knu.pyh.shapes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+
+// ShapesOverlaps 결과의 이진 인코딩 (Format=bin / bin32, 또는 Accept: application/x-shape-overlaps)
+//
+// 모든 값은 little-endian 이다.
+//
+// 헤더 (32바이트)
+//   0  u8[4]  매직 "SOVB"
+//   4  u16    버전 (1)
+//   6  u8     좌표 크기 (4 = float32, 8 = float64) - 아래 f 는 이 크기의 실수
+//   7  u8     예약 (0)
+//   8  u32    도형 수 N
+//   12 u32    정점 수 V
+//   16 u32    겹침 그룹 수 G (크기 2 이상인 그룹만)
+//   20 u32    예약 (0)
+//   24 u64    겹치는 쌍 수
+//
+// 헤더 뒤에는 아래 순서로 구역(section)이 이어진다.
+// 각 구역은 u32 바이트 길이 + u32 예약(0) 뒤에 내용이 오고, 내용은 8바이트 배수가 되도록 0으로 채운다.
+// 따라서 모든 배열은 8바이트 정렬 위치에서 시작하여 그대로 배열 뷰로 읽을 수 있다.
+//   1  types        u8[N]     0 = circle, 1 = regularPolygon, 2 = irregularPolygon
+//   2  colors       u32[N]    0xRRGGBB
+//   3  centerX      f[N]
+//   4  centerY      f[N]
+//   5  radius       f[N]
+//   6  sides        u32[N]    정다각형/일반다각형의 변 수, 원은 0
+//   7  rotation     f[N]      정다각형의 회전각, 나머지는 0
+//   8  vertexStart  u32[N+1]  도형 i의 정점은 [vertexStart[i], vertexStart[i+1])
+//   9  xs           f[V]
+//   10 ys           f[V]
+//   11 groupIds     i32[N]    도형이 속한 겹침 그룹 번호 (0 .. G-1), 겹치지 않는 도형은 -1
+//   12 groupColors  u32[G]    그룹 색상 0xRRGGBB
+public final class OverlapBinaryWriter {
+    public static final String CONTENT_TYPE = "application/x-shape-overlaps";
+    public static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final boolean float32;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    private OverlapBinaryWriter(OutputStream out, boolean float32) {
+        this.out = out;
+        this.float32 = float32;
+    }
+
+    public static void write(OverlapResult result, OutputStream out, boolean float32) throws IOException {
+        new OverlapBinaryWriter(out, float32).write(result);
+    }
+
+    private void write(OverlapResult result) throws IOException {
+        Scene scene = result.getScene();
+        List<int[]> groups = result.getGroups();
+        int n = scene.size();
+        int v = scene.vertexCount;
+
+        // 크기 2 이상인 그룹에 0부터 번호를 다시 매긴다
+        int[] groupIds = new int[n];
+        Arrays.fill(groupIds, -1);
+        int groupCount = 0;
+        for (int[] group : groups) {
+            if (group.length > 1) {
+                for (int index : group) {
+                    groupIds[index] = groupCount;
+                }
+                groupCount++;
+            }
+        }
+
+        // 스트리밍 중간에 끊기지 않도록 가장 긴 구역(정점 좌표 / vertexStart)을 쓰기 전에 확인한다
+        checkSectionLength((long) Math.max(n, v) * (float32 ? 4 : 8));
+        checkSectionLength(4L * (n + 1));
+
+        // 헤더
+        buffer.put((byte) 'S').put((byte) 'O').put((byte) 'V').put((byte) 'B');
+        buffer.putShort((short) VERSION);
+        buffer.put((byte) (float32 ? 4 : 8));
+        buffer.put((byte) 0);
+        buffer.putInt(n);
+        buffer.putInt(v);
+        buffer.putInt(groupCount);
+        buffer.putInt(0);
+        buffer.putLong(result.getOverlappingPairs());
+
+        // 1. types
+        beginSection(n);
+        for (int i = 0; i < n; i++) {
+            ensure(1);
+            buffer.put(scene.types[i]);
+        }
+        endSection(n);
+
+        // 2. colors
+        writeInts(scene.colors, n);
+
+        // 3 ~ 5. 중심, 반지름
+        writeReals(scene.centerX, n);
+        writeReals(scene.centerY, n);
+        writeReals(scene.radius, n);
+
+        // 6 ~ 7. 변 수, 회전각
+        writeInts(scene.sides, n);
+        writeReals(scene.rotation, n);
+
+        // 8 ~ 10. 정점
+        writeInts(scene.vertexStart, n + 1);
+        writeReals(scene.xs, v);
+        writeReals(scene.ys, v);
+
+        // 11 ~ 12. 그룹
+        writeInts(groupIds, n);
+        int[] groupColors = new int[groupCount];
+        int g = 0;
+        for (int i = 0; i < groups.size(); i++) {
+            if (groups.get(i).length > 1) {
+                groupColors[g++] = Scene.parseColor(OverlapResult.groupColor(i));
+            }
+        }
+        writeInts(groupColors, groupCount);
+
+        flush();
+        out.flush();
+    }
+
+    private void writeInts(int[] values, int count) throws IOException {
+        beginSection(4L * count);
+        for (int i = 0; i < count; i++) {
+            ensure(4);
+            buffer.putInt(values[i]);
+        }
+        endSection(4L * count);
+    }
+
+    private void writeReals(double[] values, int count) throws IOException {
+        long length = (long) count * (float32 ? 4 : 8);
+        beginSection(length);
+        for (int i = 0; i < count; i++) {
+            if (float32) {
+                ensure(4);
+                buffer.putFloat((float) values[i]);
+            } else {
+                ensure(8);
+                buffer.putDouble(values[i]);
+            }
+        }
+        endSection(length);
+    }
+
+    // 구역 길이는 u32 - 넘으면 잘린 길이를 쓰지 않고 실패한다
+    private static void checkSectionLength(long length) {
+        if (length > 0xFFFFFFFFL) {
+            throw new IllegalArgumentException("이진 형식 구역 길이(" + length + "바이트)가 u32 한도를 넘습니다.");
+        }
+    }
+
+    private void beginSection(long length) throws IOException {
+        checkSectionLength(length);
+        ensure(8);
+        buffer.putInt((int) length);
+        buffer.putInt(0);
+    }
+
+    private void endSection(long length) throws IOException {
+        int padding = (int) ((8 - length % 8) % 8);
+        ensure(padding);
+        for (int i = 0; i < padding; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+}
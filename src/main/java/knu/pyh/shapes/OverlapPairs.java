@@ -0,0 +1,233 @@
+package knu.pyh.shapes;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// 겹치는 도형 쌍(겹침 그래프의 간선) 한 페이지 - ShapeGenerator.setPairCollector로 켰을 때만 모은다
+//
+// 간선 (i, j)는 i < j인 도형 인덱스 쌍(도형 id는 "shape_" + 인덱스)이고 (i, j) 사전순으로 정렬된다.
+// 커서 뒤의 간선 중 가장 앞선 limit개만 최대 힙으로 남기므로, 겹침이 수백만 개여도 메모리는 limit에 비례한다.
+// 병렬 쌍 검사에서 호출될 수 있어 add는 동기화되어 있다 (겹친 쌍에서만 불리므로 후보 쌍 수와는 무관).
+// 시드가 있는 요청은 collectAll로 모든 간선을 한 번 모아 PairIndex에 두고, 페이지는 slice로 잘라 낸다.
+//
+// 출력 형식
+//   edges: {"edges": [i0, j0, i1, j1, ...]}
+//   csr:   {"rows": [i...], "offsets": [0, ...], "neighbors": [j...]}
+//          rows[r]의 이웃은 neighbors[offsets[r] .. offsets[r + 1]) (위 삼각 - 더 큰 인덱스만)
+public class OverlapPairs {
+    public static final int MAX_LIMIT = 1_000_000;
+
+    private final String format;
+    private final long afterKey;
+    private final int limit;
+    // 커서 뒤 간선 중 가장 작은 (limit + 1)개를 담는 최대 힙 - 하나 더 담아 다음 페이지가 있는지 안다
+    private long[] heap;
+    private int heapSize;
+    private long[] page;
+
+    // format: "edges" 또는 "csr", cursor: 이전 페이지의 nextCursor ("i:j"), 첫 페이지면 null
+    public OverlapPairs(String format, String cursor, int limit) {
+        if (!format.equals("edges") && !format.equals("csr")) {
+            throw new IllegalArgumentException("지원하지 않는 Pairs 형식입니다: " + format);
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("PairLimit은 1 이상 " + MAX_LIMIT + " 이하여야 합니다.");
+        }
+        this.format = format;
+        this.afterKey = cursor == null ? -1 : parseCursor(cursor);
+        this.limit = limit;
+        this.heap = new long[Math.min(limit + 1, 1024)];
+    }
+
+    private OverlapPairs(String format, long afterKey, int limit) {
+        this.format = format;
+        this.afterKey = afterKey;
+        this.limit = limit;
+        this.heap = new long[1024];
+    }
+
+    // 커서와 한도 없이 모든 간선을 모은다 (PairIndex용 - 메모리는 겹친 쌍 수에 비례)
+    static OverlapPairs collectAll() {
+        return new OverlapPairs("edges", -1, Integer.MAX_VALUE - 8);
+    }
+
+    // 이미 정렬된 전체 간선 키에서 커서 뒤 limit개 (+ 다음 페이지 확인용 하나)를 잘라 만든 페이지
+    static OverlapPairs slice(String format, String cursor, int limit, long[] sortedKeys) {
+        OverlapPairs pairs = new OverlapPairs(format, cursor, limit);
+        int from = Arrays.binarySearch(sortedKeys, pairs.afterKey + 1);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = (int) Math.min(sortedKeys.length, (long) from + limit + 1);
+        pairs.heap = Arrays.copyOfRange(sortedKeys, from, to);
+        pairs.heapSize = to - from;
+        return pairs;
+    }
+
+    private static long parseCursor(String cursor) {
+        int colon = cursor.indexOf(':');
+        try {
+            int i = Integer.parseInt(cursor.substring(0, colon));
+            int j = Integer.parseInt(cursor.substring(colon + 1));
+            if (i < 0 || j <= i) {
+                throw new NumberFormatException();
+            }
+            return key(i, j);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("PairCursor 형식이 올바르지 않습니다: " + cursor);
+        }
+    }
+
+    private static long key(int i, int j) {
+        return ((long) i << 32) | j;
+    }
+
+    public synchronized void add(int i, int j) {
+        long key = key(Math.min(i, j), Math.max(i, j));
+        if (key <= afterKey) {
+            return;
+        }
+        if (heapSize <= limit) {
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, Math.min(heap.length * 2, limit + 1));
+            }
+            // 위로 올리기
+            int k = heapSize++;
+            while (k > 0 && heap[(k - 1) / 2] < key) {
+                heap[k] = heap[(k - 1) / 2];
+                k = (k - 1) / 2;
+            }
+            heap[k] = key;
+        } else if (key < heap[0]) {
+            // 가장 큰 간선을 밀어내고 아래로 내리기
+            int k = 0;
+            while (true) {
+                int child = 2 * k + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && heap[child + 1] > heap[child]) child++;
+                if (heap[child] <= key) break;
+                heap[k] = heap[child];
+                k = child;
+            }
+            heap[k] = key;
+        }
+    }
+
+    // 모으기가 끝난 뒤 한 번 정렬해 둔다
+    private long[] page() {
+        if (page == null) {
+            long[] sorted = Arrays.copyOf(heap, heapSize);
+            Arrays.sort(sorted);
+            page = Arrays.copyOf(sorted, Math.min(heapSize, limit));
+        }
+        return page;
+    }
+
+    // collectAll로 모은 전체 간선 키 (정렬됨)
+    long[] sortedKeys() {
+        return page();
+    }
+
+    public int size() {
+        return page().length;
+    }
+
+    public boolean hasMore() {
+        return heapSize > limit;
+    }
+
+    public String nextCursor() {
+        long[] edges = page();
+        if (!hasMore() || edges.length == 0) {
+            return null;
+        }
+        long last = edges[edges.length - 1];
+        return (last >>> 32) + ":" + (int) last;
+    }
+
+    public void writeJSON(JsonGenerator gen, long totalPairs) throws IOException {
+        long[] edges = page();
+        gen.writeStartObject();
+        gen.writeStringField("format", format);
+        gen.writeNumberField("totalPairs", totalPairs);
+        gen.writeNumberField("count", edges.length);
+        gen.writeNumberField("limit", limit);
+        String next = nextCursor();
+        if (next != null) {
+            gen.writeStringField("nextCursor", next);
+        } else {
+            gen.writeNullField("nextCursor");
+        }
+
+        if (format.equals("csr")) {
+            gen.writeArrayFieldStart("rows");
+            for (int e = 0; e < edges.length; e++) {
+                if (e == 0 || (edges[e] >>> 32) != (edges[e - 1] >>> 32)) {
+                    gen.writeNumber((int) (edges[e] >>> 32));
+                }
+            }
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("offsets");
+            for (int e = 0; e < edges.length; e++) {
+                if (e == 0 || (edges[e] >>> 32) != (edges[e - 1] >>> 32)) {
+                    gen.writeNumber(e);
+                }
+            }
+            gen.writeNumber(edges.length);
+            gen.writeEndArray();
+            gen.writeArrayFieldStart("neighbors");
+            for (long edge : edges) {
+                gen.writeNumber((int) edge);
+            }
+            gen.writeEndArray();
+        } else {
+            gen.writeArrayFieldStart("edges");
+            for (long edge : edges) {
+                gen.writeNumber((int) (edge >>> 32));
+                gen.writeNumber((int) edge);
+            }
+            gen.writeEndArray();
+        }
+
+        gen.writeEndObject();
+    }
+
+    public JSONObject toJSON(long totalPairs) {
+        long[] edges = page();
+        JSONObject json = new JSONObject();
+        json.put("format", format);
+        json.put("totalPairs", totalPairs);
+        json.put("count", edges.length);
+        json.put("limit", limit);
+        json.put("nextCursor", nextCursor() != null ? nextCursor() : JSONObject.NULL);
+
+        if (format.equals("csr")) {
+            JSONArray rows = new JSONArray();
+            JSONArray offsets = new JSONArray();
+            JSONArray neighbors = new JSONArray();
+            for (int e = 0; e < edges.length; e++) {
+                if (e == 0 || (edges[e] >>> 32) != (edges[e - 1] >>> 32)) {
+                    rows.put((int) (edges[e] >>> 32));
+                    offsets.put(e);
+                }
+                neighbors.put((int) edges[e]);
+            }
+            offsets.put(edges.length);
+            json.put("rows", rows);
+            json.put("offsets", offsets);
+            json.put("neighbors", neighbors);
+        } else {
+            JSONArray list = new JSONArray();
+            for (long edge : edges) {
+                list.put((int) (edge >>> 32));
+                list.put((int) edge);
+            }
+            json.put("edges", list);
+        }
+        return json;
+    }
+}
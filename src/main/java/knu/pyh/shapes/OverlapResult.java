@@ -0,0 +1,233 @@
+package knu.pyh.shapes;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+// ShapesOverlaps 한 번의 계산 결과 (장면 + 겹침 그룹 + 쌍 검사 통계)
+// 같은 결과를 JSON 트리(toJSON)로도, 스트리밍(writeJSON)으로도 내보낼 수 있다
+public class OverlapResult {
+    static final String[] GROUP_COLORS = {
+            "#FF0000", "#00FF00", "#0000FF", "#FFFF00", "#FF00FF",
+            "#00FFFF", "#FFA500", "#800080", "#008000", "#000080"
+    };
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Scene scene;
+    private final List<int[]> groups;
+    private final String broadPhaseName;
+    private final long candidatePairs;
+    private final long overlappingPairs;
+    // 겹친 쌍 목록을 요청했을 때만 있다
+    private OverlapPairs pairs;
+    // writeJSON 출력 옵션 (기본은 기존 형식 그대로)
+    private JsonOptions jsonOptions = JsonOptions.FULL;
+
+    public OverlapResult(Scene scene, List<int[]> groups, String broadPhaseName,
+                         long candidatePairs, long overlappingPairs) {
+        this.scene = scene;
+        this.groups = groups;
+        this.broadPhaseName = broadPhaseName;
+        this.candidatePairs = candidatePairs;
+        this.overlappingPairs = overlappingPairs;
+    }
+
+    public Scene getScene() {
+        return scene;
+    }
+
+    // 모든 연결 요소 (크기 1인 그룹 포함, 첫 도형 인덱스 순서)
+    public List<int[]> getGroups() {
+        return groups;
+    }
+
+    public static String groupColor(int groupIndex) {
+        return GROUP_COLORS[groupIndex % GROUP_COLORS.length];
+    }
+
+    public long getTotalPairs() {
+        return (long) scene.size() * (scene.size() - 1) / 2;
+    }
+
+    public long getCandidatePairs() {
+        return candidatePairs;
+    }
+
+    public long getOverlappingPairs() {
+        return overlappingPairs;
+    }
+
+    public void setPairs(OverlapPairs pairs) {
+        this.pairs = pairs;
+    }
+
+    // 장면과 그룹은 공유하고 쌍 목록만 다른 결과 (PairIndex 페이지용 - 출력 옵션은 따로 정한다)
+    public OverlapResult withPairs(OverlapPairs pairs) {
+        OverlapResult copy = new OverlapResult(scene, groups, broadPhaseName, candidatePairs, overlappingPairs);
+        copy.pairs = pairs;
+        return copy;
+    }
+
+    public OverlapPairs getPairs() {
+        return pairs;
+    }
+
+    public void setJsonOptions(JsonOptions jsonOptions) {
+        this.jsonOptions = jsonOptions;
+    }
+
+    public JSONObject toJSON() {
+        JSONObject response = new JSONObject();
+        JSONArray shapesArray = new JSONArray();
+
+        for (int i = 0; i < scene.size(); i++) {
+            shapesArray.put(scene.toJSON(i));
+        }
+
+        response.put("shapes", shapesArray);
+        response.put("totalCount", scene.size());
+        response.put("overlapGroups", groupsToJSON());
+        if (pairs != null) {
+            response.put("overlapPairs", pairs.toJSON(overlappingPairs));
+        }
+        response.put("broadPhase", broadPhaseToJSON());
+        if (jsonOptions.includesMemory()) {
+            response.put("memory", memoryToJSON());
+        }
+
+        return response;
+    }
+
+    // JSON 트리나 문자열을 만들지 않고 도형 하나씩 바로 출력 스트림에 쓴다
+    // Fields로 뺀 부분은 키째 생략한다 (memory는 Fields에 있을 때만)
+    public void writeJSON(JsonGenerator gen) throws IOException {
+        JsonOptions options = jsonOptions;
+        gen.writeStartObject();
+
+        if (options.includesShapes()) {
+            gen.writeArrayFieldStart("shapes");
+            for (int i = 0; i < scene.size(); i++) {
+                scene.writeJSON(i, gen, options);
+            }
+            gen.writeEndArray();
+        }
+
+        if (options.includesSummary()) {
+            gen.writeNumberField("totalCount", scene.size());
+        }
+
+        if (options.includesGroups()) {
+            gen.writeArrayFieldStart("overlapGroups");
+            for (int g = 0; g < groups.size(); g++) {
+                int[] group = groups.get(g);
+                if (group.length > 1) {
+                    gen.writeStartObject();
+                    gen.writeArrayFieldStart("shapeIds");
+                    for (int index : group) {
+                        gen.writeString(Shape.toId(index));
+                    }
+                    gen.writeEndArray();
+                    gen.writeStringField("color", groupColor(g));
+                    gen.writeNumberField("size", group.length);
+                    gen.writeEndObject();
+                }
+            }
+            gen.writeEndArray();
+        }
+
+        if (pairs != null && options.includesPairs()) {
+            gen.writeFieldName("overlapPairs");
+            pairs.writeJSON(gen, overlappingPairs);
+        }
+
+        if (options.includesSummary()) {
+            gen.writeObjectFieldStart("broadPhase");
+            gen.writeStringField("strategy", broadPhaseName);
+            gen.writeNumberField("totalPairs", getTotalPairs());
+            gen.writeNumberField("candidatePairs", candidatePairs);
+            gen.writeNumberField("overlappingPairs", overlappingPairs);
+            gen.writeNumberField("pruneRatio", pruneRatio());
+            gen.writeEndObject();
+        }
+
+        // 객체 그래프 추정은 도형마다 다시 세므로 Fields=memory로 요청했을 때만 쓴다
+        if (options.includesMemory()) {
+            gen.writeObjectFieldStart("memory");
+            gen.writeNumberField("sceneBytes", scene.estimateMemoryBytes());
+            gen.writeNumberField("objectGraphBytes", scene.estimateObjectGraphBytes());
+            gen.writeNumberField("ratio", memoryRatio());
+            gen.writeEndObject();
+        }
+
+        gen.writeEndObject();
+    }
+
+    // 캐시에 보관할 수 있도록 writeJSON 결과를 UTF-8 바이트로 만든다
+    public byte[] toJSONBytes() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(scene.size() * 128);
+        JsonGenerator gen = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        writeJSON(gen);
+        gen.close();
+        return out.toByteArray();
+    }
+
+    private JSONArray groupsToJSON() {
+        JSONArray groupsArray = new JSONArray();
+
+        for (int i = 0; i < groups.size(); i++) {
+            int[] group = groups.get(i);
+            if (group.length > 1) {
+                JSONObject groupJson = new JSONObject();
+                JSONArray shapeIds = new JSONArray();
+
+                for (int index : group) {
+                    shapeIds.put(Shape.toId(index));
+                }
+
+                groupJson.put("shapeIds", shapeIds);
+                groupJson.put("color", groupColor(i));
+                groupJson.put("size", group.length);
+
+                groupsArray.put(groupJson);
+            }
+        }
+
+        return groupsArray;
+    }
+
+    public JSONObject broadPhaseToJSON() {
+        JSONObject stats = new JSONObject();
+        stats.put("strategy", broadPhaseName);
+        stats.put("totalPairs", getTotalPairs());
+        stats.put("candidatePairs", candidatePairs);
+        stats.put("overlappingPairs", overlappingPairs);
+        stats.put("pruneRatio", pruneRatio());
+        return stats;
+    }
+
+    // 장면 배열이 실제로 쓰는 메모리와 기존 객체 그래프(List<Shape> + ArrayList<Point>) 추정치 비교
+    private JSONObject memoryToJSON() {
+        JSONObject stats = new JSONObject();
+        stats.put("sceneBytes", scene.estimateMemoryBytes());
+        stats.put("objectGraphBytes", scene.estimateObjectGraphBytes());
+        stats.put("ratio", memoryRatio());
+        return stats;
+    }
+
+    private double pruneRatio() {
+        long totalPairs = getTotalPairs();
+        return totalPairs == 0 ? 0.0 : 1.0 - (double) candidatePairs / totalPairs;
+    }
+
+    private double memoryRatio() {
+        long sceneBytes = scene.estimateMemoryBytes();
+        return sceneBytes == 0 ? 0.0 : (double) scene.estimateObjectGraphBytes() / sceneBytes;
+    }
+}
@@ -0,0 +1,40 @@
+package knu.pyh.shapes;
+
+import java.util.List;
+
+// 시드가 같은 쌍 목록 페이지 요청들이 공유하는 계산 결과 - 장면 / 그룹과 정렬된 전체 간선 키
+// 첫 페이지에서 한 번 만들어 ResultCache에 두고, 다음 페이지부터는 다시 생성하지 않고 커서 위치를 이분 탐색해 잘라 낸다
+public class PairIndex {
+    private final OverlapResult result;
+    private final long[] sortedKeys;
+
+    private PairIndex(OverlapResult result, long[] sortedKeys) {
+        this.result = result;
+        this.sortedKeys = sortedKeys;
+    }
+
+    // generator의 쌍 수집기를 전체 수집으로 바꿔 한 번 생성한다 (비용은 페이지 없는 generate와 같다)
+    public static PairIndex generate(ShapeGenerator generator, int width, int height,
+                                     int radiusMax, int howMany, int maxEdges) {
+        OverlapPairs all = OverlapPairs.collectAll();
+        generator.setPairCollector(all);
+        OverlapResult result = generator.generate(width, height, radiusMax, howMany, maxEdges);
+        return new PairIndex(result.withPairs(null), all.sortedKeys());
+    }
+
+    // format / cursor / limit 검증은 OverlapPairs 생성자와 같다
+    public OverlapResult page(String format, String cursor, int limit) {
+        return result.withPairs(OverlapPairs.slice(format, cursor, limit, sortedKeys));
+    }
+
+    public int size() {
+        return sortedKeys.length;
+    }
+
+    // 캐시 크기 계산용 - 장면 배열 + 간선 키 + 그룹 배열
+    public long estimateBytes() {
+        List<int[]> groups = result.getGroups();
+        return result.getScene().estimateMemoryBytes() + 16 + 8L * sortedKeys.length
+                + 16L * groups.size() + 4L * result.getScene().size();
+    }
+}
@@ -0,0 +1,91 @@
+package knu.pyh.shapes;
+
+// ShapeGenerator 한 번 실행의 단계별 소요 시간과 처리량
+// 쌍 검사 중의 union은 PAIR_TESTS에, 루트를 모아 그룹을 만드는 find는 UNION_FIND에 포함된다
+public class PhaseStats {
+    public enum Phase {
+        GENERATE("generate"),
+        BROAD_PHASE("broadPhase"),
+        PAIR_TESTS("pairTests"),
+        UNION_FIND("unionFind"),
+        ASSIGN_COLORS("assignColors");
+
+        private final String name;
+
+        Phase(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    private final long[] nanos = new long[Phase.values().length];
+    private long pairsTested;
+    private long pairsOverlapping;
+    private int components;
+    private int overlapGroups;
+    private long verticesEmitted;
+
+    private long phaseStart;
+    private ShapePhaseEvent event;
+
+    void begin() {
+        event = new ShapePhaseEvent();
+        event.begin();
+        phaseStart = System.nanoTime();
+    }
+
+    void end(Phase phase, int shapes) {
+        nanos[phase.ordinal()] += System.nanoTime() - phaseStart;
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.phase = phase.getName();
+            event.shapes = shapes;
+            event.pairsTested = pairsTested;
+            event.pairsOverlapping = pairsOverlapping;
+            event.commit();
+        }
+        event = null;
+    }
+
+    void setPairs(long pairsTested, long pairsOverlapping) {
+        this.pairsTested = pairsTested;
+        this.pairsOverlapping = pairsOverlapping;
+    }
+
+    void setGroups(int components, int overlapGroups) {
+        this.components = components;
+        this.overlapGroups = overlapGroups;
+    }
+
+    void setVerticesEmitted(long verticesEmitted) {
+        this.verticesEmitted = verticesEmitted;
+    }
+
+    public long getNanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public long getPairsTested() {
+        return pairsTested;
+    }
+
+    public long getPairsOverlapping() {
+        return pairsOverlapping;
+    }
+
+    public int getComponents() {
+        return components;
+    }
+
+    public int getOverlapGroups() {
+        return overlapGroups;
+    }
+
+    public long getVerticesEmitted() {
+        return verticesEmitted;
+    }
+}
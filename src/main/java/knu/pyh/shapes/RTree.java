@@ -0,0 +1,230 @@
+package knu.pyh.shapes;
+
+import java.util.Arrays;
+
+// 도형 경계 상자 위의 R-tree - STR(Sort-Tile-Recursive)로 한 번에 쌓는 정적 트리
+// 장면이 바뀌면 고치지 않고 다시 쌓는다 (LiveScene이 변경 후 첫 질의에서 다시 만든다)
+//
+// 층(level) 0의 노드는 도형 인덱스 목록(items)의 연속 구간을, 층 l의 노드는 층 l - 1 노드의 연속 구간을 가리킨다.
+// STR: 중심 x로 정렬해 √(노드 수)개의 세로 띠로 나누고, 띠 안에서 중심 y로 정렬해 FANOUT개씩 묶는다.
+// 정렬은 좌표를 31비트 정수로 양자화해 (좌표 << 32 | 번호)인 long 배열 정렬로 한다 - 묶는 순서만 정하므로
+// 양자화 오차가 있어도 노드 상자는 항상 자식을 모두 덮는다.
+public class RTree {
+    public static final int FANOUT = 16;
+
+    private final Scene scene;
+    private final int[] items;
+    // levels[0]이 잎 층, 마지막 층은 노드 하나(루트)
+    private final Level[] levels;
+
+    private static final class Level {
+        final double[] minX;
+        final double[] minY;
+        final double[] maxX;
+        final double[] maxY;
+        final int[] first;
+        final int[] count;
+
+        Level(int size) {
+            minX = new double[size];
+            minY = new double[size];
+            maxX = new double[size];
+            maxY = new double[size];
+            first = new int[size];
+            count = new int[size];
+        }
+
+        int size() {
+            return first.length;
+        }
+
+        // order 순서로 노드를 다시 배열한 층
+        Level permute(int[] order) {
+            Level level = new Level(order.length);
+            for (int k = 0; k < order.length; k++) {
+                int o = order[k];
+                level.minX[k] = minX[o];
+                level.minY[k] = minY[o];
+                level.maxX[k] = maxX[o];
+                level.maxY[k] = maxY[o];
+                level.first[k] = first[o];
+                level.count[k] = count[o];
+            }
+            return level;
+        }
+    }
+
+    private RTree(Scene scene, int[] items, Level[] levels) {
+        this.scene = scene;
+        this.items = items;
+        this.levels = levels;
+    }
+
+    // 삭제되지 않은 도형들로 트리를 쌓는다
+    public static RTree build(Scene scene) {
+        int live = 0;
+        for (int i = 0; i < scene.size(); i++) {
+            if (!scene.isRemoved(i)) live++;
+        }
+        int[] shapes = new int[live];
+        double[] centerX = new double[live];
+        double[] centerY = new double[live];
+        for (int i = 0, k = 0; i < scene.size(); i++) {
+            if (!scene.isRemoved(i)) {
+                shapes[k] = i;
+                centerX[k] = (scene.minX[i] + scene.maxX[i]) / 2;
+                centerY[k] = (scene.minY[i] + scene.maxY[i]) / 2;
+                k++;
+            }
+        }
+
+        // 1. 잎 층: 도형을 STR 순서로 늘어놓고 FANOUT개씩 묶는다
+        int[] order = strOrder(centerX, centerY, live);
+        int[] items = new int[live];
+        for (int k = 0; k < live; k++) {
+            items[k] = shapes[order[k]];
+        }
+        Level leaves = new Level((live + FANOUT - 1) / FANOUT);
+        for (int node = 0; node < leaves.size(); node++) {
+            int from = node * FANOUT;
+            int to = Math.min(from + FANOUT, live);
+            leaves.first[node] = from;
+            leaves.count[node] = to - from;
+            leaves.minX[node] = Double.POSITIVE_INFINITY;
+            leaves.minY[node] = Double.POSITIVE_INFINITY;
+            leaves.maxX[node] = Double.NEGATIVE_INFINITY;
+            leaves.maxY[node] = Double.NEGATIVE_INFINITY;
+            for (int k = from; k < to; k++) {
+                int i = items[k];
+                leaves.minX[node] = Math.min(leaves.minX[node], scene.minX[i]);
+                leaves.minY[node] = Math.min(leaves.minY[node], scene.minY[i]);
+                leaves.maxX[node] = Math.max(leaves.maxX[node], scene.maxX[i]);
+                leaves.maxY[node] = Math.max(leaves.maxY[node], scene.maxY[i]);
+            }
+        }
+
+        // 2. 위 층: 아래 층 노드를 STR 순서로 다시 배열한 뒤 묶는다 (노드가 하나 남을 때까지)
+        java.util.List<Level> levels = new java.util.ArrayList<>();
+        Level below = leaves;
+        while (below.size() > 1) {
+            int size = below.size();
+            double[] cx = new double[size];
+            double[] cy = new double[size];
+            for (int k = 0; k < size; k++) {
+                cx[k] = (below.minX[k] + below.maxX[k]) / 2;
+                cy[k] = (below.minY[k] + below.maxY[k]) / 2;
+            }
+            below = below.permute(strOrder(cx, cy, size));
+            levels.add(below);
+
+            Level upper = new Level((size + FANOUT - 1) / FANOUT);
+            for (int node = 0; node < upper.size(); node++) {
+                int from = node * FANOUT;
+                int to = Math.min(from + FANOUT, size);
+                upper.first[node] = from;
+                upper.count[node] = to - from;
+                upper.minX[node] = Double.POSITIVE_INFINITY;
+                upper.minY[node] = Double.POSITIVE_INFINITY;
+                upper.maxX[node] = Double.NEGATIVE_INFINITY;
+                upper.maxY[node] = Double.NEGATIVE_INFINITY;
+                for (int k = from; k < to; k++) {
+                    upper.minX[node] = Math.min(upper.minX[node], below.minX[k]);
+                    upper.minY[node] = Math.min(upper.minY[node], below.minY[k]);
+                    upper.maxX[node] = Math.max(upper.maxX[node], below.maxX[k]);
+                    upper.maxY[node] = Math.max(upper.maxY[node], below.maxY[k]);
+                }
+            }
+            below = upper;
+        }
+        levels.add(below);
+
+        return new RTree(scene, items, levels.toArray(new Level[0]));
+    }
+
+    // 중심 좌표로 STR 순서를 구한다 (반환값: order[k] = k번째에 올 원소 번호)
+    private static int[] strOrder(double[] centerX, double[] centerY, int count) {
+        int pages = (count + FANOUT - 1) / FANOUT;
+        int slices = (int) Math.ceil(Math.sqrt(pages));
+        int sliceSize = slices * FANOUT;
+
+        long[] keys = new long[count];
+        quantizedKeys(centerX, count, keys, null);
+        Arrays.sort(keys);
+        int[] byX = new int[count];
+        for (int k = 0; k < count; k++) {
+            byX[k] = (int) keys[k];
+        }
+
+        quantizedKeys(centerY, count, keys, byX);
+        for (int from = 0; from < count; from += sliceSize) {
+            Arrays.sort(keys, from, Math.min(from + sliceSize, count));
+        }
+        int[] order = new int[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = (int) keys[k];
+        }
+        return order;
+    }
+
+    // keys[k] = (양자화한 좌표 << 32) | 원소 번호, 원소는 elements[k] (null이면 k)
+    private static void quantizedKeys(double[] values, int count, long[] keys, int[] elements) {
+        double min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (int k = 0; k < count; k++) {
+            min = Math.min(min, values[k]);
+            max = Math.max(max, values[k]);
+        }
+        double scale = max > min ? Integer.MAX_VALUE / (max - min) : 0;
+        for (int k = 0; k < count; k++) {
+            int element = elements == null ? k : elements[k];
+            long q = (long) ((values[element] - min) * scale);
+            keys[k] = (q << 32) | element;
+        }
+    }
+
+    // 경계 상자가 [x0, x1] x [y0, y1]과 겹치는 도형을 out에 넣는다, 방문한 노드 수를 돌려준다
+    public int search(double x0, double y0, double x1, double y1, IntList out) {
+        if (items.length == 0) {
+            return 0;
+        }
+        int visited = 0;
+        // (층 << 32 | 노드) 스택 - 깊이 x FANOUT을 넘지 않는다
+        long[] stack = new long[levels.length * FANOUT + 1];
+        int top = 0;
+        stack[top++] = (long) (levels.length - 1) << 32;
+        while (top > 0) {
+            long entry = stack[--top];
+            int depth = (int) (entry >>> 32);
+            int node = (int) entry;
+            Level level = levels[depth];
+            visited++;
+            if (level.maxX[node] < x0 || level.minX[node] > x1 ||
+                    level.maxY[node] < y0 || level.minY[node] > y1) {
+                continue;
+            }
+            int from = level.first[node];
+            int to = from + level.count[node];
+            if (depth == 0) {
+                for (int k = from; k < to; k++) {
+                    int i = items[k];
+                    if (scene.maxX[i] >= x0 && scene.minX[i] <= x1 &&
+                            scene.maxY[i] >= y0 && scene.minY[i] <= y1) {
+                        out.add(i);
+                    }
+                }
+            } else {
+                for (int k = from; k < to; k++) {
+                    stack[top++] = ((long) (depth - 1) << 32) | k;
+                }
+            }
+        }
+        return visited;
+    }
+
+    public int size() {
+        return items.length;
+    }
+
+    public int height() {
+        return levels.length;
+    }
+}
@@ -0,0 +1,643 @@
+package knu.pyh.shapes;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// 장면 전체를 평평한 기본형 배열에 저장하는 자료구조 (Structure of Arrays)
+// 도형 i의 정점은 xs/ys[vertexStart[i] .. vertexStart[i + 1]) 구간에 연속으로 들어 있다
+// Circle / RegularPolygon / IrregularPolygon 객체는 이 배열을 들여다보는 가벼운 뷰일 뿐이다
+// 도형은 추가된 뒤 바뀌지 않으므로 겹침 검사에 필요한 기하 정보(법선, 경계 상자, 경계 원,
+// 자기 축 투영 구간)는 추가할 때 한 번만 계산해 둔다
+public class Scene {
+    int size;
+    byte[] types;
+    double[] centerX;
+    double[] centerY;
+    double[] radius;
+    double[] rotation;
+    int[] sides;
+    int[] colors;
+    // 상태 유지 장면(LiveScene)에서 삭제된 도형 - 인덱스(id)를 유지하기 위해 자리는 남겨 둔다
+    boolean[] removed;
+
+    // 경계 상자 (AABB)
+    double[] minX;
+    double[] minY;
+    double[] maxX;
+    double[] maxY;
+    // 경계 원 (모든 정점을 포함하는 원)
+    double[] boundX;
+    double[] boundY;
+    double[] boundRadius;
+
+    int vertexCount;
+    int[] vertexStart;
+    double[] xs;
+    double[] ys;
+    // 정점 k에서 k + 1로 가는 변의 단위 법선과, 이 도형 자신을 그 법선에 투영한 구간
+    double[] normalX;
+    double[] normalY;
+    double[] selfMin;
+    double[] selfMax;
+
+    public Scene() {
+        this(16, 64);
+    }
+
+    public Scene(int shapeCapacity, int vertexCapacity) {
+        shapeCapacity = Math.max(shapeCapacity, 1);
+        vertexCapacity = Math.max(vertexCapacity, 1);
+        this.types = new byte[shapeCapacity];
+        this.centerX = new double[shapeCapacity];
+        this.centerY = new double[shapeCapacity];
+        this.radius = new double[shapeCapacity];
+        this.rotation = new double[shapeCapacity];
+        this.sides = new int[shapeCapacity];
+        this.colors = new int[shapeCapacity];
+        this.removed = new boolean[shapeCapacity];
+        this.minX = new double[shapeCapacity];
+        this.minY = new double[shapeCapacity];
+        this.maxX = new double[shapeCapacity];
+        this.maxY = new double[shapeCapacity];
+        this.boundX = new double[shapeCapacity];
+        this.boundY = new double[shapeCapacity];
+        this.boundRadius = new double[shapeCapacity];
+        this.vertexStart = new int[shapeCapacity + 1];
+        this.xs = new double[vertexCapacity];
+        this.ys = new double[vertexCapacity];
+        this.normalX = new double[vertexCapacity];
+        this.normalY = new double[vertexCapacity];
+        this.selfMin = new double[vertexCapacity];
+        this.selfMax = new double[vertexCapacity];
+    }
+
+    public int addCircle(double cx, double cy, double r, int color) {
+        int i = beginShape(ShapeType.CIRCLE, cx, cy, r, color);
+        return endShape(i);
+    }
+
+    public int addRegularPolygon(double cx, double cy, double r, int sideCount, double rotationAngle, int color) {
+        int i = beginShape(ShapeType.REGULAR_POLYGON, cx, cy, r, color);
+        sides[i] = sideCount;
+        rotation[i] = rotationAngle;
+
+        ensureVertexCapacity(sideCount);
+        double angleStep = 2 * Math.PI / sideCount;
+        for (int k = 0; k < sideCount; k++) {
+            double angle = angleStep * k + rotationAngle;
+            xs[vertexCount] = cx + r * Math.cos(angle);
+            ys[vertexCount] = cy + r * Math.sin(angle);
+            vertexCount++;
+        }
+        return endShape(i);
+    }
+
+    public int addIrregularPolygon(double cx, double cy, double r, double[] vx, double[] vy, int count, int color) {
+        int i = beginShape(ShapeType.IRREGULAR_POLYGON, cx, cy, r, color);
+        sides[i] = count;
+
+        ensureVertexCapacity(count);
+        System.arraycopy(vx, 0, xs, vertexCount, count);
+        System.arraycopy(vy, 0, ys, vertexCount, count);
+
+        // 시계 방향으로 들어온 정점은 뒤집어 항상 반시계 방향(법선이 바깥을 향함)으로 저장
+        double area2 = 0;
+        for (int k = 0; k < count; k++) {
+            int next = (k + 1) % count;
+            area2 += vx[k] * vy[next] - vx[next] * vy[k];
+        }
+        if (area2 < 0) {
+            for (int lo = vertexCount, hi = vertexCount + count - 1; lo < hi; lo++, hi--) {
+                double tx = xs[lo];
+                xs[lo] = xs[hi];
+                xs[hi] = tx;
+                double ty = ys[lo];
+                ys[lo] = ys[hi];
+                ys[hi] = ty;
+            }
+        }
+
+        vertexCount += count;
+        return endShape(i);
+    }
+
+    private int beginShape(ShapeType type, double cx, double cy, double r, int color) {
+        if (size == types.length) {
+            int capacity = types.length * 2;
+            types = Arrays.copyOf(types, capacity);
+            centerX = Arrays.copyOf(centerX, capacity);
+            centerY = Arrays.copyOf(centerY, capacity);
+            radius = Arrays.copyOf(radius, capacity);
+            rotation = Arrays.copyOf(rotation, capacity);
+            sides = Arrays.copyOf(sides, capacity);
+            colors = Arrays.copyOf(colors, capacity);
+            removed = Arrays.copyOf(removed, capacity);
+            minX = Arrays.copyOf(minX, capacity);
+            minY = Arrays.copyOf(minY, capacity);
+            maxX = Arrays.copyOf(maxX, capacity);
+            maxY = Arrays.copyOf(maxY, capacity);
+            boundX = Arrays.copyOf(boundX, capacity);
+            boundY = Arrays.copyOf(boundY, capacity);
+            boundRadius = Arrays.copyOf(boundRadius, capacity);
+            vertexStart = Arrays.copyOf(vertexStart, capacity + 1);
+        }
+        int i = size;
+        types[i] = type.tag();
+        centerX[i] = cx;
+        centerY[i] = cy;
+        radius[i] = r;
+        colors[i] = color;
+        vertexStart[i] = vertexCount;
+        return i;
+    }
+
+    private int endShape(int i) {
+        size = i + 1;
+        vertexStart[size] = vertexCount;
+        computeGeometry(i);
+        return i;
+    }
+
+    // 도형 i의 경계 상자, 경계 원, 변 법선과 자기 투영 구간 계산
+    private void computeGeometry(int i) {
+        int start = vertexStart[i];
+        int end = vertexStart[i + 1];
+        int n = end - start;
+
+        if (n == 0) {
+            minX[i] = centerX[i] - radius[i];
+            minY[i] = centerY[i] - radius[i];
+            maxX[i] = centerX[i] + radius[i];
+            maxY[i] = centerY[i] + radius[i];
+            boundX[i] = centerX[i];
+            boundY[i] = centerY[i];
+            boundRadius[i] = radius[i];
+            return;
+        }
+
+        double loX = Double.MAX_VALUE, loY = Double.MAX_VALUE;
+        double hiX = -Double.MAX_VALUE, hiY = -Double.MAX_VALUE;
+        double farthest = 0;
+        for (int k = start; k < end; k++) {
+            loX = Math.min(loX, xs[k]);
+            loY = Math.min(loY, ys[k]);
+            hiX = Math.max(hiX, xs[k]);
+            hiY = Math.max(hiY, ys[k]);
+            double dx = xs[k] - centerX[i];
+            double dy = ys[k] - centerY[i];
+            farthest = Math.max(farthest, dx * dx + dy * dy);
+        }
+        minX[i] = loX;
+        minY[i] = loY;
+        maxX[i] = hiX;
+        maxY[i] = hiY;
+        boundX[i] = centerX[i];
+        boundY[i] = centerY[i];
+        boundRadius[i] = Math.sqrt(farthest);
+
+        boolean convex = isConvexCounterClockwise(start, end);
+        int antipode = start;
+        for (int p1 = start; p1 < end; p1++) {
+            int p2 = p1 + 1 == end ? start : p1 + 1;
+
+            // 법선 벡터 (직교벡터): (edgeY, -edgeX), 정규화 (길이 0인 변은 어떤 구간도 가르지 않는 0 벡터)
+            double edgeX = xs[p2] - xs[p1];
+            double edgeY = ys[p2] - ys[p1];
+            double length = Math.sqrt(edgeX * edgeX + edgeY * edgeY);
+            double axisX = length == 0 ? 0 : edgeY / length;
+            double axisY = length == 0 ? 0 : -edgeX / length;
+            normalX[p1] = axisX;
+            normalY[p1] = axisY;
+
+            // 볼록 다각형이 아니거나 작으면 모든 꼭짓점을 투영 (볼록 다각형의 첫 변은 맞은편 꼭짓점 찾기용)
+            if (!convex || n <= 4 || p1 == start) {
+                double lo = Double.MAX_VALUE;
+                double hi = -Double.MAX_VALUE;
+                for (int m = start; m < end; m++) {
+                    double proj = xs[m] * axisX + ys[m] * axisY;
+                    if (proj < lo) {
+                        lo = proj;
+                        antipode = m;
+                    }
+                    hi = Math.max(hi, proj);
+                }
+                selfMin[p1] = lo;
+                selfMax[p1] = hi;
+                continue;
+            }
+
+            // 반시계 방향 볼록 다각형: 바깥 법선 방향 최댓값은 변의 두 끝점에서, 최솟값은 맞은편 꼭짓점에서 나온다
+            // 변을 따라 돌면 맞은편 꼭짓점도 같은 방향으로만 움직이므로 다각형 하나에 O(n)이면 된다
+            // (반올림으로 이웃한 값이 거의 같을 때를 위해 양옆 꼭짓점까지 함께 본다)
+            int steps = 0;
+            while (steps++ < n) {
+                int next = antipode + 1 == end ? start : antipode + 1;
+                if (project(next, axisX, axisY) > project(antipode, axisX, axisY)) {
+                    break;
+                }
+                antipode = next;
+            }
+            int before = antipode == start ? end - 1 : antipode - 1;
+            int after = antipode + 1 == end ? start : antipode + 1;
+            selfMin[p1] = Math.min(project(antipode, axisX, axisY),
+                    Math.min(project(before, axisX, axisY), project(after, axisX, axisY)));
+
+            int previous = p1 == start ? end - 1 : p1 - 1;
+            int following = p2 + 1 == end ? start : p2 + 1;
+            selfMax[p1] = Math.max(Math.max(project(p1, axisX, axisY), project(p2, axisX, axisY)),
+                    Math.max(project(previous, axisX, axisY), project(following, axisX, axisY)));
+        }
+    }
+
+    private double project(int k, double axisX, double axisY) {
+        return xs[k] * axisX + ys[k] * axisY;
+    }
+
+    // 이웃한 두 변의 외적이 모두 0 이상이면 반시계 방향 볼록 다각형
+    private boolean isConvexCounterClockwise(int start, int end) {
+        for (int k = start; k < end; k++) {
+            int k1 = k + 1 == end ? start : k + 1;
+            int k2 = k1 + 1 == end ? start : k1 + 1;
+            double cross = (xs[k1] - xs[k]) * (ys[k2] - ys[k1]) - (ys[k1] - ys[k]) * (xs[k2] - xs[k1]);
+            if (cross < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 따로 만든 부분 장면들을 이어 붙일 장면 - 크기만 정해 두고 내용은 copyPart로 채운다
+    static Scene forParts(int totalShapes, int totalVertices) {
+        Scene scene = new Scene(totalShapes, totalVertices);
+        scene.size = totalShapes;
+        scene.vertexCount = totalVertices;
+        scene.vertexStart[totalShapes] = totalVertices;
+        return scene;
+    }
+
+    // 부분 장면을 shapeOffset / vertexOffset 위치에 복사 - 부분마다 겹치지 않는 구간에 쓰므로
+    // 서로 다른 부분의 복사는 여러 스레드에서 동시에 해도 된다
+    void copyPart(Scene part, int shapeOffset, int vertexOffset) {
+        int n = part.size;
+        System.arraycopy(part.types, 0, types, shapeOffset, n);
+        System.arraycopy(part.centerX, 0, centerX, shapeOffset, n);
+        System.arraycopy(part.centerY, 0, centerY, shapeOffset, n);
+        System.arraycopy(part.radius, 0, radius, shapeOffset, n);
+        System.arraycopy(part.rotation, 0, rotation, shapeOffset, n);
+        System.arraycopy(part.sides, 0, sides, shapeOffset, n);
+        System.arraycopy(part.colors, 0, colors, shapeOffset, n);
+        System.arraycopy(part.removed, 0, removed, shapeOffset, n);
+        System.arraycopy(part.minX, 0, minX, shapeOffset, n);
+        System.arraycopy(part.minY, 0, minY, shapeOffset, n);
+        System.arraycopy(part.maxX, 0, maxX, shapeOffset, n);
+        System.arraycopy(part.maxY, 0, maxY, shapeOffset, n);
+        System.arraycopy(part.boundX, 0, boundX, shapeOffset, n);
+        System.arraycopy(part.boundY, 0, boundY, shapeOffset, n);
+        System.arraycopy(part.boundRadius, 0, boundRadius, shapeOffset, n);
+        for (int i = 0; i < n; i++) {
+            vertexStart[shapeOffset + i] = part.vertexStart[i] + vertexOffset;
+        }
+
+        int m = part.vertexCount;
+        System.arraycopy(part.xs, 0, xs, vertexOffset, m);
+        System.arraycopy(part.ys, 0, ys, vertexOffset, m);
+        System.arraycopy(part.normalX, 0, normalX, vertexOffset, m);
+        System.arraycopy(part.normalY, 0, normalY, vertexOffset, m);
+        System.arraycopy(part.selfMin, 0, selfMin, vertexOffset, m);
+        System.arraycopy(part.selfMax, 0, selfMax, vertexOffset, m);
+    }
+
+    // 다른 장면의 도형 i를 계산해 둔 기하 정보(경계, 법선, 자기 투영 구간)까지 그대로 복사해 추가
+    int copyShape(Scene source, int i) {
+        int start = source.vertexStart[i];
+        int count = source.vertexStart[i + 1] - start;
+
+        int j = beginShape(ShapeType.fromTag(source.types[i]), source.centerX[i], source.centerY[i],
+                source.radius[i], source.colors[i]);
+        sides[j] = source.sides[i];
+        rotation[j] = source.rotation[i];
+        removed[j] = source.removed[i];
+        minX[j] = source.minX[i];
+        minY[j] = source.minY[i];
+        maxX[j] = source.maxX[i];
+        maxY[j] = source.maxY[i];
+        boundX[j] = source.boundX[i];
+        boundY[j] = source.boundY[i];
+        boundRadius[j] = source.boundRadius[i];
+
+        ensureVertexCapacity(count);
+        System.arraycopy(source.xs, start, xs, vertexCount, count);
+        System.arraycopy(source.ys, start, ys, vertexCount, count);
+        System.arraycopy(source.normalX, start, normalX, vertexCount, count);
+        System.arraycopy(source.normalY, start, normalY, vertexCount, count);
+        System.arraycopy(source.selfMin, start, selfMin, vertexCount, count);
+        System.arraycopy(source.selfMax, start, selfMax, vertexCount, count);
+        vertexCount += count;
+
+        size = j + 1;
+        vertexStart[size] = vertexCount;
+        return j;
+    }
+
+    // 도형을 모두 비운다 (배열 용량은 그대로 두고 작업용 장면으로 재사용)
+    void clear() {
+        size = 0;
+        vertexCount = 0;
+        vertexStart[0] = 0;
+    }
+
+    private void ensureVertexCapacity(int extra) {
+        if (vertexCount + extra > xs.length) {
+            int capacity = Math.max(xs.length * 2, vertexCount + extra);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            normalX = Arrays.copyOf(normalX, capacity);
+            normalY = Arrays.copyOf(normalY, capacity);
+            selfMin = Arrays.copyOf(selfMin, capacity);
+            selfMax = Arrays.copyOf(selfMax, capacity);
+        }
+    }
+
+    // 도형 i를 중심이 (cx, cy)가 되도록 평행 이동 - 법선은 그대로이고 나머지 기하 정보는 이동량만큼 옮긴다
+    public void moveTo(int i, double cx, double cy) {
+        double dx = cx - centerX[i];
+        double dy = cy - centerY[i];
+
+        centerX[i] = cx;
+        centerY[i] = cy;
+        minX[i] += dx;
+        minY[i] += dy;
+        maxX[i] += dx;
+        maxY[i] += dy;
+        boundX[i] += dx;
+        boundY[i] += dy;
+
+        for (int k = vertexStart[i]; k < vertexStart[i + 1]; k++) {
+            xs[k] += dx;
+            ys[k] += dy;
+            double shift = normalX[k] * dx + normalY[k] * dy;
+            selfMin[k] += shift;
+            selfMax[k] += shift;
+        }
+    }
+
+    // 도형 i를 중심 기준으로 angle만큼 회전 - 꼭짓점을 돌린 뒤 경계 상자/법선/자기 투영 구간을 다시 계산한다
+    // 정다각형은 누적 오차가 없도록 회전각에서 꼭짓점을 새로 만들고, 원은 각도만 바뀐다
+    public void rotateBy(int i, double angle) {
+        rotation[i] += angle;
+        int start = vertexStart[i];
+        int end = vertexStart[i + 1];
+        if (start == end) {
+            return;
+        }
+
+        double cx = centerX[i];
+        double cy = centerY[i];
+        if (types[i] == ShapeType.REGULAR_POLYGON.tag()) {
+            double angleStep = 2 * Math.PI / sides[i];
+            for (int k = start; k < end; k++) {
+                double vertexAngle = angleStep * (k - start) + rotation[i];
+                xs[k] = cx + radius[i] * Math.cos(vertexAngle);
+                ys[k] = cy + radius[i] * Math.sin(vertexAngle);
+            }
+        } else {
+            double cos = Math.cos(angle);
+            double sin = Math.sin(angle);
+            for (int k = start; k < end; k++) {
+                double dx = xs[k] - cx;
+                double dy = ys[k] - cy;
+                xs[k] = cx + dx * cos - dy * sin;
+                ys[k] = cy + dx * sin + dy * cos;
+            }
+        }
+        computeGeometry(i);
+    }
+
+    public void remove(int i) {
+        removed[i] = true;
+    }
+
+    public boolean isRemoved(int i) {
+        return removed[i];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // 장면 전체의 꼭짓점 수 (원은 꼭짓점을 저장하지 않는다)
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public ShapeType getType(int i) {
+        return ShapeType.fromTag(types[i]);
+    }
+
+    public double getCenterX(int i) {
+        return centerX[i];
+    }
+
+    public double getCenterY(int i) {
+        return centerY[i];
+    }
+
+    public double getRadius(int i) {
+        return radius[i];
+    }
+
+    public int getSides(int i) {
+        return sides[i];
+    }
+
+    public double getRotation(int i) {
+        return rotation[i];
+    }
+
+    public int getColor(int i) {
+        return colors[i];
+    }
+
+    public void setColor(int i, int color) {
+        colors[i] = color;
+    }
+
+    public int getVertexStart(int i) {
+        return vertexStart[i];
+    }
+
+    public int getVertexEnd(int i) {
+        return vertexStart[i + 1];
+    }
+
+    public double getVertexX(int k) {
+        return xs[k];
+    }
+
+    public double getVertexY(int k) {
+        return ys[k];
+    }
+
+    public double getNormalX(int k) {
+        return normalX[k];
+    }
+
+    public double getNormalY(int k) {
+        return normalY[k];
+    }
+
+    public double getSelfProjectionMin(int k) {
+        return selfMin[k];
+    }
+
+    public double getSelfProjectionMax(int k) {
+        return selfMax[k];
+    }
+
+    public double getMinX(int i) {
+        return minX[i];
+    }
+
+    public double getMinY(int i) {
+        return minY[i];
+    }
+
+    public double getMaxX(int i) {
+        return maxX[i];
+    }
+
+    public double getMaxY(int i) {
+        return maxY[i];
+    }
+
+    public double getBoundX(int i) {
+        return boundX[i];
+    }
+
+    public double getBoundY(int i) {
+        return boundY[i];
+    }
+
+    public double getBoundRadius(int i) {
+        return boundRadius[i];
+    }
+
+    // 도형 i에 대한 뷰 객체
+    public Shape shape(int i) {
+        switch (getType(i)) {
+            case CIRCLE:
+                return new Circle(this, i);
+            case REGULAR_POLYGON:
+                return new RegularPolygon(this, i);
+            default:
+                return new IrregularPolygon(this, i);
+        }
+    }
+
+    // 뷰나 Point 객체를 만들지 않고 배열에서 바로 JSON을 만든다
+    public JSONObject toJSON(int i) {
+        ShapeType type = getType(i);
+
+        JSONObject json = new JSONObject();
+        json.put("type", type.getName());
+        json.put("id", Shape.toId(i));
+        json.put("center", pointJSON(centerX[i], centerY[i]));
+        json.put("radius", radius[i]);
+        if (type == ShapeType.REGULAR_POLYGON) {
+            json.put("sides", sides[i]);
+            json.put("rotationAngle", rotation[i]);
+        }
+        json.put("color", toColorString(colors[i]));
+
+        if (type != ShapeType.CIRCLE) {
+            JSONArray verticesArray = new JSONArray();
+            for (int k = vertexStart[i]; k < vertexStart[i + 1]; k++) {
+                verticesArray.put(pointJSON(xs[k], ys[k]));
+            }
+            json.put("vertices", verticesArray);
+        }
+
+        return json;
+    }
+
+    // toJSON(i)과 같은 구조를 JsonGenerator로 바로 쓴다
+    public void writeJSON(int i, JsonGenerator gen) throws IOException {
+        writeJSON(i, gen, JsonOptions.FULL);
+    }
+
+    // 출력 옵션(좌표 정밀도, 점 표기, 정다각형 꼭짓점 생략)을 적용해 쓴다
+    public void writeJSON(int i, JsonGenerator gen, JsonOptions options) throws IOException {
+        ShapeType type = getType(i);
+
+        gen.writeStartObject();
+        gen.writeStringField("type", type.getName());
+        gen.writeStringField("id", Shape.toId(i));
+        gen.writeFieldName("center");
+        options.writePoint(gen, centerX[i], centerY[i]);
+        options.writeNumberField(gen, "radius", radius[i]);
+        if (type == ShapeType.REGULAR_POLYGON) {
+            gen.writeNumberField("sides", sides[i]);
+            gen.writeNumberField("rotationAngle", rotation[i]);
+        }
+        gen.writeStringField("color", toColorString(colors[i]));
+
+        if (type == ShapeType.IRREGULAR_POLYGON
+                || (type == ShapeType.REGULAR_POLYGON && options.includesDerivedVertices())) {
+            JsonOptions vertexOptions = type == ShapeType.IRREGULAR_POLYGON
+                    ? options.forPolygon(xs, ys, vertexStart[i], vertexStart[i + 1]) : options;
+            gen.writeArrayFieldStart("vertices");
+            for (int k = vertexStart[i]; k < vertexStart[i + 1]; k++) {
+                vertexOptions.writePoint(gen, xs[k], ys[k]);
+            }
+            gen.writeEndArray();
+        }
+
+        gen.writeEndObject();
+    }
+
+    private static JSONObject pointJSON(double x, double y) {
+        JSONObject json = new JSONObject();
+        json.put("x", x);
+        json.put("y", y);
+        return json;
+    }
+
+    public static String toColorString(int color) {
+        return String.format("#%02x%02x%02x", (color >> 16) & 0xFF, (color >> 8) & 0xFF, color & 0xFF);
+    }
+
+    public static int parseColor(String color) {
+        return Integer.parseInt(color.substring(1), 16);
+    }
+
+    // 배열이 실제로 차지하는 바이트 수 (배열 헤더 16바이트 포함, 여유 용량까지 포함)
+    public long estimateMemoryBytes() {
+        long shapeArrays = 16L * 16 + types.length + removed.length
+                + 8L * (centerX.length + centerY.length + radius.length + rotation.length)
+                + 8L * (minX.length + minY.length + maxX.length + maxY.length)
+                + 8L * (boundX.length + boundY.length + boundRadius.length)
+                + 4L * (sides.length + colors.length + vertexStart.length);
+        long vertexArrays = 16L * 6 + 8L * (xs.length + ys.length)
+                + 8L * (normalX.length + normalY.length + selfMin.length + selfMax.length);
+        return 16 + shapeArrays + vertexArrays;
+    }
+
+    // 같은 장면을 기존 객체 그래프(List<Shape> + 도형마다 ArrayList<Point>)로 표현했을 때의 추정 바이트 수
+    // 64비트 JVM, compressed oops 기준: Point 24, 도형 객체 40, 중심 Point 24,
+    // id/color String 각 약 56, ArrayList 24 + Object[] (16 + 4 * 용량), List<Shape> 슬롯 4
+    public long estimateObjectGraphBytes() {
+        long bytes = 24 + 16 + 4L * size;
+        for (int i = 0; i < size; i++) {
+            int vertices = vertexStart[i + 1] - vertexStart[i];
+            bytes += 40 + 24 + 56 + 56;
+            if (vertices > 0) {
+                bytes += 24 + 16 + 4L * vertices + 24L * vertices;
+            }
+        }
+        return bytes;
+    }
+}
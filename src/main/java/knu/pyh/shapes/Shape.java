@@ -2,55 +2,70 @@ package knu.pyh.shapes;
 
 import org.json.JSONObject;
 import java.util.List;
+import java.util.ArrayList;
 
+// Scene 배열 위의 도형 하나를 가리키는 가벼운 뷰
 public abstract class Shape {
-    protected Point center;
-    protected String color;
-    protected double radius;
-    protected String id;
+    protected final Scene scene;
+    // 장면 안에서 0부터 빈틈없이 매겨지는 번호 (Union-Find 배열 인덱스로 사용)
+    protected final int index;
 
-    public Shape(Point center, double radius) {
-        this.center = center;
-        this.radius = radius;
-        this.id = generateId();
-        this.color = generateRandomColor();
+    protected Shape(Scene scene, int index) {
+        this.scene = scene;
+        this.index = index;
     }
 
-    protected String generateId() {
-        return "shape_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 1000);
+    public void setColor(String color) {
+        scene.setColor(index, Scene.parseColor(color));
     }
 
-    protected String generateRandomColor() {
-        int r = (int)(Math.random() * 256);
-        int g = (int)(Math.random() * 256);
-        int b = (int)(Math.random() * 256);
-        return String.format("#%02x%02x%02x", r, g, b);
+    public String getColor() {
+        return Scene.toColorString(scene.getColor(index));
     }
 
-    public void setColor(String color) {
-        this.color = color;
+    public Scene getScene() {
+        return scene;
     }
 
-    public String getColor() {
-        return color;
+    public int getIndex() {
+        return index;
     }
 
+    // 표시용 id는 직렬화할 때만 만든다
     public String getId() {
-        return id;
+        return toId(index);
+    }
+
+    public static String toId(int index) {
+        return "shape_" + index;
     }
 
     public Point getCenter() {
-        return center;
+        return new Point(scene.getCenterX(index), scene.getCenterY(index));
     }
 
     public double getRadius() {
-        return radius;
+        return scene.getRadius(index);
     }
 
-    // TODO: 학생 과제 - 이 메서드를 구현하세요
-    public abstract boolean overlaps(Shape other);
+    public boolean overlaps(Shape other) {
+        return NarrowPhase.overlaps(scene, index, other.scene, other.index);
+    }
+
+    public JSONObject toJSON() {
+        return scene.toJSON(index);
+    }
 
-    public abstract JSONObject toJSON();
-    public abstract String getShapeType();
-    public abstract List<Point> getVertices();
+    public String getShapeType() {
+        return scene.getType(index).getName();
+    }
+
+    // 장면 배열의 정점을 복사한 목록 (렌더링/디버깅용)
+    public List<Point> getVertices() {
+        List<Point> vertices = new ArrayList<>();
+        for (int k = scene.getVertexStart(index); k < scene.getVertexEnd(index); k++) {
+            vertices.add(new Point(scene.getVertexX(k), scene.getVertexY(k)));
+        }
+        return vertices;
+    }
 }
@@ -3,169 +3,555 @@ package knu.pyh.shapes;
 import org.json.JSONArray;
 import org.json.JSONObject;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.IntStream;
 
 public class ShapeGenerator {
-    private Random random;
+    private final long seed;
+    private BroadPhase broadPhase;
+    private int parallelism;
+    private GenerationProgress progress;
+    private PhaseStats phaseStats = new PhaseStats();
+    // 0이면 장면 전체를 한 번에 그룹화, 양수면 그 크기의 공간 타일로 나누어 그룹화 (AUTO_TILE_SIZE는 자동)
+    private double tileSize;
+    private TileStats tileStats;
+    // 겹친 쌍을 모을 곳 (null이면 그룹만 만든다)
+    private OverlapPairs pairCollector;
+
+    public static final double AUTO_TILE_SIZE = -1;
+
+    // 진행 상황 갱신/취소 확인 간격 (도형 수, 후보 쌍 수, 병렬 task 수)
+    private static final int SHAPE_CHECK_MASK = (1 << 10) - 1;
+    private static final int PAIR_CHECK_MASK = (1 << 12) - 1;
+    private static final int TASK_CHECK_MASK = (1 << 6) - 1;
+
+    // 장면 생성 덩어리 크기 - 덩어리마다 독립된 난수열을 쓰므로 결과는 병렬도와 무관하고 시드에만 달려 있다
+    static final int GENERATION_CHUNK = 1 << 14;
+
+    // 병렬 처리용 공유 풀 (CPU 수 크기) - 요청마다 풀과 스레드를 새로 만들지 않는다
+    // 한 번의 runTasks는 작업자를 parallelism개만 올리므로 요청 하나가 쓰는 스레드 수는 parallelism을 넘지 않는다
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    // 마지막 findConnectedComponents 실행의 쌍 검사 통계
+    private long candidatePairs;
+    private long overlappingPairs;
+    private long merges;
 
     public ShapeGenerator() {
-        this.random = new Random();
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    // 같은 시드로 만든 생성기는 같은 파라미터에 대해 항상 같은 장면과 그룹을 만든다
+    public ShapeGenerator(long seed) {
+        this.seed = seed;
+        this.progress = new GenerationProgress();
+        this.broadPhase = new UniformGridBroadPhase();
+        this.parallelism = 1;
+    }
+
+    public void setBroadPhase(BroadPhase broadPhase) {
+        this.broadPhase = broadPhase;
+    }
+
+    // 1이면 요청 스레드에서 순차 처리, 2 이상이면 공유 풀에서 작업자 parallelism개로 장면 생성과 쌍 검사를 나누어 처리
+    public void setParallelism(int parallelism) {
+        this.parallelism = Math.min(parallelism, Runtime.getRuntime().availableProcessors());
+    }
+
+    int getParallelism() {
+        return parallelism;
+    }
+
+    // 장면을 공간 타일로 나누어 타일마다 따로(병렬로) 그룹화한 뒤 경계 도형으로 합친다 - 결과 그룹은 같다
+    public void setTileSize(double tileSize) {
+        this.tileSize = tileSize;
+    }
+
+    // 겹친 쌍(겹침 그래프의 간선)을 모아 결과에 붙인다
+    public void setPairCollector(OverlapPairs pairCollector) {
+        this.pairCollector = pairCollector;
+    }
+
+    // 진행 상황을 밖에서 보고 취소할 수 있게 한다 (취소되면 CancellationException)
+    public void setProgress(GenerationProgress progress) {
+        this.progress = progress;
     }
 
     public JSONObject generateShapes(int width, int height, int radiusMax, int howMany, int maxEdges) {
-        List<Shape> shapes = new ArrayList<>();
+        return generate(width, height, radiusMax, howMany, maxEdges).toJSON();
+    }
+
+    // 마지막 generate 실행의 단계별 소요 시간과 처리량
+    public PhaseStats getLastPhaseStats() {
+        return phaseStats;
+    }
+
+    // 마지막 타일 단위 그룹화의 타일별 소요 시간 (타일을 쓰지 않았으면 null)
+    public TileStats getLastTileStats() {
+        return tileStats;
+    }
+
+    public OverlapResult generate(int width, int height, int radiusMax, int howMany, int maxEdges) {
+        phaseStats = new PhaseStats();
+        tileStats = null;
+
+        progress.setPhase("generating");
+        phaseStats.begin();
+        Scene scene = createScene(width, height, radiusMax, howMany, maxEdges);
+        phaseStats.end(PhaseStats.Phase.GENERATE, howMany);
+        phaseStats.setVerticesEmitted(scene.getVertexCount());
+
+        return groupScene(scene, radiusMax);
+    }
+
+    // 밖에서 만든 장면(업로드된 도형 등)을 생성 단계 없이 같은 방식으로 그룹화한다
+    // 넓은 단계의 기준 반경은 가장 큰 경계 원 반경
+    public OverlapResult group(Scene scene) {
+        phaseStats = new PhaseStats();
+        tileStats = null;
+        phaseStats.setVerticesEmitted(scene.getVertexCount());
+
+        double maxRadius = 0;
+        for (int i = 0; i < scene.size(); i++) {
+            maxRadius = Math.max(maxRadius, scene.getBoundRadius(i));
+        }
+        return groupScene(scene, maxRadius);
+    }
+
+    private OverlapResult groupScene(Scene scene, double maxRadius) {
+        // 연쇄적 그룹화 처리
+        progress.setPhase("grouping");
+        List<int[]> overlapGroups = findConnectedComponents(scene, maxRadius);
+
+        phaseStats.begin();
+        int overlapGroupCount = assignGroupColors(scene, overlapGroups);
+        phaseStats.end(PhaseStats.Phase.ASSIGN_COLORS, scene.size());
+        phaseStats.setGroups(overlapGroups.size(), overlapGroupCount);
+        progress.setPhase("done");
+
+        OverlapResult result = new OverlapResult(scene, overlapGroups, broadPhase.getName(),
+                candidatePairs, overlappingPairs);
+        result.setPairs(pairCollector);
+        return result;
+    }
+
+    // 같은 장면에 대해 모든 넓은 단계 전략을 실행하여 가지치기 효과를 비교
+    public JSONObject compareBroadPhases(int width, int height, int radiusMax, int howMany, int maxEdges) {
+        Scene scene = createScene(width, height, radiusMax, howMany, maxEdges);
+
+        JSONArray reports = new JSONArray();
+        for (String name : new String[]{"none", "grid", "sweep"}) {
+            this.broadPhase = BroadPhase.forName(name);
+
+            long start = System.nanoTime();
+            List<int[]> groups = findConnectedComponents(scene, radiusMax);
+            long elapsed = System.nanoTime() - start;
+
+            JSONObject report = new OverlapResult(scene, groups, name, candidatePairs, overlappingPairs)
+                    .broadPhaseToJSON();
+            report.put("groupCount", groups.size());
+            report.put("elapsedMillis", elapsed / 1_000_000.0);
+            reports.put(report);
+        }
+
+        JSONObject response = new JSONObject();
+        response.put("totalCount", scene.size());
+        response.put("strategies", reports);
+        return response;
+    }
+
+    public Scene createScene(int width, int height, int radiusMax, int howMany, int maxEdges) {
+        int chunkCount = (howMany + GENERATION_CHUNK - 1) / GENERATION_CHUNK;
+        if (chunkCount == 0) {
+            return new Scene();
+        }
+
+        // 1. 덩어리마다 시드에서 갈라낸 난수열로 부분 장면을 만든다 (스레드 간에 공유하는 난수 상태 없음)
+        SplittableRandom root = new SplittableRandom(seed);
+        SplittableRandom[] randoms = new SplittableRandom[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            randoms[c] = root.split();
+        }
+
+        Scene[] parts = new Scene[chunkCount];
+        AtomicLong generated = new AtomicLong();
+        runTasks(chunkCount, c -> {
+            int count = Math.min(GENERATION_CHUNK, howMany - c * GENERATION_CHUNK);
+            parts[c] = createPart(randoms[c], width, height, radiusMax, count, maxEdges, generated);
+        });
+        progress.setShapesGenerated(howMany);
+        if (chunkCount == 1) {
+            return parts[0];
+        }
+
+        // 2. 부분 장면들을 덩어리 순서대로 이어 붙인다
+        int[] shapeOffsets = new int[chunkCount];
+        int[] vertexOffsets = new int[chunkCount];
+        for (int c = 1; c < chunkCount; c++) {
+            shapeOffsets[c] = shapeOffsets[c - 1] + parts[c - 1].size();
+            vertexOffsets[c] = vertexOffsets[c - 1] + parts[c - 1].getVertexCount();
+        }
+        Scene scene = Scene.forParts(shapeOffsets[chunkCount - 1] + parts[chunkCount - 1].size(),
+                vertexOffsets[chunkCount - 1] + parts[chunkCount - 1].getVertexCount());
+        runTasks(chunkCount, c -> scene.copyPart(parts[c], shapeOffsets[c], vertexOffsets[c]));
+
+        return scene;
+    }
+
+    private Scene createPart(SplittableRandom random, int width, int height, int radiusMax, int count,
+                             int maxEdges, AtomicLong generated) {
+        Scene scene = new Scene(count, count * (maxEdges + 1) / 2);
 
         // 도형 생성 (원: 20%, 정다각형: 25%, 일반다각형: 55%)
-        for (int i = 0; i < howMany; i++) {
+        for (int i = 0; i < count; i++) {
+            if ((i & SHAPE_CHECK_MASK) == 0) {
+                progress.setShapesGenerated(generated.addAndGet(i == 0 ? 0 : SHAPE_CHECK_MASK + 1));
+                progress.checkCancelled();
+            }
             double probability = random.nextDouble();
 
             // 무작위 중심점 생성
             double centerX = radiusMax + random.nextDouble() * (width - 2 * radiusMax);
             double centerY = radiusMax + random.nextDouble() * (height - 2 * radiusMax);
-            Point center = new Point(centerX, centerY);
 
             // 무작위 반경
             double radius = 10 + random.nextDouble() * (radiusMax - 10);
+            int color = random.nextInt(0x1000000);
 
-            Shape shape;
             if (probability < 0.20) {
-                shape = new Circle(center, radius);
+                scene.addCircle(centerX, centerY, radius, color);
             } else if (probability < 0.45) {
                 int sides = 3 + random.nextInt(maxEdges - 2);
                 double rotation = random.nextDouble() * 2 * Math.PI;
-                shape = new RegularPolygon(center, radius, sides, rotation);
+                scene.addRegularPolygon(centerX, centerY, radius, sides, rotation, color);
             } else {
                 int vertices = 3 + random.nextInt(maxEdges - 2);
-                shape = new IrregularPolygon(center, radius, vertices);
+                IrregularPolygon.addRandom(scene, random, centerX, centerY, radius, vertices, color);
             }
-
-            shapes.add(shape);
         }
 
-        // 연쇄적 그룹화 처리
-        List<Set<String>> overlapGroups = findConnectedComponents(shapes);
-        assignGroupColors(shapes, overlapGroups);
-
-        // JSON 응답 생성
-        JSONObject response = new JSONObject();
-        JSONArray shapesArray = new JSONArray();
+        return scene;
+    }
 
-        for (Shape shape : shapes) {
-            shapesArray.put(shape.toJSON());
+    // task 0..taskCount-1을 실행 - parallelism이 2 이상이면 공유 풀에 작업자 parallelism개를 올려 task를 하나씩 가져가게 한다
+    // 한 작업자가 실패하면 남은 task를 모두 가져간 것으로 표시해 다른 작업자도 곧 멈춘다
+    private void runTasks(int taskCount, IntConsumer task) {
+        if (parallelism <= 1 || taskCount <= 1) {
+            for (int t = 0; t < taskCount; t++) {
+                task.accept(t);
+            }
+            return;
         }
 
-        response.put("shapes", shapesArray);
-        response.put("totalCount", shapes.size());
-        response.put("overlapGroups", convertGroupsToJSON(overlapGroups));
-
-        return response;
+        AtomicInteger next = new AtomicInteger();
+        Runnable worker = () -> {
+            try {
+                for (int t = next.getAndIncrement(); t < taskCount; t = next.getAndIncrement()) {
+                    task.accept(t);
+                }
+            } catch (RuntimeException | Error e) {
+                next.set(taskCount);
+                throw e;
+            }
+        };
+        ForkJoinTask<?>[] workers = new ForkJoinTask<?>[Math.min(parallelism, taskCount)];
+        for (int w = 0; w < workers.length; w++) {
+            workers[w] = POOL.submit(worker);
+        }
+        try {
+            for (ForkJoinTask<?> running : workers) {
+                running.get();
+            }
+        } catch (InterruptedException e) {
+            next.set(taskCount);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("병렬 처리가 중단되었습니다.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CancellationException) {
+                throw (CancellationException) e.getCause();
+            }
+            throw new IllegalStateException("병렬 처리 중 오류가 발생했습니다.", e.getCause());
+        }
     }
 
     // Union-Find를 사용한 연결 요소 찾기 (연쇄적 그룹화 해결)
-    private List<Set<String>> findConnectedComponents(List<Shape> shapes) {
-        // Union-Find 자료구조 구현
-        Map<String, String> parent = new HashMap<>();
-        Map<String, Integer> rank = new HashMap<>();
-
-        // 초기화
-        for (Shape shape : shapes) {
-            parent.put(shape.getId(), shape.getId());
-            rank.put(shape.getId(), 0);
-        }
-
-        // 모든 쌍에 대해 겹침 검사
-        for (int i = 0; i < shapes.size(); i++) {
-            for (int j = i + 1; j < shapes.size(); j++) {
-                if (shapes.get(i).overlaps(shapes.get(j))) {
-                    union(parent, rank, shapes.get(i).getId(), shapes.get(j).getId());
-                }
-            }
+    // 각 그룹은 도형 인덱스 배열이며, 그룹 순서는 첫 번째 도형의 인덱스 순서
+    // (src/jmh 벤치마크에서 직접 호출하므로 패키지 공개)
+    List<int[]> findConnectedComponents(Scene scene, double maxRadius) {
+        if (tileSize != 0) {
+            return findConnectedComponentsTiled(scene, maxRadius);
+        }
+        if (parallelism > 1) {
+            return findConnectedComponentsParallel(scene, maxRadius);
         }
 
-        // 연결 요소 그룹화
-        Map<String, Set<String>> groupMap = new HashMap<>();
-        for (Shape shape : shapes) {
-            String root = find(parent, shape.getId());
-            groupMap.computeIfAbsent(root, k -> new HashSet<>()).add(shape.getId());
+        UnionFind unionFind = new UnionFind(scene.size());
+        OverlapPairs pairs = pairCollector;
+
+        // 넓은 단계에서 경계 상자가 겹치는 후보 쌍만 골라 겹침 검사
+        phaseStats.begin();
+        BroadPhase.Candidates candidates = broadPhase.prepare(scene, maxRadius);
+        phaseStats.end(PhaseStats.Phase.BROAD_PHASE, scene.size());
+
+        candidatePairs = 0;
+        overlappingPairs = 0;
+        merges = 0;
+        phaseStats.begin();
+        BroadPhase.PairVisitor visitor = (i, j) -> {
+            if ((++candidatePairs & PAIR_CHECK_MASK) == 0) {
+                progress.setPairs(candidatePairs, scene.size() - merges);
+                progress.checkCancelled();
+            }
+            if (NarrowPhase.overlaps(scene, i, scene, j)) {
+                overlappingPairs++;
+                if (pairs != null) {
+                    pairs.add(i, j);
+                }
+                if (unionFind.union(i, j)) {
+                    merges++;
+                }
+            }
+        };
+        for (int task = 0; task < candidates.taskCount(); task++) {
+            candidates.forEachPair(task, visitor);
         }
+        phaseStats.setPairs(candidatePairs, overlappingPairs);
+        phaseStats.end(PhaseStats.Phase.PAIR_TESTS, scene.size());
 
-        return new ArrayList<>(groupMap.values());
+        phaseStats.begin();
+        List<int[]> groups = collectGroups(scene.size(), unionFind::find);
+        phaseStats.end(PhaseStats.Phase.UNION_FIND, scene.size());
+        progress.setPairs(candidatePairs, groups.size());
+        return groups;
     }
 
-    private String find(Map<String, String> parent, String x) {
-        if (!parent.get(x).equals(x)) {
-            parent.put(x, find(parent, parent.get(x))); // 경로 압축
-        }
-        return parent.get(x);
+    // 병렬 연결 요소 찾기 - 후보 쌍 task를 여러 코어에 나누고 결과는 CAS 기반 Union-Find로 합친다
+    private List<int[]> findConnectedComponentsParallel(Scene scene, double maxRadius) {
+        ConcurrentUnionFind unionFind = new ConcurrentUnionFind(scene.size());
+        OverlapPairs pairs = pairCollector;
+        phaseStats.begin();
+        BroadPhase.Candidates candidates = broadPhase.prepare(scene, maxRadius);
+        phaseStats.end(PhaseStats.Phase.BROAD_PHASE, scene.size());
+        LongAdder candidateCount = new LongAdder();
+        LongAdder overlapCount = new LongAdder();
+        LongAdder mergeCount = new LongAdder();
+
+        phaseStats.begin();
+        runTasks(candidates.taskCount(), task -> {
+            if ((task & TASK_CHECK_MASK) == 0) {
+                progress.setPairs(candidateCount.sum(), scene.size() - mergeCount.sum());
+            }
+            progress.checkCancelled();
+            candidates.forEachPair(task, (i, j) -> {
+                candidateCount.increment();
+                if (NarrowPhase.overlaps(scene, i, scene, j)) {
+                    overlapCount.increment();
+                    if (pairs != null) {
+                        pairs.add(i, j);
+                    }
+                    if (unionFind.union(i, j)) {
+                        mergeCount.increment();
+                    }
+                }
+            });
+        });
+        candidatePairs = candidateCount.sum();
+        overlappingPairs = overlapCount.sum();
+        phaseStats.setPairs(candidatePairs, overlappingPairs);
+        phaseStats.end(PhaseStats.Phase.PAIR_TESTS, scene.size());
+
+        phaseStats.begin();
+        List<int[]> groups = collectGroups(scene.size(), unionFind::find);
+        phaseStats.end(PhaseStats.Phase.UNION_FIND, scene.size());
+        progress.setPairs(candidatePairs, groups.size());
+        return groups;
     }
 
-    private void union(Map<String, String> parent, Map<String, Integer> rank,
-                       String x, String y) {
-        String rootX = find(parent, x);
-        String rootY = find(parent, y);
+    // 타일 단위 연결 요소 찾기
+    // 1. 도형을 경계 상자가 걸치는 타일마다 넣고, 타일별 부분 장면에서 넓은 단계 + 겹침 검사 + 지역 Union-Find
+    //    여러 타일에 걸친 쌍은 두 경계 상자의 교차 영역 좌하단 모서리가 속한 타일에서만 검사한다
+    // 2. 한 타일에만 속한 도형은 그 타일의 지역 루트를 바로 부모로 삼고,
+    //    여러 타일에 걸친 (경계) 도형만 지역 루트와의 연결을 모아 마지막에 순차로 합친다
+    private List<int[]> findConnectedComponentsTiled(Scene scene, double maxRadius) {
+        int n = scene.size();
 
-        if (!rootX.equals(rootY)) {
-            // 랭크 기반 합치기
-            if (rank.get(rootX) < rank.get(rootY)) {
-                parent.put(rootX, rootY);
-            } else if (rank.get(rootX) > rank.get(rootY)) {
-                parent.put(rootY, rootX);
-            } else {
-                parent.put(rootY, rootX);
-                rank.put(rootX, rank.get(rootX) + 1);
+        phaseStats.begin();
+        SpatialTiles tiles = SpatialTiles.build(scene, tileSize > 0 ? tileSize
+                : SpatialTiles.autoTileSize(scene, maxRadius, parallelism));
+        List<SpatialTiles.Tile> tileList = tiles.getTiles();
+        int tileCount = tileList.size();
+        // 큰 타일부터 시작해 마지막에 큰 타일 하나만 남아 도는 일이 없게 한다
+        int[] order = IntStream.range(0, tileCount).boxed()
+                .sorted((a, b) -> Integer.compare(tileList.get(b).size(), tileList.get(a).size()))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        byte[] memberships = new byte[n];
+        for (SpatialTiles.Tile tile : tileList) {
+            for (int i : tile.members) {
+                if (memberships[i] < 2) {
+                    memberships[i]++;
+                }
             }
         }
-    }
+        phaseStats.end(PhaseStats.Phase.BROAD_PHASE, n);
 
-    private void assignGroupColors(List<Shape> shapes, List<Set<String>> groups) {
-        Map<String, Shape> shapeMap = new HashMap<>();
-        for (Shape shape : shapes) {
-            shapeMap.put(shape.getId(), shape);
+        int[] parent = new int[n];
+        OverlapPairs pairs = pairCollector;
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
         }
+        IntList[] borderLinks = new IntList[tileCount];
+        TileStats stats = new TileStats(tiles);
+        LongAdder candidateCount = new LongAdder();
+        LongAdder overlapCount = new LongAdder();
 
-        String[] COLORS = {
-                "#FF0000", "#00FF00", "#0000FF", "#FFFF00", "#FF00FF",
-                "#00FFFF", "#FFA500", "#800080", "#008000", "#000080"
-        };
+        phaseStats.begin();
+        runTasks(tileCount, k -> {
+            int t = order[k];
+            progress.checkCancelled();
+            long start = System.nanoTime();
+            SpatialTiles.Tile tile = tileList.get(t);
+            int[] members = tile.members;
 
-        for (int i = 0; i < groups.size(); i++) {
-            Set<String> group = groups.get(i);
-            if (group.size() > 1) {
-                String color = COLORS[i % COLORS.length];
-                for (String shapeId : group) {
-                    Shape shape = shapeMap.get(shapeId);
-                    if (shape != null) {
-                        shape.setColor(color);
+            int vertices = 0;
+            for (int i : members) {
+                vertices += scene.vertexStart[i + 1] - scene.vertexStart[i];
+            }
+            Scene local = new Scene(members.length, vertices);
+            for (int i : members) {
+                local.copyShape(scene, i);
+            }
+
+            UnionFind unionFind = new UnionFind(members.length);
+            // counts: 후보 쌍, 겹친 쌍, 방문한 쌍 (타일 하나가 클 수 있어 방문 수로 취소 / 처리 시간 한도를 확인)
+            long[] counts = new long[3];
+            broadPhase.forEachCandidatePair(local, maxRadius, (a, b) -> {
+                if ((++counts[2] & PAIR_CHECK_MASK) == 0) {
+                    progress.checkCancelled();
+                }
+                if (!tiles.contains(tile, Math.max(local.minX[a], local.minX[b]),
+                        Math.max(local.minY[a], local.minY[b]))) {
+                    return;
+                }
+                counts[0]++;
+                if (NarrowPhase.overlaps(local, a, local, b)) {
+                    counts[1]++;
+                    if (pairs != null) {
+                        pairs.add(members[a], members[b]);
                     }
+                    unionFind.union(a, b);
+                }
+            });
+
+            IntList links = new IntList();
+            for (int a = 0; a < members.length; a++) {
+                int shape = members[a];
+                int root = members[unionFind.find(a)];
+                if (memberships[shape] == 1) {
+                    parent[shape] = root;
+                } else if (root != shape) {
+                    links.add(shape);
+                    links.add(root);
+                }
+            }
+            borderLinks[t] = links;
+            candidateCount.add(counts[0]);
+            overlapCount.add(counts[1]);
+            stats.setTile(t, members.length, System.nanoTime() - start, counts[0]);
+        });
+        candidatePairs = candidateCount.sum();
+        overlappingPairs = overlapCount.sum();
+        phaseStats.setPairs(candidatePairs, overlappingPairs);
+        phaseStats.end(PhaseStats.Phase.PAIR_TESTS, n);
+
+        // 경계 도형 연결을 합치고 그룹을 모은다
+        phaseStats.begin();
+        long reductionStart = System.nanoTime();
+        IntUnaryOperator find = x -> {
+            while (parent[x] != x) {
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+            return x;
+        };
+        int linkCount = 0;
+        for (IntList links : borderLinks) {
+            for (int k = 0; k < links.size(); k += 2) {
+                int rootA = find.applyAsInt(links.get(k));
+                int rootB = find.applyAsInt(links.get(k + 1));
+                if (rootA != rootB) {
+                    parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
                 }
             }
+            linkCount += links.size() / 2;
+        }
+        int borderShapes = 0;
+        for (int i = 0; i < n; i++) {
+            if (memberships[i] > 1) {
+                borderShapes++;
+            }
         }
+        stats.setReduction(borderShapes, linkCount, System.nanoTime() - reductionStart);
+        List<int[]> groups = collectGroups(n, find);
+        phaseStats.end(PhaseStats.Phase.UNION_FIND, n);
+        progress.setPairs(candidatePairs, groups.size());
+
+        tileStats = stats;
+        return groups;
     }
 
-    private JSONArray convertGroupsToJSON(List<Set<String>> groups) {
-        JSONArray groupsArray = new JSONArray();
-        String[] COLORS = {
-                "#FF0000", "#00FF00", "#0000FF", "#FFFF00", "#FF00FF",
-                "#00FFFF", "#FFA500", "#800080", "#008000", "#000080"
-        };
+    // 루트별로 도형 인덱스를 모은다 (도형 순서대로 순회하므로 순차/병렬 경로의 결과가 같다)
+    static List<int[]> collectGroups(int size, IntUnaryOperator find) {
+        int[] groupOfRoot = new int[size];
+        Arrays.fill(groupOfRoot, -1);
+        int[] groupOfShape = new int[size];
+        int[] groupSizes = new int[size];
+        int groupCount = 0;
 
-        for (int i = 0; i < groups.size(); i++) {
-            Set<String> group = groups.get(i);
-            if (group.size() > 1) {
-                JSONObject groupJson = new JSONObject();
-                JSONArray shapeIds = new JSONArray();
+        for (int i = 0; i < size; i++) {
+            int root = find.applyAsInt(i);
+            if (groupOfRoot[root] < 0) {
+                groupOfRoot[root] = groupCount++;
+            }
+            groupOfShape[i] = groupOfRoot[root];
+            groupSizes[groupOfShape[i]]++;
+        }
 
-                for (String shapeId : group) {
-                    shapeIds.put(shapeId);
-                }
+        List<int[]> groups = new ArrayList<>(groupCount);
+        for (int g = 0; g < groupCount; g++) {
+            groups.add(new int[groupSizes[g]]);
+        }
+        int[] fill = new int[groupCount];
+        for (int i = 0; i < size; i++) {
+            int g = groupOfShape[i];
+            groups.get(g)[fill[g]++] = i;
+        }
 
-                groupJson.put("shapeIds", shapeIds);
-                groupJson.put("color", COLORS[i % COLORS.length]);
-                groupJson.put("size", group.size());
+        return groups;
+    }
 
-                groupsArray.put(groupJson);
+    // 크기가 2 이상인 (겹침) 그룹 수를 돌려준다
+    private int assignGroupColors(Scene scene, List<int[]> groups) {
+        int overlapGroupCount = 0;
+        for (int i = 0; i < groups.size(); i++) {
+            int[] group = groups.get(i);
+            if (group.length > 1) {
+                overlapGroupCount++;
+                int color = Scene.parseColor(OverlapResult.groupColor(i));
+                for (int index : group) {
+                    scene.setColor(index, color);
+                }
             }
         }
-
-        return groupsArray;
+        return overlapGroupCount;
     }
 }
@@ -0,0 +1,28 @@
+package knu.pyh.shapes;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// ShapeGenerator 단계 하나의 JFR 이벤트 - 기록이 꺼져 있으면 begin/commit 비용은 거의 없다
+@Name("knu.pyh.ShapePhase")
+@Label("Shape Overlap Phase")
+@Category({"Shape Overlaps"})
+@Description("도형 생성 / 넓은 단계 / 쌍 검사 / Union-Find / 색 지정 단계 하나")
+@StackTrace(false)
+class ShapePhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Shapes")
+    int shapes;
+
+    @Label("Pairs Tested")
+    long pairsTested;
+
+    @Label("Pairs Overlapping")
+    long pairsOverlapping;
+}
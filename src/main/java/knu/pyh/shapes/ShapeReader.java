@@ -0,0 +1,601 @@
+package knu.pyh.shapes;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import org.json.JSONObject;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.charset.StandardCharsets;
+
+// 업로드된 도형(NDJSON / CSV)을 한 줄씩 읽어 Scene 배열에 바로 채운다
+// JSON 트리나 도형 객체를 만들지 않으므로 입력 크기와 상관없이 추가 메모리는 Scene 배열 정도이다
+//
+// NDJSON: 한 줄에 도형 하나, ShapesOverlaps 응답의 도형과 같은 구조
+//   {"type":"circle","center":{"x":10,"y":20},"radius":5,"color":"#ff0000"}
+//   {"type":"regularPolygon","center":{"x":10,"y":20},"radius":5,"sides":6,"rotationAngle":0.3}
+//   {"type":"irregularPolygon","vertices":[{"x":0,"y":0},{"x":4,"y":0},{"x":0,"y":3}]}
+//   (center는 "x"/"y" 필드로, 꼭짓점은 [x, y] 배열로 써도 된다. id 등 모르는 필드는 무시)
+// CSV: type,x,y,radius,sides,rotationAngle,color,x1,y1,x2,y2,...
+//   해당 없는 칸은 비워 둔다. 첫 줄이 type으로 시작하면 머리글로 보고 건너뛰며, #으로 시작하는 줄은 주석
+//
+// 일반 다각형은 볼록해야 하고(좁은 단계 SAT의 전제) 중심/반경을 생략하면 꼭짓점에서 계산한다
+public class ShapeReader {
+    public static final int MAX_SHAPES = 2_000_000;
+    public static final int MAX_VERTICES = 1024;
+    // 좌표 / 반경 한도는 살아 있는 장면과 같다 (넓은 단계 격자 칸 번호가 int 범위를 넘지 않게)
+    public static final double MAX_COORDINATE = LiveScene.MAX_COORDINATE;
+    public static final double MAX_RADIUS = LiveScene.MAX_RADIUS;
+    // CSV 한 줄의 최대 길이 - 칸(7 + 꼭짓점 좌표 2 * MAX_VERTICES)마다 숫자와 쉼표 32자까지
+    public static final int MAX_CSV_LINE_CHARS = (7 + 2 * MAX_VERTICES) * 32;
+
+    private static final int DEFAULT_COLOR = 0x808080;
+    // 힙 사용량을 재는 간격 (도형 수)
+    private static final int HEAP_SAMPLE_MASK = (1 << 14) - 1;
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .disable(StreamReadFeature.AUTO_CLOSE_SOURCE)
+            .build();
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    // 현재 도형의 꼭짓점 버퍼 (도형마다 재사용)
+    private final double[] vx = new double[MAX_VERTICES];
+    private final double[] vy = new double[MAX_VERTICES];
+
+    // 마지막 read 실행의 통계
+    private String format;
+    private Scene scene;
+    private long bytesRead;
+    private long nanos;
+    private long heapBeforeBytes;
+    private long peakHeapBytes;
+
+    // format: "ndjson" 또는 "csv"
+    public Scene read(InputStream in, String format) throws IOException {
+        if (!format.equals("ndjson") && !format.equals("csv")) {
+            throw new IllegalArgumentException("지원하지 않는 입력 형식입니다: " + format);
+        }
+        this.format = format;
+        this.scene = new Scene(1 << 12, 1 << 14);
+        this.heapBeforeBytes = MEMORY.getHeapMemoryUsage().getUsed();
+        this.peakHeapBytes = heapBeforeBytes;
+
+        long start = System.nanoTime();
+        CountingInputStream counting = new CountingInputStream(in);
+        if (format.equals("ndjson")) {
+            readNDJSON(counting);
+        } else {
+            readCSV(counting);
+        }
+        nanos = System.nanoTime() - start;
+        bytesRead = counting.getCount();
+        sampleHeap();
+
+        return scene;
+    }
+
+    private void readNDJSON(InputStream in) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                int line = parser.getTokenLocation().getLineNr();
+                if (token != JsonToken.START_OBJECT) {
+                    throw error(line, "도형은 JSON 객체여야 합니다.");
+                }
+                readRecord(parser, line);
+            }
+        } catch (JsonProcessingException e) {
+            throw error(e.getLocation() != null ? e.getLocation().getLineNr() : -1,
+                    "JSON 형식이 올바르지 않습니다. (" + e.getOriginalMessage() + ")");
+        }
+    }
+
+    private void readRecord(JsonParser parser, int line) throws IOException {
+        String type = null;
+        double cx = Double.NaN, cy = Double.NaN, r = Double.NaN, rotation = 0;
+        int sides = 0, count = 0, color = DEFAULT_COLOR;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "type":
+                    type = parser.getText();
+                    break;
+                case "center":
+                    if (value == JsonToken.START_ARRAY) {
+                        cx = readNumber(parser, line, "center");
+                        cy = readNumber(parser, line, "center");
+                        expect(parser, JsonToken.END_ARRAY, line, "center");
+                    } else if (value == JsonToken.START_OBJECT) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String axis = parser.currentName();
+                            parser.nextToken();
+                            if (axis.equals("x")) {
+                                cx = number(parser, line, "center.x");
+                            } else if (axis.equals("y")) {
+                                cy = number(parser, line, "center.y");
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        throw error(line, "center는 {x, y} 객체나 [x, y] 배열이어야 합니다.");
+                    }
+                    break;
+                case "x":
+                    cx = number(parser, line, "x");
+                    break;
+                case "y":
+                    cy = number(parser, line, "y");
+                    break;
+                case "radius":
+                    r = number(parser, line, "radius");
+                    break;
+                case "sides":
+                    if (value != JsonToken.VALUE_NUMBER_INT) {
+                        throw error(line, "sides는 정수여야 합니다.");
+                    }
+                    sides = parser.getIntValue();
+                    break;
+                case "rotationAngle":
+                    rotation = number(parser, line, "rotationAngle");
+                    break;
+                case "color":
+                    color = parseColor(parser.getText(), line);
+                    break;
+                case "vertices":
+                    if (value != JsonToken.START_ARRAY) {
+                        throw error(line, "vertices는 배열이어야 합니다.");
+                    }
+                    count = readVertices(parser, line);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        addShape(line, type, cx, cy, r, sides, rotation, color, count);
+    }
+
+    // [{x, y}, ...] 또는 [[x, y], ...]를 꼭짓점 버퍼에 읽는다
+    private int readVertices(JsonParser parser, int line) throws IOException {
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (count == MAX_VERTICES) {
+                throw error(line, "꼭짓점은 최대 " + MAX_VERTICES + "개입니다.");
+            }
+            double x = Double.NaN, y = Double.NaN;
+            if (token == JsonToken.START_ARRAY) {
+                x = readNumber(parser, line, "vertices");
+                y = readNumber(parser, line, "vertices");
+                expect(parser, JsonToken.END_ARRAY, line, "vertices");
+            } else if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String axis = parser.currentName();
+                    parser.nextToken();
+                    if (axis.equals("x")) {
+                        x = number(parser, line, "vertices.x");
+                    } else if (axis.equals("y")) {
+                        y = number(parser, line, "vertices.y");
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                throw error(line, "꼭짓점은 {x, y} 객체나 [x, y] 배열이어야 합니다.");
+            }
+            vx[count] = x;
+            vy[count] = y;
+            count++;
+        }
+        return count;
+    }
+
+    private static double readNumber(JsonParser parser, int line, String field) throws IOException {
+        parser.nextToken();
+        return number(parser, line, field);
+    }
+
+    private static double number(JsonParser parser, int line, String field) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT) {
+            throw error(line, field + "는 숫자여야 합니다.");
+        }
+        return parser.getDoubleValue();
+    }
+
+    private static void expect(JsonParser parser, JsonToken expected, int line, String field) throws IOException {
+        if (parser.nextToken() != expected) {
+            throw error(line, field + "는 [x, y] 두 개의 숫자여야 합니다.");
+        }
+    }
+
+    private void readCSV(InputStream in) throws IOException {
+        LineReader reader = new LineReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        // 칸 경계 (칸 f는 line.substring(starts[f], ends[f]))
+        int[] starts = new int[7 + 2 * MAX_VERTICES];
+        int[] ends = new int[starts.length];
+
+        String line;
+        int lineNumber = 0;
+        boolean first = true;
+        while ((line = reader.readLine(lineNumber + 1)) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            if (first && line.startsWith("type")) {
+                first = false;
+                continue;
+            }
+            first = false;
+
+            // 1. 쉼표로 칸 나누기 (문자열 배열을 만들지 않고 경계만 기록)
+            int fieldCount = 0;
+            int start = 0;
+            while (true) {
+                int comma = line.indexOf(',', start);
+                if (fieldCount == starts.length) {
+                    throw error(lineNumber, "꼭짓점은 최대 " + MAX_VERTICES + "개입니다.");
+                }
+                starts[fieldCount] = start;
+                ends[fieldCount] = comma < 0 ? line.length() : comma;
+                fieldCount++;
+                if (comma < 0) {
+                    break;
+                }
+                start = comma + 1;
+            }
+            if (fieldCount < 4) {
+                throw error(lineNumber, "칸이 부족합니다. (type,x,y,radius,sides,rotationAngle,color,x1,y1,...)");
+            }
+
+            // 2. 칸 값 읽기 (빈 칸은 NaN / 기본값)
+            String type = line.substring(starts[0], ends[0]).trim();
+            double cx = csvNumber(line, starts[1], ends[1], lineNumber, "x");
+            double cy = csvNumber(line, starts[2], ends[2], lineNumber, "y");
+            double r = csvNumber(line, starts[3], ends[3], lineNumber, "radius");
+            int sides = 0;
+            if (fieldCount > 4 && !isBlank(line, starts[4], ends[4])) {
+                try {
+                    sides = Integer.parseInt(line.substring(starts[4], ends[4]).trim());
+                } catch (NumberFormatException e) {
+                    throw error(lineNumber, "sides는 정수여야 합니다.");
+                }
+            }
+            double rotation = 0;
+            if (fieldCount > 5 && !isBlank(line, starts[5], ends[5])) {
+                rotation = csvNumber(line, starts[5], ends[5], lineNumber, "rotationAngle");
+            }
+            int color = DEFAULT_COLOR;
+            if (fieldCount > 6 && !isBlank(line, starts[6], ends[6])) {
+                color = parseColor(line.substring(starts[6], ends[6]).trim(), lineNumber);
+            }
+
+            int count = 0;
+            if (fieldCount > 7) {
+                if ((fieldCount - 7) % 2 != 0) {
+                    throw error(lineNumber, "꼭짓점 좌표는 x, y 쌍이어야 합니다.");
+                }
+                for (int f = 7; f < fieldCount; f += 2) {
+                    vx[count] = csvNumber(line, starts[f], ends[f], lineNumber, "꼭짓점 x");
+                    vy[count] = csvNumber(line, starts[f + 1], ends[f + 1], lineNumber, "꼭짓점 y");
+                    count++;
+                }
+            }
+
+            addShape(lineNumber, type, cx, cy, r, sides, rotation, color, count);
+        }
+    }
+
+    private static double csvNumber(String line, int start, int end, int lineNumber, String field) {
+        if (isBlank(line, start, end)) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(line.substring(start, end));
+        } catch (NumberFormatException e) {
+            throw error(lineNumber, field + "는 숫자여야 합니다.");
+        }
+    }
+
+    private static boolean isBlank(String line, int start, int end) {
+        for (int k = start; k < end; k++) {
+            if (line.charAt(k) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int parseColor(String color, int line) {
+        if (color.length() != 7 || color.charAt(0) != '#') {
+            throw error(line, "color는 #rrggbb 형식이어야 합니다: " + color);
+        }
+        try {
+            return Scene.parseColor(color);
+        } catch (NumberFormatException e) {
+            throw error(line, "color는 #rrggbb 형식이어야 합니다: " + color);
+        }
+    }
+
+    // 검증 후 Scene에 추가 (두 형식 공통)
+    private void addShape(int line, String type, double cx, double cy, double r,
+                          int sides, double rotation, int color, int count) {
+        if (scene.size() == MAX_SHAPES) {
+            throw error(line, "도형은 최대 " + MAX_SHAPES + "개까지 올릴 수 있습니다.");
+        }
+        if (type == null) {
+            throw error(line, "type이 없습니다.");
+        }
+        if (!Double.isFinite(rotation)) {
+            throw error(line, "rotationAngle이 올바르지 않습니다.");
+        }
+
+        switch (type) {
+            case "circle":
+                checkCenterAndRadius(line, cx, cy, r);
+                scene.addCircle(cx, cy, r, color);
+                break;
+
+            case "regularPolygon":
+                checkCenterAndRadius(line, cx, cy, r);
+                if (sides < 3 || sides > MAX_VERTICES) {
+                    throw error(line, "sides는 3 이상 " + MAX_VERTICES + " 이하여야 합니다.");
+                }
+                scene.addRegularPolygon(cx, cy, r, sides, rotation, color);
+                break;
+
+            case "irregularPolygon":
+                checkConvexPolygon(line, count);
+                // 중심을 생략하면 꼭짓점 평균, 반경을 생략하면 중심에서 가장 먼 꼭짓점까지의 거리
+                if (Double.isNaN(cx) || Double.isNaN(cy)) {
+                    cx = 0;
+                    cy = 0;
+                    for (int k = 0; k < count; k++) {
+                        cx += vx[k];
+                        cy += vy[k];
+                    }
+                    cx /= count;
+                    cy /= count;
+                }
+                if (Double.isNaN(r)) {
+                    r = 0;
+                    for (int k = 0; k < count; k++) {
+                        r = Math.max(r, Math.hypot(vx[k] - cx, vy[k] - cy));
+                    }
+                }
+                checkCenterAndRadius(line, cx, cy, r);
+                scene.addIrregularPolygon(cx, cy, r, vx, vy, count, color);
+                break;
+
+            default:
+                throw error(line, "지원하지 않는 도형 type입니다: " + type);
+        }
+
+        if ((scene.size() & HEAP_SAMPLE_MASK) == 0) {
+            sampleHeap();
+        }
+    }
+
+    private static void checkCenterAndRadius(int line, double cx, double cy, double r) {
+        if (!Double.isFinite(cx) || !Double.isFinite(cy)) {
+            throw error(line, "중심 좌표가 없거나 올바르지 않습니다.");
+        }
+        if (Math.abs(cx) > MAX_COORDINATE || Math.abs(cy) > MAX_COORDINATE) {
+            throw error(line, "중심 좌표는 절댓값 " + MAX_COORDINATE + " 이하여야 합니다.");
+        }
+        if (!Double.isFinite(r) || r <= 0 || r > MAX_RADIUS) {
+            throw error(line, "radius는 0보다 크고 " + MAX_RADIUS + " 이하여야 합니다.");
+        }
+    }
+
+    // 좁은 단계(SAT)는 볼록 다각형을 전제로 하므로 볼록하지 않은 입력은 거부한다
+    // 모든 모서리에서 같은 방향으로 꺾이고(외적 부호 일정) x 방향이 두 번만 바뀌면(한 바퀴만 감음) 볼록
+    private void checkConvexPolygon(int line, int count) {
+        try {
+            checkConvexPolygon(vx, vy, count);
+        } catch (IllegalArgumentException e) {
+            throw error(line, e.getMessage());
+        }
+        for (int k = 0; k < count; k++) {
+            if (Math.abs(vx[k]) > MAX_COORDINATE || Math.abs(vy[k]) > MAX_COORDINATE) {
+                throw error(line, (k + 1) + "번째 꼭짓점 좌표는 절댓값 " + MAX_COORDINATE + " 이하여야 합니다.");
+            }
+        }
+    }
+
+    // 꼭짓점 목록 검증 (탐침 다각형 질의와 공유) - 실패하면 줄 번호 없는 IllegalArgumentException
+    static void checkConvexPolygon(double[] vx, double[] vy, int count) {
+        if (count < 3) {
+            throw new IllegalArgumentException("일반 다각형은 꼭짓점이 3개 이상이어야 합니다.");
+        }
+        double scale = 0;
+        for (int k = 0; k < count; k++) {
+            if (!Double.isFinite(vx[k]) || !Double.isFinite(vy[k])) {
+                throw new IllegalArgumentException((k + 1) + "번째 꼭짓점 좌표가 올바르지 않습니다.");
+            }
+            int next = k + 1 == count ? 0 : k + 1;
+            if (vx[k] == vx[next] && vy[k] == vy[next]) {
+                throw new IllegalArgumentException("연속한 두 꼭짓점이 같습니다.");
+            }
+            scale = Math.max(scale, Math.max(Math.abs(vx[next] - vx[k]), Math.abs(vy[next] - vy[k])));
+        }
+
+        // 거의 일직선인 꼭짓점의 반올림 오차는 허용
+        double epsilon = 1e-9 * scale * scale;
+        int positive = 0, negative = 0, xFlips = 0;
+        double area2 = 0;
+        double lastDx = 0;
+        for (int k = 0; k < count; k++) {
+            int k1 = k + 1 == count ? 0 : k + 1;
+            int k2 = k1 + 1 == count ? 0 : k1 + 1;
+            double dx = vx[k1] - vx[k], dy = vy[k1] - vy[k];
+            double cross = dx * (vy[k2] - vy[k1]) - dy * (vx[k2] - vx[k1]);
+            if (cross > epsilon) {
+                positive++;
+            } else if (cross < -epsilon) {
+                negative++;
+            }
+            area2 += vx[k] * vy[k1] - vx[k1] * vy[k];
+
+            if (dx != 0) {
+                if (lastDx != 0 && (dx > 0) != (lastDx > 0)) {
+                    xFlips++;
+                }
+                lastDx = dx;
+            }
+        }
+        // 마지막 변과 첫 변 사이의 방향 전환
+        for (int k = 0; k < count; k++) {
+            double dx = vx[k + 1 == count ? 0 : k + 1] - vx[k];
+            if (dx != 0) {
+                if ((dx > 0) != (lastDx > 0)) {
+                    xFlips++;
+                }
+                break;
+            }
+        }
+
+        if ((positive > 0 && negative > 0) || xFlips > 2) {
+            throw new IllegalArgumentException("일반 다각형은 볼록해야 합니다.");
+        }
+        if (Math.abs(area2) <= epsilon) {
+            throw new IllegalArgumentException("다각형의 넓이가 0입니다.");
+        }
+    }
+
+    private void sampleHeap() {
+        peakHeapBytes = Math.max(peakHeapBytes, MEMORY.getHeapMemoryUsage().getUsed());
+    }
+
+    private static IllegalArgumentException error(int line, String message) {
+        return new IllegalArgumentException(line + "번째 줄: " + message);
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    // 읽기 처리량과 메모리 사용량
+    // 최대 힙은 읽는 동안 일정 간격으로 잰 사용량의 최댓값이다 (GC 시점에 따라 실제 최댓값보다 작을 수 있음)
+    public JSONObject toJSON() {
+        double seconds = nanos / 1e9;
+        JSONObject json = new JSONObject();
+        json.put("format", format);
+        json.put("shapes", scene.size());
+        json.put("vertices", scene.getVertexCount());
+        json.put("bytesRead", bytesRead);
+        json.put("parseMillis", nanos / 1_000_000.0);
+        json.put("megabytesPerSecond", seconds > 0 ? bytesRead / 1e6 / seconds : 0);
+        json.put("shapesPerSecond", seconds > 0 ? scene.size() / seconds : 0);
+        json.put("heapBeforeBytes", heapBeforeBytes);
+        json.put("peakHeapBytes", peakHeapBytes);
+        json.put("heapGrowthBytes", Math.max(0, peakHeapBytes - heapBeforeBytes));
+        json.put("sceneBytes", scene.estimateMemoryBytes());
+        return json;
+    }
+
+    // 길이 제한이 있는 줄 읽기 - BufferedReader.readLine은 줄바꿈이 없는 본문 전체를 한 문자열로 모은다
+    // 줄 끝은 \n, \r\n, \r 모두 인정한다
+    private static final class LineReader {
+        private final Reader in;
+        private final char[] buffer = new char[1 << 16];
+        private final StringBuilder line = new StringBuilder(256);
+        private int position;
+        private int limit;
+        private boolean skipLineFeed;
+
+        LineReader(Reader in) {
+            this.in = in;
+        }
+
+        // 본문이 끝났으면 null
+        String readLine(int lineNumber) throws IOException {
+            line.setLength(0);
+            while (true) {
+                if (position == limit) {
+                    limit = in.read(buffer, 0, buffer.length);
+                    position = 0;
+                    if (limit <= 0) {
+                        limit = 0;
+                        return line.length() > 0 ? line.toString() : null;
+                    }
+                }
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (buffer[position] == '\n') {
+                        position++;
+                        continue;
+                    }
+                }
+
+                int start = position;
+                while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                    position++;
+                }
+                if (line.length() + (position - start) > MAX_CSV_LINE_CHARS) {
+                    throw error(lineNumber, "한 줄은 최대 " + MAX_CSV_LINE_CHARS + "자입니다.");
+                }
+                line.append(buffer, start, position - start);
+                if (position < limit) {
+                    skipLineFeed = buffer[position] == '\r';
+                    position++;
+                    return line.toString();
+                }
+            }
+        }
+    }
+
+    // 실제로 읽은 본문 바이트 수를 센다
+    private static final class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package knu.pyh.shapes;
+
+// 도형 종류 태그 - Scene에는 ordinal 값이 byte로 저장된다
+public enum ShapeType {
+    CIRCLE("circle"),
+    REGULAR_POLYGON("regularPolygon"),
+    IRREGULAR_POLYGON("irregularPolygon");
+
+    private static final ShapeType[] VALUES = values();
+
+    private final String name;
+
+    ShapeType(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public byte tag() {
+        return (byte) ordinal();
+    }
+
+    public static ShapeType fromTag(int tag) {
+        return VALUES[tag];
+    }
+}
@@ -0,0 +1,194 @@
+package knu.pyh.shapes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// 타일 단위 병렬 그룹화를 위한 장면 공간 분할
+// 타일은 서로 겹치지 않는 직사각형이고, 도형은 경계 상자가 걸치는 모든 타일에 속한다
+// 도형이 몰린 타일은 최대 MAX_SPLIT_DEPTH 단계까지 4등분해 한 타일이 전체 처리 시간을 붙잡지 않게 한다
+//
+// 타일 경계는 가장 잘게 나눈 격자(미세 셀) 단위의 정수 좌표로 다루므로,
+// 어떤 점이든 contains가 참인 타일은 정확히 하나다 (부동소수점 경계 오차 없음)
+public class SpatialTiles {
+    // 타일 수 상한 (분할 전)
+    private static final long MAX_TILES = 1L << 16;
+    private static final int MAX_SPLIT_DEPTH = 2;
+    private static final int FINE_PER_TILE = 1 << MAX_SPLIT_DEPTH;
+    // 평균보다 이 배수 이상 많고, 최소 이만큼은 든 타일만 나눈다
+    private static final int SPLIT_FACTOR = 4;
+    private static final int SPLIT_MIN_SHAPES = 2048;
+
+    public static final class Tile {
+        // 미세 셀 좌표 [fx0, fx1) x [fy0, fy1)
+        final int fx0;
+        final int fy0;
+        final int fx1;
+        final int fy1;
+        final int depth;
+        final int[] members;
+
+        Tile(int fx0, int fy0, int fx1, int fy1, int depth, int[] members) {
+            this.fx0 = fx0;
+            this.fy0 = fy0;
+            this.fx1 = fx1;
+            this.fy1 = fy1;
+            this.depth = depth;
+            this.members = members;
+        }
+
+        public int size() {
+            return members.length;
+        }
+    }
+
+    private final double originX;
+    private final double originY;
+    private final double tileSize;
+    private final double fineSize;
+    private final List<Tile> tiles = new ArrayList<>();
+    private int splitCount;
+
+    private SpatialTiles(double originX, double originY, double tileSize) {
+        this.originX = originX;
+        this.originY = originY;
+        this.tileSize = tileSize;
+        this.fineSize = tileSize / FINE_PER_TILE;
+    }
+
+    // 자동 타일 크기 - RadiusMax의 32배(경계에 걸치는 도형이 대략 1/8 이하)에서 시작하고,
+    // 타일 수가 스레드 수의 4배보다 적으면 RadiusMax의 4배까지 줄여 모든 코어가 일하게 한다
+    public static double autoTileSize(Scene scene, double maxRadius, int threads) {
+        double tileSize = 32 * maxRadius;
+        double width = 0, height = 0;
+        for (int i = 0; i < scene.size(); i++) {
+            width = Math.max(width, scene.maxX[i]);
+            height = Math.max(height, scene.maxY[i]);
+        }
+        double wanted = 4.0 * threads;
+        if (width * height / (tileSize * tileSize) < wanted) {
+            tileSize = Math.max(Math.sqrt(width * height / wanted), 4 * maxRadius);
+        }
+        return Math.max(tileSize, 1.0);
+    }
+
+    public static SpatialTiles build(Scene scene, double tileSize) {
+        int n = scene.size();
+
+        // 1. 장면 범위 (타일 수가 상한을 넘으면 타일을 키운다)
+        double originX = 0, originY = 0, extentX = 0, extentY = 0;
+        for (int i = 0; i < n; i++) {
+            originX = i == 0 ? scene.minX[i] : Math.min(originX, scene.minX[i]);
+            originY = i == 0 ? scene.minY[i] : Math.min(originY, scene.minY[i]);
+            extentX = i == 0 ? scene.maxX[i] : Math.max(extentX, scene.maxX[i]);
+            extentY = i == 0 ? scene.maxY[i] : Math.max(extentY, scene.maxY[i]);
+        }
+        tileSize = Math.max(tileSize, 1.0);
+        int cols, rows;
+        while (true) {
+            // 칸 수는 실수로 먼저 확인한다 (범위가 넓으면 int 변환이 포화되어 곱 검사를 빠져나간다)
+            double spanX = Math.floor((extentX - originX) / tileSize) + 1;
+            double spanY = Math.floor((extentY - originY) / tileSize) + 1;
+            if (spanX * spanY <= MAX_TILES) {
+                cols = (int) spanX;
+                rows = (int) spanY;
+                break;
+            }
+            tileSize *= 2;
+        }
+        SpatialTiles result = new SpatialTiles(originX, originY, tileSize);
+        // 도형 배치와 같은 계산으로 타일 수를 다시 구한다 (나눗셈 반올림 차이로 범위를 벗어나지 않게)
+        cols = result.fineX(extentX) / FINE_PER_TILE + 1;
+        rows = result.fineY(extentY) / FINE_PER_TILE + 1;
+
+        // 2. 도형을 경계 상자가 걸치는 타일들에 넣는다
+        IntList[] lists = new IntList[cols * rows];
+        for (int i = 0; i < n; i++) {
+            int x0 = result.fineX(scene.minX[i]) / FINE_PER_TILE, x1 = result.fineX(scene.maxX[i]) / FINE_PER_TILE;
+            int y0 = result.fineY(scene.minY[i]) / FINE_PER_TILE, y1 = result.fineY(scene.maxY[i]) / FINE_PER_TILE;
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    int t = y * cols + x;
+                    if (lists[t] == null) {
+                        lists[t] = new IntList();
+                    }
+                    lists[t].add(i);
+                }
+            }
+        }
+
+        // 3. 빈 타일은 버리고, 도형이 몰린 타일은 4등분
+        int occupied = 0;
+        long entries = 0;
+        for (IntList list : lists) {
+            if (list != null) {
+                occupied++;
+                entries += list.size();
+            }
+        }
+        long splitThreshold = Math.max(SPLIT_MIN_SHAPES, SPLIT_FACTOR * entries / Math.max(occupied, 1));
+        for (int t = 0; t < lists.length; t++) {
+            if (lists[t] == null) {
+                continue;
+            }
+            int fx = (t % cols) * FINE_PER_TILE;
+            int fy = (t / cols) * FINE_PER_TILE;
+            result.addTile(scene, new Tile(fx, fy, fx + FINE_PER_TILE, fy + FINE_PER_TILE, 0,
+                    lists[t].toArray()), splitThreshold);
+            lists[t] = null;
+        }
+        return result;
+    }
+
+    private void addTile(Scene scene, Tile tile, long splitThreshold) {
+        if (tile.size() <= splitThreshold || tile.depth == MAX_SPLIT_DEPTH) {
+            tiles.add(tile);
+            return;
+        }
+
+        splitCount++;
+        int midX = (tile.fx0 + tile.fx1) / 2;
+        int midY = (tile.fy0 + tile.fy1) / 2;
+        int[][] bounds = {
+                {tile.fx0, tile.fy0, midX, midY}, {midX, tile.fy0, tile.fx1, midY},
+                {tile.fx0, midY, midX, tile.fy1}, {midX, midY, tile.fx1, tile.fy1}};
+        for (int[] b : bounds) {
+            IntList members = new IntList(tile.size() / 2);
+            for (int i : tile.members) {
+                if (fineX(scene.maxX[i]) >= b[0] && fineX(scene.minX[i]) < b[2] &&
+                        fineY(scene.maxY[i]) >= b[1] && fineY(scene.minY[i]) < b[3]) {
+                    members.add(i);
+                }
+            }
+            if (!members.isEmpty()) {
+                addTile(scene, new Tile(b[0], b[1], b[2], b[3], tile.depth + 1, members.toArray()), splitThreshold);
+            }
+        }
+    }
+
+    private int fineX(double x) {
+        return (int) ((x - originX) / fineSize);
+    }
+
+    private int fineY(double y) {
+        return (int) ((y - originY) / fineSize);
+    }
+
+    // 점 (x, y)가 타일 안에 있는가 - 모든 타일 중 정확히 하나만 참
+    boolean contains(Tile tile, double x, double y) {
+        int fx = fineX(x);
+        int fy = fineY(y);
+        return fx >= tile.fx0 && fx < tile.fx1 && fy >= tile.fy0 && fy < tile.fy1;
+    }
+
+    public List<Tile> getTiles() {
+        return tiles;
+    }
+
+    public double getTileSize() {
+        return tileSize;
+    }
+
+    public int getSplitCount() {
+        return splitCount;
+    }
+}
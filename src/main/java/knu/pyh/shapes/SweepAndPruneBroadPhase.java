@@ -0,0 +1,47 @@
+package knu.pyh.shapes;
+
+import java.util.stream.IntStream;
+
+// 정렬 후 쓸기(Sort-and-sweep) 전략
+// x 구간 시작점으로 정렬한 뒤, x 구간이 겹치는 동안만 앞으로 훑으며 y 구간을 확인한다
+public class SweepAndPruneBroadPhase implements BroadPhase {
+
+    @Override
+    public String getName() {
+        return "sweep";
+    }
+
+    @Override
+    public Candidates prepare(Scene scene, double maxRadius) {
+        int n = scene.size();
+
+        double[] minX = scene.minX;
+        double[] minY = scene.minY;
+        double[] maxX = scene.maxX;
+        double[] maxY = scene.maxY;
+        int[] order = IntStream.range(0, n).boxed()
+                .sorted((a, b) -> Double.compare(minX[a], minX[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        // task k = 정렬 순서상 k번째 도형에서 시작하는 쓸기
+        return new Candidates() {
+            @Override
+            public int taskCount() {
+                return n;
+            }
+
+            @Override
+            public void forEachPair(int k, PairVisitor visitor) {
+                int a = order[k];
+                for (int m = k + 1; m < n && minX[order[m]] <= maxX[a]; m++) {
+                    int b = order[m];
+                    if (maxY[a] < minY[b] || maxY[b] < minY[a]) {
+                        continue;
+                    }
+                    visitor.visit(Math.min(a, b), Math.max(a, b));
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package knu.pyh.shapes;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Arrays;
+
+// 타일 단위 그룹화 한 번 실행의 타일별 소요 시간 - 타일 간 부하 균형을 보기 위한 것
+// 타일별 값은 서로 다른 스레드가 자기 타일 칸에만 쓴다
+public class TileStats {
+    private static final int SLOWEST_TILES = 5;
+
+    private final double tileSize;
+    private final int splitTiles;
+    private final int[] shapes;
+    private final long[] nanos;
+    private final long[] pairsTested;
+    private int borderShapes;
+    private int borderLinks;
+    private long reductionNanos;
+
+    TileStats(SpatialTiles tiles) {
+        this.tileSize = tiles.getTileSize();
+        this.splitTiles = tiles.getSplitCount();
+        int count = tiles.getTiles().size();
+        this.shapes = new int[count];
+        this.nanos = new long[count];
+        this.pairsTested = new long[count];
+    }
+
+    void setTile(int tile, int shapes, long nanos, long pairsTested) {
+        this.shapes[tile] = shapes;
+        this.nanos[tile] = nanos;
+        this.pairsTested[tile] = pairsTested;
+    }
+
+    void setReduction(int borderShapes, int borderLinks, long reductionNanos) {
+        this.borderShapes = borderShapes;
+        this.borderLinks = borderLinks;
+        this.reductionNanos = reductionNanos;
+    }
+
+    public int getTileCount() {
+        return nanos.length;
+    }
+
+    // 가장 오래 걸린 타일 / 평균 (1에 가까울수록 고르게 나뉨)
+    public double getImbalance() {
+        long max = 0, sum = 0;
+        for (long t : nanos) {
+            max = Math.max(max, t);
+            sum += t;
+        }
+        return sum == 0 ? 1 : max / (sum / (double) nanos.length);
+    }
+
+    public JSONObject toJSON() {
+        int count = nanos.length;
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        long sum = 0;
+        int maxShapes = 0;
+        for (int t = 0; t < count; t++) {
+            sum += nanos[t];
+            maxShapes = Math.max(maxShapes, shapes[t]);
+        }
+
+        JSONObject json = new JSONObject();
+        json.put("tileSize", tileSize);
+        json.put("tileCount", count);
+        json.put("splitTiles", splitTiles);
+        json.put("maxTileShapes", maxShapes);
+        json.put("borderShapes", borderShapes);
+        json.put("borderLinks", borderLinks);
+        json.put("reductionMillis", reductionNanos / 1_000_000.0);
+        if (count > 0) {
+            JSONObject millis = new JSONObject();
+            millis.put("min", sorted[0] / 1_000_000.0);
+            millis.put("p50", sorted[count / 2] / 1_000_000.0);
+            millis.put("p95", sorted[Math.min(count - 1, (int) (count * 0.95))] / 1_000_000.0);
+            millis.put("max", sorted[count - 1] / 1_000_000.0);
+            millis.put("mean", sum / (double) count / 1_000_000.0);
+            millis.put("total", sum / 1_000_000.0);
+            json.put("tileMillis", millis);
+            json.put("imbalance", getImbalance());
+        }
+
+        // 가장 오래 걸린 타일 몇 개
+        Integer[] order = new Integer[count];
+        for (int t = 0; t < count; t++) {
+            order[t] = t;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(nanos[b], nanos[a]));
+        JSONArray slowest = new JSONArray();
+        for (int k = 0; k < Math.min(SLOWEST_TILES, count); k++) {
+            int t = order[k];
+            JSONObject tile = new JSONObject();
+            tile.put("tile", t);
+            tile.put("shapes", shapes[t]);
+            tile.put("pairsTested", pairsTested[t]);
+            tile.put("millis", nanos[t] / 1_000_000.0);
+            slowest.put(tile);
+        }
+        json.put("slowestTiles", slowest);
+        return json;
+    }
+}
@@ -0,0 +1,113 @@
+package knu.pyh.shapes;
+
+// 균일 격자(Uniform spatial hash) 전략
+// 셀 크기를 RadiusMax의 2배로 잡으면 한 도형은 최대 2x2 셀에만 걸친다
+public class UniformGridBroadPhase implements BroadPhase {
+    // 격자가 지나치게 커지지 않도록 셀 개수 상한
+    private static final long MAX_CELLS = 1L << 22;
+
+    @Override
+    public String getName() {
+        return "grid";
+    }
+
+    @Override
+    public Candidates prepare(Scene scene, double maxRadius) {
+        int n = scene.size();
+
+        // 1. 장면 전체 범위 계산 (도형별 경계 상자는 Scene에 미리 계산되어 있다)
+        double[] minX = scene.minX;
+        double[] minY = scene.minY;
+        double[] maxX = scene.maxX;
+        double[] maxY = scene.maxY;
+        double originX = 0, originY = 0;
+        double extentX = 0, extentY = 0;
+        for (int i = 0; i < n; i++) {
+            originX = i == 0 ? minX[i] : Math.min(originX, minX[i]);
+            originY = i == 0 ? minY[i] : Math.min(originY, minY[i]);
+            extentX = i == 0 ? maxX[i] : Math.max(extentX, maxX[i]);
+            extentY = i == 0 ? maxY[i] : Math.max(extentY, maxY[i]);
+        }
+
+        // 2. 셀 크기 결정 (RadiusMax 기준, 셀 개수가 너무 많으면 키운다)
+        double cellSize = Math.max(2 * maxRadius, 1.0);
+        int cols, rows;
+        while (true) {
+            // 칸 수는 실수로 먼저 확인한다 (범위가 넓으면 int 변환이 포화되어 곱 검사를 빠져나간다)
+            double spanX = Math.floor((extentX - originX) / cellSize) + 1;
+            double spanY = Math.floor((extentY - originY) / cellSize) + 1;
+            if (spanX * spanY <= MAX_CELLS) {
+                cols = (int) spanX;
+                rows = (int) spanY;
+                break;
+            }
+            cellSize *= 2;
+        }
+
+        // 3. 셀별 도형 수 세기 → 누적합으로 시작 위치 계산 (CSR 형태)
+        int[] cellStart = new int[cols * rows + 1];
+        for (int i = 0; i < n; i++) {
+            int x0 = cell(minX[i], originX, cellSize), x1 = cell(maxX[i], originX, cellSize);
+            int y0 = cell(minY[i], originY, cellSize), y1 = cell(maxY[i], originY, cellSize);
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    cellStart[y * cols + x + 1]++;
+                }
+            }
+        }
+        for (int c = 0; c < cols * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+
+        // 4. 셀에 도형 인덱스 채우기 (i 오름차순이므로 셀 안에서도 정렬 상태 유지)
+        int[] fill = new int[cols * rows];
+        int[] cellItems = new int[cellStart[cols * rows]];
+        for (int i = 0; i < n; i++) {
+            int x0 = cell(minX[i], originX, cellSize), x1 = cell(maxX[i], originX, cellSize);
+            int y0 = cell(minY[i], originY, cellSize), y1 = cell(maxY[i], originY, cellSize);
+            for (int y = y0; y <= y1; y++) {
+                for (int x = x0; x <= x1; x++) {
+                    int c = y * cols + x;
+                    cellItems[cellStart[c] + fill[c]++] = i;
+                }
+            }
+        }
+
+        // 5. 같은 셀 안의 쌍만 검사 (task = 셀 하나)
+        // 여러 셀을 공유하는 쌍은 두 상자의 교차 영역 좌하단 모서리가 속한 셀에서만 보고한다
+        final int gridCols = cols;
+        final int cellCount = cols * rows;
+        final double gridOriginX = originX, gridOriginY = originY, gridCellSize = cellSize;
+        return new Candidates() {
+            @Override
+            public int taskCount() {
+                return cellCount;
+            }
+
+            @Override
+            public void forEachPair(int c, PairVisitor visitor) {
+                int cx = c % gridCols;
+                int cy = c / gridCols;
+                for (int p = cellStart[c]; p < cellStart[c + 1]; p++) {
+                    int a = cellItems[p];
+                    for (int q = p + 1; q < cellStart[c + 1]; q++) {
+                        int b = cellItems[q];
+                        if (maxX[a] < minX[b] || maxX[b] < minX[a] ||
+                                maxY[a] < minY[b] || maxY[b] < minY[a]) {
+                            continue;
+                        }
+                        if (cell(Math.max(minX[a], minX[b]), gridOriginX, gridCellSize) != cx ||
+                                cell(Math.max(minY[a], minY[b]), gridOriginY, gridCellSize) != cy) {
+                            continue;
+                        }
+                        visitor.visit(a, b);
+                    }
+                }
+            }
+        };
+    }
+
+    private static int cell(double v, double origin, double cellSize) {
+        return (int) ((v - origin) / cellSize);
+    }
+}
@@ -0,0 +1,45 @@
+package knu.pyh.shapes;
+
+// 정수 인덱스 기반 Union-Find
+// 재귀 없이 경로 절반 압축(path halving)을 하므로 긴 사슬에서도 스택이 넘치지 않는다
+public class UnionFind {
+    private final int[] parent;
+    private final byte[] rank;
+
+    public UnionFind(int size) {
+        this.parent = new int[size];
+        this.rank = new byte[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+    }
+
+    public int find(int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    // 서로 다른 집합을 합쳤으면 true
+    public boolean union(int x, int y) {
+        int rootX = find(x);
+        int rootY = find(y);
+
+        if (rootX == rootY) {
+            return false;
+        }
+
+        // 랭크 기반 합치기
+        if (rank[rootX] < rank[rootY]) {
+            parent[rootX] = rootY;
+        } else if (rank[rootX] > rank[rootY]) {
+            parent[rootY] = rootX;
+        } else {
+            parent[rootY] = rootX;
+            rank[rootX]++;
+        }
+        return true;
+    }
+}
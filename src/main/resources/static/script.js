@@ -1,3 +1,6 @@
+// 이 개수 이상이면 요청 스레드를 잡아 두지 않도록 작업(Job)으로 제출하고 진행 상황을 SSE로 받는다
+const ASYNC_THRESHOLD = 20000;
+
 class ShapeVisualizer {
     constructor() {
         this.canvas = document.getElementById('shapeCanvas');
@@ -71,8 +74,9 @@ class ShapeVisualizer {
             this.ctx.fillText('생성 중...', this.canvas.width / 2, this.canvas.height / 2);
 
             // API 호출
-            const response = await fetch(`/api?${params.toString()}`);
-            const data = await response.json();
+            const data = count >= ASYNC_THRESHOLD
+                ? await this.runJob(params)
+                : await (await fetch(`/api?${params.toString()}`)).json();
 
             if (data.RES.STATUS === 200) {
                 // 응답에서 도형 데이터 추출
@@ -97,6 +101,43 @@ class ShapeVisualizer {
         }
     }
 
+    async runJob(params) {
+        params.set('Action', 'JobSubmit');
+        const submitted = await (await fetch(`/api?${params.toString()}`)).json();
+        if (submitted.RES.STATUS !== 200) {
+            return submitted;
+        }
+        const jobId = submitted.RES.RESULT.jobId;
+
+        // 끝날 때까지 진행 상황 표시
+        await new Promise((resolve) => {
+            const events = new EventSource(`/api?Action=JobEvents&JobId=${jobId}`);
+            events.addEventListener('progress', (e) => this.showProgress(JSON.parse(e.data)));
+            events.addEventListener('done', () => {
+                events.close();
+                resolve();
+            });
+            events.onerror = () => {
+                events.close();
+                resolve();
+            };
+        });
+
+        return (await fetch(`/api?Action=JobResult&JobId=${jobId}`)).json();
+    }
+
+    showProgress(job) {
+        this.ctx.fillStyle = '#f0f0f0';
+        this.ctx.fillRect(0, 0, this.canvas.width, this.canvas.height);
+        this.ctx.fillStyle = '#666';
+        this.ctx.font = '20px Arial';
+        this.ctx.textAlign = 'center';
+        const text = job.phase === 'generating'
+            ? `생성 중... ${job.shapesGenerated} / ${job.howMany}`
+            : `겹침 검사 중... ${job.pairsTested} 쌍, 그룹 ${job.components}`;
+        this.ctx.fillText(text, this.canvas.width / 2, this.canvas.height / 2);
+    }
+
     showError(message) {
         this.ctx.fillStyle = '#ffffff';
         this.ctx.fillRect(0, 0, this.canvas.width, this.canvas.height);
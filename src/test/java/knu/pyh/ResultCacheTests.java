@@ -0,0 +1,216 @@
+package knu.pyh;
+
+import knu.pyh.shapes.DeadlineExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 캐시는 정적 저장소이므로 테스트마다 겹치지 않는 키를 쓰고, 통계는 전후 차이로 본다
+class ResultCacheTests {
+
+    private static final long WAIT_MILLIS = 10_000;
+
+    // 같은 키의 동시 요청 - 앞선 요청 하나만 계산하고 나머지는 같은 바이트 배열을 받는다
+    @Test
+    void concurrentRequestsLoadOnce() throws Exception {
+        String key = uniqueKey();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        byte[] value = {1, 2, 3};
+        ResultCache.Loader<byte[]> loader = () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            release.await();
+            return value;
+        };
+
+        int followers = 7;
+        long coalescedBefore = stat("coalesced");
+        ExecutorService threads = Executors.newFixedThreadPool(followers + 1);
+        try {
+            Future<byte[]> leader = threads.submit(() -> ResultCache.get(key, WAIT_MILLIS, loader));
+            assertTrue(loading.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int t = 0; t < followers; t++) {
+                results.add(threads.submit(() -> ResultCache.get(key, WAIT_MILLIS, loader)));
+            }
+            waitUntil(() -> stat("coalesced") - coalescedBefore >= followers);
+            release.countDown();
+
+            assertSame(value, leader.get());
+            for (Future<byte[]> result : results) {
+                assertSame(value, result.get());
+            }
+        } finally {
+            release.countDown();
+            threads.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        // 계산이 끝난 뒤의 요청은 캐시에서 바로 받는다
+        assertSame(value, ResultCache.get(key, WAIT_MILLIS, () -> {
+            throw new AssertionError("캐시에 있는 키를 다시 계산함");
+        }));
+    }
+
+    // 여러 스레드가 동시에 출발해도 키마다 계산은 한 번 - 앞선 계산이 캐시에 넣고 빠지는 사이에
+    // 들어온 요청은 putIfAbsent에서 이긴 뒤 캐시를 다시 확인하므로 두 번째 계산을 하지 않는다
+    @Test
+    void racingRequestsNeverLoadTwice() throws Exception {
+        int threadCount = 8;
+        int rounds = 200;
+        ExecutorService threads = Executors.newFixedThreadPool(threadCount);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                String key = uniqueKey();
+                AtomicInteger loads = new AtomicInteger();
+                CyclicBarrier start = new CyclicBarrier(threadCount);
+                List<Future<byte[]>> results = new ArrayList<>();
+                for (int t = 0; t < threadCount; t++) {
+                    results.add(threads.submit(() -> {
+                        start.await();
+                        return ResultCache.get(key, WAIT_MILLIS, () -> new byte[]{(byte) loads.incrementAndGet()});
+                    }));
+                }
+                byte[] first = results.get(0).get();
+                for (Future<byte[]> result : results) {
+                    assertSame(first, result.get(), "round " + round);
+                }
+                assertEquals(1, loads.get(), "round " + round);
+            }
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    // 기다리는 요청은 자기 처리 시간 한도까지만 기다리고, 앞선 계산은 그대로 끝나 캐시에 들어간다
+    @Test
+    void followerWaitIsBoundedByItsOwnTimeout() throws Exception {
+        String key = uniqueKey();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        byte[] value = {4, 5};
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        try {
+            Future<byte[]> leader = threads.submit(() -> ResultCache.get(key, WAIT_MILLIS, () -> {
+                loading.countDown();
+                release.await();
+                return value;
+            }));
+            assertTrue(loading.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+
+            long start = System.nanoTime();
+            DeadlineExceededException e = assertThrows(DeadlineExceededException.class,
+                    () -> ResultCache.get(key, 100, () -> new byte[0]));
+            long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertEquals(100, e.getTimeoutMillis());
+            assertTrue(waitedMillis >= 90 && waitedMillis < 5_000, "waited " + waitedMillis + "ms");
+
+            release.countDown();
+            assertSame(value, leader.get());
+            assertSame(value, ResultCache.get(key, 0, () -> new byte[0]));
+        } finally {
+            release.countDown();
+            threads.shutdownNow();
+        }
+    }
+
+    // 앞선 계산이 취소되면 (한도 초과가 아닌 취소) 기다리던 요청이 직접 계산한다
+    @Test
+    void followerRetriesAfterLeaderIsCancelled() throws Exception {
+        String key = uniqueKey();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch cancel = new CountDownLatch(1);
+        ExecutorService threads = Executors.newFixedThreadPool(2);
+        try {
+            Future<byte[]> leader = threads.submit(() -> ResultCache.get(key, WAIT_MILLIS, () -> {
+                loading.countDown();
+                cancel.await();
+                throw new CancellationException("클라이언트 연결 끊김");
+            }));
+            assertTrue(loading.await(WAIT_MILLIS, TimeUnit.MILLISECONDS));
+            long coalescedBefore = stat("coalesced");
+            byte[] value = {6};
+            Future<byte[]> follower = threads.submit(() -> ResultCache.get(key, WAIT_MILLIS, () -> value));
+            waitUntil(() -> stat("coalesced") > coalescedBefore);
+            cancel.countDown();
+
+            assertSame(value, follower.get());
+            Exception e = assertThrows(Exception.class, leader::get);
+            assertTrue(e.getCause() instanceof CancellationException, String.valueOf(e.getCause()));
+        } finally {
+            cancel.countDown();
+            threads.shutdownNow();
+        }
+    }
+
+    // 전체 한도를 넘으면 가장 오래 쓰이지 않은 항목부터 빠지고, 항목 한도보다 큰 값은 보관하지 않는다
+    @Test
+    void leastRecentlyUsedEntriesAreEvicted() throws Exception {
+        int size = (int) (ResultCache.MAX_BYTES / 5);
+        String[] keys = new String[8];
+        for (int k = 0; k < keys.length; k++) {
+            keys[k] = uniqueKey();
+        }
+        long evictionsBefore = stat("evictions");
+        ResultCache.get(keys[0], WAIT_MILLIS, () -> new byte[size]);
+        ResultCache.get(keys[1], WAIT_MILLIS, () -> new byte[size]);
+        for (int k = 2; k < keys.length; k++) {
+            // 0번은 계속 쓰이므로 남고, 1번부터 차례로 빠진다
+            ResultCache.get(keys[0], WAIT_MILLIS, () -> {
+                throw new AssertionError("최근에 쓴 항목이 빠짐");
+            });
+            ResultCache.get(keys[k], WAIT_MILLIS, () -> new byte[size]);
+        }
+        assertTrue(stat("evictions") > evictionsBefore);
+        assertTrue(stat("bytes") <= ResultCache.MAX_BYTES);
+
+        AtomicInteger loads = new AtomicInteger();
+        ResultCache.get(keys[1], WAIT_MILLIS, () -> {
+            loads.incrementAndGet();
+            return new byte[size];
+        });
+        assertEquals(1, loads.get(), "빠진 항목은 다시 계산한다");
+
+        String large = uniqueKey();
+        byte[] tooLarge = new byte[(int) ResultCache.MAX_ENTRY_BYTES + 1];
+        assertSame(tooLarge, ResultCache.get(large, WAIT_MILLIS, () -> tooLarge));
+        assertArrayEquals(new byte[]{7}, ResultCache.get(large, WAIT_MILLIS, () -> new byte[]{7}));
+    }
+
+    private static String uniqueKey() {
+        return "test|" + UUID.randomUUID();
+    }
+
+    private static long stat(String name) {
+        return ResultCache.statsToJSON().getLong(name);
+    }
+
+    private interface Condition {
+        boolean holds();
+    }
+
+    private static void waitUntil(Condition condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(WAIT_MILLIS);
+        while (!condition.holds()) {
+            assertTrue(System.nanoTime() < deadline, "조건을 기다리다 시간 초과");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package knu.pyh;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShapesBatchTests {
+
+    // 클라이언트가 첫 결과를 받다가 끊기면 이미 계산 중인 항목과 대기 중인 항목이 모두 취소되어야 한다
+    // 무거운 항목은 취소하지 않으면 각각 수 초가 걸리므로, 입장한 계산(running)이 곧 0으로 돌아오는지로 확인한다
+    @Test
+    void pendingItemsAreCancelledWhenTheStreamEnds() throws Exception {
+        JSONArray items = new JSONArray();
+        items.put(item(10, 1));
+        for (int i = 0; i < 32; i++) {
+            items.put(item(400_000, 100 + i));
+        }
+        JSONObject defaults = new JSONObject();
+        defaults.put("Width", "200000");
+        defaults.put("Height", "200000");
+        defaults.put("RadiusMax", "20");
+        defaults.put("MaxEdges", "8");
+        ShapesBatch batch = new ShapesBatch(items, defaults, "shapes-batch-test");
+
+        long runningBefore = running();
+        long admittedBefore = admitted();
+        OutputStream disconnected = new OutputStream() {
+            private long written;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                // 머리 부분은 받고, 첫 항목의 결과를 쓰는 중에 끊긴다
+                written += len;
+                if (written > 256) {
+                    throw new IOException("클라이언트 연결 끊김");
+                }
+            }
+        };
+        JsonGenerator gen = new JsonFactory().createGenerator(disconnected, JsonEncoding.UTF8);
+        assertThrows(IOException.class, () -> batch.writeJSON(gen, disconnected));
+        // 첫 항목 말고도 무거운 항목이 계산을 시작했어야 확인할 것이 있다
+        assertTrue(admitted() - admittedBefore > 1, "무거운 항목이 입장하지 않음");
+
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(5);
+        while (running() > runningBefore) {
+            assertTrue(System.nanoTime() < deadline, "끊긴 뒤에도 배치 항목이 계속 계산됨: running " + running());
+            Thread.sleep(5);
+        }
+    }
+
+    private static JSONObject item(int howMany, long seed) {
+        JSONObject item = new JSONObject();
+        item.put("HowMany", howMany);
+        item.put("Seed", seed);
+        return item;
+    }
+
+    private static long running() {
+        return AdmissionControl.statsToJSON().getLong("running");
+    }
+
+    private static long admitted() {
+        return AdmissionControl.statsToJSON().getLong("admitted");
+    }
+}
@@ -0,0 +1,127 @@
+package knu.pyh.shape_overlaps;
+
+import knu.pyh.shapes.IntList;
+import knu.pyh.shapes.LiveScene;
+import knu.pyh.shapes.NarrowPhase;
+import knu.pyh.shapes.Scene;
+import knu.pyh.shapes.UnionFind;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LiveSceneTests {
+
+    private static final double SIDE = 600;
+    private static final double CELL_SIZE = 40;
+
+    // 무작위 추가/이동/삭제를 이어 가며 매 단계 증분 연결 요소가 살아 있는 도형 전체의 union-find 결과와 같은지 확인한다
+    // 반경을 가끔 크게 뽑아 격자 대신 큰 도형 목록으로 가는 경로(큰 도형끼리, 큰 도형 ↔ 보통 도형)도 함께 검사한다
+    @Test
+    void incrementalGroupsMatchFullUnionFind() {
+        for (long seed = 1; seed <= 3; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            LiveScene liveScene = new LiveScene(new Scene(), CELL_SIZE);
+            IntList live = new IntList();
+            boolean sawLarge = false;
+
+            for (int step = 0; step < 300; step++) {
+                int op = live.size() < 20 ? 0 : random.nextInt(4);
+                if (op <= 1) {
+                    double r = random.nextInt(12) == 0 ? 100 + random.nextDouble(150) : 5 + random.nextDouble(25);
+                    double x = random.nextDouble(SIDE);
+                    double y = random.nextDouble(SIDE);
+                    LiveScene.Update update;
+                    switch (random.nextInt(3)) {
+                        case 0:
+                            update = liveScene.addCircle(x, y, r, 0);
+                            break;
+                        case 1:
+                            update = liveScene.addRegularPolygon(x, y, r, 3 + random.nextInt(10), random.nextDouble(Math.PI), 0);
+                            break;
+                        default:
+                            update = liveScene.addIrregularPolygon(x, y, r, 3 + random.nextInt(10), 0);
+                            break;
+                    }
+                    live.add(update.getShape());
+                } else if (op == 2) {
+                    int index = live.get(random.nextInt(live.size()));
+                    liveScene.move(index, random.nextDouble(SIDE), random.nextDouble(SIDE));
+                } else {
+                    int p = random.nextInt(live.size());
+                    liveScene.remove(live.get(p));
+                    live.removeValue(live.get(p));
+                }
+                sawLarge |= liveScene.getLargeShapeCount() > 0;
+
+                assertEquals(live.size(), liveScene.getLiveCount());
+                assertSameGroups(expectedGroups(liveScene.getScene()), liveScene.groups(), "seed " + seed + ", step " + step);
+            }
+            assertTrue(sawLarge, "큰 도형 경로를 한 번도 거치지 않음");
+        }
+    }
+
+    // 이동 결과의 연결 요소 크기 / 이웃 수는 같은 잠금 안에서 구한 값이어야 한다
+    @Test
+    void updateReportsGroupOfMovedShape() {
+        LiveScene liveScene = new LiveScene(new Scene(), CELL_SIZE);
+        int a = liveScene.addCircle(100, 100, 10, 0).getShape();
+        liveScene.addCircle(115, 100, 10, 0);
+        LiveScene.Update far = liveScene.addCircle(400, 400, 10, 0);
+        assertEquals(1, far.getGroupSize());
+        assertEquals(0, far.getNeighborCount());
+
+        LiveScene.Update moved = liveScene.move(far.getShape(), 100, 115);
+        assertEquals(3, moved.getGroupSize());
+        assertEquals(1, moved.getNeighborCount());
+
+        LiveScene.QueryResult hits = liveScene.queryPoint(100, 100);
+        assertTrue(Arrays.stream(hits.getHits()).anyMatch(i -> i == a));
+        assertTrue(hits.isIndexRebuilt());
+        assertTrue(!liveScene.queryPoint(100, 100).isIndexRebuilt());
+    }
+
+    // 살아 있는 모든 도형 쌍을 좁은 단계로 확인해 union-find로 묶은 결과 (첫 도형 인덱스 순서)
+    private static List<int[]> expectedGroups(Scene scene) {
+        int n = scene.size();
+        UnionFind unionFind = new UnionFind(n);
+        for (int i = 0; i < n; i++) {
+            if (scene.isRemoved(i)) continue;
+            for (int j = i + 1; j < n; j++) {
+                if (!scene.isRemoved(j) && NarrowPhase.overlaps(scene, i, scene, j)) {
+                    unionFind.union(i, j);
+                }
+            }
+        }
+
+        int[] groupOfRoot = new int[n];
+        Arrays.fill(groupOfRoot, -1);
+        List<IntList> members = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (scene.isRemoved(i)) continue;
+            int root = unionFind.find(i);
+            if (groupOfRoot[root] < 0) {
+                groupOfRoot[root] = members.size();
+                members.add(new IntList());
+            }
+            members.get(groupOfRoot[root]).add(i);
+        }
+        List<int[]> groups = new ArrayList<>();
+        for (IntList group : members) {
+            groups.add(group.toArray());
+        }
+        return groups;
+    }
+
+    private static void assertSameGroups(List<int[]> expected, List<int[]> actual, String where) {
+        assertEquals(expected.size(), actual.size(), where);
+        for (int g = 0; g < expected.size(); g++) {
+            assertEquals(Arrays.toString(expected.get(g)), Arrays.toString(actual.get(g)), where);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package knu.pyh.shape_overlaps;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+// OverlapBinaryWriter 형식을 읽는 참조 디코더 (클라이언트 구현 예시 겸 왕복 테스트용)
+class OverlapBinaryDecoder {
+    int version;
+    int coordinateBytes;
+    int shapeCount;
+    int vertexCount;
+    int groupCount;
+    long overlappingPairs;
+
+    byte[] types;
+    int[] colors;
+    double[] centerX;
+    double[] centerY;
+    double[] radius;
+    int[] sides;
+    double[] rotation;
+    int[] vertexStart;
+    double[] xs;
+    double[] ys;
+    int[] groupIds;
+    int[] groupColors;
+
+    static OverlapBinaryDecoder decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        OverlapBinaryDecoder decoded = new OverlapBinaryDecoder();
+
+        if (buffer.get() != 'S' || buffer.get() != 'O' || buffer.get() != 'V' || buffer.get() != 'B') {
+            throw new IllegalArgumentException("매직 값이 올바르지 않습니다.");
+        }
+        decoded.version = buffer.getShort();
+        decoded.coordinateBytes = buffer.get();
+        buffer.get();
+        decoded.shapeCount = buffer.getInt();
+        decoded.vertexCount = buffer.getInt();
+        decoded.groupCount = buffer.getInt();
+        buffer.getInt();
+        decoded.overlappingPairs = buffer.getLong();
+
+        int n = decoded.shapeCount;
+        decoded.types = new byte[n];
+        section(buffer).get(decoded.types);
+        decoded.colors = ints(buffer, n);
+        decoded.centerX = reals(buffer, n, decoded.coordinateBytes);
+        decoded.centerY = reals(buffer, n, decoded.coordinateBytes);
+        decoded.radius = reals(buffer, n, decoded.coordinateBytes);
+        decoded.sides = ints(buffer, n);
+        decoded.rotation = reals(buffer, n, decoded.coordinateBytes);
+        decoded.vertexStart = ints(buffer, n + 1);
+        decoded.xs = reals(buffer, decoded.vertexCount, decoded.coordinateBytes);
+        decoded.ys = reals(buffer, decoded.vertexCount, decoded.coordinateBytes);
+        decoded.groupIds = ints(buffer, n);
+        decoded.groupColors = ints(buffer, decoded.groupCount);
+
+        if (buffer.hasRemaining()) {
+            throw new IllegalArgumentException("남은 바이트가 있습니다: " + buffer.remaining());
+        }
+        return decoded;
+    }
+
+    // 구역 머리(길이 + 예약)를 읽고 내용만 담은 뷰를 돌려준 뒤, 채움 바이트까지 건너뛴다
+    private static ByteBuffer section(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        buffer.getInt();
+        ByteBuffer content = buffer.slice(buffer.position(), length).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(buffer.position() + (length + 7) / 8 * 8);
+        return content;
+    }
+
+    private static int[] ints(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        section(buffer).asIntBuffer().get(values);
+        return values;
+    }
+
+    private static double[] reals(ByteBuffer buffer, int count, int coordinateBytes) {
+        ByteBuffer content = section(buffer);
+        double[] values = new double[count];
+        if (coordinateBytes == 8) {
+            content.asDoubleBuffer().get(values);
+        } else {
+            for (int i = 0; i < count; i++) {
+                values[i] = content.getFloat();
+            }
+        }
+        return values;
+    }
+}
@@ -0,0 +1,83 @@
+package knu.pyh.shape_overlaps;
+
+import knu.pyh.shapes.OverlapBinaryWriter;
+import knu.pyh.shapes.OverlapResult;
+import knu.pyh.shapes.Scene;
+import knu.pyh.shapes.ShapeGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OverlapBinaryFormatTests {
+
+    @Test
+    void float64RoundTripIsExact() throws IOException {
+        OverlapResult result = new ShapeGenerator().generate(1200, 800, 40, 500, 8);
+        OverlapBinaryDecoder decoded = OverlapBinaryDecoder.decode(encode(result, false));
+        Scene scene = result.getScene();
+
+        assertEquals(OverlapBinaryWriter.VERSION, decoded.version);
+        assertEquals(8, decoded.coordinateBytes);
+        assertEquals(scene.size(), decoded.shapeCount);
+        assertEquals(result.getOverlappingPairs(), decoded.overlappingPairs);
+
+        for (int i = 0; i < scene.size(); i++) {
+            assertEquals(scene.getType(i).ordinal(), decoded.types[i]);
+            assertEquals(scene.getColor(i), decoded.colors[i]);
+            assertEquals(scene.getCenterX(i), decoded.centerX[i]);
+            assertEquals(scene.getCenterY(i), decoded.centerY[i]);
+            assertEquals(scene.getRadius(i), decoded.radius[i]);
+            assertEquals(scene.getVertexStart(i), decoded.vertexStart[i]);
+            assertEquals(scene.getVertexEnd(i), decoded.vertexStart[i + 1]);
+            for (int k = scene.getVertexStart(i); k < scene.getVertexEnd(i); k++) {
+                assertEquals(scene.getVertexX(k), decoded.xs[k]);
+                assertEquals(scene.getVertexY(k), decoded.ys[k]);
+            }
+        }
+
+        assertGroups(result.getGroups(), decoded);
+    }
+
+    @Test
+    void float32RoundTripKeepsSinglePrecision() throws IOException {
+        OverlapResult result = new ShapeGenerator().generate(1200, 800, 40, 500, 8);
+        OverlapBinaryDecoder decoded = OverlapBinaryDecoder.decode(encode(result, true));
+        Scene scene = result.getScene();
+
+        assertEquals(4, decoded.coordinateBytes);
+        for (int i = 0; i < scene.size(); i++) {
+            assertEquals((float) scene.getCenterX(i), (float) decoded.centerX[i]);
+            assertEquals((float) scene.getRadius(i), (float) decoded.radius[i]);
+            for (int k = scene.getVertexStart(i); k < scene.getVertexEnd(i); k++) {
+                assertEquals((float) scene.getVertexX(k), (float) decoded.xs[k]);
+            }
+        }
+
+        assertGroups(result.getGroups(), decoded);
+    }
+
+    private static byte[] encode(OverlapResult result, boolean float32) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OverlapBinaryWriter.write(result, out, float32);
+        return out.toByteArray();
+    }
+
+    private static void assertGroups(List<int[]> groups, OverlapBinaryDecoder decoded) {
+        int groupId = 0;
+        for (int i = 0; i < groups.size(); i++) {
+            int[] group = groups.get(i);
+            for (int index : group) {
+                assertEquals(group.length > 1 ? groupId : -1, decoded.groupIds[index]);
+            }
+            if (group.length > 1) {
+                assertEquals(Scene.parseColor(OverlapResult.groupColor(i)), decoded.groupColors[groupId]);
+                groupId++;
+            }
+        }
+        assertEquals(groupId, decoded.groupCount);
+    }
+}
@@ -0,0 +1,67 @@
+package knu.pyh.shapes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// 커널은 src/jmh에 있고 build.gradle이 jmh 출력을 테스트 클래스패스에 올린다
+// test 작업은 --add-modules jdk.incubator.vector로 실행하므로 Vector API 커널을 건너뛰지 않고 확인한다
+class BatchCollisionKernelTests {
+
+    @Test
+    void vectorKernelMatchesScalarOnEveryPair() {
+        BatchCollisionKernel vector = BatchCollisionKernel.vector();
+        assertNotNull(vector, "jdk.incubator.vector 모듈 없이 실행됨 (build.gradle의 test jvmArgs 확인)");
+        assertAgreesWithNarrowPhase(vector);
+    }
+
+    @Test
+    void scalarKernelMatchesNarrowPhase() {
+        assertAgreesWithNarrowPhase(BatchCollisionKernel.scalar());
+    }
+
+    @Test
+    void bestKernelIsAlwaysAvailable() {
+        assertNotNull(BatchCollisionKernel.best());
+    }
+
+    // 꼭짓점 수가 제각각인 원/정다각형/일반다각형을 섞어, 묶음이 레인 수로 나누어떨어지지 않는 경우까지 확인한다
+    private static void assertAgreesWithNarrowPhase(BatchCollisionKernel kernel) {
+        SplittableRandom random = new SplittableRandom(20240601L);
+        Scene scene = new Scene();
+        for (int s = 0; s < 1500; s++) {
+            double cx = random.nextDouble(400);
+            double cy = random.nextDouble(400);
+            double r = 5 + random.nextDouble(25);
+            int sides = 3 + random.nextInt(30);
+            int type = random.nextInt(3);
+            if (type == 0) {
+                scene.addCircle(cx, cy, r, 0);
+            } else if (type == 1) {
+                scene.addRegularPolygon(cx, cy, r, sides, random.nextDouble(2 * Math.PI), 0);
+            } else {
+                IrregularPolygon.addRandom(scene, random, cx, cy, r, sides, 0);
+            }
+        }
+
+        int[] candidates = new int[scene.size()];
+        boolean[] results = new boolean[scene.size()];
+        for (int i = 0; i < scene.size(); i++) {
+            int count = 0;
+            for (int j = 0; j < scene.size(); j++) {
+                if (j != i && Math.abs(scene.getCenterX(i) - scene.getCenterX(j)) < 60
+                        && Math.abs(scene.getCenterY(i) - scene.getCenterY(j)) < 60) {
+                    candidates[count++] = j;
+                }
+            }
+            kernel.overlaps(scene, i, candidates, count, results);
+            for (int c = 0; c < count; c++) {
+                assertEquals(NarrowPhase.overlaps(scene, i, scene, candidates[c]), results[c],
+                        kernel.getName() + ": shape_" + i + " / shape_" + candidates[c]);
+            }
+        }
+    }
+}
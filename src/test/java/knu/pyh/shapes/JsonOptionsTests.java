@@ -0,0 +1,169 @@
+package knu.pyh.shapes;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonOptionsTests {
+
+    @Test
+    void parseAcceptsKnownValuesAndRejectsOthers() {
+        JsonOptions defaults = JsonOptions.parse(null, null, null, null);
+        assertTrue(defaults.isDefault());
+        assertFalse(defaults.isCompact());
+        assertEquals(JsonOptions.FULL.cacheKey(), defaults.cacheKey());
+        assertTrue(JsonOptions.parse("full", "-1", "include", "shapes,groups,pairs,summary").isDefault());
+
+        JsonOptions compact = JsonOptions.parse("compact", null, null, null);
+        assertTrue(compact.isCompact());
+        assertFalse(compact.includesDerivedVertices());
+        assertTrue(JsonOptions.parse("compact", null, "include", null).includesDerivedVertices());
+
+        // 항목 앞뒤 공백은 무시하고 순서와 상관없이 같은 옵션
+        assertEquals(JsonOptions.parse(null, null, null, "groups,shapes").cacheKey(),
+                JsonOptions.parse(null, null, null, " shapes , groups ").cacheKey());
+
+        String[][] rejected = {
+                {"xml", null, null, null},
+                {null, "16", null, null},
+                {null, "-2", null, null},
+                {null, "two", null, null},
+                {null, null, "maybe", null},
+                {null, null, null, "shapes,colors"},
+                {null, null, null, ""},
+                {null, null, null, "shapes,,groups"},
+        };
+        for (String[] args : rejected) {
+            assertThrows(IllegalArgumentException.class, () -> JsonOptions.parse(args[0], args[1], args[2], args[3]),
+                    String.join("/", String.valueOf(args[0]), String.valueOf(args[1]),
+                            String.valueOf(args[2]), String.valueOf(args[3])));
+        }
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> JsonOptions.parse(null, null, null, "shapes, colors"));
+        assertTrue(e.getMessage().endsWith("colors"), e.getMessage());
+    }
+
+    // Fields에 없는 부분은 키째 빠지고, memory는 요청할 때만 나온다 - 옵션마다 캐시 키도 다르다
+    @Test
+    void fieldsSelectTopLevelKeys() throws IOException {
+        String[][] cases = {
+                {null, "shapes,totalCount,overlapGroups,overlapPairs,broadPhase"},
+                {"shapes", "shapes"},
+                {"groups,pairs", "overlapGroups,overlapPairs"},
+                {"summary", "totalCount,broadPhase"},
+                {"memory", "memory"},
+                {"summary,memory", "totalCount,broadPhase,memory"},
+                {"shapes,groups,pairs,summary,memory", "shapes,totalCount,overlapGroups,overlapPairs,broadPhase,memory"},
+        };
+        Set<String> cacheKeys = new HashSet<>();
+        for (String[] c : cases) {
+            JsonOptions options = JsonOptions.parse(null, null, null, c[0]);
+            assertTrue(cacheKeys.add(options.cacheKey()), "cacheKey " + c[0]);
+            Map<String, Object> json = write(result(true), options);
+            assertEquals(c[1], String.join(",", json.keySet()), "Fields=" + c[0]);
+        }
+
+        // 쌍 목록을 모으지 않은 결과는 pairs를 요청해도 overlapPairs가 없다
+        Map<String, Object> withoutPairs = write(result(false), JsonOptions.parse(null, null, null, "groups,pairs"));
+        assertEquals("overlapGroups", String.join(",", withoutPairs.keySet()));
+    }
+
+    // Output / DerivedVertices에 따른 도형 하나의 키와 점 표기
+    @Test
+    void outputSelectsShapeLayout() throws IOException {
+        Map<String, Object> full = shape(JsonOptions.parse(null, null, null, "shapes"), 1);
+        assertEquals("type,id,center,radius,sides,rotationAngle,color,vertices", String.join(",", full.keySet()));
+        assertTrue(full.get("center") instanceof Map);
+        assertEquals("[x, y]", ((Map<?, ?>) full.get("center")).keySet().toString());
+
+        Map<String, Object> compact = shape(JsonOptions.parse("compact", null, null, "shapes"), 1);
+        assertEquals("type,id,center,radius,sides,rotationAngle,color", String.join(",", compact.keySet()));
+        assertEquals(2, ((List<?>) compact.get("center")).size());
+        // 소수점 3자리 (rotationAngle은 전체 정밀도)
+        assertEquals("100.123", String.valueOf(((List<?>) compact.get("center")).get(0)));
+        assertEquals("0.123456789", String.valueOf(compact.get("rotationAngle")));
+
+        Map<String, Object> derived = shape(JsonOptions.parse("compact", null, "include", "shapes"), 1);
+        assertEquals(6, ((List<?>) derived.get("vertices")).size());
+        assertTrue(((List<?>) derived.get("vertices")).get(0) instanceof List);
+
+        // 일반 다각형의 꼭짓점은 compact에서도 남는다
+        Map<String, Object> irregular = shape(JsonOptions.parse("compact", "0", null, "shapes"), 2);
+        assertEquals(3, ((List<?>) irregular.get("vertices")).size());
+        assertEquals("105", String.valueOf(((List<?>) irregular.get("center")).get(0)));
+    }
+
+    private static OverlapResult result(boolean withPairs) {
+        Scene scene = new Scene();
+        scene.addCircle(100.12345, 100, 10, 0xFF0000);
+        scene.addRegularPolygon(100.12345, 105, 10, 6, 0.123456789, 0x00FF00);
+        double[] vx = {95, 120, 100};
+        double[] vy = {95, 95, 120};
+        scene.addIrregularPolygon(105.4, 103.333, 20, vx, vy, 3, 0x0000FF);
+        scene.addCircle(500, 500, 5, 0);
+        List<int[]> groups = new ArrayList<>();
+        groups.add(new int[]{0, 1, 2});
+        groups.add(new int[]{3});
+        OverlapResult result = new OverlapResult(scene, groups, "grid", 3, 3);
+        if (withPairs) {
+            OverlapPairs pairs = OverlapPairs.collectAll();
+            pairs.add(0, 1);
+            pairs.add(0, 2);
+            pairs.add(1, 2);
+            result.setPairs(pairs);
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> shape(JsonOptions options, int index) throws IOException {
+        List<Object> shapes = (List<Object>) write(result(false), options).get("shapes");
+        assertEquals(4, shapes.size());
+        return (Map<String, Object>) shapes.get(index);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> write(OverlapResult result, JsonOptions options) throws IOException {
+        result.setJsonOptions(options);
+        try (JsonParser parser = new JsonFactory().createParser(result.toJSONBytes())) {
+            parser.nextToken();
+            return (Map<String, Object>) read(parser);
+        }
+    }
+
+    // 현재 토큰부터 값 하나를 Map / List / 숫자 문자열 / 문자열로 읽는다 (키 순서 유지)
+    private static Object read(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                map.put(name, read(parser));
+            }
+            return map;
+        }
+        if (token == JsonToken.START_ARRAY) {
+            List<Object> list = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                list.add(read(parser));
+            }
+            return list;
+        }
+        return parser.getText();
+    }
+}
@@ -0,0 +1,39 @@
+package knu.pyh.shapes;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KineticSceneTests {
+
+    private static final int WIDTH = 700;
+    private static final int HEIGHT = 600;
+    private static final int RADIUS_MAX = 30;
+    private static final int FRAMES = 50;
+
+    // 유지되는 쓸기 순서와 분리 축 캐시를 거친 프레임별 그룹이 매 프레임 처음부터 구한 그룹과 같아야 한다
+    // 비교 기준은 전수 검사(none) 넓은 단계라 쓸기/캐시와 독립적이다
+    @Test
+    void steppedGroupsMatchFullRecompute() {
+        for (long seed : new long[]{3L, 20240601L}) {
+            Scene scene = new ShapeGenerator(seed).createScene(WIDTH, HEIGHT, RADIUS_MAX, 1200, 9);
+            KineticScene kineticScene = new KineticScene(scene, WIDTH, HEIGHT);
+            kineticScene.randomizeVelocities(seed, 4.0, 0.08);
+
+            double maxRadius = 0;
+            for (int i = 0; i < scene.size(); i++) {
+                maxRadius = Math.max(maxRadius, scene.getBoundRadius(i));
+            }
+
+            long axisHits = 0;
+            for (int frame = 1; frame <= FRAMES; frame++) {
+                KineticScene.FrameStats stats = kineticScene.step(1.0);
+                axisHits += stats.getAxisHits();
+                ShapeGeneratorTests.assertSameGroups(
+                        ShapeGeneratorTests.generator(seed, "none", 1).findConnectedComponents(scene, maxRadius),
+                        kineticScene.getGroups(), "seed " + seed + ", frame " + frame);
+            }
+            assertTrue(axisHits > 0, "분리 축 캐시를 한 번도 쓰지 않음");
+        }
+    }
+}
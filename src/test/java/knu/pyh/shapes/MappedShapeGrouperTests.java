@@ -0,0 +1,78 @@
+package knu.pyh.shapes;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedShapeGrouperTests {
+
+    // 파일로 쓴 장면을 매핑 그룹화한 번호는 같은 장면을 힙에서 그룹화한 연결 요소와 같아야 한다
+    // 큰 도형(격자 밖 목록)과 CELL_BLOCK개보다 많은 도형이 한 셀에 몰린 경우를 함께 넣는다
+    @Test
+    void labelsMatchConnectedComponents() throws IOException {
+        SplittableRandom random = new SplittableRandom(5);
+        Scene scene = new Scene();
+        for (int i = 0; i < 1500; i++) {
+            ShapeGeneratorTests.addRandomShape(scene, random, random.nextDouble(4000), random.nextDouble(4000),
+                    3 + random.nextDouble(27));
+        }
+        scene.addCircle(800, 900, 250, 0);
+        scene.addRegularPolygon(2500, 1500, 400, 7, 0.3, 0);
+        scene.addCircle(3000, 3200, 300, 0);
+        for (int i = 0; i < MappedShapeGrouper.CELL_BLOCK + 500; i++) {
+            scene.addCircle(4500 + random.nextDouble(), 4500 + random.nextDouble(), 0.2 + random.nextDouble(0.2), 0);
+        }
+        List<int[]> groups = ShapeGeneratorTests.generator(5, "sweep", 1).findConnectedComponents(scene, 500);
+        int[] expected = new int[scene.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = i;
+        }
+        for (int[] group : groups) {
+            for (int i : group) {
+                expected[i] = group[0];
+            }
+        }
+
+        Path directory = Files.createTempDirectory("mapped-grouper");
+        try {
+            Path input = directory.resolve("scene.sovb");
+            Path output = directory.resolve("scene.sovl");
+            try (OutputStream out = Files.newOutputStream(input)) {
+                OverlapBinaryWriter.write(new OverlapResult(scene, groups, "sweep", 0, 0), out, false);
+            }
+            JSONObject stats = new MappedShapeGrouper(input, output).run();
+
+            ByteBuffer labels = ByteBuffer.wrap(Files.readAllBytes(output)).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(scene.size(), labels.getInt(8));
+            assertEquals(groups.stream().filter(group -> group.length > 1).count(), labels.getInt(12));
+            for (int i = 0; i < expected.length; i++) {
+                assertEquals(expected[i], labels.getInt(MappedShapeGrouper.LABEL_HEADER_BYTES + 4 * i), "shape_" + i);
+            }
+
+            // 큰 도형 하나 때문에 격자가 한 셀로 무너지지 않는다
+            long n = scene.size();
+            assertTrue(stats.getInt("largeShapes") > 0, stats.toString());
+            assertTrue(stats.getLong("cellCount") > 1, stats.toString());
+            assertTrue(stats.getLong("candidatePairs") < n * (n - 1) / 4, stats.toString());
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package knu.pyh.shapes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NarrowPhaseTests {
+
+    // 경계가 거의 닿는 쌍은 부동소수점 오차로 판정이 갈릴 수 있어 비교하지 않는다
+    private static final double TOUCH_EPSILON = 1e-9;
+
+    // SAT / 원-볼록 커널을 SAT와 무관한 기하 판정과 비교한다
+    // 다각형끼리: 변끼리 교차하거나 한쪽이 다른 쪽 꼭짓점을 품으면 겹침
+    // 원과 다각형: 중심이 다각형 안이거나 중심에서 변까지 최단 거리가 반경 이하이면 겹침
+    @Test
+    void overlapsMatchesSegmentReference() {
+        SplittableRandom random = new SplittableRandom(11);
+        Scene scene = randomScene(random, 500, 300);
+        int compared = 0, overlapping = 0;
+        for (int i = 0; i < scene.size(); i++) {
+            for (int j = i + 1; j < scene.size(); j++) {
+                double reference = referenceGap(scene, i, j);
+                if (Math.abs(reference) < TOUCH_EPSILON) {
+                    continue;
+                }
+                boolean expected = reference < 0;
+                assertEquals(expected, NarrowPhase.overlaps(scene, i, scene, j),
+                        "shape_" + i + " (" + ShapeType.fromTag(scene.types[i]) + ") / shape_" + j
+                                + " (" + ShapeType.fromTag(scene.types[j]) + ")");
+                compared++;
+                if (expected) {
+                    overlapping++;
+                }
+            }
+        }
+        assertTrue(overlapping > 1000 && compared - overlapping > 1000, "겹침 / 분리 쌍이 고루 섞이지 않음");
+    }
+
+    // 변이 교차하지 않고 한쪽이 다른 쪽을 통째로 품는 경우
+    @Test
+    void containmentWithoutEdgeCrossingOverlaps() {
+        Scene scene = new Scene();
+        int outer = scene.addRegularPolygon(0, 0, 100, 6, 0.3, 0);
+        int inner = scene.addRegularPolygon(10, -5, 10, 5, 1.1, 0);
+        int innerCircle = scene.addCircle(-20, 15, 8, 0);
+        int hugeCircle = scene.addCircle(0, 0, 500, 0);
+        int farTriangle = scene.addRegularPolygon(400, 0, 5, 3, 0, 0);
+
+        assertTrue(NarrowPhase.overlaps(scene, outer, scene, inner));
+        assertTrue(NarrowPhase.overlaps(scene, outer, scene, innerCircle));
+        assertTrue(NarrowPhase.overlaps(scene, hugeCircle, scene, outer));
+        // 큰 원 안에 있지만 원 중심은 삼각형 밖
+        assertTrue(NarrowPhase.overlaps(scene, hugeCircle, scene, farTriangle));
+        assertTrue(!NarrowPhase.overlaps(scene, outer, scene, farTriangle));
+    }
+
+    // 커널 표는 (A, B)와 (B, A)에 같은 판정을 등록해야 한다
+    @Test
+    void overlapsIsSymmetric() {
+        SplittableRandom random = new SplittableRandom(23);
+        Scene scene = randomScene(random, 400, 250);
+        for (int i = 0; i < scene.size(); i++) {
+            for (int j = 0; j < scene.size(); j++) {
+                assertEquals(NarrowPhase.overlaps(scene, i, scene, j), NarrowPhase.overlaps(scene, j, scene, i),
+                        "shape_" + i + " / shape_" + j);
+            }
+        }
+    }
+
+    private static Scene randomScene(SplittableRandom random, int count, double side) {
+        Scene scene = new Scene();
+        for (int s = 0; s < count; s++) {
+            double cx = random.nextDouble(side);
+            double cy = random.nextDouble(side);
+            double r = 3 + random.nextDouble(25);
+            switch (random.nextInt(3)) {
+                case 0:
+                    scene.addCircle(cx, cy, r, 0);
+                    break;
+                case 1:
+                    scene.addRegularPolygon(cx, cy, r, 3 + random.nextInt(12), random.nextDouble(2 * Math.PI), 0);
+                    break;
+                default:
+                    IrregularPolygon.addRandom(scene, random, cx, cy, r, 3 + random.nextInt(12), 0);
+                    break;
+            }
+        }
+        return scene;
+    }
+
+    // 음수면 겹침, 양수면 떨어짐 - 절댓값은 경계까지의 여유 (0 근처면 닿는 중)
+    private static double referenceGap(Scene scene, int i, int j) {
+        boolean circleI = isCircle(scene, i);
+        boolean circleJ = isCircle(scene, j);
+        if (circleI && circleJ) {
+            return Math.hypot(scene.centerX[i] - scene.centerX[j], scene.centerY[i] - scene.centerY[j])
+                    - scene.radius[i] - scene.radius[j];
+        }
+        if (circleI || circleJ) {
+            int circle = circleI ? i : j;
+            int polygon = circleI ? j : i;
+            double cx = scene.centerX[circle];
+            double cy = scene.centerY[circle];
+            if (contains(scene, polygon, cx, cy)) {
+                return -1;
+            }
+            double nearest = Double.MAX_VALUE;
+            for (int k = scene.vertexStart[polygon]; k < scene.vertexStart[polygon + 1]; k++) {
+                int next = next(scene, polygon, k);
+                nearest = Math.min(nearest, pointSegmentDistance(cx, cy,
+                        scene.xs[k], scene.ys[k], scene.xs[next], scene.ys[next]));
+            }
+            return nearest - scene.radius[circle];
+        }
+
+        // 다각형끼리 - 꼭짓점 포함이면 겹침, 아니면 변 사이 최단 거리 (교차하면 0)
+        for (int k = scene.vertexStart[i]; k < scene.vertexStart[i + 1]; k++) {
+            if (contains(scene, j, scene.xs[k], scene.ys[k])) {
+                return -1;
+            }
+        }
+        for (int k = scene.vertexStart[j]; k < scene.vertexStart[j + 1]; k++) {
+            if (contains(scene, i, scene.xs[k], scene.ys[k])) {
+                return -1;
+            }
+        }
+        double nearest = Double.MAX_VALUE;
+        for (int p = scene.vertexStart[i]; p < scene.vertexStart[i + 1]; p++) {
+            int p2 = next(scene, i, p);
+            for (int q = scene.vertexStart[j]; q < scene.vertexStart[j + 1]; q++) {
+                int q2 = next(scene, j, q);
+                if (segmentsCross(scene.xs[p], scene.ys[p], scene.xs[p2], scene.ys[p2],
+                        scene.xs[q], scene.ys[q], scene.xs[q2], scene.ys[q2])) {
+                    return -1;
+                }
+                nearest = Math.min(nearest, Math.min(
+                        Math.min(pointSegmentDistance(scene.xs[p], scene.ys[p], scene.xs[q], scene.ys[q], scene.xs[q2], scene.ys[q2]),
+                                pointSegmentDistance(scene.xs[p2], scene.ys[p2], scene.xs[q], scene.ys[q], scene.xs[q2], scene.ys[q2])),
+                        Math.min(pointSegmentDistance(scene.xs[q], scene.ys[q], scene.xs[p], scene.ys[p], scene.xs[p2], scene.ys[p2]),
+                                pointSegmentDistance(scene.xs[q2], scene.ys[q2], scene.xs[p], scene.ys[p], scene.xs[p2], scene.ys[p2]))));
+            }
+        }
+        return nearest;
+    }
+
+    private static boolean isCircle(Scene scene, int i) {
+        return scene.vertexStart[i] == scene.vertexStart[i + 1];
+    }
+
+    private static int next(Scene scene, int i, int k) {
+        return k + 1 < scene.vertexStart[i + 1] ? k + 1 : scene.vertexStart[i];
+    }
+
+    // 반직선 교차 횟수로 점이 다각형 안에 있는지 (볼록성을 가정하지 않음)
+    private static boolean contains(Scene scene, int i, double x, double y) {
+        boolean inside = false;
+        for (int k = scene.vertexStart[i]; k < scene.vertexStart[i + 1]; k++) {
+            int next = next(scene, i, k);
+            double x1 = scene.xs[k], y1 = scene.ys[k];
+            double x2 = scene.xs[next], y2 = scene.ys[next];
+            if ((y1 > y) != (y2 > y) && x < x1 + (y - y1) * (x2 - x1) / (y2 - y1)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    // 두 선분이 서로의 양쪽에 끝점을 두는가 (방향 판정)
+    private static boolean segmentsCross(double ax, double ay, double bx, double by,
+                                         double cx, double cy, double dx, double dy) {
+        double d1 = cross(cx, cy, dx, dy, ax, ay);
+        double d2 = cross(cx, cy, dx, dy, bx, by);
+        double d3 = cross(ax, ay, bx, by, cx, cy);
+        double d4 = cross(ax, ay, bx, by, dx, dy);
+        return ((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0));
+    }
+
+    private static double cross(double ox, double oy, double ax, double ay, double bx, double by) {
+        return (ax - ox) * (by - oy) - (ay - oy) * (bx - ox);
+    }
+
+    private static double pointSegmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double vx = bx - ax, vy = by - ay;
+        double t = ((px - ax) * vx + (py - ay) * vy) / (vx * vx + vy * vy);
+        t = Math.max(0, Math.min(1, t));
+        return Math.hypot(px - (ax + t * vx), py - (ay + t * vy));
+    }
+}
@@ -0,0 +1,47 @@
+package knu.pyh.shapes;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PairIndexTests {
+
+    private static final long SEED = 42L;
+
+    // 캐시된 전체 간선에서 잘라 낸 페이지는 페이지마다 다시 생성해 힙으로 모은 페이지와 같아야 한다
+    @Test
+    void slicedPagesMatchRegeneratedPages() {
+        PairIndex index = PairIndex.generate(ShapeGeneratorTests.generator(SEED, "grid", 1), 900, 700, 40, 1500, 9);
+        for (String format : new String[]{"edges", "csr"}) {
+            for (int limit : new int[]{1, 97, 1000, OverlapPairs.MAX_LIMIT}) {
+                String cursor = null;
+                int pages = 0, edges = 0;
+                do {
+                    ShapeGenerator generator = ShapeGeneratorTests.generator(SEED, "grid", 1);
+                    generator.setPairCollector(new OverlapPairs(format, cursor, limit));
+                    OverlapResult expected = generator.generate(900, 700, 40, 1500, 9);
+                    OverlapResult actual = index.page(format, cursor, limit);
+                    String where = format + ", limit " + limit + ", cursor " + cursor;
+                    assertEquals(expected.getPairs().toJSON(expected.getOverlappingPairs()).toString(),
+                            actual.getPairs().toJSON(actual.getOverlappingPairs()).toString(), where);
+
+                    edges += actual.getPairs().size();
+                    cursor = actual.getPairs().nextCursor();
+                    pages++;
+                } while (cursor != null && pages < 3);
+                if (cursor == null) {
+                    assertEquals(index.size(), edges);
+                }
+            }
+        }
+    }
+
+    @Test
+    void cursorAfterLastEdgeIsEmpty() {
+        PairIndex index = PairIndex.generate(ShapeGeneratorTests.generator(SEED, "sweep", 1), 900, 700, 40, 1500, 9);
+        OverlapPairs last = index.page("edges", "1498:1499", 10).getPairs();
+        assertEquals(0, last.size());
+        assertNull(last.nextCursor());
+    }
+}
@@ -0,0 +1,91 @@
+package knu.pyh.shapes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RTreeTests {
+
+    // 노드 하나, 잎 하나 꽉 참 / 넘침, 여러 층까지 - 질의 결과는 경계 상자를 모두 훑은 결과와 같아야 한다
+    @Test
+    void searchMatchesBruteForce() {
+        SplittableRandom random = new SplittableRandom(11);
+        for (int size : new int[]{0, 1, RTree.FANOUT, RTree.FANOUT + 1, 300, 5000}) {
+            Scene scene = new Scene();
+            for (int i = 0; i < size; i++) {
+                ShapeGeneratorTests.addRandomShape(scene, random, random.nextDouble(2000), random.nextDouble(1500),
+                        1 + random.nextDouble(40));
+            }
+            // 삭제한 도형은 트리에 들어가지 않는다
+            int live = size;
+            for (int i = 0; i < size; i += 7) {
+                scene.remove(i);
+                live--;
+            }
+            RTree tree = RTree.build(scene);
+            assertEquals(live, tree.size(), "size " + size);
+
+            for (int q = 0; q < 200; q++) {
+                double x0 = random.nextDouble(-100, 2100), y0 = random.nextDouble(-100, 1600);
+                // 점 질의, 작은 상자, 장면보다 큰 상자
+                double w = q % 4 == 0 ? 0 : random.nextDouble(q % 4 == 3 ? 3000 : 200);
+                double h = q % 4 == 0 ? 0 : random.nextDouble(q % 4 == 3 ? 3000 : 200);
+                assertSearch(scene, tree, x0, y0, x0 + w, y0 + h, "size " + size + ", query " + q);
+            }
+            assertSearch(scene, tree, -1e9, -1e9, 1e9, 1e9, "size " + size + ", everything");
+        }
+    }
+
+    // 한 점에 몰린 장면과 한 줄로 늘어선 장면 (양자화 범위가 0이거나 한 축만 넓은 경우)
+    @Test
+    void degenerateLayoutsAreSearchable() {
+        Scene stacked = new Scene();
+        Scene line = new Scene();
+        for (int i = 0; i < 1000; i++) {
+            stacked.addCircle(50, 50, 1 + i % 3, 0);
+            line.addCircle(i * 10, 0, 4, 0);
+        }
+        RTree stackedTree = RTree.build(stacked);
+        assertSearch(stacked, stackedTree, 50, 50, 50, 50, "stacked");
+        assertSearch(stacked, stackedTree, 52.5, 52.5, 60, 60, "stacked corner");
+
+        RTree lineTree = RTree.build(line);
+        assertTrue(lineTree.height() > 1);
+        for (double x = -10; x < 10_010; x += 97) {
+            assertSearch(line, lineTree, x, -1, x + 5, 1, "line " + x);
+        }
+
+        // 작은 질의는 트리 일부만 내려간다
+        IntList out = new IntList();
+        int small = lineTree.search(5000, -1, 5001, 1, out);
+        int all = lineTree.search(-1e9, -1e9, 1e9, 1e9, new IntList());
+        assertTrue(small < all / 2, small + " / " + all);
+    }
+
+    private static void assertSearch(Scene scene, RTree tree, double x0, double y0, double x1, double y1, String where) {
+        IntList out = new IntList();
+        tree.search(x0, y0, x1, y1, out);
+        int[] actual = new int[out.size()];
+        for (int k = 0; k < actual.length; k++) {
+            actual[k] = out.get(k);
+        }
+        Arrays.sort(actual);
+
+        IntList expected = new IntList();
+        for (int i = 0; i < scene.size(); i++) {
+            if (!scene.isRemoved(i) && scene.maxX[i] >= x0 && scene.minX[i] <= x1
+                    && scene.maxY[i] >= y0 && scene.minY[i] <= y1) {
+                expected.add(i);
+            }
+        }
+        int[] wanted = new int[expected.size()];
+        for (int k = 0; k < wanted.length; k++) {
+            wanted[k] = expected.get(k);
+        }
+        assertEquals(Arrays.toString(wanted), Arrays.toString(actual), where);
+    }
+}
@@ -0,0 +1,208 @@
+package knu.pyh.shapes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShapeGeneratorTests {
+
+    private static final long[] SEEDS = {1L, 7L, 42L, 1234L, 20240601L, -9876543210L};
+    private static final String[] BROAD_PHASES = {"none", "grid", "sweep"};
+
+    private static final int WIDTH = 900;
+    private static final int HEIGHT = 700;
+    private static final int RADIUS_MAX = 40;
+    private static final int HOW_MANY = 1500;
+    private static final int MAX_EDGES = 9;
+
+    // 병렬 쌍 검사(CAS Union-Find)의 그룹은 순차 결과와 같아야 한다 - 그룹 순서와 그룹 안 도형 순서까지
+    @Test
+    void parallelComponentsMatchSequential() {
+        for (long seed : SEEDS) {
+            Scene scene = new ShapeGenerator(seed).createScene(WIDTH, HEIGHT, RADIUS_MAX, HOW_MANY, MAX_EDGES);
+            for (String broadPhase : BROAD_PHASES) {
+                List<int[]> expected = generator(seed, broadPhase, 1).findConnectedComponents(scene, RADIUS_MAX);
+                for (int parallelism : new int[]{1, 4}) {
+                    List<int[]> actual = generator(seed, broadPhase, parallelism).findConnectedComponents(scene, RADIUS_MAX);
+                    assertSameGroups(expected, actual, "seed " + seed + ", " + broadPhase + ", parallelism " + parallelism);
+                }
+            }
+        }
+    }
+
+    // generate는 장면 생성도 병렬로 나누므로 장면과 그룹, 쌍 수가 모두 병렬도와 무관해야 한다
+    @Test
+    void parallelGenerateMatchesSequential() {
+        for (long seed : SEEDS) {
+            for (String broadPhase : BROAD_PHASES) {
+                OverlapResult expected = generator(seed, broadPhase, 1)
+                        .generate(WIDTH, HEIGHT, RADIUS_MAX, HOW_MANY, MAX_EDGES);
+                OverlapResult actual = generator(seed, broadPhase, 4)
+                        .generate(WIDTH, HEIGHT, RADIUS_MAX, HOW_MANY, MAX_EDGES);
+                String where = "seed " + seed + ", " + broadPhase;
+
+                assertSameScene(expected.getScene(), actual.getScene(), where);
+                assertSameGroups(expected.getGroups(), actual.getGroups(), where);
+                assertEquals(expected.getCandidatePairs(), actual.getCandidatePairs(), where);
+                assertEquals(expected.getOverlappingPairs(), actual.getOverlappingPairs(), where);
+            }
+        }
+    }
+
+    // GENERATION_CHUNK보다 많으면 덩어리마다 부분 장면을 병렬로 만들어 이어 붙인다 (createPart -> forParts / copyPart)
+    // 이어 붙인 장면은 순차 결과와 같고, 도형마다 정점 범위와 경계 상자가 제자리를 가리켜야 한다
+    @Test
+    void multiChunkGenerateMatchesSequential() {
+        int howMany = 2 * ShapeGenerator.GENERATION_CHUNK + 1234;
+        for (String broadPhase : new String[]{"grid", "sweep"}) {
+            ShapeGenerator parallel = generator(SEEDS[2], broadPhase, 4);
+            assertTrue(parallel.getParallelism() > 1, "병렬도가 1로 줄어듦 (사용 가능한 CPU 부족)");
+            OverlapResult expected = generator(SEEDS[2], broadPhase, 1).generate(6000, 6000, 20, howMany, MAX_EDGES);
+            OverlapResult actual = parallel.generate(6000, 6000, 20, howMany, MAX_EDGES);
+
+            assertEquals(howMany, actual.getScene().size(), broadPhase);
+            assertSameScene(expected.getScene(), actual.getScene(), broadPhase);
+            assertSameGroups(expected.getGroups(), actual.getGroups(), broadPhase);
+            assertEquals(expected.getCandidatePairs(), actual.getCandidatePairs(), broadPhase);
+            assertEquals(expected.getOverlappingPairs(), actual.getOverlappingPairs(), broadPhase);
+
+            Scene scene = actual.getScene();
+            for (int i = 0; i < scene.size(); i++) {
+                int start = scene.vertexStart[i], end = scene.vertexStart[i + 1];
+                if (scene.types[i] == ShapeType.CIRCLE.tag()) {
+                    assertEquals(start, end, "shape " + i);
+                    continue;
+                }
+                assertTrue(end - start >= 3, "shape " + i);
+                for (int k = start; k < end; k++) {
+                    assertTrue(scene.xs[k] >= scene.minX[i] && scene.xs[k] <= scene.maxX[i]
+                            && scene.ys[k] >= scene.minY[i] && scene.ys[k] <= scene.maxY[i], "shape " + i + ", vertex " + k);
+                    assertTrue(Math.hypot(scene.xs[k] - scene.boundX[i], scene.ys[k] - scene.boundY[i])
+                            <= scene.boundRadius[i] + 1e-9, "shape " + i + ", vertex " + k);
+                }
+            }
+            assertEquals(scene.vertexStart[scene.size()], scene.getVertexCount(), broadPhase);
+        }
+    }
+
+    // 타일 단위 그룹화(경계 도형 합치기 포함)의 그룹은 장면 전체를 한 번에 그룹화한 결과와 같아야 한다
+    @Test
+    void tiledComponentsMatchGlobal() {
+        for (long seed : Arrays.copyOf(SEEDS, 3)) {
+            Scene scene = new ShapeGenerator(seed).createScene(WIDTH, HEIGHT, RADIUS_MAX, HOW_MANY, MAX_EDGES);
+            assertTiledMatchesGlobal(scene, RADIUS_MAX, "seed " + seed);
+        }
+    }
+
+    // 한 곳에 몰린 장면 - 몰린 타일이 SpatialTiles.addTile에서 4등분되는 경로까지 같은 결과를 내야 한다
+    @Test
+    void tiledComponentsMatchGlobalOnSkewedScene() {
+        SplittableRandom random = new SplittableRandom(99);
+        Scene scene = new Scene();
+        for (int i = 0; i < 3000; i++) {
+            addRandomShape(scene, random, 100 + random.nextDouble(200), 100 + random.nextDouble(200), 3 + random.nextDouble(5));
+        }
+        for (int i = 0; i < 1000; i++) {
+            addRandomShape(scene, random, random.nextDouble(4000), random.nextDouble(4000), 3 + random.nextDouble(30));
+        }
+        assertTrue(SpatialTiles.build(scene, 333).getSplitCount() > 0, "몰린 타일이 나뉘지 않음");
+
+        double maxRadius = 0;
+        for (int i = 0; i < scene.size(); i++) {
+            maxRadius = Math.max(maxRadius, scene.getBoundRadius(i));
+        }
+        assertTiledMatchesGlobal(scene, maxRadius, "skewed");
+    }
+
+    // 타일 하나가 장면 전체를 덮어도 타일 안 쌍 검사 중에 취소 / 처리 시간 한도를 확인해야 한다
+    @Test
+    void tiledPairLoopChecksCancellationInsideOneTile() {
+        Scene scene = new ShapeGenerator(5).createScene(WIDTH, HEIGHT, RADIUS_MAX, 6000, MAX_EDGES);
+        assertEquals(1, SpatialTiles.build(scene, 1e9).getTiles().size());
+
+        int[] checks = new int[1];
+        ShapeGenerator counted = generator(5, "none", 1);
+        counted.setTileSize(1e9);
+        counted.setProgress(new GenerationProgress() {
+            @Override
+            void checkCancelled() {
+                checks[0]++;
+            }
+        });
+        counted.findConnectedComponents(scene, RADIUS_MAX);
+        assertTrue(checks[0] > 1000, "타일 안에서 확인하지 않음: " + checks[0]);
+
+        ShapeGenerator cancelled = generator(5, "none", 1);
+        cancelled.setTileSize(1e9);
+        cancelled.setProgress(new GenerationProgress() {
+            private int calls;
+
+            @Override
+            void checkCancelled() {
+                if (++calls == 3) {
+                    throw new CancellationException();
+                }
+            }
+        });
+        assertThrows(CancellationException.class, () -> cancelled.findConnectedComponents(scene, RADIUS_MAX));
+    }
+
+    private static void assertTiledMatchesGlobal(Scene scene, double maxRadius, String where) {
+        for (String broadPhase : BROAD_PHASES) {
+            List<int[]> expected = generator(0, broadPhase, 1).findConnectedComponents(scene, maxRadius);
+            for (double tileSize : new double[]{ShapeGenerator.AUTO_TILE_SIZE, 50, 333}) {
+                for (int parallelism : new int[]{1, 4}) {
+                    ShapeGenerator tiled = generator(0, broadPhase, parallelism);
+                    tiled.setTileSize(tileSize);
+                    assertSameGroups(expected, tiled.findConnectedComponents(scene, maxRadius),
+                            where + ", " + broadPhase + ", tile " + tileSize + ", parallelism " + parallelism);
+                }
+            }
+        }
+    }
+
+    static void addRandomShape(Scene scene, SplittableRandom random, double cx, double cy, double r) {
+        switch (random.nextInt(3)) {
+            case 0:
+                scene.addCircle(cx, cy, r, 0);
+                break;
+            case 1:
+                scene.addRegularPolygon(cx, cy, r, 3 + random.nextInt(8), random.nextDouble(Math.PI), 0);
+                break;
+            default:
+                IrregularPolygon.addRandom(scene, random, cx, cy, r, 3 + random.nextInt(8), 0);
+                break;
+        }
+    }
+
+    static ShapeGenerator generator(long seed, String broadPhase, int parallelism) {
+        ShapeGenerator generator = new ShapeGenerator(seed);
+        generator.setBroadPhase(BroadPhase.forName(broadPhase));
+        generator.setParallelism(parallelism);
+        return generator;
+    }
+
+    static void assertSameGroups(List<int[]> expected, List<int[]> actual, String where) {
+        assertEquals(expected.size(), actual.size(), where);
+        for (int g = 0; g < expected.size(); g++) {
+            assertEquals(Arrays.toString(expected.get(g)), Arrays.toString(actual.get(g)), where + ", group " + g);
+        }
+    }
+
+    private static void assertSameScene(Scene expected, Scene actual, String where) {
+        assertEquals(expected.size(), actual.size(), where);
+        assertEquals(expected.getVertexCount(), actual.getVertexCount(), where);
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getCenterX(i), actual.getCenterX(i), where + ", shape " + i);
+            assertEquals(expected.getCenterY(i), actual.getCenterY(i), where + ", shape " + i);
+            assertEquals(expected.getBoundRadius(i), actual.getBoundRadius(i), where + ", shape " + i);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package knu.pyh.shapes;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShapeReaderTests {
+
+    private static final String CSV = "type,x,y,radius,sides,rotationAngle,color,x1,y1,x2,y2,x3,y3\r\n"
+            + "# 주석\r\n"
+            + "circle,10,20,5,,,#ff0000\r\n"
+            + "\r\n"
+            + "regularPolygon,30,20,8,6,0.5\r\n"
+            + "irregularPolygon,,,,,,,0,0,40,0,20,30\n";
+
+    private static final String NDJSON = "{\"type\":\"circle\",\"center\":{\"x\":10,\"y\":20},\"radius\":5,\"color\":\"#ff0000\"}\n"
+            + "{\"type\":\"regularPolygon\",\"center\":{\"x\":30,\"y\":20},\"radius\":8,\"sides\":6,\"rotationAngle\":0.5}\n"
+            + "{\"type\":\"irregularPolygon\",\"vertices\":[[0,0],[40,0],[20,30]]}\n";
+
+    // 같은 도형을 CSV와 NDJSON으로 올리면 같은 장면이 된다 (빈 줄, 주석, 머리글, \r\n 줄 끝 포함)
+    @Test
+    void csvAndNdjsonReadTheSameScene() throws IOException {
+        Scene csv = read(CSV, "csv");
+        Scene ndjson = read(NDJSON, "ndjson");
+        assertEquals(3, csv.size());
+        assertEquals(ndjson.size(), csv.size());
+        assertEquals(ndjson.getVertexCount(), csv.getVertexCount());
+        for (int i = 0; i < csv.size(); i++) {
+            assertEquals(ndjson.types[i], csv.types[i], "shape_" + i);
+            assertEquals(ndjson.getCenterX(i), csv.getCenterX(i), "shape_" + i);
+            assertEquals(ndjson.getCenterY(i), csv.getCenterY(i), "shape_" + i);
+            assertEquals(ndjson.getBoundRadius(i), csv.getBoundRadius(i), "shape_" + i);
+        }
+        assertEquals(0xFF0000, csv.colors[0]);
+        // 일반 다각형의 중심은 꼭짓점 평균
+        assertEquals(20.0, csv.getCenterX(2));
+        assertEquals(10.0, csv.getCenterY(2));
+    }
+
+    @Test
+    void malformedLinesAreRejectedWithLineNumber() {
+        String[] csvLines = {
+                "circle,abc,2,3",
+                "circle,1,2",
+                "circle,1,2,-3",
+                "square,1,2,3",
+                ",1,2,3",
+                "regularPolygon,1,2,3,2",
+                "regularPolygon,1,2,3,six",
+                "circle,1,2,3,,,red",
+                "irregularPolygon,,,,,,,0,0,1,1,0",
+                "irregularPolygon,,,,,,,0,0,1,0",
+                // 볼록하지 않음 / 넓이 0 / 같은 꼭짓점 연속
+                "irregularPolygon,,,,,,,0,0,4,0,1,1,0,4",
+                "irregularPolygon,,,,,,,0,0,1,1,2,2",
+                "irregularPolygon,,,,,,,0,0,0,0,1,1",
+        };
+        for (String line : csvLines) {
+            assertRejected("circle,0,0,1\n# 주석\n" + line + "\n", "csv", 3, line);
+        }
+
+        String[] ndjsonLines = {
+                "[1, 2]",
+                "{\"type\":\"circle\",\"center\":{\"x\":1,\"y\":2},\"radius\":\"big\"}",
+                "{\"type\":\"circle\",\"center\":{\"x\":1},\"radius\":2}",
+                "{\"type\":\"regularPolygon\",\"center\":{\"x\":1,\"y\":2},\"radius\":2,\"sides\":1025}",
+                // 본문이 객체 중간에서 끝남
+                "{\"type\":\"circle\",\"radius\":",
+        };
+        for (String line : ndjsonLines) {
+            assertRejected("{\"type\":\"circle\",\"center\":{\"x\":0,\"y\":0},\"radius\":1}\n\n" + line,
+                    "ndjson", 3, line);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> read("circle,0,0,1", "xml"));
+    }
+
+    @Test
+    void oversizeLinesAreRejected() throws IOException {
+        // 꼭짓점 MAX_VERTICES개는 받고, 하나 더 많으면 거부
+        assertEquals(1, read(regularVertices(ShapeReader.MAX_VERTICES), "csv").size());
+        assertRejected(regularVertices(ShapeReader.MAX_VERTICES + 1), "csv", 1, "MAX_VERTICES + 1");
+
+        // 줄바꿈 없는 긴 본문은 줄 전체를 모으기 전에 거부
+        StringBuilder longLine = new StringBuilder("circle,1,2,3");
+        while (longLine.length() <= ShapeReader.MAX_CSV_LINE_CHARS) {
+            longLine.append("0000000000");
+        }
+        assertRejected("circle,0,0,1\n" + longLine, "csv", 2, "long line");
+
+        StringBuilder vertices = new StringBuilder("{\"type\":\"irregularPolygon\",\"vertices\":[");
+        for (int k = 0; k <= ShapeReader.MAX_VERTICES; k++) {
+            vertices.append(k == 0 ? "" : ",").append("[").append(k).append(",").append(k % 2).append("]");
+        }
+        assertRejected(vertices + "]}\n", "ndjson", 1, "ndjson MAX_VERTICES + 1");
+    }
+
+    @Test
+    void outOfRangeCoordinatesAreRejected() throws IOException {
+        double max = ShapeReader.MAX_COORDINATE;
+        String[] lines = {
+                "circle,1e10,0,1",
+                "circle,0,-1e10,1",
+                "circle,0,0," + (ShapeReader.MAX_RADIUS * 2),
+                "regularPolygon," + (max * 1.5) + ",0,3,5",
+                "irregularPolygon,,,,,,,0,0," + (max * 2) + ",0,0,10",
+                "circle,Infinity,0,1",
+                "circle,NaN,0,1",
+        };
+        for (String line : lines) {
+            assertRejected("circle,-1,0,1\n" + line + "\n", "csv", 2, line);
+        }
+
+        // 한도 끝의 도형은 받고, 넓은 범위에서도 격자 / 타일 그룹화가 돌아간다
+        Scene scene = read("circle,-" + max + ",0,1\ncircle," + max + ",0,1\ncircle," + max + ",1,1\n", "csv");
+        List<int[]> groups = ShapeGeneratorTests.generator(0, "grid", 1).findConnectedComponents(scene, 1);
+        assertEquals(2, groups.size());
+    }
+
+    // 넓은 범위의 장면에서 칸 수를 int로 먼저 바꾸면 포화되어 한도 검사를 빠져나갔다 (cols = -2^31, 배열 크기 1)
+    @Test
+    void wideScenesStayWithinCellLimits() {
+        Scene scene = new Scene();
+        scene.addCircle(-1, 0, 1, 0);
+        scene.addCircle(1e10, 0, 1, 0);
+        scene.addCircle(1e10 + 1, 0, 1, 0);
+        for (String broadPhase : new String[]{"grid", "sweep"}) {
+            List<int[]> groups = ShapeGeneratorTests.generator(0, broadPhase, 1).findConnectedComponents(scene, 1);
+            assertEquals(2, groups.size(), broadPhase);
+            ShapeGenerator tiled = ShapeGeneratorTests.generator(0, broadPhase, 1);
+            tiled.setTileSize(2);
+            assertEquals(2, tiled.findConnectedComponents(scene, 1).size(), broadPhase + ", tiled");
+        }
+    }
+
+    private static String regularVertices(int count) {
+        StringBuilder line = new StringBuilder("irregularPolygon,,,,,,");
+        for (int k = 0; k < count; k++) {
+            double angle = 2 * Math.PI * k / count;
+            line.append(',').append(1000 * Math.cos(angle)).append(',').append(1000 * Math.sin(angle));
+        }
+        return line.append('\n').toString();
+    }
+
+    private static void assertRejected(String body, String format, int line, String what) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> read(body, format), what);
+        assertTrue(e.getMessage().startsWith(line + "번째 줄"), what + ": " + e.getMessage());
+    }
+
+    private static Scene read(String body, String format) throws IOException {
+        return new ShapeReader().read(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format);
+    }
+}